@@ -1,10 +1,18 @@
 package com.example.backend.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
 
@@ -18,9 +26,55 @@ public class DataSourceConfig {
         return new DataSourceProperties();
     }
 
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        return primaryDataSourceProperties().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Read replica with its own pool sizing (spring.datasource.replica.hikari)
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("spring.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.enabled", havingValue = "true")
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaDataSourceProperties) {
+        return replicaDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${spring.datasource.replica.max-lag-ms:1000}") long maxLagMs) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), meterRegistry, maxLagMs);
+    }
+
+    // What JPA, the transaction manager and jdbcTemplate use. Without a replica this is
+    // the primary pool itself; with one, read-only transactions are routed to it.
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor, MeterRegistry meterRegistry) {
+        HikariDataSource replica = replicaDataSource.getIfAvailable();
+        if (replica == null) {
+            return primaryDataSource();
+        }
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource(), replica,
+                replicaLagMonitor.getObject(), meterRegistry));
+    }
+
+    // The snowflakeJdbcTemplate bean switches off Boot's default JdbcTemplate, so the
+    // Postgres one is declared here
     @Bean
     @Primary
-    public DataSource primaryDataSource() {
-        return primaryDataSourceProperties().initializeDataSourceBuilder().build();
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
     }
 }
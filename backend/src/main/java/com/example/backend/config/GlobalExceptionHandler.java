@@ -1,12 +1,15 @@
 package com.example.backend.config;
 
+import com.example.backend.loan.MlUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -31,5 +34,22 @@ public class GlobalExceptionHandler {
         error.put("error", "Validation error: " + e.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
-}
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<Map<String, String>> handleMethodValidationException(HandlerMethodValidationException e) {
+        logger.error("Validation error: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Validation error: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(MlUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleMlUnavailable(MlUnavailableException e) {
+        logger.warn("ML service unavailable: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Risk scoring temporarily unavailable: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+}
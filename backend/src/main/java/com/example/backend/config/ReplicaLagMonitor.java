@@ -0,0 +1,68 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Polls how far the replica's replay is behind. Reads go to the replica only while the
+// last check succeeded within max-lag; it starts out unused until the first check passes.
+// A standby that has replayed everything it received counts as zero lag, because
+// pg_last_xact_replay_timestamp() stops moving when the primary is idle. A server that
+// is not in recovery (the one-instance, two-pool setup) is never behind.
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private volatile boolean usable;
+    private volatile double lagMs = Double.NaN;
+
+    public ReplicaLagMonitor(JdbcTemplate replica, MeterRegistry meterRegistry, long maxLagMs) {
+        this.replica = replica;
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("db.replica.lag", this, m -> m.lagMs).baseUnit("milliseconds")
+                .description("Replay lag of the read replica; NaN when the last check failed").register(meterRegistry);
+        Gauge.builder("db.replica.usable", this, m -> m.usable ? 1 : 0).register(meterRegistry);
+    }
+
+    public boolean usable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        boolean ok;
+        try {
+            Double lag = replica.queryForObject(LAG_SQL, Double.class);
+            lagMs = lag == null ? 0 : lag;
+            ok = lagMs <= maxLagMs;
+        } catch (DataAccessException e) {
+            lagMs = Double.NaN;
+            ok = false;
+            if (usable) {
+                logger.warn("Replica lag check failed, reading from the primary: {}", e.getMessage());
+            }
+        }
+        if (ok != usable) {
+            if (ok) {
+                logger.info("Replica caught up ({} ms behind), routing read-only transactions to it", (long) lagMs);
+            } else if (!Double.isNaN(lagMs)) {
+                logger.warn("Replica is {} ms behind (max {} ms), reading from the primary", (long) lagMs, maxLagMs);
+            }
+        }
+        usable = ok;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Sends read-only transactions to the replica pool while ReplicaLagMonitor reports it
+// caught up, and everything else to the primary. Has to sit behind a
+// LazyConnectionDataSourceProxy: the transaction manager fetches its connection before
+// it marks the transaction read-only, so the lookup must wait for the first statement.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.replicaReads = Counter.builder("db.reads.routed").tag("target", "replica")
+                .description("Read-only transactions by the pool that served them").register(meterRegistry);
+        this.fallbackReads = Counter.builder("db.reads.routed").tag("target", "primary")
+                .description("Read-only transactions by the pool that served them").register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        if (lagMonitor.usable()) {
+            replicaReads.increment();
+            return Target.REPLICA;
+        }
+        fallbackReads.increment();
+        return Target.PRIMARY;
+    }
+}
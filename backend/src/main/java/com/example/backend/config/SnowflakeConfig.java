@@ -1,17 +1,31 @@
 package com.example.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import com.zaxxer.hikari.HikariDataSource;
 
+// Nothing here touches Snowflake while the application starts. Both beans are lazy and
+// injected through @Lazy proxies, so the driver and the pool are created on the first
+// warehouse query. The DataSource is not an autowire candidate, which keeps it out of
+// Boot's "db" health check (a health probe would otherwise log in to Snowflake, and
+// retry for up to login-timeout-seconds when the account is unreachable).
 @Configuration
 public class SnowflakeConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeConfig.class);
+
     @Value("${snowflake.url}")
     private String snowflakeUrl;
 
@@ -30,7 +44,20 @@ public class SnowflakeConfig {
     @Value("${snowflake.warehouse}")
     private String snowflakeWarehouse;
 
-    @Bean(name = "snowflakeDataSource")
+    @Value("${snowflake.pool.initialization:lazy}")
+    private String initialization;
+
+    @Value("${snowflake.pool.login-timeout-seconds:60}")
+    private int loginTimeoutSeconds;
+
+    private final MeterRegistry meterRegistry;
+
+    public SnowflakeConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(name = "snowflakeDataSource", autowireCandidate = false)
+    @Lazy
     public DataSource snowflakeDataSource() {
         HikariDataSource dataSource = new HikariDataSource();
         dataSource.setDriverClassName("net.snowflake.client.jdbc.SnowflakeDriver");
@@ -43,19 +70,44 @@ public class SnowflakeConfig {
         dataSource.addDataSourceProperty("schema", snowflakeSchema);
         dataSource.addDataSourceProperty("warehouse", snowflakeWarehouse);
         dataSource.addDataSourceProperty("role", "PUBLIC"); // or your specific role
+        dataSource.addDataSourceProperty("loginTimeout", String.valueOf(loginTimeoutSeconds));
 
-        // Connection pool settings
+        // Connection pool settings; the name becomes the "pool" tag on hikaricp.* metrics
+        dataSource.setPoolName("snowflake");
         dataSource.setMaximumPoolSize(10);
         dataSource.setMinimumIdle(2);
         dataSource.setConnectionTimeout(30000);
         dataSource.setIdleTimeout(600000);
         dataSource.setMaxLifetime(1800000);
+        // Start the pool without a blocking login; Hikari's own threads open connections
+        // and callers wait at most connectionTimeout for one
+        dataSource.setInitializationFailTimeout(-1);
+        // Boot binds pool metrics only for autowire candidates
+        dataSource.setMetricRegistry(meterRegistry);
 
         return dataSource;
     }
 
     @Bean(name = "snowflakeJdbcTemplate")
+    @Lazy
     public JdbcTemplate snowflakeJdbcTemplate() {
         return new JdbcTemplate(snowflakeDataSource());
     }
+
+    // snowflake.pool.initialization=background: log in once the application is ready, so
+    // the first analytics query or COPY doesn't pay for it. Readiness never waits for this.
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPool() {
+        if (!"background".equalsIgnoreCase(initialization)) {
+            return;
+        }
+        Thread.ofVirtual().name("snowflake-pool-start").start(() -> {
+            long start = System.nanoTime();
+            try (Connection ignored = snowflakeDataSource().getConnection()) {
+                logger.info("Snowflake pool started in {} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (SQLException e) {
+                logger.warn("Could not start the Snowflake pool in the background: {}", e.getMessage());
+            }
+        });
+    }
 }
@@ -1,14 +1,53 @@
 package com.example.backend.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
+
+    // Dedicated pool for ml-service: bounded connections and a bounded acquire queue so
+    // a stalled model pod fails requests fast instead of queueing them without limit
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider mlConnectionProvider(@Value("${ml.client.max-connections:200}") int maxConnections,
+                                                   @Value("${ml.client.pending-acquire-max:1000}") int pendingAcquireMax,
+                                                   @Value("${ml.client.pending-acquire-timeout-ms:1000}") long pendingAcquireTimeoutMs,
+                                                   @Value("${ml.client.max-idle-ms:30000}") long maxIdleMs) {
+        return ConnectionProvider.builder("ml")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .evictInBackground(Duration.ofMillis(maxIdleMs))
+                .metrics(true)
+                .build();
+    }
+
+    // Boot's builder carries the observation registry, so ML calls get
+    // http.client.requests metrics and propagate trace headers.
+    // http2: cleartext HTTP/2 with prior knowledge, so concurrent calls are multiplexed as
+    // streams over a few connections (max-connections then bounds connections, not calls).
+    // ml-service must then speak h2c (ML_HTTP2=true runs it under Hypercorn). No h2c upgrade:
+    // servers may reject an upgrade request that has a body.
     @Bean
-    public WebClient mlWebClient(@Value("${ml.base-url}") String baseUrl) {
-        return WebClient.builder().baseUrl(baseUrl).build();
+    public WebClient mlWebClient(WebClient.Builder builder, ConnectionProvider mlConnectionProvider,
+                                 @Value("${ml.base-url}") String baseUrl,
+                                 @Value("${ml.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                                 @Value("${ml.client.response-timeout-ms:10000}") long responseTimeoutMs,
+                                 @Value("${ml.client.http2:false}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(mlConnectionProvider)
+                .protocol(http2 ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        return builder.baseUrl(baseUrl).clientConnector(new ReactorClientHttpConnector(httpClient)).build();
     }
 }
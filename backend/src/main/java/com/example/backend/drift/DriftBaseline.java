@@ -0,0 +1,139 @@
+package com.example.backend.drift;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Training-time distribution of each monitored series, written by
+// ml-service/training/train.py as drift-baseline.json: the share of missing values,
+// 101 percentiles of the present values (for KS) and decile bin edges with the share of
+// present values per bin (for PSI). A value is in bin i when exactly i edges are below it.
+public final class DriftBaseline {
+
+    // Floor for empty bins, so PSI stays finite
+    private static final double EPSILON = 1e-4;
+
+    public record Series(long count, double missing, double[] quantiles, double[] edges, double[] proportions) {
+
+        public int bins() {
+            return edges.length + 1;
+        }
+
+        public int bin(double x) {
+            int lo = 0;
+            int hi = edges.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (edges[mid] < x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // Step CDF through the percentiles: the share of percentile points at or below x
+        double cdf(double x) {
+            int below = 0;
+            for (int i = 1; i < quantiles.length; i++) {
+                if (quantiles[i] <= x) {
+                    below++;
+                }
+            }
+            return (double) below / (quantiles.length - 1);
+        }
+    }
+
+    private final String version;
+    private final Map<String, Series> series;
+
+    private DriftBaseline(String version, Map<String, Series> series) {
+        this.version = version;
+        this.series = series;
+    }
+
+    public static DriftBaseline parse(byte[] json) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(json);
+        JsonNode seriesNode = root.path("series");
+        if (!seriesNode.isObject()) {
+            throw new IllegalArgumentException("Drift baseline has no 'series' object");
+        }
+        Map<String, Series> series = new LinkedHashMap<>();
+        seriesNode.fields().forEachRemaining(e -> {
+            JsonNode s = e.getValue();
+            Series parsed = new Series(s.path("count").asLong(), s.path("missing").asDouble(),
+                    doubles(s.path("quantiles")), doubles(s.path("edges")), doubles(s.path("proportions")));
+            if (parsed.proportions().length != parsed.bins() || parsed.quantiles().length < 2) {
+                throw new IllegalArgumentException("Drift baseline series " + e.getKey() + " is malformed");
+            }
+            series.put(e.getKey(), parsed);
+        });
+        return new DriftBaseline(contentHash(json), series);
+    }
+
+    // Content hash; replicas only merge histograms binned against the same baseline
+    public String version() {
+        return version;
+    }
+
+    public Series series(String name) {
+        return series.get(name);
+    }
+
+    // Population stability index over the baseline bins plus a missing-value bin
+    public static double psi(Series expected, long[] bins, long missing) {
+        long present = 0;
+        for (long b : bins) {
+            present += b;
+        }
+        double total = present + missing;
+        double psi = term(expected.missing(), missing / total);
+        for (int i = 0; i < bins.length; i++) {
+            psi += term(expected.proportions()[i] * (1 - expected.missing()), bins[i] / total);
+        }
+        return psi;
+    }
+
+    // Kolmogorov-Smirnov distance between the present values and the baseline, evaluated
+    // at the baseline percentiles and at the live sketch's own percentiles
+    public static double ks(Series expected, KllSketch.SortedView live) {
+        double ks = 0;
+        for (double x : expected.quantiles()) {
+            ks = Math.max(ks, Math.abs(live.cdf(x) - expected.cdf(x)));
+        }
+        for (int i = 0; i <= 100; i++) {
+            double x = live.quantile(i / 100.0);
+            ks = Math.max(ks, Math.abs(live.cdf(x) - expected.cdf(x)));
+        }
+        return ks;
+    }
+
+    private static double term(double expected, double actual) {
+        double e = Math.max(expected, EPSILON);
+        double a = Math.max(actual, EPSILON);
+        return (a - e) * Math.log(a / e);
+    }
+
+    private static double[] doubles(JsonNode array) {
+        double[] values = new double[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i).asDouble();
+        }
+        return values;
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)).substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend.drift;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/drift")
+public class DriftController {
+
+    private final DriftMonitor driftMonitor;
+
+    public DriftController(DriftMonitor driftMonitor) {
+        this.driftMonitor = driftMonitor;
+    }
+
+    // This instance only
+    @GetMapping
+    public Map<String, Object> report() {
+        return driftMonitor.report();
+    }
+
+    // Mergeable state for POST /drift/merge on any replica
+    @GetMapping("/sketches")
+    public Map<String, Object> sketches() {
+        return driftMonitor.snapshot().toMap();
+    }
+
+    // Fleet-wide drift from the /drift/sketches of several replicas
+    @PostMapping("/merge")
+    public ResponseEntity<?> merge(@RequestBody List<Map<String, Object>> snapshots) {
+        if (snapshots.isEmpty()) {
+            return error("No snapshots to merge");
+        }
+        try {
+            DriftSnapshot merged = DriftSnapshot.fromMap(snapshots.get(0));
+            for (Map<String, Object> snapshot : snapshots.subList(1, snapshots.size())) {
+                merged.merge(DriftSnapshot.fromMap(snapshot));
+            }
+            return ResponseEntity.ok(driftMonitor.report(merged));
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> error(String message) {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.backend.drift;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Distribution of every model input and of risk_score over the recent applications of
+// this instance, compared with the training distribution (DriftBaseline). Each saved
+// application updates a KLL sketch and a histogram over the baseline's bins per series,
+// so PSI and KS are available at any time without scanning V_LOAN_APPLICATIONS.
+// Sketches are striped by thread to keep concurrent /loans/apply calls off a shared
+// lock. State covers the current and previous window, so a report always spans between
+// one and two windows of traffic.
+@Component
+public class DriftMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriftMonitor.class);
+
+    public static final String RISK_SCORE = "risk_score";
+
+    private static final double PSI_MODERATE = 0.1;
+    private static final double PSI_DRIFTED = 0.25;
+
+    // Series order: the FeatureSchema slots, then risk_score
+    private static final List<String> SERIES = new ArrayList<>();
+
+    static {
+        FeatureSchema.features().forEach(f -> SERIES.add(f.modelName()));
+        SERIES.add(RISK_SCORE);
+    }
+
+    private final DriftBaseline baseline;
+    private final boolean enabled;
+    private final int k;
+    private final int stripes;
+    private final Duration window;
+    private final long minSamples;
+
+    private volatile Window current;
+    private volatile Window previous;
+
+    // Last values computed by refresh(), read by the gauges; NaN until min-samples is reached
+    private final double[] psi = new double[SERIES.size()];
+    private final double[] ks = new double[SERIES.size()];
+
+    public DriftMonitor(ResourceLoader resourceLoader, MeterRegistry meterRegistry,
+                        @Value("${ml.drift.enabled:true}") boolean enabled,
+                        @Value("${ml.drift.baseline:file:${ml.local.artifacts-dir:../ml-service/artifacts}/drift-baseline.json}") String location,
+                        @Value("${ml.drift.sketch-k:200}") int k,
+                        @Value("${ml.drift.stripes:8}") int stripes,
+                        @Value("${ml.drift.window-minutes:60}") long windowMinutes,
+                        @Value("${ml.drift.min-samples:500}") long minSamples) {
+        this.enabled = enabled;
+        this.baseline = enabled ? load(resourceLoader.getResource(location)) : null;
+        this.k = k;
+        this.stripes = stripes;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.minSamples = minSamples;
+        this.current = new Window(Instant.now());
+
+        Arrays.fill(psi, Double.NaN);
+        Arrays.fill(ks, Double.NaN);
+        for (int i = 0; i < SERIES.size(); i++) {
+            int slot = i;
+            Gauge.builder("ml.drift.psi", psi, values -> values[slot]).tag("feature", SERIES.get(i))
+                    .description("Population stability index against the training baseline").register(meterRegistry);
+            Gauge.builder("ml.drift.ks", ks, values -> values[slot]).tag("feature", SERIES.get(i))
+                    .description("Kolmogorov-Smirnov distance to the training baseline").register(meterRegistry);
+        }
+    }
+
+    private static DriftBaseline load(Resource resource) {
+        if (!resource.exists()) {
+            logger.warn("No drift baseline at {}; drift is reported without PSI/KS until train.py writes one", resource);
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            DriftBaseline loaded = DriftBaseline.parse(in.readAllBytes());
+            logger.info("Loaded drift baseline {} from {}", loaded.version(), resource);
+            return loaded;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Ignoring unreadable drift baseline {}: {}", resource, e.getMessage());
+            return null;
+        }
+    }
+
+    // Called by LoanService after commit; rule decisions have no risk_score
+    public void record(List<LoanApplicationEntity> saved) {
+        if (!enabled) {
+            return;
+        }
+        Stripe stripe = current.stripes[(int) (Thread.currentThread().threadId() % stripes)];
+        synchronized (stripe) {
+            for (LoanApplicationEntity e : saved) {
+                FeatureVector features = e.getPayload();
+                if (features != null) {
+                    for (int i = 0; i < FeatureSchema.SIZE; i++) {
+                        stripe.add(i, features.isMissing(i) ? Double.NaN : features.get(i));
+                    }
+                }
+                if (e.getRiskScore() != null) {
+                    stripe.add(FeatureSchema.SIZE, e.getRiskScore());
+                }
+            }
+        }
+    }
+
+    // Local state of the current and previous windows, for /drift and for peers to merge
+    public DriftSnapshot snapshot() {
+        Window cur = current;
+        Window prev = previous;
+        Map<String, DriftSnapshot.Series> series = new LinkedHashMap<>();
+        for (int i = 0; i < SERIES.size(); i++) {
+            series.put(SERIES.get(i), new DriftSnapshot.Series(new KllSketch(k), new long[bins(i)], 0));
+        }
+        DriftSnapshot snapshot = new DriftSnapshot(baselineVersion(), prev != null ? prev.start : cur.start,
+                Instant.now(), 1, series);
+        for (Window w : prev != null ? List.of(prev, cur) : List.of(cur)) {
+            for (Stripe stripe : w.stripes) {
+                synchronized (stripe) {
+                    for (int i = 0; i < SERIES.size(); i++) {
+                        series.get(SERIES.get(i)).merge(new DriftSnapshot.Series(
+                                stripe.sketches[i], stripe.bins[i], stripe.missing[i]));
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public Map<String, Object> report() {
+        return report(snapshot());
+    }
+
+    // PSI, KS and a status per series, worst status overall. Snapshots from another
+    // baseline are rejected: their histograms are over different bins.
+    public Map<String, Object> report(DriftSnapshot snapshot) {
+        if (baseline != null && !baseline.version().equals(snapshot.baselineVersion())) {
+            throw new IllegalArgumentException("Snapshot was taken against drift baseline "
+                    + snapshot.baselineVersion() + ", this instance uses " + baseline.version());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("baseline_version", baseline != null ? baseline.version() : null);
+        report.put("from", snapshot.from());
+        report.put("to", snapshot.to());
+        report.put("instances", snapshot.instances());
+        report.put("status", baseline != null ? "insufficient_data" : "no_baseline");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        snapshot.series().forEach((name, s) -> {
+            KllSketch.SortedView view = s.sketch().sortedView();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("series", name);
+            row.put("count", s.count());
+            row.put("missing_rate", s.count() == 0 ? null : (double) s.missing() / s.count());
+            row.put("p50", s.sketch().count() == 0 ? null : view.quantile(0.5));
+            row.put("p90", s.sketch().count() == 0 ? null : view.quantile(0.9));
+            DriftBaseline.Series expected = baseline != null ? baseline.series(name) : null;
+            if (expected != null) {
+                row.put("baseline_p50", expected.quantiles()[expected.quantiles().length / 2]);
+                if (s.count() >= minSamples && s.sketch().count() > 0) {
+                    double p = DriftBaseline.psi(expected, s.bins(), s.missing());
+                    String status = p < PSI_MODERATE ? "stable" : p < PSI_DRIFTED ? "moderate" : "drifted";
+                    row.put("psi", p);
+                    row.put("ks", DriftBaseline.ks(expected, view));
+                    row.put("status", status);
+                    report.put("status", worse((String) report.get("status"), status));
+                } else {
+                    row.put("status", "insufficient_data");
+                }
+            }
+            rows.add(row);
+        });
+        report.put("series", rows);
+        return report;
+    }
+
+    // Rotates the window and republishes the gauges
+    @Scheduled(fixedDelayString = "${ml.drift.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (Duration.between(current.start, now).compareTo(window) >= 0) {
+            // A record() that read the old window just before this still lands in it,
+            // and it stays visible as the previous window
+            previous = current;
+            current = new Window(now);
+        }
+        if (baseline == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) report().get("series");
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            psi[i] = row.get("psi") instanceof Double p ? p : Double.NaN;
+            ks[i] = row.get("ks") instanceof Double d ? d : Double.NaN;
+        }
+    }
+
+    private String baselineVersion() {
+        return baseline != null ? baseline.version() : null;
+    }
+
+    private int bins(int series) {
+        DriftBaseline.Series expected = baseline != null ? baseline.series(SERIES.get(series)) : null;
+        return expected != null ? expected.bins() : 0;
+    }
+
+    private static String worse(String a, String b) {
+        List<String> order = List.of("insufficient_data", "stable", "moderate", "drifted");
+        return order.indexOf(b) > order.indexOf(a) ? b : a;
+    }
+
+    private final class Window {
+        final Instant start;
+        final Stripe[] stripes;
+
+        Window(Instant start) {
+            this.start = start;
+            this.stripes = new Stripe[DriftMonitor.this.stripes];
+            for (int i = 0; i < this.stripes.length; i++) {
+                this.stripes[i] = new Stripe();
+            }
+        }
+    }
+
+    // One sketch, histogram and missing count per series; guarded by its own monitor
+    private final class Stripe {
+        final KllSketch[] sketches = new KllSketch[SERIES.size()];
+        final long[][] bins = new long[SERIES.size()][];
+        final long[] missing = new long[SERIES.size()];
+
+        Stripe() {
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i] = new KllSketch(k);
+                bins[i] = new long[DriftMonitor.this.bins(i)];
+            }
+        }
+
+        void add(int series, double value) {
+            if (Double.isNaN(value)) {
+                missing[series]++;
+                return;
+            }
+            sketches[series].update(value);
+            if (bins[series].length > 0) {
+                bins[series][baseline.series(SERIES.get(series)).bin(value)]++;
+            }
+        }
+    }
+}
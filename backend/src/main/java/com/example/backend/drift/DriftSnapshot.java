@@ -0,0 +1,147 @@
+package com.example.backend.drift;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Point-in-time copy of the drift state of one or more instances: per series, a KLL
+// sketch of the present values, counts per baseline bin, and the missing count. This is
+// what GET /drift/sketches returns and POST /drift/merge combines, so drift can be scored
+// across replicas without any of them reading the others' applications.
+public final class DriftSnapshot {
+
+    public static final class Series {
+        private final KllSketch sketch;
+        private final long[] bins;
+        private long missing;
+
+        Series(KllSketch sketch, long[] bins, long missing) {
+            this.sketch = sketch;
+            this.bins = bins;
+            this.missing = missing;
+        }
+
+        public KllSketch sketch() {
+            return sketch;
+        }
+
+        public long[] bins() {
+            return bins;
+        }
+
+        public long missing() {
+            return missing;
+        }
+
+        public long count() {
+            return sketch.count() + missing;
+        }
+
+        void merge(Series other) {
+            if (bins.length != other.bins.length) {
+                throw new IllegalArgumentException("Histograms have different bins");
+            }
+            sketch.merge(other.sketch);
+            for (int i = 0; i < bins.length; i++) {
+                bins[i] += other.bins[i];
+            }
+            missing += other.missing;
+        }
+    }
+
+    private final String baselineVersion;
+    private Instant from;
+    private Instant to;
+    private int instances;
+    private final Map<String, Series> series;
+
+    DriftSnapshot(String baselineVersion, Instant from, Instant to, int instances, Map<String, Series> series) {
+        this.baselineVersion = baselineVersion;
+        this.from = from;
+        this.to = to;
+        this.instances = instances;
+        this.series = series;
+    }
+
+    public String baselineVersion() {
+        return baselineVersion;
+    }
+
+    public Instant from() {
+        return from;
+    }
+
+    public Instant to() {
+        return to;
+    }
+
+    public int instances() {
+        return instances;
+    }
+
+    public Map<String, Series> series() {
+        return series;
+    }
+
+    // Folds other into this one; both must be binned against the same baseline
+    public void merge(DriftSnapshot other) {
+        if (!String.valueOf(baselineVersion).equals(String.valueOf(other.baselineVersion))) {
+            throw new IllegalArgumentException("Cannot merge drift snapshots of baseline "
+                    + other.baselineVersion + " into " + baselineVersion);
+        }
+        other.series.forEach((name, s) -> {
+            Series mine = series.get(name);
+            if (mine == null) {
+                series.put(name, new Series(KllSketch.fromBytes(s.sketch.toBytes()), s.bins.clone(), s.missing));
+            } else {
+                mine.merge(s);
+            }
+        });
+        from = from.isBefore(other.from) ? from : other.from;
+        to = to.isAfter(other.to) ? to : other.to;
+        instances += other.instances;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("baseline_version", baselineVersion);
+        out.put("from", from.toString());
+        out.put("to", to.toString());
+        out.put("instances", instances);
+        Map<String, Object> seriesOut = new LinkedHashMap<>();
+        series.forEach((name, s) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("sketch", Base64.getEncoder().encodeToString(s.sketch.toBytes()));
+            item.put("bins", s.bins);
+            item.put("missing", s.missing);
+            seriesOut.put(name, item);
+        });
+        out.put("series", seriesOut);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static DriftSnapshot fromMap(Map<String, Object> map) {
+        try {
+            Map<String, Series> series = new LinkedHashMap<>();
+            ((Map<String, Map<String, Object>>) map.get("series")).forEach((name, item) -> {
+                List<Number> bins = item.get("bins") == null ? List.of() : (List<Number>) item.get("bins");
+                long[] counts = new long[bins.size()];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = bins.get(i).longValue();
+                }
+                KllSketch sketch = KllSketch.fromBytes(Base64.getDecoder().decode((String) item.get("sketch")));
+                series.put(name, new Series(sketch, counts, ((Number) item.get("missing")).longValue()));
+            });
+            Object instances = map.get("instances");
+            return new DriftSnapshot((String) map.get("baseline_version"),
+                    Instant.parse((String) map.get("from")), Instant.parse((String) map.get("to")),
+                    instances == null ? 1 : ((Number) instances).intValue(), series);
+        } catch (ClassCastException | NullPointerException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed drift snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.backend.drift;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// KLL quantile sketch (Karnin, Lang, Liberty 2016). Items live in levels of compactors;
+// an item at level h stands for 2^h inputs. When the sketch outgrows its capacity, the
+// lowest full level is sorted and every other item, from a random offset, is promoted one
+// level up. Capacities shrink geometrically (by 2/3) below the top level, so memory is
+// about 3k doubles whatever the stream length, with rank error around 1.7/k.
+// Two sketches merge by concatenating levels and compacting, which is what lets stripes
+// and replicas be combined. Not thread-safe; DriftMonitor guards each instance.
+public final class KllSketch {
+
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 8;
+    private static final int FORMAT_VERSION = 1;
+
+    private final int k;
+    private final SplittableRandom random = new SplittableRandom();
+    private double[][] levels;
+    private int[] sizes;
+    // capacities[h] for the current number of levels; recomputed when a level is added
+    private int[] capacities;
+    private int totalSize;
+    private int totalCapacity;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public KllSketch(int k) {
+        if (k < MIN_CAPACITY) {
+            throw new IllegalArgumentException("KLL k must be at least " + MIN_CAPACITY);
+        }
+        this.k = k;
+        this.levels = new double[][]{new double[MIN_CAPACITY]};
+        this.sizes = new int[1];
+        computeCapacities();
+    }
+
+    public void update(double x) {
+        if (Double.isNaN(x)) {
+            throw new IllegalArgumentException("KLL sketch does not take NaN");
+        }
+        append(0, x);
+        count++;
+        min = count == 1 ? x : Math.min(min, x);
+        max = count == 1 ? x : Math.max(max, x);
+        compress();
+    }
+
+    public void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        compress();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    // Items with their cumulative weights, sorted; answers cdf and quantile queries
+    public SortedView sortedView() {
+        int total = totalSize;
+        double[] values = new double[total];
+        long[] weights = new long[total];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n++] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        double[] sorted = new double[total];
+        long[] cumulative = new long[total];
+        long running = 0;
+        for (int i = 0; i < total; i++) {
+            sorted[i] = values[order[i]];
+            running += weights[order[i]];
+            cumulative[i] = running;
+        }
+        return new SortedView(sorted, cumulative, running);
+    }
+
+    public record SortedView(double[] values, long[] cumulative, long total) {
+
+        // Estimated fraction of inputs <= x
+        public double cdf(double x) {
+            if (total == 0) {
+                return Double.NaN;
+            }
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo == 0 ? 0.0 : (double) cumulative[lo - 1] / total;
+        }
+
+        // Smallest item whose estimated rank reaches q
+        public double quantile(double q) {
+            if (total == 0) {
+                return Double.NaN;
+            }
+            long target = (long) Math.ceil(q * total);
+            for (int i = 0; i < values.length; i++) {
+                if (cumulative[i] >= target) {
+                    return values[i];
+                }
+            }
+            return values[values.length - 1];
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(k);
+            out.writeLong(count);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            out.writeInt(levels.length);
+            for (int h = 0; h < levels.length; h++) {
+                out.writeInt(sizes[h]);
+                for (int i = 0; i < sizes[h]; i++) {
+                    out.writeDouble(levels[h][i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static KllSketch fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported KLL sketch format " + version);
+            }
+            KllSketch sketch = new KllSketch(in.readInt());
+            sketch.count = in.readLong();
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            int numLevels = in.readInt();
+            for (int h = 0; h < numLevels; h++) {
+                if (h > 0) {
+                    sketch.addLevel();
+                }
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    sketch.append(h, in.readDouble());
+                }
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated KLL sketch", e);
+        }
+    }
+
+    // Level 0 is the bottom (weight 1); the top level holds k items
+    private void computeCapacities() {
+        capacities = new int[levels.length];
+        totalCapacity = 0;
+        for (int h = 0; h < levels.length; h++) {
+            int depth = levels.length - 1 - h;
+            capacities[h] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+            totalCapacity += capacities[h];
+        }
+    }
+
+    private void compress() {
+        while (totalSize > totalCapacity) {
+            for (int h = 0; h < levels.length; h++) {
+                if (sizes[h] >= capacities[h]) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Promotes every other item of a sorted level; an odd one out stays behind, so the
+    // total weight is preserved exactly
+    private void compact(int h) {
+        if (h + 1 == levels.length) {
+            addLevel();
+        }
+        double[] items = levels[h];
+        int n = sizes[h];
+        Arrays.sort(items, 0, n);
+        int keep = n % 2;
+        for (int i = random.nextInt(2); i < n - keep; i += 2) {
+            append(h + 1, items[i]);
+        }
+        if (keep == 1) {
+            items[0] = items[n - 1];
+        }
+        sizes[h] = keep;
+        totalSize -= n - keep;
+    }
+
+    private void append(int h, double x) {
+        if (sizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], levels[h].length * 2);
+        }
+        levels[h][sizes[h]++] = x;
+        totalSize++;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new double[MIN_CAPACITY];
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        computeCapacities();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.FeatureSchema;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Streams applications from a CSV in the cs-training.csv layout (what
+// ml-service/training/train.py reads). Only one line is held at a time. Columns are
+// matched to FeatureSchema by header name in either spelling; the unnamed index
+// column, SeriousDlqin2yrs and anything else unknown are ignored. "NA" and empty cells
+// are missing values (NaN), as pandas reads them.
+public class CsvApplicationReader implements Closeable {
+
+    // error is null for a parsed row; values is then in FeatureSchema order
+    public record Row(long line, double[] values, String error) {
+    }
+
+    private final BufferedReader in;
+    // FeatureSchema slot of each CSV column, -1 for ignored columns
+    private final int[] slots;
+    private long line;
+    private long charsRead;
+
+    public CsvApplicationReader(Reader reader) throws IOException {
+        this.in = reader instanceof BufferedReader b ? b : new BufferedReader(reader, 64 * 1024);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty");
+        }
+        line = 1;
+        charsRead = header.length() + 1;
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+
+        String[] names = header.split(",", -1);
+        this.slots = new int[names.length];
+        boolean[] seen = new boolean[FeatureSchema.SIZE];
+        for (int i = 0; i < names.length; i++) {
+            int slot = FeatureSchema.indexOf(unquote(names[i].trim()));
+            slots[i] = slot;
+            if (slot >= 0) {
+                seen[slot] = true;
+            }
+        }
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            if (!seen[f.index()]) {
+                throw new IllegalArgumentException("CSV header is missing column " + f.modelName());
+            }
+        }
+    }
+
+    // Data rows in file order; null at end of file. Blank lines are skipped.
+    public Row next() throws IOException {
+        String text;
+        do {
+            text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            charsRead += text.length() + 1;
+        } while (text.isBlank());
+        return parse(line, text);
+    }
+
+    // Lines consumed so far, header included
+    public long line() {
+        return line;
+    }
+
+    // Approximate bytes consumed (exact for ASCII files), for progress reporting
+    public long charsRead() {
+        return charsRead;
+    }
+
+    private Row parse(long lineNumber, String text) {
+        double[] values = new double[FeatureSchema.SIZE];
+        Arrays.fill(values, Double.NaN);
+        int column = 0;
+        int start = 0;
+        int length = text.length();
+        while (start <= length) {
+            int end = text.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (column >= slots.length) {
+                return new Row(lineNumber, null, "expected " + slots.length + " columns");
+            }
+            int slot = slots[column];
+            if (slot >= 0) {
+                String cell = unquote(text.substring(start, end).trim());
+                if (!cell.isEmpty() && !cell.equals("NA")) {
+                    try {
+                        values[slot] = Double.parseDouble(cell);
+                    } catch (NumberFormatException e) {
+                        return new Row(lineNumber, null,
+                                FeatureSchema.get(slot).name() + " is not a number: " + cell);
+                    }
+                }
+            }
+            column++;
+            start = end + 1;
+        }
+        if (column != slots.length) {
+            return new Row(lineNumber, null, "expected " + slots.length + " columns, got " + column);
+        }
+        return new Row(lineNumber, values, null);
+    }
+
+    private static String unquote(String s) {
+        return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"'
+                ? s.substring(1, s.length() - 1) : s;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
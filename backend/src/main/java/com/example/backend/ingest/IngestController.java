@@ -0,0 +1,87 @@
+package com.example.backend.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Bulk backfill of legacy applications from CSV files placed under ingest.base-dir
+@RestController
+@RequestMapping("/ingest/jobs")
+public class IngestController {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestController.class);
+
+    public record StartRequest(String source) {
+    }
+
+    private final IngestService ingestService;
+
+    public IngestController(IngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestBody StartRequest request) {
+        try {
+            IngestJobEntity job = ingestService.start(request.source());
+            logger.info("Started ingestion job {} for {}", job.getId(), job.getSource());
+            return accepted(job.getId());
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> recent() {
+        return ingestService.recent();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable UUID id) {
+        return ingestService.status(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Unknown job " + id));
+    }
+
+    // Continues a failed, cancelled or interrupted job from its checkpoint
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable UUID id) {
+        try {
+            ingestService.resume(id);
+            return accepted(id);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable UUID id) {
+        try {
+            ingestService.cancel(id);
+            return accepted(id);
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> accepted(UUID id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestService.status(id).orElseThrow());
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
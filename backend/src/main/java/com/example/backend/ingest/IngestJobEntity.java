@@ -0,0 +1,130 @@
+package com.example.backend.ingest;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+// One bulk ingestion run. checkpoint_line is the last CSV line (header = 1) up to which
+// every row has been stored or rejected; a resumed run starts after it.
+@Entity
+@Table(name = "ingest_jobs")
+public class IngestJobEntity {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "checkpoint_line", nullable = false)
+    private long checkpointLine = 1;
+
+    @Column(name = "rows_accepted", nullable = false)
+    private long rowsAccepted;
+
+    @Column(name = "rows_rejected", nullable = false)
+    private long rowsRejected;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    // Also the created_at of the job's applications; microseconds, as Postgres stores it
+    private Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // getters/setters
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getCheckpointLine() {
+        return checkpointLine;
+    }
+
+    public void setCheckpointLine(long checkpointLine) {
+        this.checkpointLine = checkpointLine;
+    }
+
+    public long getRowsAccepted() {
+        return rowsAccepted;
+    }
+
+    public void setRowsAccepted(long rowsAccepted) {
+        this.rowsAccepted = rowsAccepted;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
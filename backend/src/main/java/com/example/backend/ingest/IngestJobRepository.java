@@ -0,0 +1,18 @@
+package com.example.backend.ingest;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IngestJobRepository extends JpaRepository<IngestJobEntity, UUID> {
+
+    List<IngestJobEntity> findTop20ByOrderByCreatedAtDesc();
+
+    // Read-write so it is served by the primary; resume must see the latest checkpoint
+    @Override
+    @Transactional
+    Optional<IngestJobEntity> findById(UUID id);
+}
@@ -0,0 +1,450 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.AdmissionLimiter;
+import com.example.backend.loan.AdmissionRejectedException;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import com.example.backend.loan.MlPredictResponse;
+import com.example.backend.loan.RiskAggregates;
+import com.example.backend.loan.RiskScorer;
+import com.example.backend.loan.TimeOrderedUuid;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Backfills applications from a CSV file under ingest.base-dir. One thread streams the
+// file and cuts it into chunks; up to `parallelism` chunks are scored (scoreBatch) and
+// stored (IngestWriter) concurrently, so memory stays at about
+// (parallelism + 1) * chunk-size rows whatever the file size. Chunks finish out of
+// order; the checkpoint only advances over a contiguous run of finished chunks, and a
+// resumed job re-reads from there, with IngestWriter skipping rows already stored.
+// Scoring goes through the AdmissionLimiter at batch priority, behind live traffic.
+@Service
+public class IngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestService.class);
+
+    private static final int MAX_REJECT_SAMPLES = 20;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private record Chunk(long seq, long lastLine, long[] lines, List<FeatureVector> vectors, int rejected) {
+    }
+
+    private final RiskScorer scorer;
+    private final AdmissionLimiter admission;
+    private final IngestWriter writer;
+    private final IngestJobRepository jobRepo;
+    private final RiskAggregates riskAggregates;
+    private final RequestConstraints constraints = new RequestConstraints();
+    private final Path baseDir;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    private final Counter acceptedRows;
+    private final Counter rejectedRows;
+    private final Timer chunkTimer;
+
+    private final AtomicReference<RunningJob> active = new AtomicReference<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public IngestService(RiskScorer scorer, AdmissionLimiter admission, IngestWriter writer,
+                         IngestJobRepository jobRepo, RiskAggregates riskAggregates, MeterRegistry meterRegistry,
+                         @Value("${ingest.base-dir:/data/ingest}") String baseDir,
+                         @Value("${ingest.chunk-size:1000}") int chunkSize,
+                         @Value("${ingest.parallelism:4}") int parallelism,
+                         @Value("${ingest.max-attempts:3}") int maxAttempts,
+                         @Value("${ingest.retry-backoff-ms:2000}") long retryBackoffMs) {
+        this.scorer = scorer;
+        this.admission = admission;
+        this.writer = writer;
+        this.jobRepo = jobRepo;
+        this.riskAggregates = riskAggregates;
+        this.baseDir = Path.of(baseDir).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+
+        this.acceptedRows = Counter.builder("ingest.rows").tag("outcome", "accepted").register(meterRegistry);
+        this.rejectedRows = Counter.builder("ingest.rows").tag("outcome", "rejected").register(meterRegistry);
+        this.chunkTimer = Timer.builder("ingest.chunk").description("Scoring and storing one ingestion chunk")
+                .publishPercentileHistogram().register(meterRegistry);
+        Gauge.builder("ingest.progress", active, a -> a.get() == null ? 0.0 : a.get().progress())
+                .description("Fraction of the running job's file read, 0 when idle")
+                .register(meterRegistry);
+    }
+
+    public IngestJobEntity start(String source) {
+        Path path = resolve(source);
+        IngestJobEntity job = new IngestJobEntity();
+        job.setSource(baseDir.relativize(path).toString());
+        return launch(job, path);
+    }
+
+    public IngestJobEntity resume(UUID id) {
+        IngestJobEntity job = jobRepo.findById(id).orElseThrow(() -> new IllegalArgumentException("Unknown job " + id));
+        if (job.getStatus() == IngestJobEntity.Status.COMPLETED) {
+            throw new IllegalStateException("Job " + id + " already completed");
+        }
+        return launch(job, resolve(job.getSource()));
+    }
+
+    public void cancel(UUID id) {
+        RunningJob running = active.get();
+        if (running == null || !id.equals(running.job.getId())) {
+            throw new IllegalStateException("Job " + id + " is not running");
+        }
+        running.cancelled = true;
+    }
+
+    public Optional<Map<String, Object>> status(UUID id) {
+        RunningJob running = active.get();
+        if (running != null && id.equals(running.job.getId())) {
+            return Optional.of(running.describe());
+        }
+        return jobRepo.findById(id).map(IngestService::describe);
+    }
+
+    public List<Map<String, Object>> recent() {
+        RunningJob running = active.get();
+        return jobRepo.findTop20ByOrderByCreatedAtDesc().stream()
+                .map(job -> running != null && job.getId().equals(running.job.getId())
+                        ? running.describe() : describe(job))
+                .toList();
+    }
+
+    private IngestJobEntity launch(IngestJobEntity job, Path path) {
+        long fileSize;
+        try {
+            fileSize = Files.size(path);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + job.getSource() + ": " + e.getMessage());
+        }
+        RunningJob running = new RunningJob(job, path, fileSize);
+        if (!active.compareAndSet(null, running)) {
+            throw new IllegalStateException("Another ingestion job is already running");
+        }
+        try {
+            job.setStatus(IngestJobEntity.Status.RUNNING);
+            job.setLastError(null);
+            job.setFinishedAt(null);
+            job.setUpdatedAt(Instant.now());
+            running.job = jobRepo.save(job);
+        } catch (RuntimeException e) {
+            active.set(null);
+            throw e;
+        }
+        Thread.ofPlatform().name("ingest-" + running.job.getId()).daemon().start(() -> run(running));
+        return running.job;
+    }
+
+    private void run(RunningJob running) {
+        IngestJobEntity job = running.job;
+        long checkpoint = job.getCheckpointLine();
+        logger.info("Ingestion job {} reading {} from line {}", job.getId(), job.getSource(), checkpoint + 1);
+        Semaphore slots = new Semaphore(parallelism);
+        try (CsvApplicationReader reader = new CsvApplicationReader(
+                Files.newBufferedReader(running.path, StandardCharsets.UTF_8))) {
+            long seq = 0;
+            long[] lines = new long[chunkSize];
+            List<FeatureVector> vectors = new ArrayList<>(chunkSize);
+            int rejected = 0;
+            CsvApplicationReader.Row row;
+            while (!running.stopped() && (row = reader.next()) != null) {
+                running.charsRead = reader.charsRead();
+                if (row.line() <= checkpoint) {
+                    continue;
+                }
+                String error = row.error() != null ? row.error() : constraints.check(row.values());
+                if (error == null) {
+                    lines[vectors.size()] = row.line();
+                    vectors.add(FeatureVector.of(row.values()));
+                } else {
+                    rejected++;
+                    running.sampleReject(row.line(), error);
+                }
+                if (vectors.size() + rejected == chunkSize) {
+                    submit(running, slots, new Chunk(seq++, row.line(), lines, vectors, rejected));
+                    lines = new long[chunkSize];
+                    vectors = new ArrayList<>(chunkSize);
+                    rejected = 0;
+                }
+            }
+            if (!running.stopped() && (vectors.size() + rejected > 0 || seq == 0)) {
+                submit(running, slots, new Chunk(seq, reader.line(), lines, vectors, rejected));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.fail(e);
+        } catch (Exception e) {
+            running.fail(e);
+        }
+        // in-flight chunks still move the checkpoint, so wait for them before finishing
+        slots.acquireUninterruptibly(parallelism);
+        finish(running);
+    }
+
+    private void submit(RunningJob running, Semaphore slots, Chunk chunk) throws InterruptedException {
+        slots.acquire();
+        workers.execute(() -> {
+            try {
+                chunkTimer.record(() -> process(running, chunk));
+                running.completed(chunk);
+            } catch (Exception e) {
+                running.fail(e);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    // Retried as a whole; a chunk that was partly stored before failing is safe to redo.
+    // A chunk that is not admitted waits out Retry-After without using up an attempt.
+    private void process(RunningJob running, Chunk chunk) {
+        if (chunk.vectors().isEmpty()) {
+            return;
+        }
+        int attempt = 1;
+        while (true) {
+            try {
+                store(running, chunk);
+                return;
+            } catch (AdmissionRejectedException e) {
+                if (running.stopped()) {
+                    throw e;
+                }
+                logger.debug("Ingestion job {} chunk ending at line {} not admitted, retrying in {} s",
+                        running.job.getId(), chunk.lastLine(), e.getRetryAfterSeconds());
+                backOff(Duration.ofSeconds(e.getRetryAfterSeconds()), e);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || running.stopped()) {
+                    throw e;
+                }
+                logger.warn("Ingestion job {} chunk ending at line {} failed (attempt {}/{}): {}",
+                        running.job.getId(), chunk.lastLine(), attempt, maxAttempts, e.getMessage());
+                backOff(retryBackoff.multipliedBy(attempt), e);
+                attempt++;
+            }
+        }
+    }
+
+    private static void backOff(Duration delay, RuntimeException cause) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private void store(RunningJob running, Chunk chunk) {
+        List<MlPredictResponse> results = admission.executeBatch(chunk.vectors().size(),
+                () -> scorer.scoreBatch(chunk.vectors()));
+        if (results == null || results.size() != chunk.vectors().size()) {
+            throw new IllegalStateException("Scorer returned " + (results == null ? 0 : results.size())
+                    + " results for " + chunk.vectors().size() + " applications");
+        }
+
+        // The job's start time rather than the chunk's: a retried chunk then has the same
+        // (id, created_at) key and lands in the same monthly partition, so ON CONFLICT
+        // still recognises rows an earlier attempt stored
+        Instant createdAt = running.job.getCreatedAt();
+        List<LoanApplicationEntity> entities = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            MlPredictResponse ml = results.get(i);
+            // a backfill must not record placeholder decisions; fail and retry instead
+            if (ml.isFallback()) {
+                throw new IllegalStateException("ML service unavailable, got a fallback decision");
+            }
+            LoanApplicationEntity e = new LoanApplicationEntity();
+            e.setId(applicationId(running.job.getId(), createdAt, chunk.lines()[i]));
+            e.setPayload(chunk.vectors().get(i));
+            e.setRiskScore(ml.risk_score);
+            e.setDecision(ml.decision);
+            e.setShapValues(ml.top_factors);
+            e.setCreatedAt(createdAt);
+            entities.add(e);
+        }
+
+        Set<UUID> inserted = writer.write(entities, createdAt);
+        riskAggregates.record(inserted.size() == entities.size() ? entities
+                : entities.stream().filter(e -> inserted.contains(e.getId())).toList());
+    }
+
+    private void finish(RunningJob running) {
+        IngestJobEntity job = running.job;
+        synchronized (running) {
+            Throwable failure = running.failure.get();
+            if (failure != null) {
+                job.setStatus(IngestJobEntity.Status.FAILED);
+                job.setLastError(truncate(failure.getMessage()));
+                logger.error("Ingestion job {} failed at line {}: {}", job.getId(), job.getCheckpointLine(),
+                        failure.getMessage(), failure);
+            } else if (running.cancelled) {
+                job.setStatus(IngestJobEntity.Status.CANCELLED);
+                logger.info("Ingestion job {} cancelled at line {}", job.getId(), job.getCheckpointLine());
+            } else {
+                job.setStatus(IngestJobEntity.Status.COMPLETED);
+                logger.info("Ingestion job {} completed: {} accepted, {} rejected", job.getId(),
+                        job.getRowsAccepted(), job.getRowsRejected());
+            }
+            job.setFinishedAt(Instant.now());
+            job.setUpdatedAt(job.getFinishedAt());
+            try {
+                jobRepo.save(job);
+            } catch (Exception e) {
+                logger.error("Could not record the end of ingestion job {}: {}", job.getId(), e.getMessage(), e);
+            }
+        }
+        active.set(null);
+    }
+
+    private Path resolve(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("source is required");
+        }
+        Path path = baseDir.resolve(source).normalize();
+        if (!path.startsWith(baseDir)) {
+            throw new IllegalArgumentException("source must be inside the ingestion directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("No such file: " + source);
+        }
+        return path;
+    }
+
+    // Stable per job and line, so a replayed chunk maps onto the rows it already stored.
+    // UUIDv7 on the job's start and then the line, so a job fills one run of the
+    // primary-key index in order instead of landing on random leaf pages.
+    static UUID applicationId(UUID jobId, Instant jobCreatedAt, long line) {
+        return TimeOrderedUuid.of(jobCreatedAt.toEpochMilli(), line, jobId.getLeastSignificantBits());
+    }
+
+    private static Map<String, Object> describe(IngestJobEntity job) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("id", job.getId());
+        out.put("source", job.getSource());
+        out.put("status", job.getStatus());
+        out.put("checkpoint_line", job.getCheckpointLine());
+        out.put("rows_accepted", job.getRowsAccepted());
+        out.put("rows_rejected", job.getRowsRejected());
+        out.put("last_error", job.getLastError());
+        out.put("created_at", job.getCreatedAt());
+        out.put("updated_at", job.getUpdatedAt());
+        out.put("finished_at", job.getFinishedAt());
+        return out;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        RunningJob running = active.get();
+        if (running != null) {
+            running.cancelled = true;
+        }
+        workers.shutdown();
+    }
+
+    // State of the job running in this process. Counters on the entity only move with the
+    // checkpoint, so what is persisted always describes lines 2..checkpoint exactly.
+    private final class RunningJob {
+        volatile IngestJobEntity job;
+        final Path path;
+        final long fileSize;
+        final long startedNanos = System.nanoTime();
+        final long acceptedAtStart;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<String> rejectSamples = new ArrayList<>();
+        final TreeMap<Long, Chunk> finishedAhead = new TreeMap<>();
+        volatile boolean cancelled;
+        volatile long charsRead;
+        long nextSeq;
+
+        RunningJob(IngestJobEntity job, Path path, long fileSize) {
+            this.job = job;
+            this.path = path;
+            this.fileSize = fileSize;
+            this.acceptedAtStart = job.getRowsAccepted();
+        }
+
+        boolean stopped() {
+            return cancelled || failure.get() != null;
+        }
+
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+
+        double progress() {
+            return fileSize == 0 ? 1.0 : Math.min(1.0, (double) charsRead / fileSize);
+        }
+
+        synchronized void sampleReject(long line, String error) {
+            logger.debug("Ingestion job {} rejected line {}: {}", job.getId(), line, error);
+            if (rejectSamples.size() < MAX_REJECT_SAMPLES) {
+                rejectSamples.add("line " + line + ": " + error);
+            }
+        }
+
+        synchronized void completed(Chunk chunk) {
+            acceptedRows.increment(chunk.vectors().size());
+            rejectedRows.increment(chunk.rejected());
+            finishedAhead.put(chunk.seq(), chunk);
+            boolean advanced = false;
+            Chunk next;
+            while ((next = finishedAhead.remove(nextSeq)) != null) {
+                job.setCheckpointLine(next.lastLine());
+                job.setRowsAccepted(job.getRowsAccepted() + next.vectors().size());
+                job.setRowsRejected(job.getRowsRejected() + next.rejected());
+                nextSeq++;
+                advanced = true;
+            }
+            if (advanced) {
+                job.setUpdatedAt(Instant.now());
+                job = jobRepo.save(job);
+            }
+        }
+
+        synchronized Map<String, Object> describe() {
+            Map<String, Object> out = IngestService.describe(job);
+            out.put("progress_percent", Math.round(progress() * 1000) / 10.0);
+            double seconds = (System.nanoTime() - startedNanos) / 1e9;
+            out.put("rows_per_second", seconds <= 0 ? 0 : Math.round((job.getRowsAccepted() - acceptedAtStart) / seconds));
+            out.put("reject_samples", List.copyOf(rejectSamples));
+            return out;
+        }
+    }
+}
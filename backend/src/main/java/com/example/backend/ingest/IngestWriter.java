@@ -0,0 +1,102 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.LoanApplicationEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Stores a scored chunk and its Snowflake outbox rows in one statement: the rows travel
+// as column arrays and are unnested server-side, so a chunk is a single round trip.
+// Ids are deterministic per job and line, and ON CONFLICT skips rows a previous attempt
+// already stored; only newly stored applications get an outbox row. No conflict target:
+// the key is (id, created_at) on the partitioned table and just id on a plain one.
+@Repository
+public class IngestWriter {
+
+    private static final String INSERT_SQL = """
+            WITH rows AS (
+                SELECT * FROM unnest(?::uuid[], ?::text[], ?::float8[], ?::text[], ?::text[])
+                    AS t(id, payload, risk_score, decision, shap_values)
+            ), inserted AS (
+                INSERT INTO loan_applications (id, payload, risk_score, decision, shap_values, created_at)
+                SELECT id, payload::jsonb, risk_score, decision, shap_values::jsonb, ?
+                FROM rows
+                ON CONFLICT DO NOTHING
+                RETURNING id
+            )
+            INSERT INTO snowflake_outbox (id, application_id, status, attempts, next_attempt_at, created_at)
+            SELECT gen_random_uuid(), id, 'PENDING', 0, now(), now()
+            FROM inserted
+            RETURNING application_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public IngestWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns the ids that were newly stored
+    public Set<UUID> write(List<LoanApplicationEntity> entities, Instant createdAt) {
+        int n = entities.size();
+        UUID[] ids = new UUID[n];
+        String[] payloads = new String[n];
+        Double[] scores = new Double[n];
+        String[] decisions = new String[n];
+        String[] shapValues = new String[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                LoanApplicationEntity e = entities.get(i);
+                ids[i] = e.getId();
+                payloads[i] = objectMapper.writeValueAsString(e.getPayload());
+                scores[i] = e.getRiskScore();
+                decisions[i] = e.getDecision();
+                // SQL NULL, not JSON null: the deferred write-back only fills shap_values IS NULL
+                shapValues[i] = e.getShapValues() == null ? null : objectMapper.writeValueAsString(e.getShapValues());
+            }
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Set<UUID>>) con -> {
+            Array[] arrays = {
+                    con.createArrayOf("uuid", ids),
+                    con.createArrayOf("text", payloads),
+                    con.createArrayOf("float8", scores),
+                    con.createArrayOf("text", decisions),
+                    con.createArrayOf("text", shapValues)
+            };
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < arrays.length; i++) {
+                    ps.setArray(i + 1, arrays[i]);
+                }
+                ps.setTimestamp(arrays.length + 1, Timestamp.from(createdAt));
+                Set<UUID> inserted = new HashSet<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        inserted.add(rs.getObject(1, UUID.class));
+                    }
+                }
+                return inserted;
+            } finally {
+                for (Array array : arrays) {
+                    array.free();
+                }
+            }
+        });
+    }
+}
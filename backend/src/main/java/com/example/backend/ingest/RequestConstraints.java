@@ -0,0 +1,78 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.LoanApplicationRequest;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+
+// The bean-validation constraints declared on LoanApplicationRequest, read once and
+// applied to raw feature arrays. Ingestion checks millions of rows, so it compares
+// against precomputed bounds instead of building and validating a request per row.
+public final class RequestConstraints {
+
+    private final double[] min = new double[FeatureSchema.SIZE];
+    private final boolean[] exclusiveMin = new boolean[FeatureSchema.SIZE];
+    private final double[] max = new double[FeatureSchema.SIZE];
+    public RequestConstraints() {
+        Arrays.fill(min, Double.NEGATIVE_INFINITY);
+        Arrays.fill(max, Double.POSITIVE_INFINITY);
+        for (RecordComponent c : LoanApplicationRequest.class.getRecordComponents()) {
+            int slot = FeatureSchema.indexOf(c.getName());
+            if (slot < 0) {
+                continue;
+            }
+            // the annotations don't target record components; they land on the accessor
+            Method accessor = c.getAccessor();
+            Min minAnnotation = accessor.getAnnotation(Min.class);
+            if (minAnnotation != null) {
+                min[slot] = minAnnotation.value();
+            }
+            Max maxAnnotation = accessor.getAnnotation(Max.class);
+            if (maxAnnotation != null) {
+                max[slot] = maxAnnotation.value();
+            }
+            if (accessor.isAnnotationPresent(PositiveOrZero.class)) {
+                min[slot] = Math.max(min[slot], 0);
+            }
+            if (accessor.isAnnotationPresent(Positive.class)) {
+                min[slot] = Math.max(min[slot], 0);
+                exclusiveMin[slot] = true;
+            }
+        }
+    }
+
+    // null when the row is acceptable, otherwise the first violation
+    public String check(double[] values) {
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            double v = values[f.index()];
+            if (Double.isNaN(v)) {
+                // legacy files leave the optional columns blank (NA); the model imputes them
+                if (!f.optional()) {
+                    return f.name() + " is missing";
+                }
+                continue;
+            }
+            if (v < min[f.index()] || (exclusiveMin[f.index()] && v == min[f.index()])) {
+                return f.name() + " must be " + (exclusiveMin[f.index()] ? "greater than " : "at least ")
+                        + format(min[f.index()]) + ", got " + format(v);
+            }
+            if (v > max[f.index()]) {
+                return f.name() + " must be at most " + format(max[f.index()]) + ", got " + format(v);
+            }
+            if (f.type() == FeatureSchema.Type.INT && (v != Math.rint(v) || Math.abs(v) > Integer.MAX_VALUE)) {
+                return f.name() + " must be an integer, got " + format(v);
+            }
+        }
+        return null;
+    }
+
+    private static String format(double v) {
+        return v == (long) v ? Long.toString((long) v) : Double.toString(v);
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Admission control in front of the scorer calls LoanService makes. At most `limit`
+// slots are in flight; the limit follows the latency of single scorer calls, AIMD style:
+// it grows by about one per round trip while latency stays within `latency-tolerance` of
+// the no-load baseline, and is cut by `backoff-ratio` (once per round trip) when it does
+// not or the ML service is unavailable. Cache hits and rule decisions never get here, so
+// they cannot drag the baseline below what an ML call costs. Batch requests hold slots in
+// proportion to their rows but are not timed. Everything else waits in a bounded queue,
+// interactive requests ahead of batch ones, and is turned away quickly once that queue is
+// full or the wait runs out, so the ML service keeps serving at capacity instead of
+// timing out.
+@Component
+public class AdmissionLimiter {
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    // The no-load baseline is the minimum latency over the current and previous window.
+    // Windows are in time, not samples: under overload a few hundred samples span only a
+    // few round trips, and the minimum would ratchet up with every cut.
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final int queueCapacity;
+    private final int batchRowsPerSlot;
+    private final Map<Priority, Long> maxWaitNanos = new EnumMap<>(Priority.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ArrayDeque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+    private long windowMin = Long.MAX_VALUE;
+    private long previousWindowMin = Long.MAX_VALUE;
+    private long windowStartNanos = System.nanoTime();
+
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final MeterRegistry meterRegistry;
+
+    private static final class Waiter {
+        final Priority priority;
+        final int permits;
+        final Condition signal;
+        // slots handed over, 0 while waiting
+        int granted;
+        boolean shed;
+
+        Waiter(Priority priority, int permits, Condition signal) {
+            this.priority = priority;
+            this.permits = permits;
+            this.signal = signal;
+        }
+    }
+
+    public AdmissionLimiter(MeterRegistry meterRegistry,
+                            @Value("${loans.admission.enabled:true}") boolean enabled,
+                            @Value("${loans.admission.initial-limit:20}") int initialLimit,
+                            @Value("${loans.admission.min-limit:4}") int minLimit,
+                            @Value("${loans.admission.max-limit:200}") int maxLimit,
+                            @Value("${loans.admission.latency-tolerance:2.0}") double latencyTolerance,
+                            @Value("${loans.admission.backoff-ratio:0.9}") double backoffRatio,
+                            @Value("${loans.admission.queue-capacity:100}") int queueCapacity,
+                            @Value("${loans.admission.batch-rows-per-slot:64}") int batchRowsPerSlot,
+                            @Value("${loans.admission.interactive-max-wait-ms:1000}") long interactiveMaxWaitMs,
+                            @Value("${loans.admission.batch-max-wait-ms:5000}") long batchMaxWaitMs) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.queueCapacity = queueCapacity;
+        this.batchRowsPerSlot = Math.max(1, batchRowsPerSlot);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.maxWaitNanos.put(Priority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMs));
+        this.maxWaitNanos.put(Priority.BATCH, TimeUnit.MILLISECONDS.toNanos(batchMaxWaitMs));
+
+        this.meterRegistry = meterRegistry;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            waitTimers.put(priority, Timer.builder("loans.admission.wait").tag("priority", tag(priority))
+                    .description("Time queued before admission").register(meterRegistry));
+        }
+        Gauge.builder("loans.admission.limit", this, AdmissionLimiter::limit).register(meterRegistry);
+        Gauge.builder("loans.admission.inflight", this, l -> l.inFlight).register(meterRegistry);
+        Gauge.builder("loans.admission.queued", this, l -> l.queued).register(meterRegistry);
+    }
+
+    // Runs one scorer call once admitted, in one slot, and times it. MlUnavailableException
+    // counts as a congestion signal like a slow call; other failures only release the slot.
+    public <T> T execute(Priority priority, Supplier<T> work) {
+        return run(priority, 1, true, work);
+    }
+
+    // Runs batch work that keeps up to `rows` applications at the scorer at a time, in one
+    // slot per batch-rows-per-slot rows (never more than the current limit). Its latency
+    // grows with its size rather than with congestion, so only MlUnavailableException is
+    // fed back to the limit.
+    public <T> T executeBatch(int rows, Supplier<T> work) {
+        return run(Priority.BATCH, (rows + batchRowsPerSlot - 1) / batchRowsPerSlot, false, work);
+    }
+
+    private <T> T run(Priority priority, int permits, boolean timed, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        int slots = acquire(priority, permits);
+        long start = System.nanoTime();
+        boolean dropped = false;
+        boolean measured = timed;
+        try {
+            return work.get();
+        } catch (MlUnavailableException e) {
+            dropped = true;
+            measured = true;
+            throw e;
+        } catch (RuntimeException | Error e) {
+            measured = false;
+            throw e;
+        } finally {
+            release(slots, start, System.nanoTime() - start, dropped, measured);
+        }
+    }
+
+    // Returns the number of slots taken
+    int acquire(Priority priority, int permits) {
+        long enqueued = System.nanoTime();
+        lock.lock();
+        try {
+            int slots = slots(permits);
+            if (inFlight + slots <= (int) limit && queued == 0) {
+                inFlight += slots;
+                return slots;
+            }
+            if (queued >= queueCapacity && !shedLowerThan(priority)) {
+                throw reject(priority, "queue_full", HttpStatus.TOO_MANY_REQUESTS, "Too many loan applications in progress");
+            }
+            Waiter waiter = new Waiter(priority, permits, lock.newCondition());
+            queues.get(priority).addLast(waiter);
+            queued++;
+            long remaining = maxWaitNanos.get(priority);
+            try {
+                while (waiter.granted == 0 && !waiter.shed) {
+                    if (remaining <= 0) {
+                        dequeue(waiter);
+                        throw reject(priority, "timeout", HttpStatus.SERVICE_UNAVAILABLE,
+                                "Timed out waiting for capacity to score the application");
+                    }
+                    remaining = waiter.signal.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted > 0) {
+                    inFlight -= waiter.granted;
+                    grantWaiters();
+                } else if (!waiter.shed) {
+                    dequeue(waiter);
+                }
+                throw reject(priority, "interrupted", HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for admission");
+            }
+            if (waiter.shed) {
+                throw reject(priority, "shed", HttpStatus.TOO_MANY_REQUESTS,
+                        "Shed in favour of higher priority loan applications");
+            }
+            return waiter.granted;
+        } finally {
+            lock.unlock();
+            waitTimers.get(priority).record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void release(int slots, long startNanos, long rttNanos, boolean dropped, boolean measured) {
+        lock.lock();
+        try {
+            inFlight -= slots;
+            if (measured) {
+                onSample(startNanos, rttNanos, dropped);
+            }
+            grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lock held
+    void onSample(long startNanos, long rttNanos, boolean dropped) {
+        if (!dropped) {
+            long now = System.nanoTime();
+            if (now - windowStartNanos >= BASELINE_WINDOW_NANOS) {
+                previousWindowMin = windowMin;
+                windowMin = Long.MAX_VALUE;
+                windowStartNanos = now;
+            }
+            windowMin = Math.min(windowMin, rttNanos);
+        }
+        long baseline = Math.min(windowMin, previousWindowMin);
+        boolean congested = dropped || (baseline != Long.MAX_VALUE && rttNanos > baseline * latencyTolerance);
+        if (congested) {
+            // Calls that started before the last cut saw the old limit; cutting again for
+            // each of them would collapse the limit on a single slow round trip
+            if (startNanos > lastDecreaseNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } else if (inFlight + 1 >= limit / 2) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    public double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lock held. A batch waiter at the head that does not fit yet holds back the ones
+    // behind it, so smaller requests cannot starve it.
+    private void grantWaiters() {
+        while (queued > 0) {
+            ArrayDeque<Waiter> queue = queues.get(Priority.INTERACTIVE);
+            if (queue.isEmpty()) {
+                queue = queues.get(Priority.BATCH);
+            }
+            int slots = slots(queue.peekFirst().permits);
+            if (inFlight + slots > (int) limit) {
+                return;
+            }
+            Waiter next = queue.pollFirst();
+            queued--;
+            inFlight += slots;
+            next.granted = slots;
+            next.signal.signal();
+        }
+    }
+
+    // Lock held. Capped at the current limit so a large batch can always be admitted.
+    private int slots(int permits) {
+        return Math.max(1, Math.min(permits, (int) limit));
+    }
+
+    // Lock held. Makes room for an arriving request by dropping the newest waiter of a
+    // lower priority class, which has the most time left to retry.
+    private boolean shedLowerThan(Priority priority) {
+        for (int p = Priority.values().length - 1; p > priority.ordinal(); p--) {
+            Waiter victim = queues.get(Priority.values()[p]).pollLast();
+            if (victim != null) {
+                queued--;
+                victim.shed = true;
+                victim.signal.signal();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dequeue(Waiter waiter) {
+        if (queues.get(waiter.priority).remove(waiter)) {
+            queued--;
+        }
+    }
+
+    // Lock held. Retry-After estimates how long the current queue takes to drain at the
+    // current limit and baseline latency, at least one second.
+    private AdmissionRejectedException reject(Priority priority, String reason, HttpStatus status, String message) {
+        Counter.builder("loans.admission.rejected").tag("priority", tag(priority)).tag("reason", reason)
+                .register(meterRegistry).increment();
+        long baseline = Math.min(windowMin, previousWindowMin);
+        long retryAfter = 1;
+        if (baseline != Long.MAX_VALUE) {
+            double drainNanos = (queued + 1) * (double) baseline / Math.max(1, (int) limit);
+            retryAfter = Math.max(1, (long) Math.ceil(drainNanos / 1e9));
+        }
+        return new AdmissionRejectedException(status, message, retryAfter);
+    }
+
+    private static String tag(Priority priority) {
+        return priority.name().toLowerCase();
+    }
+}
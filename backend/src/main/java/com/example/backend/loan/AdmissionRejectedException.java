@@ -0,0 +1,25 @@
+package com.example.backend.loan;
+
+import org.springframework.http.HttpStatus;
+
+// AdmissionLimiter turned the request away: 429 when the wait queue is full (or the
+// request was shed for a higher priority one), 503 when it waited too long for a slot
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(HttpStatus status, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
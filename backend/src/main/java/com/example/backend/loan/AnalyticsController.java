@@ -3,12 +3,17 @@ package com.example.backend.loan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/analytics")
@@ -17,9 +22,21 @@ public class AnalyticsController {
     private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
     
     private final JdbcTemplate snowflakeJdbcTemplate;
+    private final AnalyticsSnapshots snapshots;
+    private final RiskAggregates riskAggregates;
+    private final boolean useSnowflake;
 
-    public AnalyticsController(@Qualifier("snowflakeJdbcTemplate") JdbcTemplate snowflakeJdbcTemplate) {
+    public AnalyticsController(@Lazy @Qualifier("snowflakeJdbcTemplate") JdbcTemplate snowflakeJdbcTemplate,
+                               AnalyticsSnapshots snapshots, RiskAggregates riskAggregates,
+                               @Value("${analytics.source:memory}") String source) {
         this.snowflakeJdbcTemplate = snowflakeJdbcTemplate;
+        this.snapshots = snapshots;
+        this.riskAggregates = riskAggregates;
+        this.useSnowflake = "snowflake".equalsIgnoreCase(source);
+        snapshots.register("summary", this::querySummary);
+        snapshots.register("risk-distribution", this::queryRiskDistribution);
+        snapshots.register("approval-rates", this::queryApprovalRates);
+        snapshots.register("top-factors", this::queryTopFactors);
     }
 
     @GetMapping("/health")
@@ -39,8 +56,84 @@ public class AnalyticsController {
         return response;
     }
 
+    // analytics.source=memory answers from RiskAggregates; =snowflake serves the cached
+    // warehouse snapshots and falls back to memory when the warehouse can't be reached
     @GetMapping("/risk-distribution")
-    public List<Map<String, Object>> getRiskDistribution() {
+    public ResponseEntity<Object> getRiskDistribution() {
+        return serve("risk-distribution", riskAggregates::riskDistribution);
+    }
+
+    @GetMapping("/approval-rates")
+    public ResponseEntity<Object> getApprovalRates() {
+        return serve("approval-rates", () -> riskAggregates.approvalRates(30));
+    }
+
+    @GetMapping("/top-factors")
+    public ResponseEntity<Object> getTopFactors() {
+        return serve("top-factors", () -> riskAggregates.topFactors(10));
+    }
+
+    @GetMapping("/summary")
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        if (useSnowflake) {
+            try {
+                AnalyticsSnapshots.Snapshot snapshot = snapshots.get("summary");
+                summary.putAll((Map<String, Object>) snapshot.data());
+                summary.put("status", "success");
+                summary.put("source", "snowflake");
+                summary.put("refreshed_at", snapshot.refreshedAt());
+                summary.put("cache_age_seconds", snapshot.ageSeconds());
+                return summary;
+            } catch (Exception e) {
+                logger.warn("Snowflake analytics summary unavailable, answering from memory: {}", e.getMessage());
+            }
+        }
+
+        try {
+            summary.putAll(riskAggregates.summary());
+            summary.put("status", "success");
+            summary.put("source", "memory");
+            summary.put("aggregates_ready", riskAggregates.isReady());
+        } catch (Exception e) {
+            logger.error("Failed to get analytics summary: {}", e.getMessage(), e);
+            summary.put("status", "error");
+            summary.put("error", e.getMessage());
+        }
+
+        return summary;
+    }
+
+    // Triggers a refresh of every snapshot without waiting for the schedule
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh() {
+        snapshots.refreshAll();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "refreshing");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    private ResponseEntity<Object> serve(String key, Supplier<Object> fromMemory) {
+        if (useSnowflake) {
+            try {
+                AnalyticsSnapshots.Snapshot snapshot = snapshots.get(key);
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.AGE, String.valueOf(snapshot.ageSeconds()))
+                        .header("X-Snapshot-Refreshed-At", snapshot.refreshedAt().toString())
+                        .header("X-Analytics-Source", "snowflake")
+                        .body(snapshot.data());
+            } catch (Exception e) {
+                logger.warn("Snowflake analytics {} unavailable, answering from memory: {}", key, e.getMessage());
+            }
+        }
+        return ResponseEntity.ok()
+                .header("X-Analytics-Source", riskAggregates.isReady() ? "memory" : "memory-rebuilding")
+                .body(fromMemory.get());
+    }
+
+    private List<Map<String, Object>> queryRiskDistribution() {
         String sql = """
             SELECT 
                 RISK_SCORE_BUCKET,
@@ -55,8 +148,7 @@ public class AnalyticsController {
         return snowflakeJdbcTemplate.queryForList(sql);
     }
 
-    @GetMapping("/approval-rates")
-    public List<Map<String, Object>> getApprovalRates() {
+    private List<Map<String, Object>> queryApprovalRates() {
         String sql = """
             SELECT 
                 APPLICATION_DATE,
@@ -73,8 +165,7 @@ public class AnalyticsController {
         return snowflakeJdbcTemplate.queryForList(sql);
     }
 
-    @GetMapping("/top-factors")
-    public List<Map<String, Object>> getTopFactors() {
+    private List<Map<String, Object>> queryTopFactors() {
         String sql = """
             SELECT 
                 FACTOR_NAME,
@@ -88,39 +179,26 @@ public class AnalyticsController {
         return snowflakeJdbcTemplate.queryForList(sql);
     }
 
-    @GetMapping("/summary")
-    public Map<String, Object> getSummary() {
-        Map<String, Object> summary = new LinkedHashMap<>();
-        
-        try {
-            // Total applications
-            Integer totalApps = snowflakeJdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM BKRISK_DB.CORE.V_LOAN_APPLICATIONS", Integer.class);
-            summary.put("total_applications", totalApps);
-            
-            // Approval rate
-            Double approvalRate = snowflakeJdbcTemplate.queryForObject(
-                "SELECT ROUND(AVG(IS_APPROVED) * 100, 2) FROM BKRISK_DB.CORE.V_LOAN_APPLICATIONS", Double.class);
-            summary.put("overall_approval_rate_percent", approvalRate);
-            
-            // Average risk score
-            Double avgRiskScore = snowflakeJdbcTemplate.queryForObject(
-                "SELECT ROUND(AVG(RISK_SCORE), 4) FROM BKRISK_DB.CORE.V_LOAN_APPLICATIONS", Double.class);
-            summary.put("average_risk_score", avgRiskScore);
-            
-            // Recent activity (last 7 days)
-            Integer recentApps = snowflakeJdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM BKRISK_DB.CORE.V_LOAN_APPLICATIONS WHERE CREATED_AT >= DATEADD(day, -7, CURRENT_DATE())", Integer.class);
-            summary.put("applications_last_7_days", recentApps);
-            
-            summary.put("status", "success");
-            
-        } catch (Exception e) {
-            logger.error("Failed to get analytics summary: {}", e.getMessage(), e);
-            summary.put("status", "error");
-            summary.put("error", e.getMessage());
-        }
-        
-        return summary;
+    // One scan of V_LOAN_APPLICATIONS instead of four round trips
+    private Map<String, Object> querySummary() {
+        String sql = """
+            SELECT 
+                COUNT(*) AS TOTAL_APPLICATIONS,
+                ROUND(AVG(IS_APPROVED) * 100, 2) AS OVERALL_APPROVAL_RATE_PERCENT,
+                ROUND(AVG(RISK_SCORE), 4) AS AVERAGE_RISK_SCORE,
+                COUNT_IF(CREATED_AT >= DATEADD(day, -7, CURRENT_DATE())) AS APPLICATIONS_LAST_7_DAYS
+            FROM BKRISK_DB.CORE.V_LOAN_APPLICATIONS
+            """;
+
+        return snowflakeJdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("total_applications", rs.getInt("TOTAL_APPLICATIONS"));
+            summary.put("overall_approval_rate_percent", rs.getObject("OVERALL_APPROVAL_RATE_PERCENT") == null
+                    ? null : rs.getDouble("OVERALL_APPROVAL_RATE_PERCENT"));
+            summary.put("average_risk_score", rs.getObject("AVERAGE_RISK_SCORE") == null
+                    ? null : rs.getDouble("AVERAGE_RISK_SCORE"));
+            summary.put("applications_last_7_days", rs.getInt("APPLICATIONS_LAST_7_DAYS"));
+            return summary;
+        });
     }
 }
@@ -0,0 +1,120 @@
+package com.example.backend.loan;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// In-memory snapshots of warehouse query results. Reads are served from memory
+// (stale-while-revalidate); at most one load per key runs at a time and concurrent
+// callers share it (single-flight). Keys that nobody has read recently are not
+// refreshed on the schedule, so an idle dashboard lets the warehouse suspend.
+@Component
+public class AnalyticsSnapshots {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsSnapshots.class);
+
+    public record Snapshot(Object data, Instant refreshedAt) {
+        public long ageSeconds() {
+            return Duration.between(refreshedAt, Instant.now()).toSeconds();
+        }
+    }
+
+    private final Map<String, Supplier<Object>> loaders = new ConcurrentHashMap<>();
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Snapshot>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastRead = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration staleAfter;
+    private final Duration idleAfter;
+
+    public AnalyticsSnapshots(@Value("${analytics.snapshot.stale-after-ms:60000}") long staleAfterMs,
+                              @Value("${analytics.snapshot.idle-after-ms:900000}") long idleAfterMs) {
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.idleAfter = Duration.ofMillis(idleAfterMs);
+    }
+
+    public void register(String key, Supplier<Object> loader) {
+        loaders.put(key, loader);
+    }
+
+    // Blocks only when there is no snapshot yet; a stale snapshot is returned
+    // immediately while a background refresh runs
+    public Snapshot get(String key) {
+        lastRead.put(key, Instant.now());
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            try {
+                return refresh(key).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+        if (Duration.between(snapshot.refreshedAt(), Instant.now()).compareTo(staleAfter) > 0) {
+            refresh(key);
+        }
+        return snapshot;
+    }
+
+    public CompletableFuture<Snapshot> refresh(String key) {
+        Supplier<Object> loader = loaders.get(key);
+        if (loader == null) {
+            throw new IllegalArgumentException("Unknown analytics snapshot: " + key);
+        }
+
+        CompletableFuture<Snapshot> result = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            return existing;
+        }
+
+        executor.execute(() -> {
+            try {
+                Snapshot snapshot = new Snapshot(loader.get(), Instant.now());
+                snapshots.put(key, snapshot);
+                result.complete(snapshot);
+            } catch (Exception e) {
+                // keep serving the previous snapshot, if any
+                logger.error("Failed to refresh analytics snapshot {}: {}", key, e.getMessage(), e);
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, result);
+            }
+        });
+        return result;
+    }
+
+    public void refreshAll() {
+        loaders.keySet().forEach(this::refresh);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.snapshot.refresh-interval-ms:300000}")
+    public void refreshRecentlyRead() {
+        Instant cutoff = Instant.now().minus(idleAfter);
+        lastRead.forEach((key, readAt) -> {
+            if (readAt.isAfter(cutoff)) {
+                refresh(key);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.backend.loan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+// Fixed-size ring of the most recent decision events, written by request threads and
+// read by any number of stream subscribers without locks. A publisher claims the next
+// sequence with one getAndIncrement and stores its event in slot (sequence & mask);
+// each event carries its sequence, so a reader can tell a slot that is still being
+// written (older sequence) from one that has already been overwritten (newer).
+public final class DecisionRingBuffer {
+
+    // data is the response map; json is the same map serialized once, at publish time,
+    // so fan-out to many subscribers does not serialize per client
+    public record Event(long sequence, String type, Map<String, Object> data, String json) {
+    }
+
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    public DecisionRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two, got " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public long publish(String type, Map<String, Object> data, String json) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Event(sequence, type, data, json));
+        return sequence;
+    }
+
+    // Sequence the next publish will be given
+    public long next() {
+        return next.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Events from sequence `from` onwards, oldest first, at most max of them. Events
+    // already overwritten are skipped; reading stops at the first slot still being
+    // written, which the next call picks up.
+    public List<Event> readFrom(long from, int max) {
+        long end = next.get();
+        List<Event> events = new ArrayList<>((int) Math.min(max, Math.max(0, end - from)));
+        for (long s = Math.max(from, end - capacity()); s < end && events.size() < max; s++) {
+            Event e = slots.get((int) (s & mask));
+            if (e == null || e.sequence() < s) {
+                break;
+            }
+            if (e.sequence() == s) {
+                events.add(e);
+            }
+        }
+        return events;
+    }
+
+    // Visits events newest first until the visitor returns false or the ring is exhausted
+    public void scanNewest(Predicate<Event> visitor) {
+        long end = next.get();
+        for (long s = end - 1; s >= Math.max(0, end - capacity()); s--) {
+            Event e = slots.get((int) (s & mask));
+            if (e != null && e.sequence() == s && !visitor.test(e)) {
+                return;
+            }
+        }
+    }
+}
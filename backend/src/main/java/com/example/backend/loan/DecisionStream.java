@@ -0,0 +1,320 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Recent decisions of this instance, kept in a DecisionRingBuffer as they commit, and
+// pushed to /loans/stream subscribers; the stream only carries what this instance
+// decided. /loans/recent merges the same ring with the newest rows in Postgres, read at
+// most once per recent-refresh-ms, so it also shows other replicas' decisions and
+// ingested rows while open dashboards still cost next to no database reads. Each
+// subscriber has its own virtual thread that sends from its own cursor and parks until
+// the next publish; a slow client only falls behind (and skips what the ring
+// overwrote), it never holds up a publisher.
+@Component
+public class DecisionStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionStream.class);
+
+    public static final String DECISION = "decision";
+    public static final String EXPLANATION = "explanation";
+
+    private static final int SEND_BATCH = 256;
+
+    private record Snapshot(List<Map<String, Object>> decisions, long loadedNanos) {
+    }
+
+    private final DecisionRingBuffer buffer;
+    private final LoanApplicationRepository repo;
+    private final ObjectMapper objectMapper;
+    private final int maxClients;
+    private final long timeoutMs;
+    private final long heartbeatNanos;
+    private final int replay;
+    private final long recentRefreshNanos;
+    private final ReentrantLock recentLoad = new ReentrantLock();
+    private volatile Snapshot stored;
+    // Event ids are "<epoch>-<sequence>"; sequences restart with the process, so an id
+    // from another epoch cannot be resumed from
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger clients = new AtomicInteger();
+    private final Counter lagged;
+
+    public DecisionStream(LoanApplicationRepository repo, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${loans.stream.buffer-size:1024}") int bufferSize,
+                          @Value("${loans.stream.max-clients:500}") int maxClients,
+                          @Value("${loans.stream.timeout-ms:1800000}") long timeoutMs,
+                          @Value("${loans.stream.heartbeat-ms:15000}") long heartbeatMs,
+                          @Value("${loans.stream.replay:50}") int replay,
+                          @Value("${loans.stream.recent-refresh-ms:1000}") long recentRefreshMs) {
+        this.buffer = new DecisionRingBuffer(bufferSize);
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.maxClients = maxClients;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+        this.replay = replay;
+        this.recentRefreshNanos = TimeUnit.MILLISECONDS.toNanos(recentRefreshMs);
+
+        Gauge.builder("loans.stream.clients", clients, AtomicInteger::get).register(meterRegistry);
+        this.lagged = Counter.builder("loans.stream.lagged")
+                .description("Times a subscriber fell a full ring behind and skipped events").register(meterRegistry);
+    }
+
+    // Seeds the ring before the web server takes requests, so /recent is complete right after a restart
+    @PostConstruct
+    void seed() {
+        try {
+            List<LoanApplicationEntity> recent = repo.findTop10ByOrderByCreatedAtDesc();
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                publish(DECISION, decision(recent.get(i)));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not seed recent decisions: {}", e.getMessage());
+        }
+    }
+
+    public void publish(List<LoanApplicationEntity> saved) {
+        for (LoanApplicationEntity e : saved) {
+            publish(DECISION, decision(e));
+        }
+        wakeSubscribers();
+    }
+
+    // Factors written back after the decision was published (deferred explanations)
+    public void publishExplanations(List<UUID> ids, List<RiskFactors> factors) {
+        for (int i = 0; i < ids.size(); i++) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("applicationId", ids.get(i));
+            data.put("top_factors", factors.get(i));
+            publish(EXPLANATION, data);
+        }
+        wakeSubscribers();
+    }
+
+    // Newest first. Decisions still in the ring win over their stored copy, since they
+    // carry factors written back after the last read.
+    public List<Map<String, Object>> recent(int limit) {
+        List<Map<String, Object>> local = fromRing(limit);
+        List<Map<String, Object>> shared = stored();
+        if (shared.isEmpty()) {
+            return local;
+        }
+        Map<Object, Map<String, Object>> byId = new LinkedHashMap<>();
+        for (Map<String, Object> item : local) {
+            byId.put(item.get("applicationId"), item);
+        }
+        for (Map<String, Object> item : shared) {
+            byId.putIfAbsent(item.get("applicationId"), item);
+        }
+        return byId.values().stream()
+                .sorted(Comparator.comparing((Map<String, Object> item) -> (Instant) item.get("created_at"),
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    // This instance's decisions, with factors from later explanation events merged in
+    private List<Map<String, Object>> fromRing(int limit) {
+        List<Map<String, Object>> out = new ArrayList<>(limit);
+        Map<Object, Object> explained = new HashMap<>();
+        buffer.scanNewest(e -> {
+            if (EXPLANATION.equals(e.type())) {
+                explained.putIfAbsent(e.data().get("applicationId"), e.data().get("top_factors"));
+                return true;
+            }
+            Map<String, Object> item = new LinkedHashMap<>(e.data());
+            Object factors = explained.get(item.get("applicationId"));
+            if (factors != null) {
+                item.put("top_factors", factors);
+            }
+            out.add(item);
+            return out.size() < limit;
+        });
+        return out;
+    }
+
+    // The newest stored decisions, reloaded by one caller at a time once they are older
+    // than recent-refresh-ms; the others keep using the previous read meanwhile. 0 turns
+    // this off for single-instance deployments, where the ring alone is complete.
+    private List<Map<String, Object>> stored() {
+        if (recentRefreshNanos <= 0) {
+            return List.of();
+        }
+        Snapshot snapshot = stored;
+        if (isStale(snapshot) && recentLoad.tryLock()) {
+            try {
+                snapshot = stored;
+                if (!isStale(snapshot)) {
+                    return snapshot.decisions();
+                }
+                List<Map<String, Object>> decisions;
+                try {
+                    decisions = repo.findTop10ByOrderByCreatedAtDesc().stream().map(DecisionStream::decision).toList();
+                } catch (Exception e) {
+                    // answered from the ring (and the last read) until the next attempt
+                    logger.warn("Could not read recent decisions: {}", e.getMessage());
+                    decisions = snapshot == null ? List.of() : snapshot.decisions();
+                }
+                snapshot = new Snapshot(decisions, System.nanoTime());
+                stored = snapshot;
+            } finally {
+                recentLoad.unlock();
+            }
+        }
+        return snapshot == null ? List.of() : snapshot.decisions();
+    }
+
+    private boolean isStale(Snapshot snapshot) {
+        return snapshot == null || System.nanoTime() - snapshot.loadedNanos() >= recentRefreshNanos;
+    }
+
+    // Null when max-clients streams are already open
+    public SseEmitter subscribe(String lastEventId) {
+        if (clients.incrementAndGet() > maxClients) {
+            clients.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, startSequence(lastEventId));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        Thread.ofVirtual().name("decision-stream").start(subscriber);
+        return emitter;
+    }
+
+    // Resumes after Last-Event-ID when it is from this process; otherwise replays the
+    // newest `replay` events, which is also what a first connection gets
+    long startSequence(String lastEventId) {
+        long next = buffer.next();
+        if (lastEventId != null && lastEventId.startsWith(epoch + "-")) {
+            try {
+                long last = Long.parseLong(lastEventId.substring(epoch.length() + 1));
+                if (last < next) {
+                    return last + 1;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to a replay
+            }
+        }
+        return Math.max(0, next - replay);
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    DecisionRingBuffer buffer() {
+        return buffer;
+    }
+
+    private void publish(String type, Map<String, Object> data) {
+        try {
+            buffer.publish(type, data, objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void wakeSubscribers() {
+        for (Subscriber s : subscribers) {
+            LockSupport.unpark(s.thread);
+        }
+    }
+
+    private static Map<String, Object> decision(LoanApplicationEntity entity) {
+        Map<String, Object> data = LoansController.toResponse(entity);
+        data.put("created_at", entity.getCreatedAt());
+        return data;
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private long cursor;
+        private volatile boolean closed;
+        private volatile Thread thread;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void run() {
+            // Registered before the first read so a publish in between still unparks us
+            thread = Thread.currentThread();
+            subscribers.add(this);
+            long lastSent = System.nanoTime();
+            try {
+                while (!closed) {
+                    List<DecisionRingBuffer.Event> events = buffer.readFrom(cursor, SEND_BATCH);
+                    if (!events.isEmpty()) {
+                        if (events.get(0).sequence() > cursor) {
+                            lagged.increment();
+                        }
+                        for (DecisionRingBuffer.Event e : events) {
+                            emitter.send(SseEmitter.event().id(eventId(e.sequence())).name(e.type())
+                                    .data(e.json(), MediaType.APPLICATION_JSON));
+                        }
+                        cursor = events.get(events.size() - 1).sequence() + 1;
+                        lastSent = System.nanoTime();
+                        continue;
+                    }
+                    long idle = System.nanoTime() - lastSent;
+                    if (idle >= heartbeatNanos) {
+                        // Comment lines keep proxies from timing out and surface dead clients
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                        lastSent = System.nanoTime();
+                    } else {
+                        LockSupport.parkNanos(this, heartbeatNanos - idle);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The container completes the async request after a failed write
+                logger.debug("Decision stream client went away: {}", e.getMessage());
+            } finally {
+                subscribers.remove(this);
+                clients.decrementAndGet();
+            }
+        }
+
+        void close() {
+            closed = true;
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.backend.loan;
+
+import java.util.Locale;
+
+// Which predictions get their SHAP factors computed while scoring. The rest are returned
+// with null top_factors and explained later by ExplanationService.
+// Built from ml.explain.mode (eager | deferred) and ml.explain.eager-on-deny.
+public enum ExplainPolicy {
+    ALL, DENY, NONE;
+
+    public static ExplainPolicy of(String mode, boolean eagerOnDeny) {
+        return switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "eager" -> ALL;
+            case "deferred" -> eagerOnDeny ? DENY : NONE;
+            default -> throw new IllegalArgumentException("ml.explain.mode must be eager or deferred, got " + mode);
+        };
+    }
+
+    public boolean explains(String decision) {
+        return this == ALL || (this == DENY && "DENY".equals(decision));
+    }
+
+    // Value of ml-service's explain query parameter
+    public String param() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
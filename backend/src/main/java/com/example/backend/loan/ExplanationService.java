@@ -0,0 +1,194 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Fills in shap_values for applications scored without them (ml.explain.mode=deferred).
+// Freshly saved rows are queued and explained in batches off the request path; anything
+// the queue dropped, or rows from bulk ingestion, are explained on first request through
+// GET /loans/{id}/explanation. Either way the result is written back to the row, added
+// to RiskAggregates and kept in a cache keyed on the feature vector, dropped when the
+// model version changes.
+@Component
+public class ExplanationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExplanationService.class);
+
+    // A JSON null is what older ingest jobs stored for deferred factors
+    private static final String UPDATE_SQL =
+            "UPDATE loan_applications SET shap_values = CAST(? AS jsonb)"
+            + " WHERE id = ? AND created_at = ? AND (shap_values IS NULL OR shap_values = 'null'::jsonb)";
+
+    private record Pending(UUID id, Instant createdAt, FeatureVector features) {
+    }
+
+    private final RiskScorer scorer;
+    private final JdbcTemplate jdbcTemplate;
+    private final DecisionStream decisionStream;
+    private final RiskAggregates riskAggregates;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean async;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Cache<FeatureVector, RiskFactors> cache;
+    private volatile String modelVersion;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer explainTimer;
+    private final Counter dropped;
+
+    public ExplanationService(RiskScorer scorer, JdbcTemplate jdbcTemplate, DecisionStream decisionStream,
+                              RiskAggregates riskAggregates, MeterRegistry meterRegistry,
+                              @Value("${ml.explain.async:true}") boolean async,
+                              @Value("${ml.explain.batch-size:64}") int batchSize,
+                              @Value("${ml.explain.queue-capacity:10000}") int queueCapacity,
+                              @Value("${ml.explain.cache.max-size:100000}") long cacheMaxSize,
+                              @Value("${ml.explain.cache.ttl-minutes:60}") long cacheTtlMinutes) {
+        this.scorer = scorer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.decisionStream = decisionStream;
+        this.riskAggregates = riskAggregates;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+
+        this.meterRegistry = meterRegistry;
+        this.explainTimer = Timer.builder("ml.explain").description("Scorer explain calls, cache misses only")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ml.explain.dropped")
+                .description("Deferred explanations not queued because the queue was full").register(meterRegistry);
+        Gauge.builder("ml.explain.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Cached factors for a prediction that came back without them, or null
+    public RiskFactors cached(FeatureVector features) {
+        return cache.getIfPresent(features);
+    }
+
+    // Called with committed rows; queues the model-scored ones that still lack factors
+    public void submit(List<LoanApplicationEntity> saved) {
+        if (!async) {
+            return;
+        }
+        for (LoanApplicationEntity e : saved) {
+            if (isPending(e) && !queue.offer(new Pending(e.getId(), e.getCreatedAt(), e.getPayload()))) {
+                dropped.increment();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ml.explain.async-interval-ms:500}")
+    public void explainQueued() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                explainAll(batch, "async");
+            } catch (Exception e) {
+                // The rows stay without factors and are explained on request instead
+                logger.warn("Could not explain {} applications: {}", batch.size(), e.getMessage());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // The stored factors, computing and storing them first if scoring deferred them
+    public RiskFactors explain(LoanApplicationEntity application) {
+        if (!isPending(application)) {
+            return application.getShapValues();
+        }
+        return explainAll(List.of(new Pending(application.getId(), application.getCreatedAt(), application.getPayload())), "on_demand").get(0);
+    }
+
+    // Rule decisions and fallbacks store RiskFactors.NONE; null means the model scored it
+    // and the factors have not been computed yet
+    private static boolean isPending(LoanApplicationEntity e) {
+        return e.getShapValues() == null && e.getRiskScore() != null;
+    }
+
+    private List<RiskFactors> explainAll(List<Pending> batch, String trigger) {
+        List<RiskFactors> results = new ArrayList<>(batch.size());
+        List<FeatureVector> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            RiskFactors hit = cache.getIfPresent(batch.get(i).features());
+            results.add(hit);
+            if (hit == null) {
+                misses.add(batch.get(i).features());
+                missIndexes.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            MlExplainResponse explained = explainTimer.record(() -> scorer.explain(misses));
+            onModelVersion(explained.model_version);
+            for (int i = 0; i < misses.size(); i++) {
+                results.set(missIndexes.get(i), explained.results.get(i));
+                cache.put(misses.get(i), explained.results.get(i));
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            updates.add(new Object[]{toJson(results.get(i)), batch.get(i).id(), Timestamp.from(batch.get(i).createdAt())});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        // Only rows this call filled in; a concurrent request may have written them first
+        List<RiskFactors> filled = new ArrayList<>(batch.size());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                filled.add(results.get(i));
+            }
+        }
+        riskAggregates.recordFactors(filled);
+        decisionStream.publishExplanations(batch.stream().map(Pending::id).toList(), results);
+        Counter.builder("ml.explain.computed").tag("trigger", trigger)
+                .description("Deferred explanations written back").register(meterRegistry).increment(batch.size());
+        return results;
+    }
+
+    private synchronized void onModelVersion(String version) {
+        if (version != null && !version.equals(modelVersion)) {
+            if (modelVersion != null) {
+                logger.info("ML model version changed from {} to {}; clearing cached explanations", modelVersion, version);
+                cache.invalidateAll();
+            }
+            modelVersion = version;
+        }
+    }
+
+    private String toJson(RiskFactors factors) {
+        try {
+            return objectMapper.writeValueAsString(Objects.requireNonNull(factors));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
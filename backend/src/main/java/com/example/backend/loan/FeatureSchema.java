@@ -0,0 +1,85 @@
+package com.example.backend.loan;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// The single registry of model inputs. The order here is the order of FeatureVector
+// slots, of the ml-service payload, of the JSONB payload column and of the Snowflake
+// feature columns. Training (features.json) spells the day ranges with '-', the API and
+// payload keys with '_'; both spellings resolve to the same slot.
+public final class FeatureSchema {
+
+    public enum Type { INT, DOUBLE }
+
+    // optional features may be missing (null in JSON, NaN in a vector); the model imputes
+    // the training median, and ml-service's LoanInput accepts null for exactly these
+    public record Feature(int index, String name, String modelName, String warehouseColumn, Type type,
+                          boolean optional) {
+    }
+
+    private static final List<Feature> FEATURES = List.of(
+            new Feature(0, "RevolvingUtilizationOfUnsecuredLines", "RevolvingUtilizationOfUnsecuredLines",
+                    "REVOLVING_UTILIZATION_OF_UNSECURED_LINES", Type.DOUBLE, false),
+            new Feature(1, "age", "age", "AGE", Type.INT, false),
+            new Feature(2, "NumberOfTime30_59DaysPastDueNotWorse", "NumberOfTime30-59DaysPastDueNotWorse",
+                    "NUMBER_OF_TIME_30_59_DAYS_PAST_DUE_NOT_WORSE", Type.INT, false),
+            new Feature(3, "DebtRatio", "DebtRatio", "DEBT_RATIO", Type.DOUBLE, false),
+            new Feature(4, "MonthlyIncome", "MonthlyIncome", "MONTHLY_INCOME", Type.DOUBLE, true),
+            new Feature(5, "NumberOfOpenCreditLinesAndLoans", "NumberOfOpenCreditLinesAndLoans",
+                    "NUMBER_OF_OPEN_CREDIT_LINES_AND_LOANS", Type.INT, false),
+            new Feature(6, "NumberOfTimes90DaysLate", "NumberOfTimes90DaysLate",
+                    "NUMBER_OF_TIMES_90_DAYS_LATE", Type.INT, false),
+            new Feature(7, "NumberRealEstateLoansOrLines", "NumberRealEstateLoansOrLines",
+                    "NUMBER_REAL_ESTATE_LOANS_OR_LINES", Type.INT, false),
+            new Feature(8, "NumberOfTime60_89DaysPastDueNotWorse", "NumberOfTime60-89DaysPastDueNotWorse",
+                    "NUMBER_OF_TIME_60_89_DAYS_PAST_DUE_NOT_WORSE", Type.INT, false),
+            new Feature(9, "NumberOfDependents", "NumberOfDependents", "NUMBER_OF_DEPENDENTS", Type.INT, true)
+    );
+
+    public static final int SIZE = FEATURES.size();
+
+    // First 8 hex digits of SHA-256 over the model names joined with ','; ml-service derives
+    // the same value from features.json, so equal fingerprints mean equal column order
+    public static final String FINGERPRINT = fingerprint(FEATURES.stream().map(Feature::modelName).toList());
+
+    private static final Map<String, Integer> INDEX = new HashMap<>();
+
+    static {
+        for (Feature f : FEATURES) {
+            INDEX.put(f.name(), f.index());
+            INDEX.put(f.modelName(), f.index());
+        }
+    }
+
+    private FeatureSchema() {
+    }
+
+    public static List<Feature> features() {
+        return FEATURES;
+    }
+
+    public static Feature get(int index) {
+        return FEATURES.get(index);
+    }
+
+    // Accepts either spelling; -1 for names outside the schema
+    public static int indexOf(String name) {
+        Integer index = INDEX.get(name);
+        return index == null ? -1 : index;
+    }
+
+    static String fingerprint(List<String> modelNames) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join(",", modelNames).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest).substring(0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// One application's model inputs as doubles in FeatureSchema order; NaN marks a missing
+// value. Immutable, and equal when every value is equal, so it doubles as the prediction
+// cache key. The JSON form is the flat {"name": value} object the ml-service and the
+// JSONB payload column have always used.
+@JsonSerialize(using = FeatureVector.Serializer.class)
+@JsonDeserialize(using = FeatureVector.Deserializer.class)
+public final class FeatureVector {
+
+    private final double[] values;
+    private final int hash;
+
+    FeatureVector(double[] values) {
+        if (values.length != FeatureSchema.SIZE) {
+            throw new IllegalArgumentException("Expected " + FeatureSchema.SIZE + " features, got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            // -0.0 and 0.0 are the same input
+            if (values[i] == 0.0) {
+                values[i] = 0.0;
+            }
+        }
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    public static FeatureVector of(LoanApplicationRequest r) {
+        return new FeatureVector(new double[] {
+                r.RevolvingUtilizationOfUnsecuredLines(),
+                r.age(),
+                r.NumberOfTime30_59DaysPastDueNotWorse(),
+                r.DebtRatio(),
+                r.MonthlyIncome(),
+                r.NumberOfOpenCreditLinesAndLoans(),
+                r.NumberOfTimes90DaysLate(),
+                r.NumberRealEstateLoansOrLines(),
+                r.NumberOfTime60_89DaysPastDueNotWorse(),
+                r.NumberOfDependents()
+        });
+    }
+
+    // values in FeatureSchema order, NaN for missing; the vector takes ownership of the array
+    public static FeatureVector of(double[] values) {
+        return new FeatureVector(values);
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    public boolean isMissing(int index) {
+        return Double.isNaN(values[index]);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FeatureVector other && hash == other.hash && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureVector" + Arrays.toString(values);
+    }
+
+    static final class Serializer extends StdSerializer<FeatureVector> {
+
+        Serializer() {
+            super(FeatureVector.class);
+        }
+
+        @Override
+        public void serialize(FeatureVector vector, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            for (FeatureSchema.Feature f : FeatureSchema.features()) {
+                double v = vector.values[f.index()];
+                gen.writeFieldName(f.name());
+                if (Double.isNaN(v)) {
+                    gen.writeNull();
+                } else if (f.type() == FeatureSchema.Type.INT && v == (long) v) {
+                    gen.writeNumber((long) v);
+                } else {
+                    gen.writeNumber(v);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    // Reads the payload object in any key order; unknown keys are ignored and absent ones are missing
+    static final class Deserializer extends StdDeserializer<FeatureVector> {
+
+        Deserializer() {
+            super(FeatureVector.class);
+        }
+
+        @Override
+        public FeatureVector deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                return (FeatureVector) ctxt.handleUnexpectedToken(FeatureVector.class, p);
+            }
+            double[] values = new double[FeatureSchema.SIZE];
+            Arrays.fill(values, Double.NaN);
+            for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+                JsonToken token = p.nextToken();
+                int index = FeatureSchema.indexOf(name);
+                if (index < 0) {
+                    p.skipChildren();
+                    continue;
+                }
+                values[index] = switch (token) {
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> p.getDoubleValue();
+                    case VALUE_STRING -> parse(p.getText());
+                    default -> {
+                        p.skipChildren();
+                        yield Double.NaN;
+                    }
+                };
+            }
+            return new FeatureVector(values);
+        }
+
+        private static double parse(String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
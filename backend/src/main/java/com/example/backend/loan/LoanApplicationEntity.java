@@ -5,15 +5,21 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.Type;
 
 import java.time.Instant;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Entity
-@Table(name = "loan_applications")
+// Keyset pagination and exports walk these in (created_at, id) DESC order
+@Table(name = "loan_applications", indexes = {
+        @Index(name = "idx_loan_applications_created_at", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_loan_applications_decision_created_at", columnList = "decision, created_at DESC, id DESC")
+})
 public class LoanApplicationEntity {
 
+    // Time-ordered, so inserts append to the primary-key index; the table's key is
+    // (id, created_at) because it is partitioned by month on created_at
     @Id
-    @GeneratedValue
+    @TimeOrderedId
     private UUID id;
 
     @Column(name = "user_id")
@@ -21,7 +27,7 @@ public class LoanApplicationEntity {
 
     @Type(JsonType.class)
     @Column(columnDefinition = "jsonb")
-    private Map<String, Object> payload;
+    private FeatureVector payload;
 
     @Column(name = "risk_score")
     private Double riskScore;
@@ -30,10 +36,16 @@ public class LoanApplicationEntity {
 
     @Type(JsonType.class)
     @Column(name = "shap_values", columnDefinition = "jsonb")
-    private Object shapValues;
+    private RiskFactors shapValues;
 
-    @Column(name = "created_at")
-    private Instant createdAt = Instant.now();
+    // id of the pre-screening rule that decided the application; null when the model did
+    @Column(name = "decision_rule")
+    private String decisionRule;
+
+    // Postgres keeps microseconds; truncating here keeps the in-memory value equal to
+    // the stored one, which ExplanationService matches on
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
 
     // getters/setters
     public UUID getId() {
@@ -52,11 +64,11 @@ public class LoanApplicationEntity {
         this.userId = userId;
     }
 
-    public Map<String, Object> getPayload() {
+    public FeatureVector getPayload() {
         return payload;
     }
 
-    public void setPayload(Map<String, Object> payload) {
+    public void setPayload(FeatureVector payload) {
         this.payload = payload;
     }
 
@@ -76,14 +88,22 @@ public class LoanApplicationEntity {
         this.decision = decision;
     }
 
-    public Object getShapValues() {
+    public RiskFactors getShapValues() {
         return shapValues;
     }
 
-    public void setShapValues(Object shapValues) {
+    public void setShapValues(RiskFactors shapValues) {
         this.shapValues = shapValues;
     }
 
+    public String getDecisionRule() {
+        return decisionRule;
+    }
+
+    public void setDecisionRule(String decisionRule) {
+        this.decisionRule = decisionRule;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
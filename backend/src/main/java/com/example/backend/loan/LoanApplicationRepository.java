@@ -1,11 +1,21 @@
 package com.example.backend.loan;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.UUID;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 public interface LoanApplicationRepository extends JpaRepository<LoanApplicationEntity, UUID> {
 
     // NEW: fetch last 10 by createdAt desc
+    @Transactional(readOnly = true)
     List<LoanApplicationEntity> findTop10ByOrderByCreatedAtDesc();
+
+    // Read-write so it is served by the primary: GET /loans/{id} right after an apply
+    // must not miss the row on a replica that is still behind
+    @Override
+    @Transactional
+    Optional<LoanApplicationEntity> findById(UUID id);
 }
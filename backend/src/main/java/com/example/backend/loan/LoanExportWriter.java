@@ -0,0 +1,171 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+// Writes export rows straight from the JDBC cursor to the response stream. The JSONB
+// columns are selected as text and copied through verbatim, so no per-row maps or
+// entities are built.
+public abstract class LoanExportWriter implements RowCallbackHandler {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static LoanExportWriter forFormat(String format, OutputStream out) {
+        return switch (format) {
+            case "ndjson" -> new Ndjson(out);
+            case "csv" -> new Csv(out);
+            default -> throw new IllegalArgumentException("Unsupported export format: " + format);
+        };
+    }
+
+    public abstract String columns();
+
+    public abstract void finish() throws IOException;
+
+    static final class Ndjson extends LoanExportWriter {
+
+        private static final JsonFactory JSON = new JsonFactory();
+
+        private final JsonGenerator gen;
+
+        Ndjson(OutputStream out) {
+            try {
+                this.gen = JSON.createGenerator(out, JsonEncoding.UTF8);
+                this.gen.setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String columns() {
+            return "id, created_at, decision, risk_score, payload::text AS payload, shap_values::text AS shap_values";
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                gen.writeStartObject();
+                gen.writeStringField("applicationId", rs.getString("id"));
+                gen.writeStringField("created_at", instant(rs.getTimestamp("created_at")));
+                gen.writeStringField("decision", rs.getString("decision"));
+                gen.writeFieldName("risk_score");
+                double score = rs.getDouble("risk_score");
+                if (rs.wasNull()) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(score);
+                }
+                writeRaw("payload", rs.getString("payload"));
+                writeRaw("top_factors", rs.getString("shap_values"));
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeRaw(String field, String json) throws IOException {
+            gen.writeFieldName(field);
+            if (json == null) {
+                gen.writeNull();
+            } else {
+                gen.writeRawValue(json);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            gen.flush();
+        }
+    }
+
+    static final class Csv extends LoanExportWriter {
+
+        // 1-based position of the first payload column in columns()
+        private static final int FIRST_FEATURE_COLUMN = 5;
+
+        private final Writer out;
+
+        Csv(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            try {
+                this.out.write("application_id,created_at,decision,risk_score");
+                for (FeatureSchema.Feature feature : FeatureSchema.features()) {
+                    this.out.write(',');
+                    this.out.write(feature.name());
+                }
+                this.out.write(",top_factors\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String columns() {
+            StringBuilder columns = new StringBuilder("id, created_at, decision, risk_score");
+            for (FeatureSchema.Feature feature : FeatureSchema.features()) {
+                columns.append(", payload->>'").append(feature.name()).append("' AS f").append(feature.index());
+            }
+            return columns.append(", shap_values::text AS shap_values").toString();
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                out.write(rs.getString("id"));
+                out.write(',');
+                out.write(instant(rs.getTimestamp("created_at")));
+                out.write(',');
+                writeField(rs.getString("decision"));
+                out.write(',');
+                writeField(rs.getString("risk_score"));
+                for (FeatureSchema.Feature feature : FeatureSchema.features()) {
+                    out.write(',');
+                    writeField(rs.getString(FIRST_FEATURE_COLUMN + feature.index()));
+                }
+                out.write(',');
+                writeField(rs.getString("shap_values"));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // RFC 4180 quoting, only when needed
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static String instant(Timestamp ts) {
+        return ts == null ? "" : ts.toInstant().toString();
+    }
+}
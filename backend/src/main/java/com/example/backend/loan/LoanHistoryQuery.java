@@ -0,0 +1,74 @@
+package com.example.backend.loan;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+// Filters shared by GET /loans and GET /loans/export. Results are always ordered
+// newest first on (created_at, id), which the keyset cursor and the indexes rely on.
+public record LoanHistoryQuery(String decision, Double minScore, Double maxScore, Instant from, Instant to) {
+
+    public record Cursor(Instant createdAt, UUID id) {
+
+        public String encode() {
+            String raw = createdAt.toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
+    public LoanHistoryQuery {
+        if (decision != null && decision.isBlank()) {
+            decision = null;
+        }
+        if (minScore != null && maxScore != null && minScore > maxScore) {
+            throw new IllegalArgumentException("minScore must not exceed maxScore");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    // WHERE clause for the filters (and the keyset position, if any); values are appended to params
+    String where(Cursor after, List<Object> params) {
+        StringBuilder sql = new StringBuilder("WHERE created_at IS NOT NULL");
+        if (decision != null) {
+            sql.append(" AND decision = ?");
+            params.add(decision);
+        }
+        if (minScore != null) {
+            sql.append(" AND risk_score >= ?");
+            params.add(minScore);
+        }
+        if (maxScore != null) {
+            sql.append(" AND risk_score <= ?");
+            params.add(maxScore);
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            params.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            params.add(Timestamp.from(to));
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            params.add(Timestamp.from(after.createdAt()));
+            params.add(after.id());
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Read paths over loan_applications that must not load entities: keyset-paginated
+// history pages and cursor-streamed exports. Both walk idx_loan_applications_created_at
+// (or the decision variant) in index order, so cost does not grow with page depth.
+@Repository
+public class LoanHistoryRepository {
+
+    public record Page(List<Map<String, Object>> items, String nextCursor) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoanHistoryRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 @Value("${loans.export.fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(exportFetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public Page page(LoanHistoryQuery query, LoanHistoryQuery.Cursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT id, created_at, decision, risk_score, shap_values::text AS shap_values"
+                + " FROM loan_applications " + query.where(after, params)
+                + " ORDER BY created_at DESC, id DESC LIMIT ?";
+        params.add(limit + 1);
+
+        List<Map<String, Object>> items = new ArrayList<>(limit + 1);
+        List<LoanHistoryQuery.Cursor> positions = new ArrayList<>(limit + 1);
+        // read-only, so ReplicaRoutingDataSource can send it to the replica
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+            UUID id = rs.getObject("id", UUID.class);
+            LoanHistoryQuery.Cursor position = new LoanHistoryQuery.Cursor(rs.getTimestamp("created_at").toInstant(), id);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("applicationId", id);
+            item.put("decision", rs.getString("decision"));
+            item.put("risk_score", rs.getObject("risk_score") == null ? null : rs.getDouble("risk_score"));
+            item.put("top_factors", readJson(rs.getString("shap_values")));
+            item.put("created_at", position.createdAt());
+            items.add(item);
+            positions.add(position);
+        }, params.toArray()));
+
+        if (items.size() <= limit) {
+            return new Page(items, null);
+        }
+        items.remove(limit);
+        return new Page(items, positions.get(limit - 1).encode());
+    }
+
+    // Streams every matching row to the handler. Postgres only honours the fetch size
+    // (a server-side cursor) inside a transaction; otherwise the driver buffers everything.
+    public void export(LoanHistoryQuery query, String columns, RowCallbackHandler handler) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + columns + " FROM loan_applications " + query.where(null, params)
+                + " ORDER BY created_at DESC, id DESC";
+        readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(sql, handler, params.toArray()));
+    }
+
+    private Object readJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            return json;
+        }
+    }
+}
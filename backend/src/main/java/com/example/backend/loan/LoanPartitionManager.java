@@ -0,0 +1,313 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+// Keeps loan_applications partitioned by month on created_at (see db-init/01_schema.sql).
+// Each run attaches empty partitions for the next months-ahead months, and for months
+// older than retention-months it detaches the partition, writes it to archive-dir as
+// gzip NDJSON (row_to_json per line) and drops it. New partitions are created standalone
+// and attached, and old ones are detached CONCURRENTLY, so neither step blocks inserts or
+// reads of other months. One replica works at a time (session advisory lock). Every step
+// can be repeated, so a run that dies part way is completed by the next one.
+@Component
+public class LoanPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanPartitionManager.class);
+
+    static final String TABLE = "loan_applications";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final long LOCK_KEY = 0x6c6f616e5f706d6cL;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, i.inhrelid IS NOT NULL AS attached, COALESCE(i.inhdetachpending, false) AS detach_pending
+            FROM pg_class c
+            LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = 'loan_applications'::regclass
+            WHERE c.relkind = 'r'
+              AND c.relnamespace = (SELECT relnamespace FROM pg_class WHERE oid = 'loan_applications'::regclass)
+              AND c.relname ~ '^loan_applications_p[0-9]{6}$'
+            """;
+
+    record Partition(String name, YearMonth month, boolean attached, boolean detachPending) {
+    }
+
+    record Plan(List<YearMonth> create, List<Partition> archive) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+    private final int fetchSize;
+    private final long lockTimeoutMs;
+
+    private final AtomicInteger monthsCovered = new AtomicInteger(-1);
+    private final Counter archivedRows;
+    private final Counter archivedPartitions;
+    private boolean warnedUnpartitioned;
+
+    @Autowired
+    public LoanPartitionManager(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${loans.partitions.enabled:true}") boolean enabled,
+                                @Value("${loans.partitions.months-ahead:3}") int monthsAhead,
+                                @Value("${loans.partitions.retention-months:24}") int retentionMonths,
+                                @Value("${loans.partitions.archive-dir:./archive}") String archiveDir,
+                                @Value("${loans.partitions.archive-fetch-size:5000}") int fetchSize,
+                                @Value("${loans.partitions.lock-timeout-ms:2000}") long lockTimeoutMs) {
+        this(jdbcTemplate, meterRegistry, Clock.systemUTC(), enabled, monthsAhead, retentionMonths,
+                Path.of(archiveDir), fetchSize, lockTimeoutMs);
+    }
+
+    LoanPartitionManager(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, Clock clock, boolean enabled,
+                         int monthsAhead, int retentionMonths, Path archiveDir, int fetchSize, long lockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = archiveDir;
+        this.fetchSize = fetchSize;
+        this.lockTimeoutMs = lockTimeoutMs;
+
+        // Inserts fail once created_at passes the last partition; alert well before this reaches 0
+        Gauge.builder("loans.partitions.months-ahead", monthsCovered, AtomicInteger::get)
+                .description("Future months with a partition ready; -1 before the first run").register(meterRegistry);
+        this.archivedRows = Counter.builder("loans.partitions.archived.rows").register(meterRegistry);
+        this.archivedPartitions = Counter.builder("loans.partitions.archived").register(meterRegistry);
+    }
+
+    // Off the startup path, like the RiskAggregates rebuild
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            Thread.ofVirtual().name("loan-partitions").start(this::maintain);
+        }
+    }
+
+    @Scheduled(cron = "${loans.partitions.cron:0 7 * * * *}", zone = "UTC")
+    public void scheduled() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    public synchronized void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try {
+                    run(con);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("Loan partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Which months to create and which partitions to archive; months before
+    // now - retention-months expire, retention-months <= 0 keeps everything
+    static Plan plan(YearMonth now, List<Partition> partitions, int monthsAhead, int retentionMonths) {
+        List<YearMonth> create = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = now.plusMonths(i);
+            if (partitions.stream().noneMatch(p -> p.attached() && p.month().equals(month))) {
+                create.add(month);
+            }
+        }
+        List<Partition> archive = retentionMonths <= 0 ? List.of() : partitions.stream()
+                .filter(p -> p.month().isBefore(now.minusMonths(retentionMonths)))
+                .toList();
+        return new Plan(create, archive);
+    }
+
+    // Consecutive attached months after the current one; -1 when the current one is missing
+    static int monthsCovered(YearMonth now, List<Partition> partitions) {
+        int covered = -1;
+        while (true) {
+            YearMonth month = now.plusMonths(covered + 1);
+            if (partitions.stream().noneMatch(p -> p.attached() && p.month().equals(month))) {
+                return covered;
+            }
+            covered++;
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + SUFFIX.format(month);
+    }
+
+    private void run(Connection con) throws SQLException, IOException {
+        if (!partitioned(con)) {
+            if (!warnedUnpartitioned) {
+                logger.warn("{} is not a partitioned table; see docs/db-init/01_schema.sql. Partition management is off", TABLE);
+                warnedUnpartitioned = true;
+            }
+            return;
+        }
+        if (!tryLock(con)) {
+            logger.debug("Another instance is maintaining {} partitions", TABLE);
+            return;
+        }
+        try {
+            execute(con, "SET lock_timeout = " + lockTimeoutMs);
+            YearMonth now = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+            Plan plan = plan(now, partitions(con), monthsAhead, retentionMonths);
+            for (YearMonth month : plan.create()) {
+                try {
+                    create(con, month);
+                } catch (SQLException e) {
+                    // Usually lock_timeout behind a long query; the next run retries
+                    logger.warn("Could not create partition for {}: {}", month, e.getMessage());
+                }
+            }
+            monthsCovered.set(monthsCovered(now, partitions(con)));
+            for (Partition partition : plan.archive()) {
+                archive(con, partition);
+            }
+        } finally {
+            execute(con, "RESET lock_timeout");
+            try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                ps.setLong(1, LOCK_KEY);
+                ps.execute();
+            }
+        }
+    }
+
+    // Created as a plain table and then attached: CREATE TABLE ... PARTITION OF would take
+    // an exclusive lock on the parent, ATTACH only blocks other DDL
+    private void create(Connection con, YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        String from = month.atDay(1) + " 00:00:00+00";
+        String to = month.plusMonths(1).atDay(1) + " 00:00:00+00";
+        execute(con, "CREATE TABLE IF NOT EXISTS " + name
+                + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        execute(con, "ALTER TABLE " + TABLE + " ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        logger.info("Created partition {} for {}", name, month);
+    }
+
+    private void archive(Connection con, Partition partition) throws SQLException, IOException {
+        String name = partition.name();
+        if (partition.detachPending()) {
+            // An earlier DETACH ... CONCURRENTLY was interrupted
+            execute(con, "ALTER TABLE " + TABLE + " DETACH PARTITION " + name + " FINALIZE");
+        } else if (partition.attached()) {
+            // Not possible while a DEFAULT partition exists, which is why the schema has none
+            execute(con, "ALTER TABLE " + TABLE + " DETACH PARTITION " + name + " CONCURRENTLY");
+        }
+        Files.createDirectories(archiveDir);
+        Path file = archiveDir.resolve(name + ".ndjson.gz");
+        Path part = archiveDir.resolve(name + ".ndjson.gz.part");
+        long rows = export(con, name, part);
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        execute(con, "DROP TABLE " + name);
+        archivedRows.increment(rows);
+        archivedPartitions.increment();
+        logger.info("Archived partition {} ({} rows, {} bytes) to {}", name, rows, Files.size(file), file);
+    }
+
+    // A cursor needs a transaction; the file is fsynced before the table may be dropped
+    private long export(Connection con, String name, Path part) throws SQLException, IOException {
+        long rows = 0;
+        con.setAutoCommit(false);
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+             Writer out = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+             Statement st = con.createStatement()) {
+            st.setFetchSize(fetchSize);
+            try (ResultSet rs = st.executeQuery("SELECT row_to_json(t)::text FROM " + name + " t ORDER BY created_at, id")) {
+                while (rs.next()) {
+                    out.write(rs.getString(1));
+                    out.write('\n');
+                    rows++;
+                }
+            }
+            out.flush();
+            gzip.finish();
+            channel.force(true);
+            con.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+        return rows;
+    }
+
+    private static boolean partitioned(Connection con) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT relkind FROM pg_class WHERE oid = to_regclass('" + TABLE + "')")) {
+            return rs.next() && "p".equals(rs.getString(1));
+        }
+    }
+
+    private static boolean tryLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static List<Partition> partitions(Connection con) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(PARTITIONS_SQL)) {
+            while (rs.next()) {
+                String name = rs.getString("relname");
+                YearMonth month = YearMonth.parse(name.substring(name.length() - 6), SUFFIX);
+                partitions.add(new Partition(name, month, rs.getBoolean("attached"), rs.getBoolean("detach_pending")));
+            }
+        }
+        return partitions;
+    }
+
+    private static void execute(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
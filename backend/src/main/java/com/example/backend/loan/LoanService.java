@@ -1,51 +1,100 @@
 package com.example.backend.loan;
 
+import com.example.backend.drift.DriftMonitor;
+import com.example.backend.prescreen.PrescreenRuleSet;
+import com.example.backend.prescreen.PrescreenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.publisher.Mono;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 @Service
 public class LoanService {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanService.class);
 
-    private final WebClient mlClient;
+    private final RiskScorer scorer;
+    private final AdmissionLimiter admission;
+    private final PrescreenService prescreen;
+    private final PredictionCache predictionCache;
+    private final ExplanationService explanations;
+    private final DecisionStream decisionStream;
+    private final RiskAggregates riskAggregates;
+    private final DriftMonitor driftMonitor;
     private final LoanApplicationRepository repo;
-    private final SnowflakeWriter snowflakeWriter;
+    private final SnowflakeOutboxRepository outboxRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchChunkSize;
 
-    public LoanService(WebClient mlWebClient, LoanApplicationRepository repo, SnowflakeWriter snowflakeWriter) {
-        this.mlClient = mlWebClient;
+    private final MeterRegistry meterRegistry;
+    private final Timer applyTimer;
+    private final Timer applyBatchTimer;
+    private final Timer mlSingleTimer;
+    private final Timer mlBatchTimer;
+    private final Timer persistTimer;
+
+    public LoanService(RiskScorer scorer, AdmissionLimiter admission, PrescreenService prescreen,
+                       PredictionCache predictionCache,
+                       ExplanationService explanations, DecisionStream decisionStream,
+                       RiskAggregates riskAggregates, DriftMonitor driftMonitor,
+                       LoanApplicationRepository repo, SnowflakeOutboxRepository outboxRepo,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${ml.batch.chunk-size:256}") int batchChunkSize) {
+        this.scorer = scorer;
+        this.admission = admission;
+        this.prescreen = prescreen;
+        this.predictionCache = predictionCache;
+        this.explanations = explanations;
+        this.decisionStream = decisionStream;
+        this.riskAggregates = riskAggregates;
+        this.driftMonitor = driftMonitor;
         this.repo = repo;
-        this.snowflakeWriter = snowflakeWriter;
+        this.outboxRepo = outboxRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.batchChunkSize = batchChunkSize;
+
+        // Percentile histograms so p99 can be aggregated across instances in Prometheus
+        this.meterRegistry = meterRegistry;
+        this.applyTimer = Timer.builder("loans.apply").description("End-to-end /loans/apply")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.applyBatchTimer = Timer.builder("loans.apply.batch").description("End-to-end /loans/apply/batch")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.mlSingleTimer = Timer.builder("ml.predict").tag("mode", "single").description("Scorer call, cache misses only")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.mlBatchTimer = Timer.builder("ml.predict").tag("mode", "batch").description("Scorer call, cache misses only")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.persistTimer = Timer.builder("loans.persist").description("Postgres save of applications and outbox rows")
+                .publishPercentileHistogram().register(meterRegistry);
     }
 
-    public LoanApplicationEntity apply(LoanApplicationRequest r) {
-        Map<String, Object> payload = toPayload(r);
-        logger.debug("Sending payload to ML service: {}", payload);
+    // Only a cache miss waits for admission; AdmissionRejectedException comes before
+    // anything is stored
+    public LoanApplicationEntity apply(LoanApplicationRequest r, AdmissionLimiter.Priority priority) {
+        return applyTimer.record(() -> applyOne(r, priority));
+    }
+
+    private LoanApplicationEntity applyOne(LoanApplicationRequest r, AdmissionLimiter.Priority priority) {
+        FeatureVector features = FeatureVector.of(r);
+
+        // Clear-cut applications are decided by a rule without an ML call
+        PrescreenRuleSet.Rule rule = prescreen.evaluate(features);
+        if (rule != null && rule.decides()) {
+            logger.info("Pre-screening rule {} decided {}", rule.id(), rule.action());
+            return persist(List.of(toEntity(features, rule))).get(0);
+        }
+        logger.debug("Sending features to ML service: {}", features);
 
         try {
-            MlPredictResponse ml = mlClient.post()
-                    .uri("/predict")
-                    .bodyValue(payload)
-                    .retrieve()
-                    .bodyToMono(MlPredictResponse.class)
-                    .onErrorResume(WebClientResponseException.class, e -> {
-                        logger.error("ML service returned error: {} - {}", e.getStatusCode(),
-                                e.getResponseBodyAsString());
-                        return Mono.error(new RuntimeException(
-                                "ML service error: " + e.getStatusCode() + " - " + e.getResponseBodyAsString()));
-                    })
-                    .onErrorResume(Exception.class, e -> {
-                        logger.error("Unexpected error calling ML service: {}", e.getMessage(), e);
-                        return Mono.error(new RuntimeException("Failed to call ML service: " + e.getMessage()));
-                    })
-                    .block();
+            MlPredictResponse ml = score(features, priority);
 
             if (ml == null) {
                 throw new RuntimeException("ML service returned null response");
@@ -53,37 +102,146 @@ public class LoanService {
 
             logger.info("ML service response: decision={}, risk_score={}", ml.decision, ml.risk_score);
 
-            LoanApplicationEntity e = new LoanApplicationEntity();
-            e.setPayload(payload);
-            e.setRiskScore(ml.risk_score);
-            e.setDecision(ml.decision);
-            e.setShapValues(ml.top_factors);
+            // Save to Postgres; the outbox row commits with it and SnowflakeOutboxDrainer
+            // ships it to Snowflake off the request path
+            return persist(List.of(toEntity(features, ml))).get(0);
+        } catch (Exception e) {
+            logger.error("Error in loan application processing: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
 
-            // Save to Postgres
-            LoanApplicationEntity saved = repo.save(e);
+    // Scores and stores many applications, one scoreBatch call and one
+    // JDBC-batched transaction per chunk. Results are returned in request order.
+    // Admitted once up front, so a rejection never leaves a batch half stored; chunks
+    // are scored one after another, so at most one chunk is at the scorer at a time.
+    public List<LoanApplicationEntity> applyBatch(List<LoanApplicationRequest> requests) {
+        return applyBatchTimer.record(() -> admission.executeBatch(Math.min(requests.size(), batchChunkSize),
+                () -> applyChunks(requests)));
+    }
 
-            // Write to Snowflake
-            snowflakeWriter.writeLoanApplication(saved);
+    private List<LoanApplicationEntity> applyChunks(List<LoanApplicationRequest> requests) {
+        List<LoanApplicationEntity> saved = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            List<LoanApplicationRequest> chunk = requests.subList(from, Math.min(from + batchChunkSize, requests.size()));
+            List<FeatureVector> vectors = chunk.stream().map(FeatureVector::of).toList();
 
-            return saved;
-        } catch (Exception e) {
-            logger.error("Error in loan application processing: {}", e.getMessage(), e);
+            // Rule decisions fill their slots directly; only the rest are scored
+            LoanApplicationEntity[] entities = new LoanApplicationEntity[chunk.size()];
+            List<FeatureVector> toScore = new ArrayList<>(chunk.size());
+            List<Integer> scoreIndexes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                PrescreenRuleSet.Rule rule = prescreen.evaluate(vectors.get(i));
+                if (rule != null && rule.decides()) {
+                    entities[i] = toEntity(vectors.get(i), rule);
+                } else {
+                    toScore.add(vectors.get(i));
+                    scoreIndexes.add(i);
+                }
+            }
+            if (!toScore.isEmpty()) {
+                List<MlPredictResponse> results = scoreBatch(toScore);
+                for (int i = 0; i < toScore.size(); i++) {
+                    entities[scoreIndexes.get(i)] = toEntity(toScore.get(i), results.get(i));
+                }
+            }
+            saved.addAll(persist(Arrays.asList(entities)));
+        }
+        logger.info("Processed batch of {} loan applications", saved.size());
+        return saved;
+    }
+
+    private MlPredictResponse score(FeatureVector features, AdmissionLimiter.Priority priority) {
+        MlPredictResponse cached = predictionCache.get(features);
+        if (cached != null) {
+            logger.debug("Prediction cache hit");
+            return cached;
+        }
+        MlPredictResponse ml = admission.execute(priority, () -> callScorer(mlSingleTimer, () -> scorer.score(features)));
+        predictionCache.put(features, ml);
+        return ml;
+    }
+
+    // Only cache misses are sent to the scorer
+    private List<MlPredictResponse> scoreBatch(List<FeatureVector> vectors) {
+        List<MlPredictResponse> results = new ArrayList<>(vectors.size());
+        List<FeatureVector> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            MlPredictResponse cached = predictionCache.get(vectors.get(i));
+            results.add(cached);
+            if (cached == null) {
+                misses.add(vectors.get(i));
+                missIndexes.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        List<MlPredictResponse> scored = callScorer(mlBatchTimer, () -> scorer.scoreBatch(misses));
+        if (scored == null) {
+            throw new RuntimeException("ML service returned null response");
+        }
+        for (int i = 0; i < scored.size(); i++) {
+            results.set(missIndexes.get(i), scored.get(i));
+            predictionCache.put(misses.get(i), scored.get(i));
+        }
+        return results;
+    }
+
+    private <T> T callScorer(Timer timer, Supplier<T> call) {
+        try {
+            return timer.record(call);
+        } catch (RuntimeException e) {
+            Counter.builder("ml.errors").tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry).increment();
             throw e;
         }
     }
 
-    private Map<String, Object> toPayload(LoanApplicationRequest r) {
-        Map<String, Object> m = new LinkedHashMap<>();
-        m.put("RevolvingUtilizationOfUnsecuredLines", r.RevolvingUtilizationOfUnsecuredLines());
-        m.put("age", r.age());
-        m.put("NumberOfTime30_59DaysPastDueNotWorse", r.NumberOfTime30_59DaysPastDueNotWorse());
-        m.put("DebtRatio", r.DebtRatio());
-        m.put("MonthlyIncome", r.MonthlyIncome());
-        m.put("NumberOfOpenCreditLinesAndLoans", r.NumberOfOpenCreditLinesAndLoans());
-        m.put("NumberOfTimes90DaysLate", r.NumberOfTimes90DaysLate());
-        m.put("NumberRealEstateLoansOrLines", r.NumberRealEstateLoansOrLines());
-        m.put("NumberOfTime60_89DaysPastDueNotWorse", r.NumberOfTime60_89DaysPastDueNotWorse());
-        m.put("NumberOfDependents", r.NumberOfDependents());
-        return m;
+    // Aggregates and decision counters are updated only after commit so rolled-back
+    // rows are never counted. Predictions returned without SHAP factors take them from
+    // the explanation cache when possible and are otherwise queued for explanation.
+    private List<LoanApplicationEntity> persist(List<LoanApplicationEntity> entities) {
+        for (LoanApplicationEntity e : entities) {
+            if (e.getShapValues() == null) {
+                e.setShapValues(explanations.cached(e.getPayload()));
+            }
+        }
+        List<LoanApplicationEntity> saved = persistTimer.record(() -> transactionTemplate.execute(status -> {
+            List<LoanApplicationEntity> rows = repo.saveAll(entities);
+            outboxRepo.saveAll(rows.stream().map(s -> SnowflakeOutboxEntity.pending(s.getId())).toList());
+            return rows;
+        }));
+        riskAggregates.record(saved);
+        driftMonitor.record(saved);
+        explanations.submit(saved);
+        decisionStream.publish(saved);
+        for (LoanApplicationEntity e : saved) {
+            Counter.builder("loans.decisions").tag("decision", String.valueOf(e.getDecision()))
+                    .register(meterRegistry).increment();
+        }
+        return saved;
+    }
+
+    static LoanApplicationEntity toEntity(FeatureVector features, MlPredictResponse ml) {
+        LoanApplicationEntity e = new LoanApplicationEntity();
+        e.setPayload(features);
+        // fallback decisions have no model score; a null keeps them out of the risk analytics
+        e.setRiskScore(ml.isFallback() ? null : ml.risk_score);
+        e.setDecision(ml.decision);
+        e.setShapValues(ml.top_factors);
+        return e;
+    }
+
+    // Rule decisions have no model score or attributions; decision_rule records the reason
+    static LoanApplicationEntity toEntity(FeatureVector features, PrescreenRuleSet.Rule rule) {
+        LoanApplicationEntity e = new LoanApplicationEntity();
+        e.setPayload(features);
+        e.setDecision(rule.action().decision());
+        e.setShapValues(RiskFactors.NONE);
+        e.setDecisionRule(rule.id());
+        return e;
     }
 }
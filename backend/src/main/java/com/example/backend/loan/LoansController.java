@@ -1,15 +1,25 @@
 package com.example.backend.loan;
 
+import com.example.backend.prescreen.PrescreenService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
 
 @RestController
 @RequestMapping("/loans")
@@ -19,26 +29,51 @@ public class LoansController {
     
     private final LoanService loanService;
     private final LoanApplicationRepository repo;
+    private final LoanHistoryRepository historyRepo;
+    private final PredictionCache predictionCache;
+    private final PrescreenService prescreen;
+    private final ExplanationService explanations;
+    private final DecisionStream decisionStream;
+    private final int maxBatchSize;
+    private final int maxPageSize;
+    // each export holds a pooled connection for its whole duration
+    private final Semaphore exportSlots;
 
-    public LoansController(LoanService loanService, LoanApplicationRepository repo) {
+    public LoansController(LoanService loanService, LoanApplicationRepository repo, LoanHistoryRepository historyRepo,
+                           PredictionCache predictionCache, PrescreenService prescreen,
+                           ExplanationService explanations, DecisionStream decisionStream,
+                           @Value("${loans.batch.max-applications:50000}") int maxBatchSize,
+                           @Value("${loans.history.max-page-size:500}") int maxPageSize,
+                           @Value("${loans.export.max-concurrent:2}") int maxConcurrentExports) {
         this.loanService = loanService;
         this.repo = repo;
+        this.historyRepo = historyRepo;
+        this.predictionCache = predictionCache;
+        this.prescreen = prescreen;
+        this.explanations = explanations;
+        this.decisionStream = decisionStream;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPageSize = maxPageSize;
+        this.exportSlots = new Semaphore(maxConcurrentExports);
     }
 
+    // X-Request-Priority: batch queues behind interactive traffic under overload
     @PostMapping("/apply")
-    public ResponseEntity<?> apply(@Valid @RequestBody LoanApplicationRequest payload) {
+    public ResponseEntity<?> apply(@Valid @RequestBody LoanApplicationRequest payload,
+                                   @RequestHeader(name = "X-Request-Priority", defaultValue = "interactive") String priority) {
         try {
             logger.info("Processing loan application: {}", payload);
-            LoanApplicationEntity saved = loanService.apply(payload);
-
-            Map<String, Object> out = new LinkedHashMap<>();
-            out.put("applicationId", saved.getId());
-            out.put("decision", saved.getDecision());
-            out.put("risk_score", saved.getRiskScore());
-            out.put("top_factors", saved.getShapValues());
-            
+            AdmissionLimiter.Priority admissionPriority = "batch".equalsIgnoreCase(priority)
+                    ? AdmissionLimiter.Priority.BATCH : AdmissionLimiter.Priority.INTERACTIVE;
+            LoanApplicationEntity saved = loanService.apply(payload, admissionPriority);
+
             logger.info("Loan application processed successfully. ID: {}, Decision: {}", saved.getId(), saved.getDecision());
-            return ResponseEntity.ok(out);
+            return ResponseEntity.ok(toResponse(saved));
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
+        } catch (MlUnavailableException e) {
+            // GlobalExceptionHandler answers 503 with Retry-After
+            throw e;
         } catch (Exception e) {
             logger.error("Error processing loan application: {}", e.getMessage(), e);
             Map<String, String> error = new LinkedHashMap<>();
@@ -47,30 +82,186 @@ public class LoansController {
         }
     }
 
+    @PostMapping("/apply/batch")
+    public ResponseEntity<?> applyBatch(@RequestBody List<@Valid LoanApplicationRequest> payload) {
+        if (payload.isEmpty() || payload.size() > maxBatchSize) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", "Batch must contain between 1 and " + maxBatchSize + " applications");
+            return ResponseEntity.badRequest().body(error);
+        }
+        try {
+            logger.info("Processing batch of {} loan applications", payload.size());
+            List<LoanApplicationEntity> saved = loanService.applyBatch(payload);
+            return ResponseEntity.ok(saved.stream().map(LoansController::toResponse).toList());
+        } catch (AdmissionRejectedException e) {
+            return rejected(e);
+        } catch (MlUnavailableException e) {
+            // GlobalExceptionHandler answers 503 with Retry-After
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error processing loan application batch: {}", e.getMessage(), e);
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", "Failed to process loan application batch: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    // This instance's ring of recent decisions merged with a shared read of Postgres, at
+    // most one query per loans.stream.recent-refresh-ms whatever the number of callers
     @GetMapping("/recent")
     public ResponseEntity<?> recent() {
+        return ResponseEntity.ok(decisionStream.recent(10));
+    }
+
+    // Server-sent events: "decision" as each application is decided, "explanation" when
+    // deferred factors are written back. Reconnecting clients send Last-Event-ID and
+    // resume where they left off, as long as the ring still holds those events.
+    @GetMapping("/stream")
+    public ResponseEntity<?> stream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = decisionStream.subscribe(lastEventId);
+        if (emitter == null) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", "Too many decision streams open, try again later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").body(error);
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Top factors of one application. Under deferred explanations they are computed on
+    // the first request (unless the background queue got there first) and stored.
+    // MlUnavailableException falls through to GlobalExceptionHandler as a 503.
+    @GetMapping("/{id}/explanation")
+    public ResponseEntity<?> explanation(@PathVariable UUID id) {
+        Optional<LoanApplicationEntity> found = repo.findById(id);
+        if (found.isEmpty()) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", "No loan application " + id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        LoanApplicationEntity application = found.get();
+        Map<String, Object> response = toResponse(application);
+        response.put("top_factors", explanations.explain(application));
+        return ResponseEntity.ok(response);
+    }
+
+    // Keyset-paginated history, newest first. Pass next_cursor back as cursor for the next page.
+    @GetMapping
+    public ResponseEntity<?> history(@RequestParam(required = false) String decision,
+                                     @RequestParam(required = false) Double minScore,
+                                     @RequestParam(required = false) Double maxScore,
+                                     @RequestParam(required = false) Instant from,
+                                     @RequestParam(required = false) Instant to,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<LoanApplicationEntity> recent = repo.findTop10ByOrderByCreatedAtDesc();
-            
-            // Transform to consistent response format
-            List<Map<String, Object>> response = recent.stream()
-                .map(entity -> {
-                    Map<String, Object> item = new LinkedHashMap<>();
-                    item.put("applicationId", entity.getId());
-                    item.put("decision", entity.getDecision());
-                    item.put("risk_score", entity.getRiskScore());
-                    item.put("top_factors", entity.getShapValues());
-                    item.put("created_at", entity.getCreatedAt());
-                    return item;
-                })
-                .toList();
-            
+            if (limit < 1 || limit > maxPageSize) {
+                throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+            }
+            LoanHistoryQuery query = new LoanHistoryQuery(decision, minScore, maxScore, from, to);
+            LoanHistoryQuery.Cursor after = cursor == null ? null : LoanHistoryQuery.Cursor.decode(cursor);
+            LoanHistoryRepository.Page page = historyRepo.page(query, after, limit);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("items", page.items());
+            response.put("next_cursor", page.nextCursor());
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
-            logger.error("Error fetching recent applications: {}", e.getMessage(), e);
+            logger.error("Error fetching loan history: {}", e.getMessage(), e);
             Map<String, String> error = new LinkedHashMap<>();
-            error.put("error", "Failed to fetch recent applications: " + e.getMessage());
+            error.put("error", "Failed to fetch loan history: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    // Streams the full filtered history as NDJSON or CSV from a JDBC cursor
+    @GetMapping("/export")
+    public ResponseEntity<?> export(@RequestParam(defaultValue = "ndjson") String format,
+                                    @RequestParam(required = false) String decision,
+                                    @RequestParam(required = false) Double minScore,
+                                    @RequestParam(required = false) Double maxScore,
+                                    @RequestParam(required = false) Instant from,
+                                    @RequestParam(required = false) Instant to) {
+        LoanHistoryQuery query;
+        try {
+            query = new LoanHistoryQuery(decision, minScore, maxScore, from, to);
+            if (!format.equals("ndjson") && !format.equals("csv")) {
+                throw new IllegalArgumentException("format must be ndjson or csv");
+            }
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (!exportSlots.tryAcquire()) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", "Too many exports in progress, try again later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30").body(error);
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                LoanExportWriter writer = LoanExportWriter.forFormat(format, out);
+                historyRepo.export(query, writer.columns(), writer);
+                writer.finish();
+            } catch (Exception e) {
+                // headers are already sent; the client sees a truncated body
+                logger.error("Loan export failed: {}", e.getMessage(), e);
+                throw e;
+            } finally {
+                exportSlots.release();
+            }
+        };
+        String contentType = format.equals("csv") ? "text/csv" : "application/x-ndjson";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"loan-applications." + format + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/prediction-cache")
+    public Map<String, Object> predictionCacheStats() {
+        return predictionCache.stats();
+    }
+
+    // Per-rule hit counts and the share of applications decided without the model
+    @GetMapping("/prescreen")
+    public Map<String, Object> prescreenStats() {
+        return prescreen.stats();
+    }
+
+    // Recompiles the rules file now instead of waiting for the change poll
+    @PostMapping("/prescreen/reload")
+    public ResponseEntity<?> reloadPrescreen() {
+        try {
+            prescreen.reload();
+            return ResponseEntity.ok(prescreen.stats());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    private static ResponseEntity<?> rejected(AdmissionRejectedException e) {
+        logger.debug("Loan application not admitted: {}", e.getMessage());
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    static Map<String, Object> toResponse(LoanApplicationEntity entity) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("applicationId", entity.getId());
+        out.put("decision", entity.getDecision());
+        out.put("risk_score", entity.getRiskScore());
+        out.put("top_factors", entity.getShapValues());
+        out.put("decision_rule", entity.getDecisionRule());
+        return out;
+    }
 }
@@ -0,0 +1,142 @@
+package com.example.backend.loan;
+
+import com.example.backend.scoring.XgbModelLoader;
+import com.example.backend.scoring.XgbScoringModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Scores in-process from the exported XGBoost artifacts, mirroring ml-service/service/app.py
+@Component
+@ConditionalOnProperty(name = "ml.scorer", havingValue = "local")
+public class LocalRiskScorer implements RiskScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRiskScorer.class);
+
+    private static final int TOP_FACTORS = 3;
+
+    private final XgbScoringModel model;
+    private final double denyThreshold;
+    private final ExplainPolicy explainPolicy;
+    // FeatureSchema slot of each model column, in features.json order
+    private final int[] columns;
+
+    @Autowired
+    public LocalRiskScorer(@Value("${ml.local.artifacts-dir}") String artifactsDir,
+                           @Value("${ml.deny-threshold:0.35}") double denyThreshold,
+                           @Value("${ml.explain.mode:eager}") String explainMode,
+                           @Value("${ml.explain.eager-on-deny:true}") boolean eagerOnDeny) throws IOException {
+        this(XgbModelLoader.load(Path.of(artifactsDir)), denyThreshold, ExplainPolicy.of(explainMode, eagerOnDeny));
+        logger.info("Loaded local XGBoost scorer from {} ({} trees)", artifactsDir, model.numTrees());
+    }
+
+    LocalRiskScorer(XgbScoringModel model, double denyThreshold) {
+        this(model, denyThreshold, ExplainPolicy.ALL);
+    }
+
+    LocalRiskScorer(XgbScoringModel model, double denyThreshold, ExplainPolicy explainPolicy) {
+        this.model = model;
+        this.denyThreshold = denyThreshold;
+        this.explainPolicy = explainPolicy;
+        this.columns = model.features().stream().mapToInt(FeatureSchema::indexOf).toArray();
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] < 0) {
+                throw new IllegalStateException("Model feature " + model.features().get(i) + " is not in FeatureSchema");
+            }
+        }
+    }
+
+    @Override
+    public MlPredictResponse score(FeatureVector features) {
+        double[] raw = raw(features);
+        MlPredictResponse out = new MlPredictResponse();
+        out.model_version = model.version();
+
+        // TreeShap costs many times the plain ensemble walk, so it is skipped unless needed
+        if (explainPolicy == ExplainPolicy.ALL) {
+            double[] phi = new double[raw.length + 1];
+            out.risk_score = model.explain(raw, phi);
+            out.top_factors = topFactors(phi);
+        } else {
+            out.risk_score = model.predictProba(raw);
+        }
+        out.decision = out.risk_score > denyThreshold ? "DENY" : "APPROVE";
+        if (out.top_factors == null && explainPolicy.explains(out.decision)) {
+            out.top_factors = explain(raw);
+        }
+        return out;
+    }
+
+    @Override
+    public MlExplainResponse explain(List<FeatureVector> batch) {
+        MlExplainResponse out = new MlExplainResponse();
+        out.results = new ArrayList<>(batch.size());
+        for (FeatureVector features : batch) {
+            out.results.add(explain(raw(features)));
+        }
+        out.model_version = model.version();
+        return out;
+    }
+
+    @Override
+    public String modelVersion() {
+        return model.version();
+    }
+
+    @Override
+    public List<MlPredictResponse> scoreBatch(List<FeatureVector> batch) {
+        List<MlPredictResponse> out = new ArrayList<>(batch.size());
+        for (FeatureVector features : batch) {
+            out.add(score(features));
+        }
+        return out;
+    }
+
+    private double[] raw(FeatureVector features) {
+        double[] raw = new double[columns.length];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = features.get(columns[i]);
+        }
+        return raw;
+    }
+
+    private RiskFactors explain(double[] raw) {
+        double[] phi = new double[raw.length + 1];
+        model.explain(raw, phi);
+        return topFactors(phi);
+    }
+
+    // Largest |phi| first, same as np.argsort(np.abs(vals))[::-1][:3]
+    private RiskFactors topFactors(double[] phi) {
+        int n = phi.length - 1;
+        int k = Math.min(TOP_FACTORS, n);
+        int[] top = new int[k];
+        boolean[] taken = new boolean[n];
+        for (int j = 0; j < k; j++) {
+            int best = -1;
+            for (int i = 0; i < n; i++) {
+                if (!taken[i] && (best == -1 || Math.abs(phi[i]) >= Math.abs(phi[best]))) {
+                    best = i;
+                }
+            }
+            taken[best] = true;
+            top[j] = best;
+        }
+
+        int[] features = new int[k];
+        double[] impacts = new double[k];
+        for (int j = 0; j < k; j++) {
+            features[j] = columns[top[j]];
+            impacts[j] = phi[top[j]];
+        }
+        return new RiskFactors(features, impacts);
+    }
+}
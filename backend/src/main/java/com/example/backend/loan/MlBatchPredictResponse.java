@@ -0,0 +1,8 @@
+package com.example.backend.loan;
+
+import java.util.List;
+
+public class MlBatchPredictResponse {
+    // one entry per request item, in request order
+    public List<MlPredictResponse> results;
+}
@@ -0,0 +1,120 @@
+package com.example.backend.loan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Count-based circuit breaker for ml-service calls. Opens when the failure rate over the
+// last window-size calls reaches the threshold, rejects calls for open-ms, then lets a
+// single trial call through (half-open) to decide whether to close again.
+@Component
+public class MlCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(MlCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public MlCircuitBreaker(@Value("${ml.client.circuit-breaker.window-size:50}") int windowSize,
+                            @Value("${ml.client.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                            @Value("${ml.client.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                            @Value("${ml.client.circuit-breaker.open-ms:10000}") long openMs) {
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openMs * 1_000_000;
+    }
+
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+                // fall through to let this caller be the trial
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            logger.info("ML circuit breaker closed after successful trial call");
+            reset(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            logger.warn("ML circuit breaker trial call failed, staying open");
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            logger.warn("ML circuit breaker opened ({} of last {} calls failed)", failures, recorded);
+            open();
+        }
+    }
+
+    // A cancelled call says nothing about ml-service health but must hand back the trial slot
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+// Calls to ml-service go through a circuit breaker and carry a deadline. Interactive calls
+// (single predictions and micro-batches up to interactive-max-size) are hedged: if no
+// answer has arrived after the recent p<percentile> latency, a second identical request
+// is sent and the first answer wins. Scoring is idempotent, so duplicates are harmless.
+// With ml.client.wire-format=auto, requests switch from JSON to MlWireFormat once /health
+// reports the same feature schema, and back to JSON if ml-service answers 415.
+@Component
+public class MlClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(MlClient.class);
+
+    private static final int HEDGE_MIN_SAMPLES = 20;
+
+    private final WebClient mlClient;
+    private final MlCircuitBreaker circuitBreaker;
+    private final Duration deadline;
+    private final Duration batchDeadline;
+    private final int interactiveMaxSize;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeMinDelay;
+    private final int hedgeBudgetPercent;
+    private final String explainParam;
+    private final boolean compactAllowed;
+    private volatile boolean compact;
+    private final AtomicBoolean negotiated = new AtomicBoolean();
+
+    private final Timer interactiveLatency;
+    private final Counter hedges;
+    private final Counter rejected;
+    private final Counter deadlineExceeded;
+    private final AtomicLong interactiveCalls = new AtomicLong();
+    private final AtomicLong hedgedCalls = new AtomicLong();
+
+    public MlClient(WebClient mlWebClient, MlCircuitBreaker circuitBreaker, MeterRegistry meterRegistry,
+                    @Value("${ml.client.deadline-ms:1500}") long deadlineMs,
+                    @Value("${ml.client.batch-deadline-ms:10000}") long batchDeadlineMs,
+                    @Value("${ml.client.interactive-max-size:32}") int interactiveMaxSize,
+                    @Value("${ml.client.hedge.enabled:true}") boolean hedgeEnabled,
+                    @Value("${ml.client.hedge.percentile:0.95}") double hedgePercentile,
+                    @Value("${ml.client.hedge.min-delay-ms:20}") long hedgeMinDelayMs,
+                    @Value("${ml.client.hedge.budget-percent:5}") int hedgeBudgetPercent,
+                    @Value("${ml.explain.mode:eager}") String explainMode,
+                    @Value("${ml.explain.eager-on-deny:true}") boolean eagerOnDeny,
+                    @Value("${ml.client.wire-format:auto}") String wireFormat) {
+        this.mlClient = mlWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.deadline = Duration.ofMillis(deadlineMs);
+        this.batchDeadline = Duration.ofMillis(batchDeadlineMs);
+        this.interactiveMaxSize = interactiveMaxSize;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelay = Duration.ofMillis(hedgeMinDelayMs);
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+        this.explainParam = ExplainPolicy.of(explainMode, eagerOnDeny).param();
+        this.compactAllowed = switch (wireFormat.trim().toLowerCase(Locale.ROOT)) {
+            case "auto" -> true;
+            case "json" -> false;
+            default -> throw new IllegalArgumentException("ml.client.wire-format must be auto or json, got " + wireFormat);
+        };
+
+        // Decaying percentile over roughly the last minute drives the hedge delay
+        this.interactiveLatency = Timer.builder("ml.client.latency")
+                .description("Interactive ml-service calls, used to pick the hedge delay")
+                .publishPercentiles(hedgePercentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedges = Counter.builder("ml.client.hedges").register(meterRegistry);
+        this.rejected = Counter.builder("ml.client.rejected").description("Calls rejected by the open circuit")
+                .register(meterRegistry);
+        this.deadlineExceeded = Counter.builder("ml.client.deadline.exceeded").register(meterRegistry);
+        Gauge.builder("ml.client.circuit.state", circuitBreaker, b -> b.state().ordinal())
+                .description("0=closed, 1=open, 2=half-open")
+                .register(meterRegistry);
+        Gauge.builder("ml.client.wire.compact", this, c -> c.compact ? 1 : 0)
+                .description("1 while requests use the compact encoding, 0 for JSON")
+                .register(meterRegistry);
+    }
+
+    public Mono<MlPredictResponse> predict(FeatureVector features) {
+        return call(() -> compactOr(
+                () -> postCompact("/predict?explain=" + explainParam, List.of(features), MlWireFormat::decodeScores)
+                        .flatMap(results -> results.size() == 1 ? Mono.just(results.get(0)) : Mono.error(
+                                new RuntimeException("ML service returned " + results.size() + " results for 1 application"))),
+                () -> mlClient.post()
+                        .uri(uri -> uri.path("/predict").queryParam("explain", explainParam).build())
+                        .bodyValue(features)
+                        .retrieve()
+                        .bodyToMono(MlPredictResponse.class)), true);
+    }
+
+    public Mono<List<MlPredictResponse>> predictBatch(List<FeatureVector> batch) {
+        return call(() -> compactOr(
+                () -> postCompact("/predict/batch?explain=" + explainParam, batch, MlWireFormat::decodeScores),
+                () -> mlClient.post()
+                        .uri(uri -> uri.path("/predict/batch").queryParam("explain", explainParam).build())
+                        .bodyValue(batch)
+                        .retrieve()
+                        .bodyToMono(MlBatchPredictResponse.class)
+                        .map(response -> response.results != null ? response.results : List.<MlPredictResponse>of()))
+                .flatMap(results -> {
+                    if (results.size() != batch.size()) {
+                        return Mono.error(new RuntimeException("ML service returned " + results.size()
+                                + " results for " + batch.size() + " applications"));
+                    }
+                    return Mono.just(results);
+                }), batch.size() <= interactiveMaxSize);
+    }
+
+    // SHAP factors for predictions returned without them; background work, so batch deadline, no hedging
+    public Mono<MlExplainResponse> explainBatch(List<FeatureVector> batch) {
+        return call(() -> compactOr(
+                () -> postCompact("/explain/batch", batch, MlWireFormat::decodeExplanations),
+                () -> mlClient.post()
+                        .uri("/explain/batch")
+                        .bodyValue(batch)
+                        .retrieve()
+                        .bodyToMono(MlExplainResponse.class))
+                .flatMap(response -> {
+                    if (response.results == null || response.results.size() != batch.size()) {
+                        return Mono.error(new RuntimeException("ML service returned "
+                                + (response.results == null ? 0 : response.results.size())
+                                + " explanations for " + batch.size() + " applications"));
+                    }
+                    return Mono.just(response);
+                }), false);
+    }
+
+    // Health probe; bypasses the breaker so it keeps reporting while the circuit is open.
+    // Also settles the wire format from the feature_schema ml-service reports.
+    public Mono<String> modelVersion() {
+        return mlClient.get()
+                .uri("/health")
+                .retrieve()
+                .bodyToMono(Map.class)
+                .map(health -> {
+                    onFeatureSchema(health.get("feature_schema"));
+                    return String.valueOf(health.get("model_version"));
+                })
+                .timeout(deadline)
+                .onErrorResume(MlClient::mapError);
+    }
+
+    boolean isCompact() {
+        return compact;
+    }
+
+    private void onFeatureSchema(Object schema) {
+        boolean supported = compactAllowed && FeatureSchema.FINGERPRINT.equals(schema);
+        if (supported != compact) {
+            compact = supported;
+            logger.info("ML service feature schema {} (ours {}): using {} requests", schema, FeatureSchema.FINGERPRINT,
+                    supported ? "compact" : "JSON");
+        }
+    }
+
+    // Requests go out as JSON until /health has answered: the first call asks in the
+    // background, later checks come from PredictionCache polling modelVersion(). A 415 means
+    // this ml-service instance does not take the compact encoding (e.g. an older pod during
+    // a rollout); the call is repeated as JSON and JSON is used until the next check.
+    private <T> Mono<T> compactOr(Supplier<Mono<T>> compactRequest, Supplier<Mono<T>> jsonRequest) {
+        if (compactAllowed && negotiated.compareAndSet(false, true)) {
+            modelVersion().subscribe(version -> { }, e -> { });
+        }
+        if (!compact) {
+            return jsonRequest.get();
+        }
+        return compactRequest.get().onErrorResume(WebClientResponseException.UnsupportedMediaType.class, e -> {
+            if (compact) {
+                compact = false;
+                logger.warn("ML service rejected the compact encoding ({}); using JSON", e.getResponseBodyAsString());
+            }
+            return jsonRequest.get();
+        });
+    }
+
+    private <T> Mono<T> postCompact(String uri, List<FeatureVector> batch, BiFunction<byte[], String, T> decoder) {
+        return mlClient.post()
+                .uri(uri)
+                .contentType(MlWireFormat.FEATURES)
+                .accept(MlWireFormat.SCORES)
+                .bodyValue(MlWireFormat.encode(batch))
+                .retrieve()
+                .toEntity(byte[].class)
+                .map(entity -> decoder.apply(entity.getBody() != null ? entity.getBody() : new byte[0],
+                        entity.getHeaders().getFirst(MlWireFormat.MODEL_VERSION_HEADER)));
+    }
+
+    private <T> Mono<T> call(Supplier<Mono<T>> request, boolean interactive) {
+        Duration callDeadline = interactive ? deadline : batchDeadline;
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new MlUnavailableException("ML service circuit breaker is open"));
+            }
+            long started = System.nanoTime();
+            Mono<T> attempt = interactive && hedgeEnabled ? hedged(request) : Mono.defer(request);
+            return attempt
+                    .timeout(callDeadline)
+                    .doOnSuccess(result -> {
+                        if (interactive) {
+                            interactiveLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                        }
+                        circuitBreaker.onSuccess();
+                    })
+                    .doOnError(e -> circuitBreaker.onFailure())
+                    .doOnCancel(circuitBreaker::onCancel);
+        }).onErrorResume(e -> {
+            if (e instanceof TimeoutException && !isPoolExhausted(e)) {
+                deadlineExceeded.increment();
+                return Mono.error(new MlUnavailableException(
+                        "ML service did not answer within " + callDeadline.toMillis() + " ms", e));
+            }
+            return mapError(e);
+        });
+    }
+
+    // The primary request is cached so the hedge timer firing does not cancel it; whichever
+    // of primary and hedge produces a value first wins and the other is cancelled
+    private <T> Mono<T> hedged(Supplier<Mono<T>> request) {
+        long calls = interactiveCalls.incrementAndGet();
+        Mono<T> primary = Mono.defer(request).cache();
+        return primary.timeout(hedgeDelay(), Mono.defer(() -> {
+            if (hedgedCalls.get() * 100 >= calls * hedgeBudgetPercent) {
+                return primary;
+            }
+            hedgedCalls.incrementAndGet();
+            hedges.increment();
+            return Mono.firstWithValue(primary, Mono.defer(request))
+                    .onErrorMap(NoSuchElementException.class, MlClient::firstFailure);
+        }));
+    }
+
+    Duration hedgeDelay() {
+        if (interactiveLatency.count() < HEDGE_MIN_SAMPLES) {
+            return deadline.dividedBy(2);
+        }
+        ValueAtPercentile[] percentiles = interactiveLatency.takeSnapshot().percentileValues();
+        if (percentiles.length == 0) {
+            return deadline.dividedBy(2);
+        }
+        Duration observed = Duration.ofNanos((long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        return observed.compareTo(hedgeMinDelay) < 0 ? hedgeMinDelay : observed;
+    }
+
+    // Mono.firstWithValue reports "no value" with the individual errors attached as a composite
+    private static Throwable firstFailure(NoSuchElementException e) {
+        if (e.getCause() != null) {
+            List<Throwable> causes = Exceptions.unwrapMultiple(e.getCause());
+            if (!causes.isEmpty()) {
+                return causes.get(0);
+            }
+        }
+        return e;
+    }
+
+    // Reactor Netty's pool exceptions are shaded internals, so match them by name
+    private static boolean isPoolExhausted(Throwable e) {
+        for (Throwable c = e; c != null; c = c.getCause()) {
+            if (c.getClass().getSimpleName().startsWith("PoolAcquire")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Gateway errors, 503 and 429 mean ml-service (or what fronts it) cannot take the call
+    // right now; anything else, a 500 included, is a failure of this request
+    private static boolean isOverloaded(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static <T> Mono<T> mapError(Throwable e) {
+        if (e instanceof MlUnavailableException) {
+            return Mono.error(e);
+        }
+        if (isPoolExhausted(e)) {
+            logger.error("No ML service connection available: {}", e.getMessage());
+            return Mono.error(new MlUnavailableException("ML service connection pool exhausted", e));
+        }
+        if (e instanceof WebClientResponseException we && isOverloaded(we.getStatusCode().value())) {
+            logger.warn("ML service unavailable: {}", we.getStatusCode());
+            return Mono.error(new MlUnavailableException("ML service answered " + we.getStatusCode(), e));
+        }
+        if (e instanceof WebClientRequestException) {
+            logger.error("ML service unreachable: {}", e.getMessage());
+            return Mono.error(new MlUnavailableException("ML service unreachable: " + e.getMessage(), e));
+        }
+        if (e instanceof WebClientResponseException we) {
+            logger.error("ML service returned error: {} - {}", we.getStatusCode(), we.getResponseBodyAsString());
+            return Mono.error(new RuntimeException(
+                    "ML service error: " + we.getStatusCode() + " - " + we.getResponseBodyAsString()));
+        }
+        logger.error("Unexpected error calling ML service: {}", e.getMessage(), e);
+        return Mono.error(new RuntimeException("Failed to call ML service: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.backend.loan;
+
+import java.util.List;
+
+public class MlExplainResponse {
+    // top SHAP factors per request item, in request order
+    public List<RiskFactors> results;
+    public String model_version;
+}
@@ -0,0 +1,127 @@
+package com.example.backend.loan;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Coalesces concurrent single-application predictions into /predict/batch calls.
+// A batch is flushed when it reaches max-size or when the oldest request has waited max-delay-ms.
+@Component
+public class MlMicroBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MlMicroBatcher.class);
+
+    private record Pending(FeatureVector features, CompletableFuture<MlPredictResponse> result) {
+    }
+
+    private final MlClient mlClient;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private Thread dispatcher;
+    // Set before the queue is drained; a submit that loses the race takes its entry back
+    private volatile boolean stopped;
+
+    public MlMicroBatcher(MlClient mlClient,
+                          @Value("${ml.micro-batch.enabled:true}") boolean enabled,
+                          @Value("${ml.micro-batch.max-size:32}") int maxSize,
+                          @Value("${ml.micro-batch.max-delay-ms:5}") long maxDelayMs) {
+        this.mlClient = mlClient;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        dispatcher = new Thread(this::run, "ml-micro-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // MlUnavailableException, so RemoteRiskScorer answers with the fallback decision or a 503
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            p.result().completeExceptionally(shuttingDown());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<MlPredictResponse> submit(FeatureVector features) {
+        if (stopped) {
+            return CompletableFuture.failedFuture(shuttingDown());
+        }
+        CompletableFuture<MlPredictResponse> result = new CompletableFuture<>();
+        Pending pending = new Pending(features, result);
+        queue.add(pending);
+        if (stopped && queue.remove(pending)) {
+            result.completeExceptionally(shuttingDown());
+        }
+        return result;
+    }
+
+    private static MlUnavailableException shuttingDown() {
+        return new MlUnavailableException("ML micro-batcher is shutting down");
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.result().completeExceptionally(shuttingDown()));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Sends asynchronously so the dispatcher can start collecting the next batch right away
+    private void flush(List<Pending> batch) {
+        logger.debug("Flushing ML micro-batch of {} applications", batch.size());
+        List<FeatureVector> vectors = batch.stream().map(Pending::features).toList();
+        mlClient.predictBatch(vectors).subscribe(
+                results -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result().complete(results.get(i));
+                    }
+                },
+                error -> batch.forEach(p -> p.result().completeExceptionally(error)));
+    }
+}
@@ -1,10 +1,29 @@
 package com.example.backend.loan;
 
-import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class MlPredictResponse {
+
+    // model_version of decisions made without the model (ML circuit open or deadline exceeded)
+    public static final String FALLBACK_MODEL_VERSION = "fallback";
+
     public double risk_score;
     public String decision;
     // ML returns [["feature", value], ...]
-    public List<List<Object>> top_factors;
+    public RiskFactors top_factors;
+    // identifies the model that produced this prediction; changes on redeploy
+    public String model_version;
+
+    public static MlPredictResponse fallback(String decision) {
+        MlPredictResponse r = new MlPredictResponse();
+        r.decision = decision;
+        r.top_factors = RiskFactors.NONE;
+        r.model_version = FALLBACK_MODEL_VERSION;
+        return r;
+    }
+
+    @JsonIgnore
+    public boolean isFallback() {
+        return FALLBACK_MODEL_VERSION.equals(model_version);
+    }
 }
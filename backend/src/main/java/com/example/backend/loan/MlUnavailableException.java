@@ -0,0 +1,14 @@
+package com.example.backend.loan;
+
+// The ML service could not be used: circuit open, deadline exceeded or no pooled
+// connection available. Mapped to 503 unless a fallback decision is configured.
+public class MlUnavailableException extends RuntimeException {
+
+    public MlUnavailableException(String message) {
+        super(message);
+    }
+
+    public MlUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
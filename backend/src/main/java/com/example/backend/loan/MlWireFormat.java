@@ -0,0 +1,111 @@
+package com.example.backend.loan;
+
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Compact encoding of ml-service calls, used instead of JSON once /health reports the same
+// feature_schema as FeatureSchema.FINGERPRINT.
+//
+// Request (application/x-loan-features;schema=<fingerprint>): one row per application of
+// FeatureSchema.SIZE little-endian float32 values in schema order, NaN for missing. The
+// model evaluates its splits in float32, so nothing is lost on the way.
+//
+// Response (application/x-loan-scores): one byte giving the number of factor slots, then
+// per application float64 risk_score, uint8 decision (1 = DENY), uint8 factor count (255 =
+// not explained), and the slots as uint8 feature indexes followed by float64 impacts.
+// /explain/batch answers with the same layout without risk_score and decision. The model
+// version is in the X-Model-Version header.
+public final class MlWireFormat {
+
+    public static final MediaType FEATURES = new MediaType("application", "x-loan-features",
+            Map.of("schema", FeatureSchema.FINGERPRINT));
+    public static final MediaType SCORES = new MediaType("application", "x-loan-scores");
+    public static final String MODEL_VERSION_HEADER = "X-Model-Version";
+
+    private static final int NOT_EXPLAINED = 255;
+
+    private MlWireFormat() {
+    }
+
+    public static byte[] encode(List<FeatureVector> batch) {
+        ByteBuffer out = ByteBuffer.allocate(batch.size() * FeatureSchema.SIZE * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (FeatureVector features : batch) {
+            for (int i = 0; i < FeatureSchema.SIZE; i++) {
+                out.putFloat((float) features.get(i));
+            }
+        }
+        return out.array();
+    }
+
+    public static List<MlPredictResponse> decodeScores(byte[] body, String modelVersion) {
+        ByteBuffer in = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        int slots = slots(in);
+        int rows = rows(in, Double.BYTES + 2 + slots * (1 + Double.BYTES));
+        List<MlPredictResponse> results = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            MlPredictResponse response = new MlPredictResponse();
+            response.risk_score = in.getDouble();
+            response.decision = in.get() == 1 ? "DENY" : "APPROVE";
+            response.top_factors = factors(in, slots);
+            response.model_version = modelVersion;
+            results.add(response);
+        }
+        return results;
+    }
+
+    public static MlExplainResponse decodeExplanations(byte[] body, String modelVersion) {
+        ByteBuffer in = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        int slots = slots(in);
+        int rows = rows(in, 1 + slots * (1 + Double.BYTES));
+        MlExplainResponse response = new MlExplainResponse();
+        response.results = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            response.results.add(factors(in, slots));
+        }
+        response.model_version = modelVersion;
+        return response;
+    }
+
+    private static int slots(ByteBuffer in) {
+        if (!in.hasRemaining()) {
+            throw new IllegalArgumentException("Empty ML service response");
+        }
+        return in.get() & 0xFF;
+    }
+
+    private static int rows(ByteBuffer in, int rowBytes) {
+        if (in.remaining() % rowBytes != 0) {
+            throw new IllegalArgumentException("ML service response of " + in.capacity()
+                    + " bytes is not a whole number of " + rowBytes + "-byte rows");
+        }
+        return in.remaining() / rowBytes;
+    }
+
+    // null when the row was not explained; the unused slots are skipped
+    private static RiskFactors factors(ByteBuffer in, int slots) {
+        int count = in.get() & 0xFF;
+        int start = in.position();
+        in.position(start + slots * (1 + Double.BYTES));
+        if (count == NOT_EXPLAINED) {
+            return null;
+        }
+        if (count > slots) {
+            throw new IllegalArgumentException("ML service returned " + count + " factors in " + slots + " slots");
+        }
+        int[] features = new int[count];
+        double[] impacts = new double[count];
+        for (int i = 0; i < count; i++) {
+            features[i] = in.get(start + i) & 0xFF;
+            if (features[i] >= FeatureSchema.SIZE) {
+                throw new IllegalArgumentException("ML service returned factor for unknown feature " + features[i]);
+            }
+            impacts[i] = in.getDouble(start + slots + i * Double.BYTES);
+        }
+        return count == 0 ? RiskFactors.NONE : new RiskFactors(features, impacts);
+    }
+}
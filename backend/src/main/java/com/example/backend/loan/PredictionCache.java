@@ -0,0 +1,118 @@
+package com.example.backend.loan;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Bounded cache of ML predictions for byte-identical resubmissions, keyed on the
+// FeatureVector itself (exact equality over the model inputs). Entries are tagged with
+// the model version that produced them and the whole cache is dropped as soon as a
+// different version is observed.
+@Component
+public class PredictionCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionCache.class);
+
+    private final RiskScorer scorer;
+    private final boolean enabled;
+    private final Cache<FeatureVector, MlPredictResponse> cache;
+    private volatile String modelVersion;
+
+    public PredictionCache(RiskScorer scorer,
+                           @Value("${ml.cache.enabled:true}") boolean enabled,
+                           @Value("${ml.cache.max-size:100000}") long maxSize,
+                           @Value("${ml.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.scorer = scorer;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    // Picked up by Boot for every MeterBinder bean: cache.gets/puts/evictions/size
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "prediction");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public MlPredictResponse get(FeatureVector features) {
+        if (!enabled) {
+            return null;
+        }
+        MlPredictResponse cached = cache.getIfPresent(features);
+        // a racing put from an older model can slip in just before invalidation
+        if (cached != null && !Objects.equals(cached.model_version, modelVersion)) {
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(FeatureVector features, MlPredictResponse response) {
+        if (!enabled || response == null || response.isFallback()) {
+            return;
+        }
+        onModelVersion(response.model_version);
+        cache.put(features, response);
+    }
+
+    // Polls the scorer so a redeployed model is noticed even while every request is a cache hit
+    @Scheduled(fixedDelayString = "${ml.cache.version-check-interval-ms:30000}")
+    public void checkModelVersion() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            onModelVersion(scorer.modelVersion());
+        } catch (Exception e) {
+            logger.warn("Could not check ML model version: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void onModelVersion(String version) {
+        if (version == null || version.equals(modelVersion)) {
+            return;
+        }
+        if (modelVersion != null) {
+            logger.info("ML model version changed from {} to {}; clearing {} cached predictions",
+                    modelVersion, version, cache.estimatedSize());
+        }
+        modelVersion = version;
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("model_version", modelVersion);
+        out.put("size", cache.estimatedSize());
+        out.put("hits", stats.hitCount());
+        out.put("misses", stats.missCount());
+        out.put("hit_rate", stats.hitRate());
+        out.put("evictions", stats.evictionCount());
+        return out;
+    }
+
+    Cache<FeatureVector, MlPredictResponse> cache() {
+        return cache;
+    }
+}
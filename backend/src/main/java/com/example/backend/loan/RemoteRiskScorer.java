@@ -0,0 +1,79 @@
+package com.example.backend.loan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+@Component
+@ConditionalOnProperty(name = "ml.scorer", havingValue = "remote", matchIfMissing = true)
+public class RemoteRiskScorer implements RiskScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteRiskScorer.class);
+
+    private final MlClient mlClient;
+    private final MlMicroBatcher microBatcher;
+    // Decision recorded when ml-service is unavailable; blank means fail the request (503)
+    private final String fallbackDecision;
+
+    public RemoteRiskScorer(MlClient mlClient, MlMicroBatcher microBatcher,
+                            @Value("${ml.client.fallback-decision:}") String fallbackDecision) {
+        this.mlClient = mlClient;
+        this.microBatcher = microBatcher;
+        this.fallbackDecision = fallbackDecision.isBlank() ? null : fallbackDecision;
+    }
+
+    @Override
+    public MlPredictResponse score(FeatureVector features) {
+        try {
+            if (!microBatcher.isEnabled()) {
+                return mlClient.predict(features).block();
+            }
+            return microBatcher.submit(features).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MlUnavailableException unavailable) {
+                return fallback(unavailable, 1).get(0);
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        } catch (MlUnavailableException e) {
+            return fallback(e, 1).get(0);
+        }
+    }
+
+    @Override
+    public List<MlPredictResponse> scoreBatch(List<FeatureVector> batch) {
+        try {
+            return mlClient.predictBatch(batch).block();
+        } catch (MlUnavailableException e) {
+            return fallback(e, batch.size());
+        }
+    }
+
+    // No fallback here: an explanation is either the model's or absent
+    @Override
+    public MlExplainResponse explain(List<FeatureVector> batch) {
+        return mlClient.explainBatch(batch).block();
+    }
+
+    @Override
+    public String modelVersion() {
+        return mlClient.modelVersion().block();
+    }
+
+    private List<MlPredictResponse> fallback(MlUnavailableException cause, int count) {
+        if (fallbackDecision == null) {
+            throw cause;
+        }
+        logger.warn("ML service unavailable ({}), recording {} fallback {} decision(s)",
+                cause.getMessage(), count, fallbackDecision);
+        return Collections.nCopies(count, MlPredictResponse.fallback(fallbackDecision));
+    }
+}
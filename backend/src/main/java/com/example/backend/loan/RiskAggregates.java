@@ -0,0 +1,285 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running totals behind /analytics, updated on every saved decision. Mirrors the
+// Snowflake views V_RISK_SCORE_DISTRIBUTION, V_DAILY_APPROVAL_RATES and
+// V_GLOBAL_RISK_FACTORS (same column names and rounding) so the endpoints can answer
+// from memory when the warehouse is suspended. Rebuilt from Postgres at startup.
+@Component
+public class RiskAggregates {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskAggregates.class);
+
+    private static final int BUCKETS = 10;
+    private static final String[] BUCKET_LABELS = {
+            "0.0-0.1", "0.1-0.2", "0.2-0.3", "0.3-0.4", "0.4-0.5",
+            "0.5-0.6", "0.6-0.7", "0.7-0.8", "0.8-0.9", "0.9-1.0"
+    };
+
+    private static final String REBUILD_SQL = """
+            SELECT risk_score, decision, shap_values::text AS shap_values, created_at
+            FROM loan_applications
+            WHERE created_at < ?
+            """;
+
+    private static final class Counts {
+        final LongAdder total = new LongAdder();
+        final LongAdder approved = new LongAdder();
+        final LongAdder denied = new LongAdder();
+        // rows with a model score; rule-decided and fallback rows have none
+        final LongAdder scored = new LongAdder();
+        final DoubleAdder riskSum = new DoubleAdder();
+    }
+
+    private static final class FactorImpact {
+        final DoubleAdder absSum = new DoubleAdder();
+        final LongAdder count = new LongAdder();
+    }
+
+    private final Counts overall = new Counts();
+    private final Counts[] buckets = new Counts[BUCKETS];
+    private final Map<LocalDate, Counts> days = new ConcurrentHashMap<>();
+    // indexed by FeatureSchema slot
+    private final FactorImpact[] factors = new FactorImpact[FeatureSchema.SIZE];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean rebuildOnStartup;
+    private final int rebuildFetchSize;
+    // Rows created before this instant come from the rebuild scan, later ones from record()
+    private final Instant rebuildCutoff = Instant.now();
+    private volatile boolean ready;
+
+    public RiskAggregates(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          @Value("${analytics.aggregates.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                          @Value("${analytics.aggregates.rebuild-fetch-size:1000}") int rebuildFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildFetchSize = rebuildFetchSize;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new Counts();
+        }
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = new FactorImpact();
+        }
+    }
+
+    // Runs off the startup path; analytics report ready=false until it finishes
+    @PostConstruct
+    void start() {
+        if (!rebuildOnStartup) {
+            ready = true;
+            return;
+        }
+        Thread.ofVirtual().name("risk-aggregates-rebuild").start(this::rebuild);
+    }
+
+    void rebuild() {
+        long started = System.nanoTime();
+        try {
+            // Postgres only streams with a cursor inside a transaction; otherwise the
+            // driver buffers the whole result set
+            long rows = readOnlyTransaction.execute(status -> {
+                JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+                streaming.setFetchSize(rebuildFetchSize);
+                long[] count = {0};
+                streaming.query(REBUILD_SQL, rs -> {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    add(rs.getObject("risk_score") == null ? null : rs.getDouble("risk_score"),
+                            rs.getString("decision"),
+                            parseFactors(rs.getString("shap_values")),
+                            createdAt != null ? createdAt.toInstant() : null);
+                    count[0]++;
+                }, Timestamp.from(rebuildCutoff));
+                return count[0];
+            });
+            ready = true;
+            logger.info("Rebuilt risk aggregates from {} loan applications in {} ms",
+                    rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild risk aggregates: {}", e.getMessage(), e);
+        }
+    }
+
+    public void record(List<LoanApplicationEntity> saved) {
+        for (LoanApplicationEntity e : saved) {
+            add(e.getRiskScore(), e.getDecision(), e.getShapValues(), e.getCreatedAt());
+        }
+    }
+
+    // Every decision counts towards totals and rates; only scored rows have a bucket
+    // and enter the average score, as AVG(RISK_SCORE) skips nulls in the views
+    void add(Double riskScore, String decision, RiskFactors topFactors, Instant createdAt) {
+        boolean approved = "APPROVE".equals(decision);
+        boolean denied = "DENY".equals(decision);
+
+        count(overall, riskScore, approved, denied);
+        if (riskScore != null) {
+            count(buckets[bucket(riskScore)], riskScore, approved, denied);
+        }
+        if (createdAt != null) {
+            count(days.computeIfAbsent(LocalDate.ofInstant(createdAt, ZoneOffset.UTC), d -> new Counts()),
+                    riskScore, approved, denied);
+        }
+
+        addFactors(topFactors);
+    }
+
+    // Factors written back after the decision was recorded without them (deferred
+    // explanations), so the totals match what a rebuild reads from shap_values
+    public void recordFactors(List<RiskFactors> explained) {
+        for (RiskFactors topFactors : explained) {
+            addFactors(topFactors);
+        }
+    }
+
+    private void addFactors(RiskFactors topFactors) {
+        if (topFactors != null) {
+            for (int i = 0; i < topFactors.size(); i++) {
+                FactorImpact f = factors[topFactors.feature(i)];
+                f.absSum.add(Math.abs(topFactors.impact(i)));
+                f.count.increment();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Map<String, Object>> riskDistribution() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            Counts c = buckets[i];
+            long total = c.total.sum();
+            if (total == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("RISK_SCORE_BUCKET", BUCKET_LABELS[i]);
+            row.put("APPLICATION_COUNT", total);
+            row.put("APPROVED_COUNT", c.approved.sum());
+            row.put("DENIED_COUNT", c.denied.sum());
+            row.put("APPROVAL_RATE_PERCENT", round(c.approved.sum() * 100.0 / total, 2));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public List<Map<String, Object>> approvalRates(int limit) {
+        return days.entrySet().stream()
+                .sorted(Map.Entry.<LocalDate, Counts>comparingByKey().reversed())
+                .limit(limit)
+                .map(entry -> {
+                    Counts c = entry.getValue();
+                    long total = c.total.sum();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("APPLICATION_DATE", entry.getKey());
+                    row.put("TOTAL_APPLICATIONS", total);
+                    row.put("APPROVED_APPLICATIONS", c.approved.sum());
+                    row.put("DENIED_APPLICATIONS", c.denied.sum());
+                    row.put("APPROVAL_RATE_PERCENT", round(c.approved.sum() * 100.0 / total, 2));
+                    row.put("AVG_RISK_SCORE", averageScore(c));
+                    return row;
+                })
+                .toList();
+    }
+
+    public List<Map<String, Object>> topFactors(int limit) {
+        return FeatureSchema.features().stream()
+                .filter(feature -> factors[feature.index()].count.sum() > 0)
+                .map(feature -> {
+                    FactorImpact f = factors[feature.index()];
+                    long count = f.count.sum();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("FACTOR_NAME", feature.modelName());
+                    row.put("AVG_IMPACT", round(f.absSum.sum() / count, 4));
+                    row.put("APPLICATION_COUNT", count);
+                    return row;
+                })
+                .sorted(Comparator.comparingDouble((Map<String, Object> row) -> (Double) row.get("AVG_IMPACT")).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public Map<String, Object> summary() {
+        long total = overall.total.sum();
+        LocalDate weekAgo = LocalDate.now(ZoneOffset.UTC).minusDays(7);
+        long lastWeek = days.entrySet().stream()
+                .filter(entry -> !entry.getKey().isBefore(weekAgo))
+                .mapToLong(entry -> entry.getValue().total.sum())
+                .sum();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total_applications", total);
+        summary.put("overall_approval_rate_percent", total == 0 ? null : round(overall.approved.sum() * 100.0 / total, 2));
+        summary.put("average_risk_score", averageScore(overall));
+        summary.put("applications_last_7_days", lastWeek);
+        return summary;
+    }
+
+    private static void count(Counts c, Double riskScore, boolean approved, boolean denied) {
+        c.total.increment();
+        if (approved) {
+            c.approved.increment();
+        } else if (denied) {
+            c.denied.increment();
+        }
+        if (riskScore != null) {
+            c.scored.increment();
+            c.riskSum.add(riskScore);
+        }
+    }
+
+    private static Double averageScore(Counts c) {
+        long scored = c.scored.sum();
+        return scored == 0 ? null : round(c.riskSum.sum() / scored, 4);
+    }
+
+    private static int bucket(double riskScore) {
+        return Math.max(0, Math.min(BUCKETS - 1, (int) Math.floor(riskScore * BUCKETS)));
+    }
+
+    private static double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private RiskFactors parseFactors(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, RiskFactors.class);
+        } catch (Exception e) {
+            logger.warn("Skipping unreadable shap_values: {}", e.getMessage());
+            return null;
+        }
+    }
+}
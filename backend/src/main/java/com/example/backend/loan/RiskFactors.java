@@ -0,0 +1,127 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Top SHAP contributions of one prediction, largest |impact| first, as FeatureSchema
+// indexes and impacts. Serialized as the ml-service's [["feature", impact], ...] with
+// the training (model) spelling of each name.
+@JsonSerialize(using = RiskFactors.Serializer.class)
+@JsonDeserialize(using = RiskFactors.Deserializer.class)
+public final class RiskFactors {
+
+    public static final RiskFactors NONE = new RiskFactors(new int[0], new double[0]);
+
+    private final int[] features;
+    private final double[] impacts;
+
+    RiskFactors(int[] features, double[] impacts) {
+        if (features.length != impacts.length) {
+            throw new IllegalArgumentException("features and impacts differ in length");
+        }
+        this.features = features;
+        this.impacts = impacts;
+    }
+
+    public int size() {
+        return features.length;
+    }
+
+    // FeatureSchema index of the i-th factor
+    public int feature(int i) {
+        return features[i];
+    }
+
+    public String name(int i) {
+        return FeatureSchema.get(features[i]).modelName();
+    }
+
+    public double impact(int i) {
+        return impacts[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RiskFactors other
+                && Arrays.equals(features, other.features) && Arrays.equals(impacts, other.impacts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(features) + Arrays.hashCode(impacts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < features.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(name(i)).append('=').append(impacts[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    static final class Serializer extends StdSerializer<RiskFactors> {
+
+        Serializer() {
+            super(RiskFactors.class);
+        }
+
+        @Override
+        public void serialize(RiskFactors factors, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (int i = 0; i < factors.size(); i++) {
+                gen.writeStartArray();
+                gen.writeString(factors.name(i));
+                gen.writeNumber(factors.impacts[i]);
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<RiskFactors> {
+
+        Deserializer() {
+            super(RiskFactors.class);
+        }
+
+        @Override
+        public RiskFactors deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.START_ARRAY) {
+                return (RiskFactors) ctxt.handleUnexpectedToken(RiskFactors.class, p);
+            }
+            int[] features = new int[4];
+            double[] impacts = new double[4];
+            int n = 0;
+            while (p.nextToken() == JsonToken.START_ARRAY) {
+                String name = p.nextTextValue();
+                p.nextToken();
+                double impact = p.getDoubleValue();
+                if (p.nextToken() != JsonToken.END_ARRAY) {
+                    return (RiskFactors) ctxt.handleUnexpectedToken(RiskFactors.class, p);
+                }
+                int index = FeatureSchema.indexOf(name);
+                if (index < 0) {
+                    throw ctxt.weirdStringException(name, RiskFactors.class, "not a feature in FeatureSchema");
+                }
+                if (n == features.length) {
+                    features = Arrays.copyOf(features, n * 2);
+                    impacts = Arrays.copyOf(impacts, n * 2);
+                }
+                features[n] = index;
+                impacts[n++] = impact;
+            }
+            return n == 0 ? NONE : new RiskFactors(Arrays.copyOf(features, n), Arrays.copyOf(impacts, n));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend.loan;
+
+import java.util.List;
+
+// Turns a feature vector into a risk score, decision and top SHAP factors.
+// Selected with ml.scorer: "remote" (ml-service over HTTP) or "local" (in-JVM XGBoost).
+// Under ml.explain.mode=deferred, predictions outside the ExplainPolicy come back with
+// null top_factors; explain() computes them on their own.
+public interface RiskScorer {
+
+    MlPredictResponse score(FeatureVector features);
+
+    // Results are returned in input order
+    List<MlPredictResponse> scoreBatch(List<FeatureVector> batch);
+
+    // Top SHAP factors only, in input order
+    MlExplainResponse explain(List<FeatureVector> batch);
+
+    // Version of the model currently serving predictions
+    String modelVersion();
+}
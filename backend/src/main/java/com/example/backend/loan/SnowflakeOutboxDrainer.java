@@ -0,0 +1,142 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class SnowflakeOutboxDrainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeOutboxDrainer.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final SnowflakeOutboxRepository outboxRepo;
+    private final LoanApplicationRepository loanRepo;
+    private final WarehouseSink warehouseSink;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer writeTimer;
+    private final Counter writeFailures;
+    private final Counter deadLetters;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+
+    public SnowflakeOutboxDrainer(SnowflakeOutboxRepository outboxRepo,
+                                  LoanApplicationRepository loanRepo,
+                                  WarehouseSink warehouseSink,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${snowflake.outbox.enabled:true}") boolean enabled,
+                                  @Value("${snowflake.outbox.batch-size:500}") int batchSize,
+                                  @Value("${snowflake.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${snowflake.outbox.backoff-base-ms:1000}") long backoffBaseMs,
+                                  @Value("${snowflake.outbox.backoff-max-ms:300000}") long backoffMaxMs) {
+        this.outboxRepo = outboxRepo;
+        this.loanRepo = loanRepo;
+        this.warehouseSink = warehouseSink;
+        this.transactionTemplate = transactionTemplate;
+        this.writeTimer = Timer.builder("snowflake.write").description("Outbox batch handed to the warehouse sink")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.writeFailures = Counter.builder("snowflake.write.failures").register(meterRegistry);
+        this.deadLetters = Counter.builder("snowflake.outbox.dead").register(meterRegistry);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = Duration.ofMillis(backoffBaseMs);
+        this.backoffMax = Duration.ofMillis(backoffMaxMs);
+    }
+
+    @Scheduled(fixedDelayString = "${snowflake.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Keep going while batches come back full so a backlog clears without waiting
+            // a poll interval per batch; a failed batch ends the round.
+            Integer shipped;
+            do {
+                shipped = transactionTemplate.execute(status -> drainBatch());
+            } while (shipped != null && shipped == batchSize);
+        } catch (Exception e) {
+            logger.error("Snowflake outbox drain failed: {}", e.getMessage(), e);
+        }
+    }
+
+    int drainBatch() {
+        List<SnowflakeOutboxEntity> batch = outboxRepo.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> ids = batch.stream().map(SnowflakeOutboxEntity::getApplicationId).toList();
+        List<LoanApplicationEntity> applications = loanRepo.findAllById(ids);
+        if (applications.size() < ids.size()) {
+            logger.warn("{} outbox entries reference loan applications that no longer exist",
+                    ids.size() - applications.size());
+        }
+
+        try {
+            writeTimer.recordCallable(() -> {
+                warehouseSink.writeLoanApplications(applications);
+                return null;
+            });
+        } catch (Exception e) {
+            writeFailures.increment();
+            logger.error("Failed to ship {} loan applications to Snowflake: {}", batch.size(), e.getMessage(), e);
+            scheduleRetry(batch, e);
+            return 0;
+        }
+
+        outboxRepo.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    private void scheduleRetry(List<SnowflakeOutboxEntity> batch, Exception cause) {
+        Instant now = Instant.now();
+        String error = truncate(cause.getMessage());
+        for (SnowflakeOutboxEntity entry : batch) {
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(error);
+            if (attempts >= maxAttempts) {
+                entry.setStatus(SnowflakeOutboxEntity.Status.DEAD);
+                deadLetters.increment();
+                logger.error("Loan application {} moved to Snowflake dead letter after {} attempts",
+                        entry.getApplicationId(), attempts);
+            } else {
+                entry.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        }
+        outboxRepo.saveAll(batch);
+    }
+
+    Duration backoff(int attempts) {
+        // base * 2^(attempts - 1), capped; the shift is bounded so it cannot overflow
+        long multiplier = 1L << Math.min(attempts - 1, 30);
+        Duration delay = backoffBase.multipliedBy(multiplier);
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
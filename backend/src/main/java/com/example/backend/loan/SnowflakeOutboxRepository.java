@@ -0,0 +1,24 @@
+package com.example.backend.loan;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SnowflakeOutboxRepository extends JpaRepository<SnowflakeOutboxEntity, UUID> {
+
+    // Rows stay locked until the caller's transaction ends; SKIP LOCKED lets several
+    // backend replicas drain the outbox concurrently without shipping the same row twice.
+    @Query(value = """
+            SELECT * FROM snowflake_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= now()
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SnowflakeOutboxEntity> claimBatch(@Param("limit") int limit);
+
+    long countByStatus(SnowflakeOutboxEntity.Status status);
+}
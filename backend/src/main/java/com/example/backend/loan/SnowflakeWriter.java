@@ -5,106 +5,103 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.UUID;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
-public class SnowflakeWriter {
+@ConditionalOnProperty(name = "snowflake.sink", havingValue = "jdbc")
+public class SnowflakeWriter implements WarehouseSink {
 
     private static final Logger logger = LoggerFactory.getLogger(SnowflakeWriter.class);
 
+    // Feature columns come from FeatureSchema, in slot order, between USER_ID and RISK_SCORE
+    private static final String INSERT_SQL = """
+            INSERT INTO BKRISK_DB.CORE.LOAN_APPLICATIONS (
+                APPLICATION_ID,
+                USER_ID,
+                %s,
+                RISK_SCORE,
+                DECISION,
+                SHAP_VALUES,
+                CREATED_AT
+            ) VALUES (?, ?, %s?, ?, ?, ?)
+            """.formatted(
+            String.join(",\n    ", FeatureSchema.features().stream().map(FeatureSchema.Feature::warehouseColumn).toList()),
+            "?, ".repeat(FeatureSchema.SIZE));
+
+    private static final int FIRST_FEATURE_PARAM = 3;
+
     private final JdbcTemplate snowflakeJdbcTemplate;
     private final ObjectMapper objectMapper;
 
-    public SnowflakeWriter(@Qualifier("snowflakeJdbcTemplate") JdbcTemplate snowflakeJdbcTemplate) {
+    public SnowflakeWriter(@Lazy @Qualifier("snowflakeJdbcTemplate") JdbcTemplate snowflakeJdbcTemplate) {
         this.snowflakeJdbcTemplate = snowflakeJdbcTemplate;
         this.objectMapper = new ObjectMapper();
     }
 
-    public void writeLoanApplication(LoanApplicationEntity loanApplication) {
-        try {
-            String sql = """
-                    INSERT INTO BKRISK_DB.CORE.LOAN_APPLICATIONS (
-                        APPLICATION_ID,
-                        USER_ID,
-                        REVOLVING_UTILIZATION_OF_UNSECURED_LINES,
-                        AGE,
-                        NUMBER_OF_TIME_30_59_DAYS_PAST_DUE_NOT_WORSE,
-                        DEBT_RATIO,
-                        MONTHLY_INCOME,
-                        NUMBER_OF_OPEN_CREDIT_LINES_AND_LOANS,
-                        NUMBER_OF_TIMES_90_DAYS_LATE,
-                        NUMBER_REAL_ESTATE_LOANS_OR_LINES,
-                        NUMBER_OF_TIME_60_89_DAYS_PAST_DUE_NOT_WORSE,
-                        NUMBER_OF_DEPENDENTS,
-                        RISK_SCORE,
-                        DECISION,
-                        SHAP_VALUES,
-                        CREATED_AT
-                    ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
-
-            Map<String, Object> payload = loanApplication.getPayload();
-
-            snowflakeJdbcTemplate.update(sql,
-                    loanApplication.getId().toString(),
-                    loanApplication.getUserId() != null ? loanApplication.getUserId().toString() : null,
-                    getDoubleValue(payload, "RevolvingUtilizationOfUnsecuredLines"),
-                    getIntValue(payload, "age"),
-                    getIntValue(payload, "NumberOfTime30_59DaysPastDueNotWorse"),
-                    getDoubleValue(payload, "DebtRatio"),
-                    getDoubleValue(payload, "MonthlyIncome"),
-                    getIntValue(payload, "NumberOfOpenCreditLinesAndLoans"),
-                    getIntValue(payload, "NumberOfTimes90DaysLate"),
-                    getIntValue(payload, "NumberRealEstateLoansOrLines"),
-                    getIntValue(payload, "NumberOfTime60_89DaysPastDueNotWorse"),
-                    getIntValue(payload, "NumberOfDependents"),
-                    loanApplication.getRiskScore(),
-                    loanApplication.getDecision(),
-                    objectMapper.writeValueAsString(loanApplication.getShapValues()),
-                    loanApplication.getCreatedAt());
-
-            logger.info("Successfully wrote loan application {} to Snowflake", loanApplication.getId());
-
-        } catch (Exception e) {
-            logger.error("Failed to write loan application {} to Snowflake: {}", loanApplication.getId(),
-                    e.getMessage(), e);
-            // Don't throw the exception to avoid breaking the main flow
-            // In production, you might want to implement retry logic or dead letter queue
+    // Ships the whole batch as one JDBC batch. Errors propagate so the outbox drainer
+    // can retry the batch instead of losing rows.
+    @Override
+    public void writeLoanApplications(List<LoanApplicationEntity> loanApplications) throws JsonProcessingException {
+        if (loanApplications.isEmpty()) {
+            return;
         }
-    }
 
-    private Double getDoubleValue(Map<String, Object> payload, String key) {
-        Object value = payload.get(key);
-        if (value == null)
-            return null;
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            logger.warn("Could not parse double value for key {}: {}", key, value);
-            return null;
+        List<String> shapJson = new ArrayList<>(loanApplications.size());
+        for (LoanApplicationEntity loanApplication : loanApplications) {
+            shapJson.add(objectMapper.writeValueAsString(loanApplication.getShapValues()));
         }
+
+        snowflakeJdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                bindRow(ps, loanApplications.get(i), shapJson.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return loanApplications.size();
+            }
+        });
+        logger.info("Wrote {} loan applications to Snowflake", loanApplications.size());
     }
 
-    private Integer getIntValue(Map<String, Object> payload, String key) {
-        Object value = payload.get(key);
-        if (value == null)
-            return null;
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
+    // Feature values are bound as primitives straight from the vector
+    static void bindRow(PreparedStatement ps, LoanApplicationEntity loanApplication, String shapJson) throws SQLException {
+        FeatureVector features = loanApplication.getPayload();
+        int param = 1;
+        ps.setString(param++, loanApplication.getId().toString());
+        ps.setString(param++, loanApplication.getUserId() != null ? loanApplication.getUserId().toString() : null);
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            int p = FIRST_FEATURE_PARAM + f.index();
+            boolean integral = f.type() == FeatureSchema.Type.INT;
+            if (features == null || features.isMissing(f.index())) {
+                ps.setNull(p, integral ? Types.INTEGER : Types.DOUBLE);
+            } else if (integral) {
+                ps.setInt(p, (int) features.get(f.index()));
+            } else {
+                ps.setDouble(p, features.get(f.index()));
+            }
         }
-        try {
-            return Integer.parseInt(value.toString());
-        } catch (NumberFormatException e) {
-            logger.warn("Could not parse int value for key {}: {}", key, value);
-            return null;
+        param = FIRST_FEATURE_PARAM + FeatureSchema.SIZE;
+        if (loanApplication.getRiskScore() == null) {
+            ps.setNull(param++, Types.DOUBLE);
+        } else {
+            ps.setDouble(param++, loanApplication.getRiskScore());
         }
+        ps.setString(param++, loanApplication.getDecision());
+        ps.setString(param++, shapJson);
+        StatementCreatorUtils.setParameterValue(ps, param, SqlTypeValue.TYPE_UNKNOWN, loanApplication.getCreatedAt());
     }
 }
@@ -0,0 +1,140 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+// Runs the CPU side of /loans/apply on synthetic applications before the instance reports
+// ready: JSON binding and validation of the request, feature extraction, scoring and the
+// response. Boot publishes ReadinessState.ACCEPTING_TRAFFIC only after ApplicationRunners
+// return, so the first real requests land on loaded, JIT-compiled code instead of a cold
+// JVM. Nothing is persisted, cached or published to the decision stream. Scoring stops at
+// the first error or fallback, so an ml-service that is still starting can't open the
+// circuit breaker.
+@Component
+@ConditionalOnProperty(name = "loans.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final RiskScorer scorer;
+    private final Timer duration;
+    private final int iterations;
+    private final int scoreCalls;
+    private final Duration maxDuration;
+
+    public StartupWarmUp(ObjectMapper objectMapper, Validator validator, RiskScorer scorer, MeterRegistry meterRegistry,
+                         @Value("${loans.warm-up.iterations:5000}") int iterations,
+                         @Value("${loans.warm-up.score-calls:200}") int scoreCalls,
+                         @Value("${loans.warm-up.max-ms:20000}") long maxMs) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.scorer = scorer;
+        this.iterations = iterations;
+        this.scoreCalls = scoreCalls;
+        this.maxDuration = Duration.ofMillis(maxMs);
+        this.duration = Timer.builder("loans.warmup").description("Startup warm-up before readiness")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        duration.record(this::warmUp);
+    }
+
+    // Returns the number of synthetic applications that went through
+    int warmUp() {
+        long start = System.nanoTime();
+        Instant deadline = Instant.now().plus(maxDuration);
+        Random random = new Random(42);
+        int done = 0;
+        int scored = 0;
+        boolean scoring = scoreCalls > 0;
+        try {
+            while (done < iterations && Instant.now().isBefore(deadline)) {
+                byte[] json = objectMapper.writeValueAsBytes(sample(random));
+                LoanApplicationRequest request = objectMapper.readValue(json, LoanApplicationRequest.class);
+                if (!validator.validate(request).isEmpty()) {
+                    throw new IllegalStateException("Synthetic application failed validation");
+                }
+                FeatureVector features = FeatureVector.of(request);
+
+                MlPredictResponse ml = null;
+                if (scoring && scored < scoreCalls) {
+                    ml = score(features);
+                    if (ml != null) {
+                        scored++;
+                    } else {
+                        scoring = false;
+                    }
+                }
+                if (ml == null) {
+                    ml = synthetic(random);
+                }
+                LoanApplicationEntity entity = LoanService.toEntity(features, ml);
+                entity.setId(TimeOrderedUuid.next());
+                objectMapper.writeValueAsBytes(LoansController.toResponse(entity));
+                objectMapper.writeValueAsBytes(features);
+                done++;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Warm-up stopped after {} applications: {}", done, e.getMessage());
+        }
+        logger.info("Warm-up ran {} synthetic applications ({} scored by {}) in {} ms", done, scored,
+                scorer.getClass().getSimpleName(), (System.nanoTime() - start) / 1_000_000);
+        return done;
+    }
+
+    private MlPredictResponse score(FeatureVector features) {
+        try {
+            MlPredictResponse ml = scorer.score(features);
+            if (ml == null || ml.isFallback()) {
+                logger.info("Warm-up stopped scoring: the scorer answered with a fallback decision");
+                return null;
+            }
+            return ml;
+        } catch (RuntimeException e) {
+            logger.info("Warm-up stopped scoring: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Roughly the ranges of the training data
+    private static LoanApplicationRequest sample(Random random) {
+        return new LoanApplicationRequest(
+                random.nextDouble(),
+                21 + random.nextInt(70),
+                random.nextInt(3),
+                random.nextDouble() * 2,
+                random.nextInt(10) == 0 ? 0 : 1000 + random.nextDouble() * 15000,
+                random.nextInt(20),
+                random.nextInt(2),
+                random.nextInt(4),
+                random.nextInt(2),
+                random.nextInt(4));
+    }
+
+    private static MlPredictResponse synthetic(Random random) {
+        MlPredictResponse ml = new MlPredictResponse();
+        ml.risk_score = random.nextDouble();
+        ml.decision = ml.risk_score < 0.35 ? "APPROVE" : "DENY";
+        ml.top_factors = new RiskFactors(new int[]{0, 3, 4}, new double[]{0.4, -0.2, 0.1});
+        ml.model_version = "warm-up";
+        return ml;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.backend.loan;
+
+import java.util.List;
+
+// Destination of the Snowflake outbox. Implementations must either make the batch
+// durable before returning or throw, because the drainer deletes the outbox rows on
+// return. Selected with snowflake.sink: jdbc (SnowflakeWriter), staged (StagedWarehouseSink)
+// or memory (InMemoryWarehouseSink, for load tests).
+public interface WarehouseSink {
+
+    void writeLoanApplications(List<LoanApplicationEntity> loanApplications) throws Exception;
+}
@@ -0,0 +1,123 @@
+package com.example.backend.prescreen;
+
+import com.example.backend.loan.FeatureVector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// One loaded rules file, compiled. Rules are tried in file order and the first match
+// wins; immutable once built, so a reload swaps the whole set atomically.
+public final class PrescreenRuleSet {
+
+    public enum Action {
+        APPROVE, DENY, MODEL;
+
+        public String decision() {
+            return this == MODEL ? null : name();
+        }
+    }
+
+    public record Rule(String id, Action action, String when, String reason,
+                       RuleCompiler.Condition condition, Counter hits) {
+
+        // approve and deny decide on their own; model stops evaluation and scores normally
+        public boolean decides() {
+            return action != Action.MODEL;
+        }
+    }
+
+    private final String version;
+    private final Rule[] rules;
+
+    private PrescreenRuleSet(String version, List<Rule> rules) {
+        this.version = version;
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    public static PrescreenRuleSet parse(InputStream in, MeterRegistry meterRegistry) {
+        Object document = new Yaml(new SafeConstructor(new LoaderOptions())).load(in);
+        if (!(document instanceof Map<?, ?> root)) {
+            throw new IllegalArgumentException("Rules file must be a mapping with 'version' and 'rules'");
+        }
+        // YAML reads an unquoted 2026-10-18 as a date and 1.10 as 1.1
+        if (!(root.get("version") instanceof String version) || version.isBlank()) {
+            throw new IllegalArgumentException("Rules file needs a quoted string 'version'");
+        }
+        Object ruleList = root.get("rules");
+        if (!(ruleList instanceof List<?> entries)) {
+            throw new IllegalArgumentException("Rules file has no 'rules' list");
+        }
+
+        List<Rule> rules = new ArrayList<>(entries.size());
+        Set<String> ids = new HashSet<>();
+        for (Object entry : entries) {
+            if (!(entry instanceof Map<?, ?> rule)) {
+                throw new IllegalArgumentException("Each rule must be a mapping");
+            }
+            String id = required(rule, "id");
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException("Duplicate rule id '" + id + "'");
+            }
+            String when = required(rule, "when");
+            String then = required(rule, "then");
+            Action action;
+            try {
+                action = Action.valueOf(then.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule '" + id + "': then must be approve, deny or model");
+            }
+            Object reason = rule.get("reason");
+            // Same id and action keep the same counter across reloads
+            Counter hits = Counter.builder("loans.prescreen.hits").tag("rule", id)
+                    .tag("action", action.name().toLowerCase(Locale.ROOT))
+                    .description("Applications matched by a pre-screening rule").register(meterRegistry);
+            rules.add(new Rule(id, action, when, reason == null ? null : reason.toString(),
+                    RuleCompiler.compile(when), hits));
+        }
+        return new PrescreenRuleSet(version, rules);
+    }
+
+    public Rule match(FeatureVector features) {
+        Rule rule = find(features);
+        if (rule != null) {
+            rule.hits().increment();
+        }
+        return rule;
+    }
+
+    // Like match(), without counting the hit
+    public Rule find(FeatureVector features) {
+        for (Rule rule : rules) {
+            if (rule.condition().test(features)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public List<Rule> rules() {
+        return List.of(rules);
+    }
+
+    private static String required(Map<?, ?> rule, String key) {
+        Object value = rule.get(key);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("Rule " + rule.get("id") + " is missing '" + key + "'");
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.backend.prescreen;
+
+import com.example.backend.loan.FeatureVector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pre-screening rules evaluated by LoanService before the prediction cache and the ML
+// call. The rules file is polled for changes and recompiled; a file that fails to
+// compile is rejected and the previous rules stay in force.
+@Component
+public class PrescreenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrescreenService.class);
+
+    private final Resource resource;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Counter evaluated;
+    private final Counter reloadFailures;
+
+    private volatile PrescreenRuleSet rules;
+    private volatile Instant loadedAt;
+    private long lastModified;
+
+    public PrescreenService(ResourceLoader resourceLoader, MeterRegistry meterRegistry,
+                            @Value("${loans.prescreen.enabled:true}") boolean enabled,
+                            @Value("${loans.prescreen.rules:classpath:prescreen-rules.yml}") String location) {
+        this.resource = resourceLoader.getResource(location);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.evaluated = Counter.builder("loans.prescreen.evaluated")
+                .description("Applications checked against the pre-screening rules").register(meterRegistry);
+        this.reloadFailures = Counter.builder("loans.prescreen.reload.failures").register(meterRegistry);
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // The first matching rule, or null when no rule matches (or pre-screening is off)
+    public PrescreenRuleSet.Rule evaluate(FeatureVector features) {
+        if (!enabled) {
+            return null;
+        }
+        evaluated.increment();
+        return rules.match(features);
+    }
+
+    // What evaluate() would return, for what-if analysis; not counted in loans.prescreen.*
+    public PrescreenRuleSet.Rule simulate(FeatureVector features) {
+        return enabled ? rules.find(features) : null;
+    }
+
+    public synchronized PrescreenRuleSet reload() {
+        long modified = lastModified();
+        PrescreenRuleSet loaded;
+        try (InputStream in = resource.getInputStream()) {
+            loaded = PrescreenRuleSet.parse(in, meterRegistry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read pre-screening rules from " + resource, e);
+        }
+        rules = loaded;
+        loadedAt = Instant.now();
+        lastModified = modified;
+        logger.info("Loaded {} pre-screening rules, version {}", loaded.rules().size(), loaded.version());
+        return loaded;
+    }
+
+    // Only file resources can change under us; classpath resources in a jar cannot
+    @Scheduled(fixedDelayString = "${loans.prescreen.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (!enabled || !resource.isFile()) {
+            return;
+        }
+        long modified = lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            reloadFailures.increment();
+            lastModified = modified; // do not retry the same broken file every interval
+            logger.error("Rejected pre-screening rules update, keeping version {}: {}",
+                    rules.version(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        PrescreenRuleSet current = rules;
+        double decided = 0;
+        List<Map<String, Object>> perRule = new ArrayList<>();
+        for (PrescreenRuleSet.Rule rule : current.rules()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", rule.id());
+            item.put("then", rule.action().name().toLowerCase());
+            item.put("when", rule.when());
+            item.put("hits", (long) rule.hits().count());
+            perRule.add(item);
+            if (rule.decides()) {
+                decided += rule.hits().count();
+            }
+        }
+        double total = evaluated.count();
+        stats.put("version", current.version());
+        stats.put("source", resource.getDescription());
+        stats.put("loaded_at", loadedAt);
+        stats.put("evaluated", (long) total);
+        stats.put("decided_by_rules", (long) decided);
+        // Share of applications that never reached the ML service because a rule decided them
+        stats.put("ml_calls_avoided_percent", total == 0 ? 0.0 : Math.round(1000 * decided / total) / 10.0);
+        stats.put("rules", perRule);
+        return stats;
+    }
+
+    private long lastModified() {
+        try {
+            return resource.isFile() ? resource.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
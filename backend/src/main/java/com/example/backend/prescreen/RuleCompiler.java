@@ -0,0 +1,181 @@
+package com.example.backend.prescreen;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Compiles a rule's `when` expression once, at load time, into a tree of small
+// closures over feature slots, so evaluating a rule is a few array reads and double
+// comparisons with no parsing or name lookups per request.
+//
+//   expr    := and ('or' and)*
+//   and     := unary ('and' unary)*
+//   unary   := 'not' unary | '(' expr ')' | FEATURE 'is' ('missing' | 'present') | FEATURE op NUMBER
+//   op      := < | <= | > | >= | == | !=
+//
+// FEATURE is a LoanApplicationRequest field, in either FeatureSchema spelling.
+// Every comparison is false for a missing value; test for that with `is missing`.
+public final class RuleCompiler {
+
+    @FunctionalInterface
+    public interface Condition {
+        boolean test(FeatureVector features);
+    }
+
+    private final String source;
+    private final List<String> tokens = new ArrayList<>();
+    private int pos;
+
+    private RuleCompiler(String source) {
+        this.source = source;
+        tokenize();
+    }
+
+    public static Condition compile(String expression) {
+        RuleCompiler compiler = new RuleCompiler(expression);
+        Condition condition = compiler.expr();
+        if (compiler.pos < compiler.tokens.size()) {
+            throw compiler.error("unexpected '" + compiler.tokens.get(compiler.pos) + "'");
+        }
+        return condition;
+    }
+
+    private Condition expr() {
+        Condition left = and();
+        while (acceptKeyword("or")) {
+            Condition a = left;
+            Condition b = and();
+            left = v -> a.test(v) || b.test(v);
+        }
+        return left;
+    }
+
+    private Condition and() {
+        Condition left = unary();
+        while (acceptKeyword("and")) {
+            Condition a = left;
+            Condition b = unary();
+            left = v -> a.test(v) && b.test(v);
+        }
+        return left;
+    }
+
+    private Condition unary() {
+        if (acceptKeyword("not")) {
+            Condition inner = unary();
+            return v -> !inner.test(v);
+        }
+        if (accept("(")) {
+            Condition inner = expr();
+            expect(")");
+            return inner;
+        }
+
+        String name = next("a feature name");
+        int slot = FeatureSchema.indexOf(name);
+        if (slot < 0) {
+            throw error("unknown feature '" + name + "'");
+        }
+        if (acceptKeyword("is")) {
+            if (acceptKeyword("missing")) {
+                return v -> v.isMissing(slot);
+            }
+            if (acceptKeyword("present")) {
+                return v -> !v.isMissing(slot);
+            }
+            throw error("expected 'missing' or 'present' after 'is'");
+        }
+
+        String op = next("a comparison operator");
+        double c = number(next("a number"));
+        // NaN (missing) compares false under <, <=, >, >= and ==; != is guarded explicitly
+        return switch (op) {
+            case "<" -> v -> v.get(slot) < c;
+            case "<=" -> v -> v.get(slot) <= c;
+            case ">" -> v -> v.get(slot) > c;
+            case ">=" -> v -> v.get(slot) >= c;
+            case "==" -> v -> v.get(slot) == c;
+            case "!=" -> v -> !v.isMissing(slot) && v.get(slot) != c;
+            default -> throw error("unknown operator '" + op + "'");
+        };
+    }
+
+    private void tokenize() {
+        int i = 0;
+        while (i < source.length()) {
+            char ch = source.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (Character.isLetter(ch)) {
+                int start = i;
+                while (i < source.length() && (Character.isLetterOrDigit(source.charAt(i))
+                        || source.charAt(i) == '_' || source.charAt(i) == '-')) {
+                    i++;
+                }
+                tokens.add(source.substring(start, i));
+            } else if (Character.isDigit(ch) || ch == '-' || ch == '.') {
+                int start = i++;
+                while (i < source.length() && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.'
+                        || source.charAt(i) == 'e' || source.charAt(i) == 'E'
+                        || ((source.charAt(i) == '-' || source.charAt(i) == '+')
+                            && (source.charAt(i - 1) == 'e' || source.charAt(i - 1) == 'E')))) {
+                    i++;
+                }
+                tokens.add(source.substring(start, i));
+            } else if (ch == '(' || ch == ')') {
+                tokens.add(String.valueOf(ch));
+                i++;
+            } else if ("<>=!".indexOf(ch) >= 0) {
+                int end = i + 1 < source.length() && source.charAt(i + 1) == '=' ? i + 2 : i + 1;
+                tokens.add(source.substring(i, end));
+                i = end;
+            } else {
+                throw new IllegalArgumentException("Invalid character '" + ch + "' in rule: " + source);
+            }
+        }
+    }
+
+    private boolean accept(String token) {
+        if (pos < tokens.size() && tokens.get(pos).equals(token)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (pos < tokens.size() && tokens.get(pos).toLowerCase(Locale.ROOT).equals(keyword)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("expected '" + token + "'");
+        }
+    }
+
+    private String next(String what) {
+        if (pos >= tokens.size()) {
+            throw error("expected " + what);
+        }
+        return tokens.get(pos++);
+    }
+
+    private double number(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw error("'" + token + "' is not a number");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid rule '" + source + "': " + message);
+    }
+}
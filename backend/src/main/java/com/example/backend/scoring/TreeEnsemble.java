@@ -0,0 +1,94 @@
+package com.example.backend.scoring;
+
+// XGBoost gbtree ensemble flattened into primitive arrays. Node n of tree t lives at
+// index treeOffsets[t] + n; child indices are stored already offset.
+// Leaves have left == -1 and keep their weight in value[].
+public final class TreeEnsemble {
+
+    final int numFeatures;
+    final double baseMargin;
+    final int[] treeOffsets;
+    final int[] left;
+    final int[] right;
+    final int[] feature;
+    final float[] value;
+    final boolean[] defaultLeft;
+    final double[] cover;
+    final double[] meanValue;
+    final int maxDepth;
+
+    TreeEnsemble(int numFeatures, double baseMargin, int[] treeOffsets, int[] left, int[] right, int[] feature,
+                 float[] value, boolean[] defaultLeft, double[] cover) {
+        this.numFeatures = numFeatures;
+        this.baseMargin = baseMargin;
+        this.treeOffsets = treeOffsets;
+        this.left = left;
+        this.right = right;
+        this.feature = feature;
+        this.value = value;
+        this.defaultLeft = defaultLeft;
+        this.cover = cover;
+        this.meanValue = new double[value.length];
+
+        int depth = 0;
+        for (int t = 0; t < numTrees(); t++) {
+            depth = Math.max(depth, fillMeanValues(treeOffsets[t]));
+        }
+        this.maxDepth = depth;
+    }
+
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    public int numTrees() {
+        return treeOffsets.length;
+    }
+
+    public double baseMargin() {
+        return baseMargin;
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    // Raw log-odds: base margin plus the leaf reached in every tree
+    public double margin(float[] x) {
+        double sum = baseMargin;
+        for (int t = 0; t < treeOffsets.length; t++) {
+            sum += value[leaf(treeOffsets[t], x)];
+        }
+        return sum;
+    }
+
+    int leaf(int node, float[] x) {
+        while (left[node] != -1) {
+            node = next(node, x);
+        }
+        return node;
+    }
+
+    // XGBoost semantics: missing follows the default branch, otherwise x < threshold goes left
+    int next(int node, float[] x) {
+        float v = x[feature[node]];
+        if (Float.isNaN(v)) {
+            return defaultLeft[node] ? left[node] : right[node];
+        }
+        return v < value[node] ? left[node] : right[node];
+    }
+
+    // Cover-weighted mean of the subtree's leaves, used as each tree's expected value
+    // in TreeSHAP. Returns the subtree depth.
+    private int fillMeanValues(int node) {
+        if (left[node] == -1) {
+            meanValue[node] = value[node];
+            return 0;
+        }
+        int l = left[node];
+        int r = right[node];
+        int depth = Math.max(fillMeanValues(l), fillMeanValues(r)) + 1;
+        meanValue[node] = (meanValue[l] * cover[l] + meanValue[r] * cover[r]) / cover[node];
+        return depth;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.backend.scoring;
+
+import java.util.Arrays;
+
+// Path-dependent TreeSHAP (Lundberg et al., Algorithm 2), following XGBoost's
+// RegTree::TreeShap so contributions match pred_contribs / shap.TreeExplainer.
+// All scratch space lives in the instance, so one TreeShap per thread scores without allocating.
+final class TreeShap {
+
+    private final TreeEnsemble model;
+    private final int[] pathFeature;
+    private final double[] pathZero;
+    private final double[] pathOne;
+    private final double[] pathWeight;
+
+    TreeShap(TreeEnsemble model) {
+        this.model = model;
+        int maxd = model.maxDepth() + 2;
+        int size = (maxd * (maxd + 1)) / 2;
+        this.pathFeature = new int[size];
+        this.pathZero = new double[size];
+        this.pathOne = new double[size];
+        this.pathWeight = new double[size];
+    }
+
+    // phi has numFeatures + 1 slots; the last one receives the bias (expected margin)
+    void contributions(float[] x, double[] phi) {
+        Arrays.fill(phi, 0.0);
+        int bias = model.numFeatures();
+        phi[bias] = model.baseMargin();
+        for (int t = 0; t < model.numTrees(); t++) {
+            int root = model.treeOffsets[t];
+            phi[bias] += model.meanValue[root];
+            recurse(x, phi, root, 0, 0, 1.0, 1.0, -1);
+        }
+    }
+
+    private void recurse(float[] x, double[] phi, int node, int parentStart, int depth,
+                         double parentZero, double parentOne, int parentFeature) {
+        // each level works on its own copy of the path, laid out right after the parent's
+        int start = parentStart + depth + 1;
+        System.arraycopy(pathFeature, parentStart, pathFeature, start, depth + 1);
+        System.arraycopy(pathZero, parentStart, pathZero, start, depth + 1);
+        System.arraycopy(pathOne, parentStart, pathOne, start, depth + 1);
+        System.arraycopy(pathWeight, parentStart, pathWeight, start, depth + 1);
+
+        extend(start, depth, parentZero, parentOne, parentFeature);
+
+        if (model.left[node] == -1) {
+            double leafValue = model.value[node];
+            for (int i = 1; i <= depth; i++) {
+                double w = unwoundSum(start, depth, i);
+                phi[pathFeature[start + i]] += w * (pathOne[start + i] - pathZero[start + i]) * leafValue;
+            }
+            return;
+        }
+
+        int split = model.feature[node];
+        int hot = model.next(node, x);
+        int cold = hot == model.left[node] ? model.right[node] : model.left[node];
+        double w = model.cover[node];
+        double hotZero = model.cover[hot] / w;
+        double coldZero = model.cover[cold] / w;
+
+        double incomingZero = 1.0;
+        double incomingOne = 1.0;
+        int pathIndex = 0;
+        while (pathIndex <= depth && pathFeature[start + pathIndex] != split) {
+            pathIndex++;
+        }
+        if (pathIndex != depth + 1) {
+            incomingZero = pathZero[start + pathIndex];
+            incomingOne = pathOne[start + pathIndex];
+            unwind(start, depth, pathIndex);
+            depth -= 1;
+        }
+
+        recurse(x, phi, hot, start, depth + 1, hotZero * incomingZero, incomingOne, split);
+        recurse(x, phi, cold, start, depth + 1, coldZero * incomingZero, 0.0, split);
+    }
+
+    private void extend(int s, int depth, double zero, double one, int feature) {
+        pathFeature[s + depth] = feature;
+        pathZero[s + depth] = zero;
+        pathOne[s + depth] = one;
+        pathWeight[s + depth] = depth == 0 ? 1.0 : 0.0;
+        for (int i = depth - 1; i >= 0; i--) {
+            pathWeight[s + i + 1] += one * pathWeight[s + i] * (i + 1) / (double) (depth + 1);
+            pathWeight[s + i] = zero * pathWeight[s + i] * (depth - i) / (double) (depth + 1);
+        }
+    }
+
+    private void unwind(int s, int depth, int pathIndex) {
+        double one = pathOne[s + pathIndex];
+        double zero = pathZero[s + pathIndex];
+        double nextOnePortion = pathWeight[s + depth];
+        for (int i = depth - 1; i >= 0; i--) {
+            if (one != 0) {
+                double tmp = pathWeight[s + i];
+                pathWeight[s + i] = nextOnePortion * (depth + 1) / ((i + 1) * one);
+                nextOnePortion = tmp - pathWeight[s + i] * zero * (depth - i) / (double) (depth + 1);
+            } else {
+                pathWeight[s + i] = (pathWeight[s + i] * (depth + 1)) / (zero * (depth - i));
+            }
+        }
+        for (int i = pathIndex; i < depth; i++) {
+            pathFeature[s + i] = pathFeature[s + i + 1];
+            pathZero[s + i] = pathZero[s + i + 1];
+            pathOne[s + i] = pathOne[s + i + 1];
+        }
+    }
+
+    private double unwoundSum(int s, int depth, int pathIndex) {
+        double one = pathOne[s + pathIndex];
+        double zero = pathZero[s + pathIndex];
+        double nextOnePortion = pathWeight[s + depth];
+        double total = 0;
+        for (int i = depth - 1; i >= 0; i--) {
+            if (one != 0) {
+                double tmp = nextOnePortion * (depth + 1) / ((i + 1) * one);
+                total += tmp;
+                nextOnePortion = pathWeight[s + i] - tmp * zero * ((depth - i) / (double) (depth + 1));
+            } else {
+                total += (pathWeight[s + i] / zero) / ((depth - i) / (double) (depth + 1));
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.backend.scoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+// Reads the artifacts written by ml-service/training/train.py:
+// model.json (Booster.save_model JSON), imputer.json (median statistics) and features.json.
+public final class XgbModelLoader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private XgbModelLoader() {
+    }
+
+    public static XgbScoringModel load(Path artifactsDir) throws IOException {
+        List<String> features = new ArrayList<>();
+        for (JsonNode f : readJson(artifactsDir.resolve("features.json"))) {
+            features.add(f.asText());
+        }
+
+        JsonNode statistics = readJson(artifactsDir.resolve("imputer.json")).path("statistics");
+        if (statistics.size() != features.size()) {
+            throw new IllegalArgumentException("imputer.json has " + statistics.size()
+                    + " statistics for " + features.size() + " features");
+        }
+        double[] medians = new double[statistics.size()];
+        for (int i = 0; i < medians.length; i++) {
+            medians[i] = statistics.get(i).asDouble();
+        }
+
+        byte[] modelBytes = Files.readAllBytes(artifactsDir.resolve("model.json"));
+        TreeEnsemble ensemble = parseModel(MAPPER.readTree(modelBytes));
+        if (ensemble.numFeatures() != features.size()) {
+            throw new IllegalArgumentException("model.json expects " + ensemble.numFeatures()
+                    + " features but features.json lists " + features.size());
+        }
+        return new XgbScoringModel(version(modelBytes), features, medians, ensemble);
+    }
+
+    static TreeEnsemble parseModel(JsonNode root) {
+        JsonNode learner = root.path("learner");
+        String objective = learner.path("objective").path("name").asText();
+        if (!"binary:logistic".equals(objective)) {
+            throw new IllegalArgumentException("Unsupported XGBoost objective: " + objective);
+        }
+
+        JsonNode params = learner.path("learner_model_param");
+        int numFeatures = params.path("num_feature").asInt();
+        // stored as a probability; newer XGBoost versions wrap it in brackets
+        double baseScore = Double.parseDouble(params.path("base_score").asText().replace("[", "").replace("]", ""));
+        double baseMargin = Math.log(baseScore / (1.0 - baseScore));
+
+        JsonNode trees = learner.path("gradient_booster").path("model").path("trees");
+        int totalNodes = 0;
+        for (JsonNode tree : trees) {
+            totalNodes += tree.path("left_children").size();
+        }
+
+        int[] treeOffsets = new int[trees.size()];
+        int[] left = new int[totalNodes];
+        int[] right = new int[totalNodes];
+        int[] feature = new int[totalNodes];
+        float[] value = new float[totalNodes];
+        boolean[] defaultLeft = new boolean[totalNodes];
+        double[] cover = new double[totalNodes];
+
+        int offset = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            JsonNode tree = trees.get(t);
+            if (tree.path("categories").size() > 0) {
+                throw new IllegalArgumentException("Categorical splits are not supported (tree " + t + ")");
+            }
+            JsonNode l = tree.path("left_children");
+            JsonNode r = tree.path("right_children");
+            JsonNode f = tree.path("split_indices");
+            JsonNode v = tree.path("split_conditions");
+            JsonNode d = tree.path("default_left");
+            JsonNode h = tree.path("sum_hessian");
+
+            treeOffsets[t] = offset;
+            for (int n = 0; n < l.size(); n++) {
+                int i = offset + n;
+                int leftChild = l.get(n).asInt();
+                left[i] = leftChild == -1 ? -1 : offset + leftChild;
+                right[i] = leftChild == -1 ? -1 : offset + r.get(n).asInt();
+                feature[i] = f.get(n).asInt();
+                value[i] = (float) v.get(n).asDouble();
+                defaultLeft[i] = d.get(n).asInt() != 0;
+                cover[i] = h.get(n).asDouble();
+            }
+            offset += l.size();
+        }
+
+        return new TreeEnsemble(numFeatures, baseMargin, treeOffsets, left, right, feature, value, defaultLeft, cover);
+    }
+
+    private static String version(byte[] modelBytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(modelBytes);
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonNode readJson(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return MAPPER.readTree(in);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.backend.scoring;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// In-process equivalent of the ml-service pipeline: median imputation, XGBoost
+// predict_proba and TreeSHAP contributions. Thread-safe; scratch buffers live in a
+// small lock-free slot pool rather than thread-locals because requests run on
+// short-lived virtual threads. Scoring never blocks, so concurrency is bounded by the
+// carrier threads and the pool stops allocating once warmed up.
+public final class XgbScoringModel {
+
+    private final String version;
+    private final List<String> features;
+    private final double[] medians;
+    private final TreeEnsemble ensemble;
+    private final AtomicReferenceArray<Workspace> workspaces =
+            new AtomicReferenceArray<>(Math.max(16, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private static final class Workspace {
+        final float[] x;
+        final TreeShap shap;
+
+        Workspace(TreeEnsemble ensemble) {
+            this.x = new float[ensemble.numFeatures()];
+            this.shap = new TreeShap(ensemble);
+        }
+    }
+
+    XgbScoringModel(String version, List<String> features, double[] medians, TreeEnsemble ensemble) {
+        this.version = version;
+        this.features = List.copyOf(features);
+        this.medians = medians;
+        this.ensemble = ensemble;
+    }
+
+    // Content hash of model.json, so a retrained model invalidates cached predictions
+    public String version() {
+        return version;
+    }
+
+    public List<String> features() {
+        return features;
+    }
+
+    public int numFeatures() {
+        return features.size();
+    }
+
+    public int numTrees() {
+        return ensemble.numTrees();
+    }
+
+    // raw is in features() order; NaN marks a missing value and is imputed
+    public double predictProba(double[] raw) {
+        Workspace ws = acquire();
+        try {
+            return sigmoid(ensemble.margin(impute(raw, ws.x)));
+        } finally {
+            release(ws);
+        }
+    }
+
+    // Fills phi (numFeatures + 1 slots, bias last) with log-odds contributions and
+    // returns the probability of default
+    public double explain(double[] raw, double[] phi) {
+        Workspace ws = acquire();
+        try {
+            float[] x = impute(raw, ws.x);
+            ws.shap.contributions(x, phi);
+            return sigmoid(ensemble.margin(x));
+        } finally {
+            release(ws);
+        }
+    }
+
+    private Workspace acquire() {
+        for (int i = 0; i < workspaces.length(); i++) {
+            Workspace ws = workspaces.getAndSet(i, null);
+            if (ws != null) {
+                return ws;
+            }
+        }
+        return new Workspace(ensemble);
+    }
+
+    private void release(Workspace ws) {
+        for (int i = 0; i < workspaces.length(); i++) {
+            if (workspaces.compareAndSet(i, null, ws)) {
+                return;
+            }
+        }
+    }
+
+    private float[] impute(double[] raw, float[] x) {
+        for (int i = 0; i < x.length; i++) {
+            double v = raw[i];
+            // XGBoost sees float32 inputs, so thresholds are compared in float
+            x[i] = (float) (Double.isNaN(v) ? medians[i] : v);
+        }
+        return x;
+    }
+
+    private static double sigmoid(double margin) {
+        return 1.0 / (1.0 + Math.exp(-margin));
+    }
+}
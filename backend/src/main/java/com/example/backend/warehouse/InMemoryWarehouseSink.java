@@ -0,0 +1,48 @@
+package com.example.backend.warehouse;
+
+import com.example.backend.loan.LoanApplicationEntity;
+import com.example.backend.loan.WarehouseSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Warehouse stand-in for load tests (snowflake.sink=memory): batches are counted and
+// dropped after an optional simulated write latency, and a share of them can be failed
+// to exercise the outbox retries. The rows written are on /actuator/metrics/snowflake.memory.rows.
+@Component
+@ConditionalOnProperty(name = "snowflake.sink", havingValue = "memory")
+public class InMemoryWarehouseSink implements WarehouseSink {
+
+    private final long writeLatencyMs;
+    private final double failureRate;
+    private final Counter rows;
+    private final Counter failures;
+
+    public InMemoryWarehouseSink(MeterRegistry meterRegistry,
+                                 @Value("${snowflake.memory.write-latency-ms:0}") long writeLatencyMs,
+                                 @Value("${snowflake.memory.failure-rate:0}") double failureRate) {
+        this.writeLatencyMs = writeLatencyMs;
+        this.failureRate = failureRate;
+        this.rows = Counter.builder("snowflake.memory.rows").description("Rows accepted by the in-memory warehouse")
+                .register(meterRegistry);
+        this.failures = Counter.builder("snowflake.memory.failures").description("Batches failed on purpose")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void writeLoanApplications(List<LoanApplicationEntity> loanApplications) throws Exception {
+        if (writeLatencyMs > 0) {
+            Thread.sleep(writeLatencyMs);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failures.increment();
+            throw new IllegalStateException("Simulated warehouse failure");
+        }
+        rows.increment(loanApplications.size());
+    }
+}
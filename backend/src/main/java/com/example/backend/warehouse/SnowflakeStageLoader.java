@@ -0,0 +1,88 @@
+package com.example.backend.warehouse;
+
+import com.example.backend.loan.FeatureSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// PUT to an internal stage and COPY INTO through the Snowflake JDBC driver. The default
+// stage is the table stage of LOAN_APPLICATIONS, which exists without any DDL.
+// Repeats are harmless: PUT with OVERWRITE = FALSE skips a file already on the stage,
+// and COPY's load metadata skips files it has loaded before (PURGE also removes them).
+@Component
+@ConditionalOnProperty(name = "snowflake.stage.loader", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeStageLoader implements StageLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeStageLoader.class);
+
+    // File columns are in table order; SHAP_VALUES is VARIANT and arrives as JSON text
+    private static final String COPY_SQL = """
+            COPY INTO BKRISK_DB.CORE.LOAN_APPLICATIONS (
+                APPLICATION_ID,
+                USER_ID,
+                %s,
+                RISK_SCORE,
+                DECISION,
+                SHAP_VALUES,
+                CREATED_AT
+            )
+            FROM (SELECT %s, PARSE_JSON($%d), $%d FROM %%s)
+            FILES = (%%s)
+            FILE_FORMAT = (TYPE = CSV COMPRESSION = GZIP FIELD_OPTIONALLY_ENCLOSED_BY = '"' EMPTY_FIELD_AS_NULL = TRUE)
+            ON_ERROR = ABORT_STATEMENT
+            PURGE = TRUE
+            """.formatted(
+            String.join(",\n    ", FeatureSchema.features().stream().map(FeatureSchema.Feature::warehouseColumn).toList()),
+            columnRefs(FeatureSchema.SIZE + 4),
+            FeatureSchema.SIZE + 5,
+            FeatureSchema.SIZE + 6);
+
+    private final JdbcTemplate snowflakeJdbcTemplate;
+    private final String stage;
+
+    public SnowflakeStageLoader(@Lazy @Qualifier("snowflakeJdbcTemplate") JdbcTemplate snowflakeJdbcTemplate,
+                                @Value("${snowflake.stage.name:@BKRISK_DB.CORE.%LOAN_APPLICATIONS}") String stage) {
+        this.snowflakeJdbcTemplate = snowflakeJdbcTemplate;
+        this.stage = stage;
+    }
+
+    @Override
+    public void put(Path file) {
+        // Files are gzipped already; AUTO_COMPRESS would wrap them a second time
+        snowflakeJdbcTemplate.execute("PUT 'file://" + file.toAbsolutePath().toString().replace("'", "\\'") + "' "
+                + stage + " AUTO_COMPRESS = FALSE SOURCE_COMPRESSION = GZIP OVERWRITE = FALSE");
+    }
+
+    @Override
+    public long copyInto(List<String> files) {
+        String names = files.stream().map(f -> "'" + f.replace("'", "''") + "'").collect(Collectors.joining(", "));
+        List<Map<String, Object>> results = snowflakeJdbcTemplate.queryForList(COPY_SQL.formatted(stage, names));
+        long loaded = 0;
+        for (Map<String, Object> result : results) {
+            // One row per file; a single "0 files processed" row when everything was loaded before
+            if (result.get("rows_loaded") instanceof Number rows) {
+                loaded += rows.longValue();
+            }
+        }
+        logger.info("COPY INTO loaded {} rows from {} staged files", loaded, files.size());
+        return loaded;
+    }
+
+    private static String columnRefs(int count) {
+        StringBuilder refs = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            refs.append(i == 1 ? "" : ", ").append('$').append(i);
+        }
+        return refs.toString();
+    }
+}
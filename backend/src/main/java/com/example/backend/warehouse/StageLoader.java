@@ -0,0 +1,16 @@
+package com.example.backend.warehouse;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// The two warehouse calls the staged sink needs. Both must be safe to repeat: a crash
+// between a call and its manifest entry replays the call on the next load cycle.
+public interface StageLoader {
+
+    // Uploads a sealed file to the stage under its own name
+    void put(Path file) throws Exception;
+
+    // Loads the named staged files into LOAN_APPLICATIONS and returns the rows loaded.
+    // Files that were already loaded are skipped, not loaded twice.
+    long copyInto(List<String> files) throws Exception;
+}
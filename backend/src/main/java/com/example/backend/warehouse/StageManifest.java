@@ -0,0 +1,106 @@
+package com.example.backend.warehouse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only journal of staged files, one "STATE name" line per transition, kept in
+// the staging directory next to the files it describes. A file moves SEALED -> UPLOADED
+// -> LOADED and is deleted locally once LOADED, so a file is never PUT or copied again
+// after the manifest says it was loaded. Every append is fsynced before it counts.
+public final class StageManifest implements AutoCloseable {
+
+    public enum State { SEALED, UPLOADED, LOADED }
+
+    static final String FILE_NAME = "manifest.log";
+
+    private final Path dir;
+    private final Map<String, State> files = new LinkedHashMap<>();
+    private FileChannel channel;
+
+    public StageManifest(Path dir) throws IOException {
+        this.dir = dir;
+        Path journal = dir.resolve(FILE_NAME);
+        if (Files.exists(journal)) {
+            for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                int sep = line.indexOf(' ');
+                if (sep < 0) {
+                    continue; // torn last line from a crash mid-append
+                }
+                try {
+                    files.put(line.substring(sep + 1), State.valueOf(line.substring(0, sep)));
+                } catch (IllegalArgumentException e) {
+                    // same: an incomplete state name
+                }
+            }
+        }
+        // A crash can land between recording LOADED and deleting the local copy
+        for (var it = files.entrySet().iterator(); it.hasNext(); ) {
+            var entry = it.next();
+            if (entry.getValue() == State.LOADED) {
+                Files.deleteIfExists(dir.resolve(entry.getKey()));
+                it.remove();
+            }
+        }
+        compact(journal);
+    }
+
+    public synchronized void record(String file, State state) throws IOException {
+        byte[] line = (state.name() + " " + file + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.write(ByteBuffer.wrap(line));
+        channel.force(false);
+        if (state == State.LOADED) {
+            files.remove(file);
+        } else {
+            files.put(file, state);
+        }
+    }
+
+    public synchronized List<String> files(State state) {
+        List<String> matching = new ArrayList<>();
+        files.forEach((file, s) -> {
+            if (s == state) {
+                matching.add(file);
+            }
+        });
+        return matching;
+    }
+
+    public synchronized boolean contains(String file) {
+        return files.containsKey(file);
+    }
+
+    public synchronized int pending() {
+        return files.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Rewrites the journal with only the files still in flight, then reopens it for appends
+    private void compact(Path journal) throws IOException {
+        Path tmp = dir.resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (var entry : files.entrySet()) {
+                out.write(entry.getValue().name() + " " + entry.getKey() + "\n");
+            }
+        }
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            tmpChannel.force(true);
+        }
+        Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
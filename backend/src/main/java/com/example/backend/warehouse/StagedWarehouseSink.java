@@ -0,0 +1,158 @@
+package com.example.backend.warehouse;
+
+import com.example.backend.loan.LoanApplicationEntity;
+import com.example.backend.loan.WarehouseSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+// Micro-batch file staging in front of Snowflake. Outbox batches are appended to a local
+// gzip CSV (durable once writeLoanApplications returns); the load cycle seals files by
+// size or age, PUTs them to the stage and loads them with one COPY INTO per cycle.
+// StageManifest records each step so no file is PUT or loaded again after it succeeded.
+// The outbox forgets rows once they are staged, so the directory has to outlive the
+// process; one that the OS or the container runtime clears is refused at startup.
+@Component
+@ConditionalOnProperty(name = "snowflake.sink", havingValue = "staged", matchIfMissing = true)
+public class StagedWarehouseSink implements WarehouseSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedWarehouseSink.class);
+
+    private final StageLoader loader;
+    private final StageManifest manifest;
+    private final StagingFileRoller roller;
+    private final int maxFilesPerCopy;
+    private final Duration shutdownLoadTimeout;
+    private final Timer copyTimer;
+    private final Counter rowsLoaded;
+    private final Counter loadFailures;
+
+    @Autowired
+    public StagedWarehouseSink(StageLoader loader,
+                               MeterRegistry meterRegistry,
+                               @Value("${snowflake.stage.local-dir:./data/snowflake-staging}") Path dir,
+                               @Value("${snowflake.stage.roll-bytes:134217728}") long rollBytes,
+                               @Value("${snowflake.stage.roll-interval-ms:60000}") long rollIntervalMs,
+                               @Value("${snowflake.stage.max-files-per-copy:100}") int maxFilesPerCopy,
+                               @Value("${snowflake.stage.shutdown-load-timeout-ms:20000}") long shutdownLoadTimeoutMs) {
+        this(loader, meterRegistry, persistent(dir), rollBytes, Duration.ofMillis(rollIntervalMs), maxFilesPerCopy,
+                Duration.ofMillis(shutdownLoadTimeoutMs), Clock.systemUTC());
+    }
+
+    StagedWarehouseSink(StageLoader loader, MeterRegistry meterRegistry, Path dir, long rollBytes,
+                        Duration rollInterval, int maxFilesPerCopy, Duration shutdownLoadTimeout, Clock clock) {
+        this.loader = loader;
+        this.maxFilesPerCopy = maxFilesPerCopy;
+        this.shutdownLoadTimeout = shutdownLoadTimeout;
+        try {
+            Files.createDirectories(dir);
+            this.manifest = new StageManifest(dir);
+            this.roller = new StagingFileRoller(dir, manifest, rollBytes, rollInterval, clock);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open Snowflake staging directory " + dir, e);
+        }
+        this.copyTimer = Timer.builder("snowflake.stage.copy").description("COPY INTO from staged files")
+                .register(meterRegistry);
+        this.rowsLoaded = Counter.builder("snowflake.stage.rows.loaded").register(meterRegistry);
+        this.loadFailures = Counter.builder("snowflake.stage.failures").register(meterRegistry);
+        Gauge.builder("snowflake.stage.files.pending", manifest, StageManifest::pending)
+                .description("Sealed staging files not yet loaded").register(meterRegistry);
+    }
+
+    @Override
+    public void writeLoanApplications(List<LoanApplicationEntity> loanApplications) throws IOException {
+        roller.append(loanApplications);
+    }
+
+    @Scheduled(fixedDelayString = "${snowflake.stage.load-interval-ms:5000}")
+    public void load() {
+        try {
+            loadStaged();
+        } catch (Exception e) {
+            loadFailures.increment();
+            logger.error("Snowflake stage load failed; retrying next cycle: {}", e.getMessage(), e);
+        }
+    }
+
+    // One cycle: seal the open file if it is old enough, PUT what is sealed, COPY what is
+    // uploaded. Each step is recorded before the next, so a failure resumes where it stopped.
+    // Synchronized so the final load at shutdown never runs alongside a scheduled one.
+    synchronized long loadStaged() throws Exception {
+        roller.rollIfDue();
+        for (String file : manifest.files(StageManifest.State.SEALED)) {
+            loader.put(roller.dir().resolve(file));
+            manifest.record(file, StageManifest.State.UPLOADED);
+        }
+
+        long rows = 0;
+        List<String> uploaded = manifest.files(StageManifest.State.UPLOADED);
+        for (int from = 0; from < uploaded.size(); from += maxFilesPerCopy) {
+            List<String> files = uploaded.subList(from, Math.min(from + maxFilesPerCopy, uploaded.size()));
+            rows += copyTimer.recordCallable(() -> loader.copyInto(files));
+            for (String file : files) {
+                manifest.record(file, StageManifest.State.LOADED);
+                Files.deleteIfExists(roller.dir().resolve(file));
+            }
+        }
+        rowsLoaded.increment(rows);
+        return rows;
+    }
+
+    // Seals what was written and gives it one last load, bounded by
+    // shutdown-load-timeout-ms (0 skips it). Whatever is not loaded by then stays in the
+    // manifest and is loaded by the first cycle after the restart.
+    @PreDestroy
+    public void close() throws IOException {
+        roller.close();
+        if (shutdownLoadTimeout.isPositive()) {
+            Thread finalLoad = Thread.ofVirtual().name("snowflake-stage-final-load").start(this::load);
+            try {
+                if (!finalLoad.join(shutdownLoadTimeout)) {
+                    finalLoad.interrupt();
+                    logger.warn("Final Snowflake stage load did not finish within {} ms; {} file(s) wait in {}",
+                            shutdownLoadTimeout.toMillis(), manifest.pending(), roller.dir());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        manifest.close();
+    }
+
+    // Refuses a staging directory that does not survive a restart: one under java.io.tmpdir
+    // or on a memory-backed file system
+    static Path persistent(Path dir) {
+        Path absolute = dir.toAbsolutePath().normalize();
+        Path tmp = Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(absolute);
+            String type = Files.getFileStore(absolute).type();
+            String reason = absolute.startsWith(tmp) ? "it is under " + tmp
+                    : "tmpfs".equals(type) || "ramfs".equals(type) ? "it is on " + type : null;
+            if (reason != null) {
+                throw new IllegalStateException("snowflake.stage.local-dir " + absolute + " does not survive a restart ("
+                        + reason + "); staged rows are no longer in the outbox, so use a persistent volume");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open Snowflake staging directory " + dir, e);
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.backend.warehouse;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Appends loan applications to a gzip CSV file in the staging directory and seals it
+// (rename from .part, manifest SEALED) once it reaches rollBytes or rollInterval.
+// Columns follow LOAN_APPLICATIONS: APPLICATION_ID, USER_ID, the FeatureSchema columns,
+// RISK_SCORE, DECISION, SHAP_VALUES, CREATED_AT. Every append is written as its own
+// gzip member (concatenated members are still one valid gzip file) and fsynced, so what
+// append() returned for survives a crash and is recovered from the .part file on the
+// next start; only a torn trailing member is lost, and that batch was never acknowledged.
+public final class StagingFileRoller implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingFileRoller.class);
+
+    static final String SUFFIX = ".csv.gz";
+    static final String PART_SUFFIX = SUFFIX + ".part";
+    private static final String RECOVERED_PREFIX = "recovered_";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    private final Path dir;
+    private final StageManifest manifest;
+    private final long rollBytes;
+    private final Duration rollInterval;
+    private final Clock clock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path current;
+    private FileChannel channel;
+    private OutputStream out;
+    private Instant openedAt;
+    private long rows;
+
+    public StagingFileRoller(Path dir, StageManifest manifest, long rollBytes, Duration rollInterval, Clock clock)
+            throws IOException {
+        this.dir = dir;
+        this.manifest = manifest;
+        this.rollBytes = rollBytes;
+        this.rollInterval = rollInterval;
+        this.clock = clock;
+        recover();
+    }
+
+    public synchronized void append(List<LoanApplicationEntity> applications) throws IOException {
+        if (applications.isEmpty()) {
+            return;
+        }
+        if (out == null) {
+            open();
+        }
+        try {
+            GZIPOutputStream member = new GZIPOutputStream(out, BUFFER_SIZE);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(member, StandardCharsets.UTF_8), BUFFER_SIZE);
+            for (LoanApplicationEntity application : applications) {
+                writeRow(writer, application);
+            }
+            writer.flush();
+            member.finish();
+            channel.force(false);
+        } catch (IOException e) {
+            abandon();
+            throw e;
+        }
+        rows += applications.size();
+        if (channel.size() >= rollBytes) {
+            roll();
+        }
+    }
+
+    // Seals the open file if it has been open for rollInterval; called by the loader
+    // so a quiet period still ships what has been written
+    public synchronized boolean rollIfDue() throws IOException {
+        if (out == null || Duration.between(openedAt, clock.instant()).compareTo(rollInterval) < 0) {
+            return false;
+        }
+        roll();
+        return true;
+    }
+
+    public synchronized void roll() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        channel = null;
+        out = null;
+        String name = current.getFileName().toString();
+        seal(current, name.substring(0, name.length() - ".part".length()), rows);
+        current = null;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        roll();
+    }
+
+    private void open() throws IOException {
+        openedAt = clock.instant();
+        rows = 0;
+        current = dir.resolve("loans_" + openedAt.toEpochMilli() + "_"
+                + UUID.randomUUID().toString().substring(0, 8) + PART_SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        out = Channels.newOutputStream(channel);
+    }
+
+    // A failed append leaves the file in an unknown state: keep its complete lines under a
+    // new name and start over. Rows of the failed batch may survive and be sent again on
+    // retry, which is the same at-least-once contract as the JDBC sink.
+    private void abandon() {
+        Path broken = current;
+        current = null;
+        channel = null;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // the stream is being thrown away
+        }
+        out = null;
+        try {
+            salvage(broken);
+        } catch (IOException e) {
+            logger.error("Could not salvage staging file {}; it is retried on restart: {}", broken, e.getMessage());
+        }
+    }
+
+    private void seal(Path file, String name, long rowCount) throws IOException {
+        try (FileChannel sealed = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            sealed.force(true);
+        }
+        Files.move(file, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        manifest.record(name, StageManifest.State.SEALED);
+        logger.info("Sealed staging file {} with {} rows", name, rowCount);
+    }
+
+    // Finishes whatever a crash left behind: sealed files missing from the manifest are
+    // registered, and the complete lines of a .part file are copied into a sealed file.
+    private void recover() throws IOException {
+        List<Path> parts = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(PART_SUFFIX)) {
+                    parts.add(entry);
+                } else if (name.endsWith(SUFFIX) && !manifest.contains(name)) {
+                    manifest.record(name, StageManifest.State.SEALED);
+                    logger.warn("Registered unrecorded staging file {}", name);
+                }
+            }
+        }
+        for (Path part : parts) {
+            salvage(part);
+        }
+    }
+
+    private void salvage(Path part) throws IOException {
+        String partName = part.getFileName().toString();
+        String name = RECOVERED_PREFIX + partName.substring(0, partName.length() - ".part".length());
+        // open() writes nothing and every append() starts its own gzip member with a 10-byte
+        // header, so a shorter file is empty or a first append that was never acknowledged;
+        // an existing copy means it was salvaged before the delete.
+        if (Files.size(part) < GZIP_HEADER_LENGTH || manifest.contains(name) || Files.exists(dir.resolve(name))) {
+            Files.delete(part);
+            return;
+        }
+        Path copy = dir.resolve(name + ".salvage");
+        long lines = 0;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(part), BUFFER_SIZE);
+             OutputStream target = new GZIPOutputStream(Files.newOutputStream(copy), BUFFER_SIZE)) {
+            // Only whole lines are kept; bytes after the last newline were never acknowledged
+            ByteArrayOutputStream tail = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = readUpToTruncation(in, buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        tail.writeTo(target);
+                        tail.reset();
+                        target.write(buffer, start, i + 1 - start);
+                        start = i + 1;
+                        lines++;
+                    }
+                }
+                tail.write(buffer, start, n - start);
+            }
+        }
+        if (lines > 0) {
+            seal(copy, name, lines);
+            logger.warn("Recovered {} rows from interrupted staging file {}", lines, partName);
+        } else {
+            Files.delete(copy);
+        }
+        Files.delete(part);
+    }
+
+    private static int readUpToTruncation(InputStream in, byte[] buffer) {
+        try {
+            return in.read(buffer);
+        } catch (IOException e) {
+            return -1; // a torn trailing member: everything before it has been read
+        }
+    }
+
+    private void writeRow(Writer out, LoanApplicationEntity application) throws IOException {
+        out.write(application.getId().toString());
+        out.write(',');
+        if (application.getUserId() != null) {
+            out.write(application.getUserId().toString());
+        }
+        FeatureVector features = application.getPayload();
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            out.write(',');
+            if (features != null && !features.isMissing(f.index())) {
+                double value = features.get(f.index());
+                out.write(f.type() == FeatureSchema.Type.INT ? Long.toString((long) value) : Double.toString(value));
+            }
+        }
+        out.write(',');
+        if (application.getRiskScore() != null) {
+            out.write(Double.toString(application.getRiskScore()));
+        }
+        out.write(',');
+        writeField(out, application.getDecision());
+        out.write(',');
+        if (application.getShapValues() != null) {
+            writeField(out, objectMapper.writeValueAsString(application.getShapValues()));
+        }
+        out.write(',');
+        if (application.getCreatedAt() != null) {
+            out.write(application.getCreatedAt().toString());
+        }
+        out.write('\n');
+    }
+
+    // RFC 4180 quoting, only when needed
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
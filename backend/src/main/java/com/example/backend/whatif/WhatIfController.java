@@ -0,0 +1,72 @@
+package com.example.backend.whatif;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Portfolio what-if analysis: approval rates and score distribution of stored applications
+// under other thresholds and transformed inputs, e.g. income -20% over the last quarter
+@RestController
+@RequestMapping("/whatif/jobs")
+public class WhatIfController {
+
+    // Everything is optional: the last 90 days at ml.deny-threshold, on stored scores
+    public record StartRequest(Instant from, Instant to, List<Double> thresholds,
+                               List<WhatIfScenario.Transform> transforms, String scores) {
+    }
+
+    private final WhatIfService whatIfService;
+
+    public WhatIfController(WhatIfService whatIfService) {
+        this.whatIfService = whatIfService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestBody(required = false) StartRequest request) {
+        StartRequest r = request != null ? request : new StartRequest(null, null, null, null, null);
+        try {
+            Map<String, Object> job = whatIfService.start(r.from(), r.to(), r.thresholds(), r.transforms(), r.scores());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> recent() {
+        return whatIfService.recent();
+    }
+
+    // Partial results while the job runs
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable UUID id) {
+        return whatIfService.status(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Unknown job " + id));
+    }
+
+    // Pages already being evaluated finish; the job then stops as CANCELLED with what it has
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable UUID id) {
+        try {
+            whatIfService.cancel(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(whatIfService.status(id).orElseThrow());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.backend.whatif;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// One what-if run, kept in memory only: results are cheap to recompute and are small.
+// The range is cut into equal time slices that workers claim one at a time, so a busy
+// month does not leave the other workers idle. Each slice keeps its own tally and the
+// position its keyset scan has reached, which is also what progress is measured from.
+final class WhatIfJob {
+
+    enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    static final class Slice {
+        final Instant from;
+        final Instant to;
+        final WhatIfTally tally;
+        // created_at of the last row read; null before the first page
+        volatile Instant position;
+        volatile boolean done;
+
+        Slice(Instant from, Instant to, WhatIfTally tally) {
+            this.from = from;
+            this.to = to;
+            this.tally = tally;
+        }
+
+        double progress() {
+            if (done) {
+                return 1.0;
+            }
+            Instant p = position;
+            if (p == null) {
+                return 0.0;
+            }
+            return Math.min(1.0, (double) Duration.between(p, to).toMillis() / Duration.between(from, to).toMillis());
+        }
+    }
+
+    final UUID id = UUID.randomUUID();
+    final WhatIfScenario scenario;
+    final List<Slice> slices;
+    final AtomicInteger nextSlice = new AtomicInteger();
+    final LongAdder rowsScanned = new LongAdder();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final Instant createdAt = Instant.now();
+    final long startedNanos = System.nanoTime();
+    volatile Status status = Status.RUNNING;
+    volatile boolean cancelled;
+    volatile Instant finishedAt;
+    volatile long elapsedNanos;
+
+    WhatIfJob(WhatIfScenario scenario, int sliceCount) {
+        this.scenario = scenario;
+        // millisecond boundaries, and never a slice narrower than one millisecond
+        long fromMs = scenario.from().toEpochMilli();
+        long span = Math.max(1, scenario.to().toEpochMilli() - fromMs);
+        int n = (int) Math.min(sliceCount, span);
+        List<Slice> cut = new ArrayList<>(n);
+        // newest first, as the scans themselves run
+        for (int i = n - 1; i >= 0; i--) {
+            Instant start = i == 0 ? scenario.from() : Instant.ofEpochMilli(fromMs + span * i / n);
+            Instant end = i == n - 1 ? scenario.to() : Instant.ofEpochMilli(fromMs + span * (i + 1) / n);
+            cut.add(new Slice(start, end, new WhatIfTally(scenario.thresholds())));
+        }
+        this.slices = List.copyOf(cut);
+    }
+
+    boolean stopped() {
+        return cancelled || failure.get() != null;
+    }
+
+    void fail(Throwable e) {
+        failure.compareAndSet(null, e);
+    }
+
+    double progress() {
+        return slices.stream().mapToDouble(Slice::progress).sum() / slices.size();
+    }
+
+    WhatIfTally result() {
+        return WhatIfTally.reduce(scenario.thresholds(), slices.stream().map(s -> s.tally).toList());
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("id", id);
+        out.put("status", status);
+        out.put("scenario", scenario.toMap());
+        out.put("progress_percent", Math.round(progress() * 1000) / 10.0);
+        long rows = rowsScanned.sum();
+        out.put("rows_scanned", rows);
+        double seconds = (status == Status.RUNNING ? System.nanoTime() - startedNanos : elapsedNanos) / 1e9;
+        out.put("rows_per_second", seconds <= 0 ? 0 : Math.round(rows / seconds));
+        Throwable e = failure.get();
+        out.put("last_error", e == null ? null : String.valueOf(e.getMessage()));
+        out.put("created_at", createdAt);
+        out.put("finished_at", finishedAt);
+        // partial while running or after a cancel or failure
+        out.put("result", result().toMap());
+        return out;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.backend.whatif;
+
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanHistoryQuery;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Reads one time slice of loan_applications a keyset page at a time, newest first on
+// idx_loan_applications_created_at, so every page costs the same however deep the slice
+// is and nothing holds a cursor or a connection between pages. The created_at bounds
+// also prune the monthly partitions. Pages run read-only, so with a replica configured
+// the scan stays off the primary.
+@Repository
+public class WhatIfScanner {
+
+    public record Row(LoanHistoryQuery.Cursor position, FeatureVector payload, Double riskScore, String decision,
+                      String decisionRule) {
+    }
+
+    private static final String SELECT = "SELECT id, created_at, payload::text AS payload, risk_score, decision,"
+            + " decision_rule FROM loan_applications WHERE created_at >= ? AND created_at < ?";
+    private static final String ORDER = " ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public WhatIfScanner(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Up to limit rows of [from, to) after the given position (null = from the newest)
+    public List<Row> page(Instant from, Instant to, LoanHistoryQuery.Cursor after, int limit) {
+        List<Object> params = new ArrayList<>(5);
+        params.add(Timestamp.from(from));
+        params.add(Timestamp.from(to));
+        String sql = SELECT;
+        if (after != null) {
+            sql += " AND (created_at, id) < (?, ?)";
+            params.add(Timestamp.from(after.createdAt()));
+            params.add(after.id());
+        }
+        params.add(limit);
+        String query = sql + ORDER;
+
+        List<Row> rows = new ArrayList<>(limit);
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(query, rs -> {
+            rows.add(new Row(
+                    new LoanHistoryQuery.Cursor(rs.getTimestamp("created_at").toInstant(), rs.getObject("id", UUID.class)),
+                    readPayload(rs.getString("payload")),
+                    rs.getObject("risk_score") == null ? null : rs.getDouble("risk_score"),
+                    rs.getString("decision"),
+                    rs.getString("decision_rule")));
+        }, params.toArray()));
+        return rows;
+    }
+
+    // null for a payload that no longer parses; the row is counted as invalid
+    private FeatureVector readPayload(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, FeatureVector.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backend.whatif;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+// What a what-if job evaluates: the applications created in [from, to), with the
+// transforms applied in order and decided at each threshold (DENY above it, as the model
+// does). rescore = false uses the stored risk_score; true scores the (transformed)
+// features with the current model, through the prediction cache.
+public record WhatIfScenario(Instant from, Instant to, List<Double> thresholds, List<Step> steps,
+                             boolean rescore) {
+
+    static final Duration DEFAULT_RANGE = Duration.ofDays(90);
+    private static final int MAX_THRESHOLDS = 20;
+
+    public enum Op { MULTIPLY, ADD, SET }
+
+    // As requested, e.g. {"feature": "MonthlyIncome", "op": "multiply", "value": 0.8}
+    public record Transform(String feature, String op, Double value) {
+    }
+
+    // A validated transform of one FeatureSchema slot
+    public record Step(int index, Op op, double value) {
+    }
+
+    // Validates a request and fills the defaults: the last 90 days, and the configured
+    // deny threshold, which is always evaluated so the other thresholds have a reference.
+    // scores is auto (rescore only when there are transforms), stored or rescore.
+    public static WhatIfScenario of(Instant from, Instant to, List<Double> thresholds, List<Transform> transforms,
+                                    String scores, double denyThreshold) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        TreeSet<Double> levels = new TreeSet<>();
+        levels.add(denyThreshold);
+        if (thresholds != null) {
+            for (Double t : thresholds) {
+                if (t == null || !(t >= 0 && t <= 1)) {
+                    throw new IllegalArgumentException("thresholds must be between 0 and 1, got " + t);
+                }
+                levels.add(t);
+            }
+        }
+        if (levels.size() > MAX_THRESHOLDS) {
+            throw new IllegalArgumentException("At most " + MAX_THRESHOLDS + " thresholds");
+        }
+
+        List<Step> steps = transforms != null
+                ? transforms.stream().map(WhatIfScenario::compile).toList() : List.of();
+
+        String mode = scores == null || scores.isBlank() ? "auto" : scores.trim().toLowerCase(Locale.ROOT);
+        boolean rescore = switch (mode) {
+            case "auto" -> !steps.isEmpty();
+            case "rescore" -> true;
+            case "stored" -> {
+                if (!steps.isEmpty()) {
+                    throw new IllegalArgumentException("Transforms change the model inputs; use scores=rescore or auto");
+                }
+                yield false;
+            }
+            default -> throw new IllegalArgumentException("scores must be auto, stored or rescore, got " + scores);
+        };
+        return new WhatIfScenario(start, end, List.copyOf(levels), steps, rescore);
+    }
+
+    // The transformed inputs in FeatureSchema order. Missing values stay missing unless
+    // set; integer features are rounded so the row still passes the request constraints.
+    double[] apply(FeatureVector features) {
+        double[] values = new double[FeatureSchema.SIZE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = features.get(i);
+        }
+        for (Step step : steps) {
+            double v = values[step.index()];
+            values[step.index()] = switch (step.op()) {
+                case MULTIPLY -> v * step.value();
+                case ADD -> v + step.value();
+                case SET -> step.value();
+            };
+            if (FeatureSchema.get(step.index()).type() == FeatureSchema.Type.INT) {
+                values[step.index()] = Math.rint(values[step.index()]);
+            }
+        }
+        return values;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("from", from);
+        out.put("to", to);
+        out.put("thresholds", thresholds);
+        List<Map<String, Object>> transforms = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("feature", FeatureSchema.get(step.index()).name());
+            t.put("op", step.op().name().toLowerCase(Locale.ROOT));
+            t.put("value", step.value());
+            transforms.add(t);
+        }
+        out.put("transforms", transforms);
+        out.put("scores", rescore ? "rescore" : "stored");
+        return out;
+    }
+
+    private static Step compile(Transform t) {
+        if (t == null || t.feature() == null) {
+            throw new IllegalArgumentException("Every transform needs a feature");
+        }
+        int index = FeatureSchema.indexOf(t.feature());
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown feature " + t.feature());
+        }
+        Op op;
+        try {
+            op = Op.valueOf(String.valueOf(t.op()).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("op must be multiply, add or set, got " + t.op());
+        }
+        if (t.value() == null || !Double.isFinite(t.value())) {
+            throw new IllegalArgumentException("Transform of " + t.feature() + " needs a finite value");
+        }
+        return new Step(index, op, t.value());
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.backend.whatif;
+
+import com.example.backend.ingest.RequestConstraints;
+import com.example.backend.loan.AdmissionLimiter;
+import com.example.backend.loan.AdmissionRejectedException;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanHistoryQuery;
+import com.example.backend.loan.MlPredictResponse;
+import com.example.backend.loan.PredictionCache;
+import com.example.backend.loan.RiskScorer;
+import com.example.backend.prescreen.PrescreenRuleSet;
+import com.example.backend.prescreen.PrescreenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Runs what-if jobs over stored applications: `parallelism` workers each scan one time
+// slice at a time in keyset pages of chunk-size rows, evaluate a page (stored scores, or
+// transformed features run through the current pre-screening rules and then scored
+// through the prediction cache and scoreBatch), and
+// merge its tally into the slice's. Memory is about parallelism * chunk-size rows plus
+// one small tally per slice, whatever the range. One job at a time, like ingestion: both
+// compete with live traffic for ml-service, and both go through the AdmissionLimiter at
+// batch priority to do it.
+@Service
+public class WhatIfService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhatIfService.class);
+
+    private final WhatIfScanner scanner;
+    private final RiskScorer scorer;
+    private final AdmissionLimiter admission;
+    private final PrescreenService prescreen;
+    private final PredictionCache predictionCache;
+    private final RequestConstraints constraints = new RequestConstraints();
+    private final double denyThreshold;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int slices;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final int history;
+
+    private final Counter storedRows;
+    private final Counter ruleRows;
+    private final Counter cachedRows;
+    private final Counter modelRows;
+    private final Timer chunkTimer;
+
+    private final AtomicReference<WhatIfJob> active = new AtomicReference<>();
+    // most recent last; the running job is always among them
+    private final Map<UUID, WhatIfJob> jobs = new LinkedHashMap<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public WhatIfService(WhatIfScanner scanner, RiskScorer scorer, AdmissionLimiter admission,
+                         PrescreenService prescreen, PredictionCache predictionCache, MeterRegistry meterRegistry,
+                         @Value("${ml.deny-threshold:0.35}") double denyThreshold,
+                         @Value("${whatif.chunk-size:1000}") int chunkSize,
+                         @Value("${whatif.parallelism:4}") int parallelism,
+                         @Value("${whatif.slices:32}") int slices,
+                         @Value("${whatif.max-attempts:3}") int maxAttempts,
+                         @Value("${whatif.retry-backoff-ms:2000}") long retryBackoffMs,
+                         @Value("${whatif.history:20}") int history) {
+        this.scanner = scanner;
+        this.scorer = scorer;
+        this.admission = admission;
+        this.prescreen = prescreen;
+        this.predictionCache = predictionCache;
+        this.denyThreshold = denyThreshold;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.slices = slices;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.history = history;
+
+        this.storedRows = Counter.builder("whatif.rows").tag("score", "stored").register(meterRegistry);
+        this.ruleRows = Counter.builder("whatif.rows").tag("score", "rule").register(meterRegistry);
+        this.cachedRows = Counter.builder("whatif.rows").tag("score", "cache").register(meterRegistry);
+        this.modelRows = Counter.builder("whatif.rows").tag("score", "model").register(meterRegistry);
+        this.chunkTimer = Timer.builder("whatif.chunk").description("Reading and evaluating one what-if page")
+                .publishPercentileHistogram().register(meterRegistry);
+        Gauge.builder("whatif.progress", active, a -> a.get() == null ? 0.0 : a.get().progress())
+                .description("Fraction of the running what-if job's range scanned, 0 when idle")
+                .register(meterRegistry);
+    }
+
+    public Map<String, Object> start(Instant from, Instant to, List<Double> thresholds,
+                                     List<WhatIfScenario.Transform> transforms, String scores) {
+        WhatIfScenario scenario = WhatIfScenario.of(from, to, thresholds, transforms, scores, denyThreshold);
+        WhatIfJob job = new WhatIfJob(scenario, slices);
+        if (!active.compareAndSet(null, job)) {
+            throw new IllegalStateException("Another what-if job is already running");
+        }
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            while (jobs.size() > history) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+        logger.info("What-if job {} over {} to {}: thresholds {}, {} transform(s), {} scores", job.id,
+                scenario.from(), scenario.to(), scenario.thresholds(), scenario.steps().size(),
+                scenario.rescore() ? "model" : "stored");
+        workers.execute(() -> run(job));
+        return job.describe();
+    }
+
+    public void cancel(UUID id) {
+        WhatIfJob running = active.get();
+        if (running == null || !id.equals(running.id)) {
+            throw new IllegalStateException("Job " + id + " is not running");
+        }
+        running.cancelled = true;
+    }
+
+    public Optional<Map<String, Object>> status(UUID id) {
+        WhatIfJob job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        return Optional.ofNullable(job).map(WhatIfJob::describe);
+    }
+
+    public List<Map<String, Object>> recent() {
+        List<WhatIfJob> snapshot;
+        synchronized (jobs) {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        return snapshot.reversed().stream().map(WhatIfJob::describe).toList();
+    }
+
+    private void run(WhatIfJob job) {
+        List<Future<?>> scans = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            scans.add(workers.submit(() -> work(job)));
+        }
+        for (Future<?> scan : scans) {
+            try {
+                scan.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail(e);
+            } catch (Exception e) {
+                job.fail(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        finish(job);
+    }
+
+    private void work(WhatIfJob job) {
+        int next;
+        while (!job.stopped() && (next = job.nextSlice.getAndIncrement()) < job.slices.size()) {
+            try {
+                scan(job, job.slices.get(next));
+            } catch (Exception e) {
+                job.fail(e);
+            }
+        }
+    }
+
+    private void scan(WhatIfJob job, WhatIfJob.Slice slice) {
+        LoanHistoryQuery.Cursor after = null;
+        while (!job.stopped()) {
+            LoanHistoryQuery.Cursor position = after;
+            List<WhatIfScanner.Row> rows = retrying(job,
+                    () -> scanner.page(slice.from, slice.to, position, chunkSize));
+            if (!rows.isEmpty()) {
+                WhatIfTally tally = retrying(job, () -> chunkTimer.record(() -> evaluate(job.scenario, rows)));
+                slice.tally.merge(tally);
+                after = rows.get(rows.size() - 1).position();
+                slice.position = after.createdAt();
+                job.rowsScanned.add(rows.size());
+            }
+            if (rows.size() < chunkSize) {
+                slice.done = true;
+                return;
+            }
+        }
+    }
+
+    // Retried as a whole: a page is only merged once it has been fully evaluated. Not being
+    // admitted is not a failure: the page waits out Retry-After without using up an attempt,
+    // so live traffic can hold ml-service for as long as it needs to.
+    private <T> T retrying(WhatIfJob job, Supplier<T> step) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return step.get();
+            } catch (AdmissionRejectedException e) {
+                if (job.stopped()) {
+                    throw e;
+                }
+                logger.debug("What-if job {} page not admitted, retrying in {} s", job.id, e.getRetryAfterSeconds());
+                backOff(Duration.ofSeconds(e.getRetryAfterSeconds()), e);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || job.stopped()) {
+                    throw e;
+                }
+                logger.warn("What-if job {} page failed (attempt {}/{}): {}", job.id, attempt, maxAttempts,
+                        e.getMessage());
+                backOff(retryBackoff.multipliedBy(attempt), e);
+                attempt++;
+            }
+        }
+    }
+
+    private static void backOff(Duration delay, RuntimeException cause) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    WhatIfTally evaluate(WhatIfScenario scenario, List<WhatIfScanner.Row> rows) {
+        WhatIfTally tally = new WhatIfTally(scenario.thresholds());
+        List<FeatureVector> misses = new ArrayList<>();
+        List<String> missDecisions = new ArrayList<>();
+        int stored = 0;
+        int ruled = 0;
+        int cachedHits = 0;
+        for (WhatIfScanner.Row row : rows) {
+            if (!scenario.rescore()) {
+                if (row.decisionRule() != null) {
+                    tally.ruleDecided(row.decision(), row.decision());
+                } else if (row.riskScore() == null) {
+                    tally.unscored();
+                } else {
+                    tally.scored(row.riskScore(), row.decision());
+                    stored++;
+                }
+            } else if (row.payload() == null) {
+                tally.invalid();
+            } else {
+                double[] values = scenario.apply(row.payload());
+                // ml-service would reject the whole batch over one such row
+                if (constraints.check(values) != null) {
+                    tally.invalid();
+                    continue;
+                }
+                FeatureVector features = FeatureVector.of(values);
+                // Rules run before the model, as they do live: a transform can move a row
+                // into a rule, or out of the one that decided it
+                PrescreenRuleSet.Rule rule = prescreen.simulate(features);
+                if (rule != null && rule.decides()) {
+                    tally.ruleDecided(rule.action().decision(), row.decision());
+                    ruled++;
+                    continue;
+                }
+                MlPredictResponse cached = predictionCache.get(features);
+                if (cached != null) {
+                    tally.scored(cached.risk_score, row.decision());
+                    tally.cacheHit();
+                    cachedHits++;
+                } else {
+                    misses.add(features);
+                    missDecisions.add(row.decision());
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            // Not put into the prediction cache: a scan would evict the live traffic's entries
+            List<MlPredictResponse> results = admission.executeBatch(misses.size(), () -> scorer.scoreBatch(misses));
+            if (results == null || results.size() != misses.size()) {
+                throw new IllegalStateException("Scorer returned " + (results == null ? 0 : results.size())
+                        + " results for " + misses.size() + " applications");
+            }
+            for (int i = 0; i < results.size(); i++) {
+                MlPredictResponse ml = results.get(i);
+                // a placeholder decision says nothing about the scenario; fail and retry instead
+                if (ml.isFallback()) {
+                    throw new IllegalStateException("ML service unavailable, got a fallback decision");
+                }
+                tally.scored(ml.risk_score, missDecisions.get(i));
+            }
+            tally.modelScored(results.size());
+        }
+        storedRows.increment(stored);
+        ruleRows.increment(ruled);
+        cachedRows.increment(cachedHits);
+        modelRows.increment(misses.size());
+        return tally;
+    }
+
+    private void finish(WhatIfJob job) {
+        job.elapsedNanos = System.nanoTime() - job.startedNanos;
+        job.finishedAt = Instant.now();
+        Throwable failure = job.failure.get();
+        if (failure != null) {
+            job.status = WhatIfJob.Status.FAILED;
+            logger.error("What-if job {} failed after {} rows: {}", job.id, job.rowsScanned.sum(),
+                    failure.getMessage(), failure);
+        } else if (job.cancelled) {
+            job.status = WhatIfJob.Status.CANCELLED;
+            logger.info("What-if job {} cancelled after {} rows", job.id, job.rowsScanned.sum());
+        } else {
+            job.status = WhatIfJob.Status.COMPLETED;
+            logger.info("What-if job {} completed: {} rows in {} ms", job.id, job.rowsScanned.sum(),
+                    job.elapsedNanos / 1_000_000);
+        }
+        active.set(null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        WhatIfJob running = active.get();
+        if (running != null) {
+            running.cancelled = true;
+        }
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.backend.whatif;
+
+import com.example.backend.drift.KllSketch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Mergeable aggregate of a what-if scan: decisions per threshold against the recorded
+// ones, a fixed-bucket score histogram and a KLL sketch for quantiles, so a tally is a
+// few KB however many rows it covers. Chunks are tallied privately and merged into their
+// slice's tally; reduce() combines the slices with a fork-join tree. merge() and copy()
+// lock the tally, which is what lets status reads run while workers are merging.
+final class WhatIfTally {
+
+    private static final int BUCKETS = 20;
+    private static final int SKETCH_K = 200;
+    private static final double[] QUANTILES = {0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+    // slices per fork-join leaf
+    private static final int LEAF_SIZE = 4;
+
+    private final List<Double> thresholds;
+    // per threshold, over scored and rule-decided rows
+    private final long[] approved;
+    // per threshold, decided rows whose decision differs from the recorded one
+    private final long[] newlyApproved;
+    private final long[] newlyDenied;
+    private final long[] buckets = new long[BUCKETS];
+    private final KllSketch sketch = new KllSketch(SKETCH_K);
+    private long scored;
+    private double scoreSum;
+    private long ruleDecided;
+    private long recordedApproved;
+    private long unscored;
+    private long invalid;
+    private long cacheHits;
+    private long modelScored;
+
+    WhatIfTally(List<Double> thresholds) {
+        this.thresholds = thresholds;
+        this.approved = new long[thresholds.size()];
+        this.newlyApproved = new long[thresholds.size()];
+        this.newlyDenied = new long[thresholds.size()];
+    }
+
+    // A row decided by the model, with its (possibly what-if) score
+    void scored(double score, String recordedDecision) {
+        boolean wasApproved = "APPROVE".equals(recordedDecision);
+        for (int i = 0; i < approved.length; i++) {
+            if (score > thresholds.get(i)) {
+                if (wasApproved) {
+                    newlyDenied[i]++;
+                }
+            } else {
+                approved[i]++;
+                if (!wasApproved) {
+                    newlyApproved[i]++;
+                }
+            }
+        }
+        if (wasApproved) {
+            recordedApproved++;
+        }
+        buckets[Math.min(BUCKETS - 1, Math.max(0, (int) (score * BUCKETS)))]++;
+        sketch.update(score);
+        scoreSum += score;
+        scored++;
+    }
+
+    // A row decided by a pre-screening rule, the same at every threshold
+    void ruleDecided(String decision, String recordedDecision) {
+        boolean approves = "APPROVE".equals(decision);
+        boolean wasApproved = "APPROVE".equals(recordedDecision);
+        for (int i = 0; i < approved.length; i++) {
+            if (approves) {
+                approved[i]++;
+            }
+            if (approves && !wasApproved) {
+                newlyApproved[i]++;
+            } else if (!approves && wasApproved) {
+                newlyDenied[i]++;
+            }
+        }
+        if (wasApproved) {
+            recordedApproved++;
+        }
+        ruleDecided++;
+    }
+
+    // Stored under a fallback decision, so there is no score to reuse
+    void unscored() {
+        unscored++;
+    }
+
+    // Payload unreadable, or outside the request constraints once transformed
+    void invalid() {
+        invalid++;
+    }
+
+    void cacheHit() {
+        cacheHits++;
+    }
+
+    void modelScored(int n) {
+        modelScored += n;
+    }
+
+    synchronized WhatIfTally merge(WhatIfTally other) {
+        for (int i = 0; i < approved.length; i++) {
+            approved[i] += other.approved[i];
+            newlyApproved[i] += other.newlyApproved[i];
+            newlyDenied[i] += other.newlyDenied[i];
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        sketch.merge(other.sketch);
+        scored += other.scored;
+        scoreSum += other.scoreSum;
+        ruleDecided += other.ruleDecided;
+        recordedApproved += other.recordedApproved;
+        unscored += other.unscored;
+        invalid += other.invalid;
+        cacheHits += other.cacheHits;
+        modelScored += other.modelScored;
+        return this;
+    }
+
+    WhatIfTally copy() {
+        WhatIfTally copy = new WhatIfTally(thresholds);
+        synchronized (this) {
+            return copy.merge(this);
+        }
+    }
+
+    // A new tally of all the parts; the parts themselves are left as they are
+    static WhatIfTally reduce(List<Double> thresholds, List<WhatIfTally> parts) {
+        if (parts.isEmpty()) {
+            return new WhatIfTally(thresholds);
+        }
+        return ForkJoinPool.commonPool().invoke(new Reduce(parts));
+    }
+
+    long rows() {
+        return scored + ruleDecided + unscored + invalid;
+    }
+
+    Map<String, Object> toMap() {
+        long decided = scored + ruleDecided;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("applications", rows());
+        out.put("decided", decided);
+        out.put("rule_decided", ruleDecided);
+        out.put("unscored", unscored);
+        out.put("invalid", invalid);
+        out.put("model_scored", modelScored);
+        out.put("cache_hits", cacheHits);
+
+        Map<String, Object> recorded = new LinkedHashMap<>();
+        recorded.put("approved", recordedApproved);
+        recorded.put("approval_rate", rate(recordedApproved, decided));
+        out.put("recorded", recorded);
+
+        List<Map<String, Object>> byThreshold = new ArrayList<>(thresholds.size());
+        for (int i = 0; i < thresholds.size(); i++) {
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("threshold", thresholds.get(i));
+            t.put("approved", approved[i]);
+            t.put("denied", decided - approved[i]);
+            t.put("approval_rate", rate(approved[i], decided));
+            t.put("newly_approved", newlyApproved[i]);
+            t.put("newly_denied", newlyDenied[i]);
+            byThreshold.add(t);
+        }
+        out.put("thresholds", byThreshold);
+
+        Map<String, Object> scores = new LinkedHashMap<>();
+        scores.put("count", scored);
+        scores.put("mean", scored == 0 ? null : round(scoreSum / scored));
+        Map<String, Object> quantiles = new LinkedHashMap<>();
+        if (scored > 0) {
+            KllSketch.SortedView view = sketch.sortedView();
+            for (double q : QUANTILES) {
+                quantiles.put("p" + Math.round(q * 100), round(view.quantile(q)));
+            }
+        }
+        scores.put("quantiles", quantiles);
+        List<Map<String, Object>> histogram = new ArrayList<>(BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("bucket", String.format(Locale.ROOT, "%.2f-%.2f", (double) i / BUCKETS, (double) (i + 1) / BUCKETS));
+            bucket.put("count", buckets[i]);
+            histogram.add(bucket);
+        }
+        scores.put("histogram", histogram);
+        out.put("scores", scores);
+        return out;
+    }
+
+    private static Double rate(long part, long whole) {
+        return whole == 0 ? null : round((double) part / whole);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10000) / 10000.0;
+    }
+
+    private static final class Reduce extends RecursiveTask<WhatIfTally> {
+
+        private final List<WhatIfTally> parts;
+
+        Reduce(List<WhatIfTally> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        protected WhatIfTally compute() {
+            if (parts.size() <= LEAF_SIZE) {
+                WhatIfTally sum = parts.get(0).copy();
+                for (WhatIfTally part : parts.subList(1, parts.size())) {
+                    synchronized (part) {
+                        sum.merge(part);
+                    }
+                }
+                return sum;
+            }
+            int mid = parts.size() / 2;
+            Reduce left = new Reduce(parts.subList(0, mid));
+            left.fork();
+            WhatIfTally right = new Reduce(parts.subList(mid, parts.size())).compute();
+            return left.join().merge(right);
+        }
+    }
+}
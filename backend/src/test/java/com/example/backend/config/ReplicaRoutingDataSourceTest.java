@@ -0,0 +1,80 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcTemplate replicaJdbc = mock(JdbcTemplate.class);
+    private final ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(replicaJdbc, meterRegistry, 1000);
+
+    @AfterEach
+    void clearTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaOnlyWhileItIsCaughtUp() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                dataSource(primaryConnection), dataSource(replicaConnection), lagMonitor, meterRegistry);
+
+        // Unused until the first check passes
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        lag(200.0);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        lag(5000.0);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("db.replica.lag").gauge().value()).isEqualTo(5000.0);
+
+        lag(0.0);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(meterRegistry.counter("db.reads.routed", "target", "replica").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("db.reads.routed", "target", "primary").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void failedLagCheckTakesTheReplicaOut() {
+        lag(0.0);
+        assertThat(lagMonitor.usable()).isTrue();
+
+        when(replicaJdbc.queryForObject(anyString(), eq(Double.class))).thenThrow(new QueryTimeoutException("timeout"));
+        lagMonitor.check();
+
+        assertThat(lagMonitor.usable()).isFalse();
+        assertThat(meterRegistry.get("db.replica.lag").gauge().value()).isNaN();
+        assertThat(meterRegistry.get("db.replica.usable").gauge().value()).isZero();
+    }
+
+    private void lag(double ms) {
+        when(replicaJdbc.queryForObject(anyString(), eq(Double.class))).thenReturn(ms);
+        lagMonitor.check();
+    }
+
+    private static DataSource dataSource(Connection connection) throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.backend.drift;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DriftMonitorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void kllQuantilesStayWithinRankErrorAndMergeLikeOneStream() {
+        Random random = new Random(7);
+        KllSketch a = new KllSketch(200);
+        KllSketch b = new KllSketch(200);
+        double[] all = new double[200_000];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = random.nextGaussian();
+            (i % 2 == 0 ? a : b).update(all[i]);
+        }
+        a.merge(KllSketch.fromBytes(b.toBytes()));
+        Arrays.sort(all);
+
+        KllSketch.SortedView view = a.sortedView();
+        assertThat(a.count()).isEqualTo(all.length);
+        assertThat(view.total()).isEqualTo(all.length);
+        assertThat(a.min()).isEqualTo(all[0]);
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            double estimate = view.quantile(q);
+            double rank = (double) Math.abs(Arrays.binarySearch(all, estimate)) / all.length;
+            assertThat(rank).isCloseTo(q, within(0.02));
+        }
+        // about 3k items retained, not 200k
+        assertThat(view.values().length).isLessThan(1000);
+    }
+
+    @Test
+    void psiAndKsSeparateMatchingFromShiftedTraffic() throws Exception {
+        DriftMonitor monitor = monitor(writeBaseline());
+        monitor.record(applications(2000, 0, new Random(1)));
+
+        Map<String, Object> report = monitor.report();
+        assertThat(report).containsEntry("status", "stable");
+        Map<String, Object> age = row(report, "age");
+        assertThat((Double) age.get("psi")).isLessThan(0.1);
+        assertThat((Double) age.get("ks")).isLessThan(0.05);
+
+        // Shift every input by half its range; MonthlyIncome also goes missing half the time
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DriftMonitor shifted = monitor(writeBaseline(), meterRegistry);
+        List<LoanApplicationEntity> apps = applications(2000, 50, new Random(2));
+        for (int i = 0; i < apps.size(); i += 2) {
+            double[] values = new double[FeatureSchema.SIZE];
+            for (int f = 0; f < values.length; f++) {
+                values[f] = apps.get(i).getPayload().get(f);
+            }
+            values[FeatureSchema.indexOf("MonthlyIncome")] = Double.NaN;
+            apps.get(i).setPayload(FeatureVector.of(values));
+        }
+        shifted.record(apps);
+
+        Map<String, Object> drifted = shifted.report();
+        assertThat(drifted).containsEntry("status", "drifted");
+        assertThat((Double) row(drifted, "age").get("psi")).isGreaterThan(0.25);
+        assertThat((Double) row(drifted, "age").get("ks")).isCloseTo(0.5, within(0.05));
+        assertThat((Double) row(drifted, "MonthlyIncome").get("missing_rate")).isCloseTo(0.5, within(0.01));
+        assertThat(row(drifted, DriftMonitor.RISK_SCORE)).containsEntry("status", "stable");
+
+        assertThat(meterRegistry.get("ml.drift.psi").tag("feature", "age").gauge().value()).isNaN();
+        shifted.refresh();
+        assertThat(meterRegistry.get("ml.drift.psi").tag("feature", "age").gauge().value()).isGreaterThan(0.25);
+    }
+
+    @Test
+    void snapshotsRoundTripAndMergeAcrossInstances() throws Exception {
+        Path baseline = writeBaseline();
+        DriftMonitor one = monitor(baseline);
+        DriftMonitor two = monitor(baseline);
+        one.record(applications(300, 0, new Random(3)));
+        two.record(applications(300, 0, new Random(4)));
+
+        // Neither reaches min-samples (500) alone
+        assertThat(row(one.report(), "age")).containsEntry("status", "insufficient_data");
+
+        DriftSnapshot merged = fromJson(one.snapshot());
+        merged.merge(fromJson(two.snapshot()));
+        Map<String, Object> report = one.report(merged);
+        assertThat(report).containsEntry("instances", 2).containsEntry("status", "stable");
+        assertThat(row(report, "age")).containsEntry("count", 600L);
+
+        // Histograms binned against another baseline cannot be combined
+        DriftMonitor other = monitor(null);
+        assertThatThrownBy(() -> one.report(other.snapshot())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> merged.merge(other.snapshot())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private DriftMonitor monitor(Path baseline) {
+        return monitor(baseline, new SimpleMeterRegistry());
+    }
+
+    private DriftMonitor monitor(Path baseline, SimpleMeterRegistry meterRegistry) {
+        String location = baseline != null ? "file:" + baseline : "file:" + dir.resolve("missing.json");
+        return new DriftMonitor(new DefaultResourceLoader(), meterRegistry, true, location,
+                200, 4, 60, 500);
+    }
+
+    private DriftSnapshot fromJson(DriftSnapshot snapshot) throws Exception {
+        String json = objectMapper.writeValueAsString(snapshot.toMap());
+        return DriftSnapshot.fromMap(objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+        }));
+    }
+
+    // Every feature uniform on [0, 100) at training time, risk_score uniform on [0, 1)
+    private Path writeBaseline() throws Exception {
+        Map<String, Object> series = new LinkedHashMap<>();
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            series.put(f.modelName(), uniform(100));
+        }
+        series.put(DriftMonitor.RISK_SCORE, uniform(1));
+        Path file = dir.resolve("drift-baseline.json");
+        Files.writeString(file, objectMapper.writeValueAsString(Map.of("source", "test", "series", series)));
+        return file;
+    }
+
+    private static Map<String, Object> uniform(double range) {
+        List<Double> quantiles = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            quantiles.add(range * i / 100);
+        }
+        List<Double> edges = new ArrayList<>();
+        List<Double> proportions = new ArrayList<>();
+        for (int i = 1; i <= 9; i++) {
+            edges.add(range * i / 10);
+        }
+        for (int i = 0; i < 10; i++) {
+            proportions.add(0.1);
+        }
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("count", 10_000);
+        s.put("missing", 0.0);
+        s.put("quantiles", quantiles);
+        s.put("edges", edges);
+        s.put("proportions", proportions);
+        return s;
+    }
+
+    private static List<LoanApplicationEntity> applications(int n, double shift, Random random) {
+        List<LoanApplicationEntity> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double[] values = new double[FeatureSchema.SIZE];
+            for (int f = 0; f < values.length; f++) {
+                values[f] = shift + random.nextDouble() * 100;
+            }
+            LoanApplicationEntity e = new LoanApplicationEntity();
+            e.setPayload(FeatureVector.of(values));
+            e.setRiskScore(random.nextDouble());
+            out.add(e);
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> row(Map<String, Object> report, String series) {
+        return ((List<Map<String, Object>>) report.get("series")).stream()
+                .filter(r -> series.equals(r.get("series")))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.FeatureSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvApplicationReaderTest {
+
+    // Same layout as ml-service/data/cs-training.csv
+    private static final String HEADER = "\"\",SeriousDlqin2yrs,RevolvingUtilizationOfUnsecuredLines,age,"
+            + "NumberOfTime30-59DaysPastDueNotWorse,DebtRatio,MonthlyIncome,NumberOfOpenCreditLinesAndLoans,"
+            + "NumberOfTimes90DaysLate,NumberRealEstateLoansOrLines,NumberOfTime60-89DaysPastDueNotWorse,"
+            + "NumberOfDependents\n";
+
+    private final RequestConstraints constraints = new RequestConstraints();
+
+    @Test
+    void readsTrainingLayoutWithIndexAndTargetColumns() throws Exception {
+        CsvApplicationReader reader = new CsvApplicationReader(new StringReader(HEADER
+                + "1,1,0.766126609,45,2,0.802982129,9120,13,0,6,0,2\n"
+                + "\n"
+                + "2,0,0.957151019,40,0,0.121876201,NA,4,0,0,0,NA\n"));
+
+        CsvApplicationReader.Row first = reader.next();
+        assertThat(first.line()).isEqualTo(2);
+        assertThat(first.error()).isNull();
+        assertThat(first.values()[FeatureSchema.indexOf("age")]).isEqualTo(45.0);
+        assertThat(first.values()[FeatureSchema.indexOf("NumberOfTime30_59DaysPastDueNotWorse")]).isEqualTo(2.0);
+        assertThat(constraints.check(first.values())).isNull();
+
+        CsvApplicationReader.Row second = reader.next();
+        assertThat(second.line()).isEqualTo(4);
+        assertThat(second.values()[FeatureSchema.indexOf("MonthlyIncome")]).isNaN();
+        assertThat(constraints.check(second.values())).isNull();
+
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void malformedAndOutOfRangeRowsAreReportedWithTheirLine() throws Exception {
+        CsvApplicationReader reader = new CsvApplicationReader(new StringReader(HEADER
+                + "1,0,0.5,abc,0,0.1,100,1,0,0,0,0\n"
+                + "2,0,0.5,30,0\n"
+                + "3,0,0.5,0,0,0.1,100,1,0,0,0,0\n"
+                + "4,0,0.5,NA,0,0.1,100,1,0,0,0,0\n"
+                + "5,0,0.5,30,1.5,0.1,100,1,0,0,0,0\n"));
+
+        assertThat(reader.next().error()).isEqualTo("age is not a number: abc");
+        assertThat(reader.next().error()).startsWith("expected 12 columns");
+        assertThat(constraints.check(reader.next().values())).isEqualTo("age must be at least 18, got 0");
+        assertThat(constraints.check(reader.next().values())).isEqualTo("age is missing");
+        assertThat(constraints.check(reader.next().values()))
+                .isEqualTo("NumberOfTime30_59DaysPastDueNotWorse must be an integer, got 1.5");
+    }
+
+    @Test
+    void headerWithoutAModelColumnIsRejected() {
+        assertThatThrownBy(() -> new CsvApplicationReader(new StringReader("age,DebtRatio\n30,0.1\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("RevolvingUtilizationOfUnsecuredLines");
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.AdmissionLimiter;
+import com.example.backend.loan.AdmissionRejectedException;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import com.example.backend.loan.MlPredictResponse;
+import com.example.backend.loan.RiskAggregates;
+import com.example.backend.loan.RiskFactors;
+import com.example.backend.loan.RiskScorer;
+import com.example.backend.loan.TimeOrderedUuid;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final RiskScorer scorer = mock(RiskScorer.class);
+    private final AdmissionLimiter admission = mock(AdmissionLimiter.class);
+    private final IngestWriter writer = mock(IngestWriter.class);
+    private final IngestJobRepository jobRepo = mock(IngestJobRepository.class);
+    private final Map<UUID, IngestJobEntity> jobs = new ConcurrentHashMap<>();
+    // application ids "in Postgres"
+    private final Set<UUID> stored = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IngestService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(jobRepo.save(any())).thenAnswer(inv -> {
+            IngestJobEntity job = inv.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(UUID.randomUUID());
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepo.findById(any())).thenAnswer(inv -> Optional.ofNullable(jobs.get(inv.<UUID>getArgument(0))));
+        when(writer.write(anyList(), any())).thenAnswer(inv -> {
+            List<LoanApplicationEntity> entities = inv.getArgument(0);
+            return entities.stream().map(LoanApplicationEntity::getId).filter(stored::add).collect(Collectors.toSet());
+        });
+
+        StringBuilder csv = new StringBuilder("\"\",SeriousDlqin2yrs,RevolvingUtilizationOfUnsecuredLines,age,"
+                + "NumberOfTime30-59DaysPastDueNotWorse,DebtRatio,MonthlyIncome,NumberOfOpenCreditLinesAndLoans,"
+                + "NumberOfTimes90DaysLate,NumberRealEstateLoansOrLines,NumberOfTime60-89DaysPastDueNotWorse,"
+                + "NumberOfDependents\n");
+        for (int i = 1; i <= 95; i++) {
+            // every 10th row has an invalid age
+            int age = i % 10 == 0 ? 12 : 20 + i % 50;
+            csv.append(i).append(",0,0.3,").append(age).append(",0,0.25,").append(5000 + i).append(",6,0,1,0,NA\n");
+        }
+        Files.writeString(dir.resolve("legacy.csv"), csv);
+
+        when(admission.executeBatch(anyInt(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+
+        service = new IngestService(scorer, admission, writer, jobRepo, mock(RiskAggregates.class), meterRegistry,
+                dir.toString(), 10, 3, 2, 1);
+    }
+
+    @Test
+    void ingestsEveryValidRowAndRejectsTheRest() throws Exception {
+        when(scorer.scoreBatch(anyList())).thenAnswer(inv -> responses(inv.<List<FeatureVector>>getArgument(0).size()));
+
+        IngestJobEntity job = service.start("legacy.csv");
+        Map<String, Object> status = awaitFinished(job.getId());
+
+        assertThat(status).containsEntry("status", IngestJobEntity.Status.COMPLETED)
+                .containsEntry("rows_accepted", 86L)
+                .containsEntry("rows_rejected", 9L)
+                .containsEntry("checkpoint_line", 96L);
+        assertThat(stored).hasSize(86);
+        assertThat(meterRegistry.counter("ingest.rows", "outcome", "rejected").count()).isEqualTo(9.0);
+        assertThat(stored).extracting(TimeOrderedUuid::timestamp)
+                .containsOnly(job.getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    @Test
+    void applicationIdsAreStableAndFollowTheLines() {
+        UUID jobId = UUID.randomUUID();
+        Instant started = Instant.parse("2026-10-18T09:00:00.123Z");
+
+        assertThat(IngestService.applicationId(jobId, started, 7)).isEqualTo(IngestService.applicationId(jobId, started, 7));
+        assertThat(List.of(2L, 3L, 1L << 28, (1L << 28) + 1).stream()
+                .map(line -> IngestService.applicationId(jobId, started, line)).toList()).isSorted();
+        assertThat(IngestService.applicationId(jobId, started, 2)).isNotEqualTo(
+                IngestService.applicationId(UUID.randomUUID(), started, 2));
+        assertThat(IngestService.applicationId(jobId, started, 2).version()).isEqualTo(7);
+    }
+
+    @Test
+    void chunksThatAreNotAdmittedWaitWithoutFailingTheJob() throws Exception {
+        when(scorer.scoreBatch(anyList())).thenAnswer(inv -> responses(inv.<List<FeatureVector>>getArgument(0).size()));
+        // more rejections than max-attempts allows failures
+        AtomicInteger rejections = new AtomicInteger(5);
+        doAnswer(inv -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE, "timed out", 0);
+            }
+            return inv.<Supplier<?>>getArgument(1).get();
+        }).when(admission).executeBatch(anyInt(), any());
+
+        Map<String, Object> status = awaitFinished(service.start("legacy.csv").getId());
+
+        assertThat(status).containsEntry("status", IngestJobEntity.Status.COMPLETED)
+                .containsEntry("rows_accepted", 86L);
+        assertThat(stored).hasSize(86);
+    }
+
+    @Test
+    void failedJobResumesFromItsCheckpointWithoutDuplicates() throws Exception {
+        AtomicBoolean mlDown = new AtomicBoolean(false);
+        when(scorer.scoreBatch(anyList())).thenAnswer(inv -> {
+            List<FeatureVector> batch = inv.getArgument(0);
+            // the chunk holding line 52 (MonthlyIncome 5051) keeps failing while ml is "down"
+            if (mlDown.get() && batch.stream().anyMatch(v -> v.get(4) == 5051.0)) {
+                throw new IllegalStateException("ML service error: 503");
+            }
+            return responses(batch.size());
+        });
+        mlDown.set(true);
+
+        IngestJobEntity job = service.start("legacy.csv");
+        Map<String, Object> failed = awaitFinished(job.getId());
+        assertThat(failed).containsEntry("status", IngestJobEntity.Status.FAILED);
+        // chunks are 10 lines; everything before the failing chunk (lines 52-61) is stored
+        assertThat(failed).containsEntry("checkpoint_line", 51L);
+        assertThat((String) failed.get("last_error")).contains("503");
+
+        mlDown.set(false);
+        service.resume(job.getId());
+        Map<String, Object> resumed = awaitFinished(job.getId());
+
+        assertThat(resumed).containsEntry("status", IngestJobEntity.Status.COMPLETED)
+                .containsEntry("rows_accepted", 86L)
+                .containsEntry("rows_rejected", 9L);
+        assertThat(stored).hasSize(86);
+    }
+
+    @Test
+    void sourcesOutsideTheIngestDirectoryAreRefused() {
+        assertThatThrownBy(() -> service.start("../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("inside the ingestion directory");
+    }
+
+    private Map<String, Object> awaitFinished(UUID id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> status = service.status(id).orElseThrow();
+            if (status.get("status") != IngestJobEntity.Status.RUNNING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job did not finish");
+    }
+
+    private static List<MlPredictResponse> responses(int n) {
+        return IntStream.range(0, n).mapToObj(i -> {
+            MlPredictResponse r = new MlPredictResponse();
+            r.risk_score = 0.2;
+            r.decision = "APPROVE";
+            r.top_factors = RiskFactors.NONE;
+            r.model_version = "v1";
+            return r;
+        }).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backend.ingest;
+
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationEntity;
+import com.example.backend.loan.RiskFactors;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngestWriterTest {
+
+    @Test
+    void missingFactorsAreBoundAsSqlNull() throws Exception {
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(con.createArrayOf(anyString(), any())).thenReturn(mock(Array.class));
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(mock(ResultSet.class));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(inv -> inv.<ConnectionCallback<?>>getArgument(0).doInConnection(con));
+
+        LoanApplicationEntity explained = entity(RiskFactors.NONE);
+        LoanApplicationEntity deferred = entity(null);
+        new IngestWriter(jdbcTemplate).write(List.of(explained, deferred), Instant.now());
+
+        // the last text array is shap_values; "null" would store a JSON null that
+        // the deferred write-back's shap_values IS NULL never matches
+        verify(con).createArrayOf(eq("text"), eq(new Object[] {"[]", null}));
+    }
+
+    private static LoanApplicationEntity entity(RiskFactors factors) {
+        LoanApplicationEntity e = new LoanApplicationEntity();
+        e.setId(UUID.randomUUID());
+        e.setPayload(FeatureVector.of(new double[] {0.3, 45, 0, 0.25, 5000, 6, 0, 1, 0, 0}));
+        e.setRiskScore(0.2);
+        e.setDecision("APPROVE");
+        e.setShapValues(factors);
+        return e;
+    }
+}
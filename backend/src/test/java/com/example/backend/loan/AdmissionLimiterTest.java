@@ -0,0 +1,168 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdmissionLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limitGrowsAtBaselineLatencyAndIsCutOncePerRoundTripWhenLatencyRises() {
+        AdmissionLimiter limiter = limiter(10, 1, 100, 1_000);
+
+        // Fully used limit at a steady 10 ms: roughly +1 per round trip of 10 samples
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 10; j++) {
+                limiter.acquire(AdmissionLimiter.Priority.INTERACTIVE, 1);
+            }
+            for (int j = 0; j < 10; j++) {
+                limiter.release(1, System.nanoTime(), 10 * MS, false, true);
+            }
+        }
+        double grown = limiter.limit();
+        assertThat(grown).isGreaterThan(15);
+
+        // Latency triples: all the calls already in flight count as one congestion event
+        long startedBefore = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(startedBefore, 30 * MS, false);
+        }
+        assertThat(limiter.limit()).isCloseTo(grown * 0.9, within(1e-9));
+
+        // A later call that is still slow (or finds the ML service unavailable) cuts again
+        limiter.onSample(System.nanoTime(), 5 * MS, true);
+        assertThat(limiter.limit()).isCloseTo(grown * 0.81, within(1e-9));
+    }
+
+    @Test
+    void fullQueueShedsBatchForInteractiveAndRejectsWithRetryAfter() throws Exception {
+        AdmissionLimiter limiter = limiter(1, 1, 1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> limiter.execute(
+                AdmissionLimiter.Priority.INTERACTIVE, () -> {
+                    running.countDown();
+                    await(finish);
+                    return "first";
+                }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> batch = CompletableFuture.supplyAsync(
+                () -> limiter.execute(AdmissionLimiter.Priority.BATCH, () -> "batch"));
+        waitForQueued(1);
+
+        // Queue is full: another batch request is refused outright...
+        assertThatThrownBy(() -> limiter.execute(AdmissionLimiter.Priority.BATCH, () -> "late"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getRetryAfterSeconds()).isGreaterThanOrEqualTo(1);
+                });
+
+        // ...but an interactive one takes the queued batch request's place
+        CompletableFuture<String> interactive = CompletableFuture.supplyAsync(
+                () -> limiter.execute(AdmissionLimiter.Priority.INTERACTIVE, () -> "interactive"));
+        assertThat(batch).failsWithin(5, TimeUnit.SECONDS).withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(AdmissionRejectedException.class)
+                .withMessageContaining("higher priority");
+
+        finish.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(interactive.get(5, TimeUnit.SECONDS)).isEqualTo("interactive");
+        assertThat(meterRegistry.counter("loans.admission.rejected", "priority", "batch", "reason", "shed").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void waitingPastTheDeadlineFailsWithServiceUnavailable() throws Exception {
+        AdmissionLimiter limiter = limiter(1, 1, 1, 10);
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> limiter.execute(AdmissionLimiter.Priority.INTERACTIVE, () -> {
+            running.countDown();
+            await(finish);
+            return null;
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> limiter.execute(AdmissionLimiter.Priority.INTERACTIVE, () -> "never"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat((System.nanoTime() - started) / MS).isBetween(40L, 2_000L);
+        finish.countDown();
+    }
+
+    @Test
+    void batchesHoldSlotsByRowsAndAreNotTimed() throws Exception {
+        AdmissionLimiter limiter = limiter(4, 1, 100, 10);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        // 130 rows at 64 per slot: three of the four slots
+        CompletableFuture<String> batch = CompletableFuture.supplyAsync(() -> limiter.executeBatch(130, () -> {
+            running.countDown();
+            await(finish);
+            return "batch";
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("loans.admission.inflight").gauge().value()).isEqualTo(3.0);
+
+        // One interactive call still fits; a second one waits for the batch
+        assertThat(limiter.execute(AdmissionLimiter.Priority.INTERACTIVE, () -> "single")).isEqualTo("single");
+        limiter.acquire(AdmissionLimiter.Priority.INTERACTIVE, 1);
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(
+                () -> limiter.execute(AdmissionLimiter.Priority.INTERACTIVE, () -> {
+                    admitted.countDown();
+                    await(done);
+                    return "waited";
+                }));
+        waitForQueued(1);
+
+        // A slow batch says nothing about congestion; its slots go to the waiting call
+        double before = limiter.limit();
+        Thread.sleep(20);
+        finish.countDown();
+        assertThat(batch.get(5, TimeUnit.SECONDS)).isEqualTo("batch");
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.limit()).isEqualTo(before);
+        done.countDown();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("waited");
+
+        // More rows than the limit has slots are admitted with all of them
+        limiter.release(1, System.nanoTime(), 0, false, false);
+        assertThat(limiter.executeBatch(50_000, () -> meterRegistry.get("loans.admission.inflight").gauge().value()))
+                .isEqualTo(Math.floor(limiter.limit()));
+    }
+
+    private AdmissionLimiter limiter(int initial, int min, int max, int queueCapacity) {
+        return new AdmissionLimiter(meterRegistry, true, initial, min, max, 2.0, 0.9, queueCapacity, 64, 50, 5_000);
+    }
+
+    private void waitForQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("loans.admission.queued").gauge().value() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
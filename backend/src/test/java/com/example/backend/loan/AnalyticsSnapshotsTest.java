@@ -0,0 +1,99 @@
+package com.example.backend.loan;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnalyticsSnapshotsTest {
+
+    private AnalyticsSnapshots snapshots;
+
+    @AfterEach
+    void tearDown() {
+        snapshots.shutdown();
+    }
+
+    @Test
+    void concurrentColdReadsShareOneLoad() throws Exception {
+        snapshots = new AnalyticsSnapshots(60_000, 900_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        snapshots.register("summary", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "v" + loads.get();
+        });
+
+        List<CompletableFuture<AnalyticsSnapshots.Snapshot>> readers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(CompletableFuture.supplyAsync(() -> snapshots.get("summary")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (CompletableFuture<AnalyticsSnapshots.Snapshot> reader : readers) {
+            assertThat(reader.get(5, TimeUnit.SECONDS).data()).isEqualTo("v1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void staleSnapshotIsServedWhileRefreshing() throws Exception {
+        snapshots = new AnalyticsSnapshots(0, 900_000);
+        AtomicInteger loads = new AtomicInteger();
+        snapshots.register("summary", () -> "v" + loads.incrementAndGet());
+
+        assertThat(snapshots.get("summary").data()).isEqualTo("v1");
+        Thread.sleep(5);
+        // stale: the old value comes back and a refresh is kicked off
+        assertThat(snapshots.get("summary").data()).isEqualTo("v1");
+        assertThat(snapshots.refresh("summary").get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(snapshots.get("summary").data()).isIn("v2", "v3");
+    }
+
+    @Test
+    void failedRefreshKeepsPreviousSnapshot() throws Exception {
+        snapshots = new AnalyticsSnapshots(60_000, 900_000);
+        AtomicInteger loads = new AtomicInteger();
+        snapshots.register("summary", () -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("warehouse down");
+            }
+            return "v1";
+        });
+
+        assertThat(snapshots.get("summary").data()).isEqualTo("v1");
+        assertThatThrownBy(() -> snapshots.refresh("summary").get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(snapshots.get("summary").data()).isEqualTo("v1");
+    }
+
+    @Test
+    void coldReadSurfacesLoaderFailure() {
+        snapshots = new AnalyticsSnapshots(60_000, 900_000);
+        snapshots.register("summary", () -> {
+            throw new IllegalStateException("warehouse down");
+        });
+
+        assertThatThrownBy(() -> snapshots.get("summary"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("warehouse down");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
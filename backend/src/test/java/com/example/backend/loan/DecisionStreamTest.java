@@ -0,0 +1,138 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DecisionStreamTest {
+
+    @Test
+    void concurrentPublishersLoseNothingAndReadersSkipWhatWasOverwritten() throws Exception {
+        DecisionRingBuffer ring = new DecisionRingBuffer(1024);
+        int threads = 8;
+        int perThread = 100;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ring.publish(DecisionStream.DECISION, Map.of(), "{}");
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        List<DecisionRingBuffer.Event> all = ring.readFrom(0, Integer.MAX_VALUE);
+        assertThat(all).hasSize(threads * perThread);
+        assertThat(all).extracting(DecisionRingBuffer.Event::sequence).isSorted().doesNotHaveDuplicates();
+
+        // 448 more wrap the 1024-slot ring: the oldest 224 are gone and a reader at 0 jumps ahead
+        for (int i = 0; i < 448; i++) {
+            ring.publish(DecisionStream.DECISION, Map.of(), "{}");
+        }
+        List<DecisionRingBuffer.Event> after = ring.readFrom(0, 10);
+        assertThat(after.get(0).sequence()).isEqualTo(224);
+        assertThat(ring.readFrom(ring.next(), 10)).isEmpty();
+    }
+
+    @Test
+    void recentIsServedFromTheRingWithExplanationsMergedIn() {
+        LoanApplicationRepository repo = mock(LoanApplicationRepository.class);
+        when(repo.findTop10ByOrderByCreatedAtDesc()).thenReturn(List.of(entity("DENY"), entity("APPROVE")));
+        DecisionStream stream = stream(repo);
+        stream.seed();
+
+        List<LoanApplicationEntity> saved = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            saved.add(entity(i % 2 == 0 ? "APPROVE" : "DENY"));
+        }
+        stream.publish(saved);
+        LoanApplicationEntity newest = saved.get(11);
+        stream.publishExplanations(List.of(newest.getId()), List.of(RiskFactors.NONE));
+
+        List<Map<String, Object>> recent = stream.recent(10);
+        assertThat(recent).hasSize(10);
+        assertThat(recent.get(0)).containsEntry("applicationId", newest.getId())
+                .containsEntry("top_factors", RiskFactors.NONE);
+        assertThat(recent.get(1).get("top_factors")).isNull();
+        assertThat(recent.get(9)).containsEntry("applicationId", saved.get(2).getId());
+
+        DecisionRingBuffer.Event seeded = stream.buffer().readFrom(0, 1).get(0);
+        assertThat(seeded.json()).contains("\"decision\":\"APPROVE\"").contains("\"created_at\":\"2026-");
+    }
+
+    @Test
+    void recentIncludesStoredDecisionsFromOtherInstancesReadAtMostOncePerRefresh() {
+        Instant t = Instant.parse("2026-10-18T10:00:00Z");
+        LoanApplicationEntity ours = entity("APPROVE", t.plusSeconds(1));
+        LoanApplicationEntity replica = entity("DENY", t.plusSeconds(2));
+        LoanApplicationEntity ingested = entity("APPROVE", t);
+        LoanApplicationRepository repo = mock(LoanApplicationRepository.class);
+        when(repo.findTop10ByOrderByCreatedAtDesc()).thenReturn(List.of(replica, ours, ingested));
+        DecisionStream stream = stream(repo);
+        stream.publish(List.of(ours));
+        stream.publishExplanations(List.of(ours.getId()), List.of(RiskFactors.NONE));
+
+        List<Map<String, Object>> recent = stream.recent(10);
+        stream.recent(10);
+
+        assertThat(recent).extracting(item -> item.get("applicationId"))
+                .containsExactly(replica.getId(), ours.getId(), ingested.getId());
+        // the ring's copy, with the factors written back since
+        assertThat(recent.get(1)).containsEntry("top_factors", RiskFactors.NONE);
+        verify(repo, times(1)).findTop10ByOrderByCreatedAtDesc();
+    }
+
+    @Test
+    void lastEventIdResumesWithinTheProcessAndReplaysOtherwise() {
+        DecisionStream stream = stream(mock(LoanApplicationRepository.class));
+        for (int i = 0; i < 80; i++) {
+            stream.publish(List.of(entity("APPROVE")));
+        }
+
+        assertThat(stream.startSequence(stream.eventId(70))).isEqualTo(71);
+        // no id, an id from before a restart, or garbage: replay the newest 50
+        assertThat(stream.startSequence(null)).isEqualTo(30);
+        assertThat(stream.startSequence("0-70")).isEqualTo(30);
+        assertThat(stream.startSequence(stream.eventId(70) + "x")).isEqualTo(30);
+        assertThat(stream.startSequence(stream.eventId(500))).isEqualTo(30);
+    }
+
+    private static DecisionStream stream(LoanApplicationRepository repo) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new DecisionStream(repo, objectMapper, new SimpleMeterRegistry(), 64, 10, 60_000, 15_000, 50, 60_000);
+    }
+
+    private static LoanApplicationEntity entity(String decision) {
+        return entity(decision, Instant.parse("2026-10-18T09:00:00Z"));
+    }
+
+    private static LoanApplicationEntity entity(String decision, Instant createdAt) {
+        LoanApplicationEntity e = new LoanApplicationEntity();
+        e.setId(UUID.randomUUID());
+        e.setDecision(decision);
+        e.setRiskScore(0.2);
+        e.setCreatedAt(createdAt);
+        return e;
+    }
+}
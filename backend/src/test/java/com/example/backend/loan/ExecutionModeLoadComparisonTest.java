@@ -0,0 +1,125 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compares how many concurrent /loans/apply scoring calls complete when each request
+// blocks on the ML call on (a) a Tomcat-sized platform pool versus (b) one virtual
+// thread per request, against a stub ml-service with fixed latency.
+// Opt-in because it measures wall-clock time:
+//   mvn test -Dtest=ExecutionModeLoadComparisonTest -DloadComparison=true
+@EnabledIfSystemProperty(named = "loadComparison", matches = "true")
+class ExecutionModeLoadComparisonTest {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int ML_LATENCY_MS = 50;
+
+    private HttpServer stub;
+    private MlMicroBatcher batcher;
+    private RemoteRiskScorer scorer;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.createContext("/predict/batch", exchange -> {
+            JsonNode items = mapper.readTree(exchange.getRequestBody());
+            sleep(ML_LATENCY_MS);
+            StringBuilder body = new StringBuilder("{\"results\":[");
+            for (int i = 0; i < items.size(); i++) {
+                body.append(i == 0 ? "" : ",")
+                        .append("{\"risk_score\":0.1,\"decision\":\"APPROVE\",\"top_factors\":[]}");
+            }
+            byte[] bytes = body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub.start();
+
+        WebClient webClient = WebClient.builder().baseUrl("http://127.0.0.1:" + stub.getAddress().getPort()).build();
+        MlClient mlClient = new MlClient(webClient, new MlCircuitBreaker(50, 20, 50, 10_000),
+                new SimpleMeterRegistry(), 5_000, 10_000, 32, false, 0.95, 20, 5, "eager", true, "json");
+        batcher = new MlMicroBatcher(mlClient, true, 32, 5);
+        batcher.start();
+        scorer = new RemoteRiskScorer(mlClient, batcher, "");
+    }
+
+    @AfterEach
+    void stopStub() {
+        batcher.stop();
+        stub.stop(0);
+    }
+
+    @Test
+    void virtualThreadsScaleBeyondThePlatformPool() throws Exception {
+        // warm up connections and JIT
+        run(Executors.newVirtualThreadPerTaskExecutor(), 500);
+
+        System.out.println("concurrency | platform(200) req/s | virtual req/s");
+        double platformAtMax = 0;
+        double virtualAtMax = 0;
+        for (int concurrency : new int[] {100, 200, 400, 800, 1600}) {
+            double platform = run(platformPool(), concurrency);
+            double virtual = run(Executors.newVirtualThreadPerTaskExecutor(), concurrency);
+            System.out.printf("%11d | %19.0f | %13.0f%n", concurrency, platform, virtual);
+            platformAtMax = platform;
+            virtualAtMax = virtual;
+        }
+
+        assertThat(virtualAtMax).isGreaterThan(platformAtMax);
+    }
+
+    // Pre-started so thread creation is not counted against the platform run
+    private static ExecutorService platformPool() {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        pool.prestartAllCoreThreads();
+        return pool;
+    }
+
+    // Submits `concurrency` blocking scoring calls at once; returns completed calls per second
+    private double run(ExecutorService executor, int concurrency) throws Exception {
+        FeatureVector payload = FeatureVector.of(new LoanApplicationRequest(0.3, 40, 0, 0.25, 5000.0, 6, 0, 1, 0, 2));
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<MlPredictResponse>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> scorer.score(payload)));
+            }
+            for (Future<MlPredictResponse> f : futures) {
+                assertThat(f.get().decision).isEqualTo("APPROVE");
+            }
+        }
+        return concurrency / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExplanationServiceTest {
+
+    private final RiskScorer scorer = mock(RiskScorer.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final RiskAggregates riskAggregates = mock(RiskAggregates.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExplanationService service = new ExplanationService(scorer, jdbcTemplate, mock(DecisionStream.class),
+            riskAggregates, meterRegistry, true, 2, 3, 100, 60);
+
+    @BeforeEach
+    void setUp() {
+        // every row still without factors
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            int[] updated = new int[inv.<List<?>>getArgument(1).size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+    }
+
+    @Test
+    void queuedRowsAreExplainedInBatchesAndWrittenBack() {
+        when(scorer.explain(anyList())).thenAnswer(inv -> explained("v1", inv.getArgument(0)));
+        LoanApplicationEntity ruleDecided = entity(30, null);
+        ruleDecided.setShapValues(RiskFactors.NONE);
+
+        service.submit(List.of(entity(30, 0.1), entity(31, 0.2), entity(32, 0.3), ruleDecided));
+        service.explainQueued();
+
+        // batch-size 2: two explain calls, rule decisions are never queued
+        verify(scorer, times(2)).explain(anyList());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), updates.capture());
+        assertThat(updates.getAllValues()).flatExtracting(u -> u).hasSize(3);
+        assertThat((String) updates.getAllValues().get(0).get(0)[0]).isEqualTo("[[\"age\",30.0]]");
+        assertThat(meterRegistry.counter("ml.explain.computed", "trigger", "async").count()).isEqualTo(3.0);
+        verify(riskAggregates, times(2)).recordFactors(anyList());
+    }
+
+    @Test
+    void rowsAlreadyFilledInAreNotAddedToTheAggregatesTwice() {
+        when(scorer.explain(anyList())).thenAnswer(inv -> explained("v1", inv.getArgument(0)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {0});
+
+        service.explain(entity(60, 0.2));
+
+        verify(riskAggregates).recordFactors(List.of());
+    }
+
+    @Test
+    void onDemandExplanationsAreCachedAndFullQueueDrops() {
+        when(scorer.explain(anyList())).thenAnswer(inv -> explained("v1", inv.getArgument(0)));
+
+        RiskFactors first = service.explain(entity(40, 0.5));
+        RiskFactors again = service.explain(entity(40, 0.5));
+
+        assertThat(first).isEqualTo(again);
+        verify(scorer, times(1)).explain(anyList());
+        assertThat(service.cached(FeatureVector.of(request(40)))).isEqualTo(first);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+
+        // Stored factors are returned as they are
+        LoanApplicationEntity stored = entity(41, 0.5);
+        stored.setShapValues(RiskFactors.NONE);
+        assertThat(service.explain(stored)).isSameAs(RiskFactors.NONE);
+
+        service.submit(List.of(entity(1, 0.1), entity(2, 0.1), entity(3, 0.1), entity(4, 0.1)));
+        assertThat(meterRegistry.counter("ml.explain.dropped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failedBatchLeavesRowsForOnDemandExplanation() {
+        when(scorer.explain(anyList())).thenThrow(new MlUnavailableException("ML service circuit breaker is open"));
+
+        service.submit(List.of(entity(50, 0.1)));
+        service.explainQueued();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void policyFollowsModeAndDenyFlag() {
+        assertThat(ExplainPolicy.of("eager", false)).isEqualTo(ExplainPolicy.ALL);
+        assertThat(ExplainPolicy.of("deferred", true).explains("DENY")).isTrue();
+        assertThat(ExplainPolicy.of("deferred", true).explains("APPROVE")).isFalse();
+        assertThat(ExplainPolicy.of("Deferred", false).param()).isEqualTo("none");
+    }
+
+    private static LoanApplicationEntity entity(int age, Double riskScore) {
+        LoanApplicationEntity e = new LoanApplicationEntity();
+        e.setId(UUID.randomUUID());
+        e.setPayload(FeatureVector.of(request(age)));
+        e.setRiskScore(riskScore);
+        return e;
+    }
+
+    private static LoanApplicationRequest request(int age) {
+        return new LoanApplicationRequest(0.3, age, 0, 0.25, 5000.0, 6, 0, 1, 0, 2);
+    }
+
+    // One factor per row: age, with the row's age as its impact
+    private static MlExplainResponse explained(String version, List<FeatureVector> batch) {
+        MlExplainResponse response = new MlExplainResponse();
+        response.model_version = version;
+        int age = FeatureSchema.indexOf("age");
+        response.results = batch.stream()
+                .map(f -> new RiskFactors(new int[]{age}, new double[]{f.get(age)}))
+                .toList();
+        return response;
+    }
+}
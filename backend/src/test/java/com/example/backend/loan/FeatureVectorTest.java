@@ -0,0 +1,66 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeatureVectorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serializesToTheSamePayloadObjectAsBefore() throws Exception {
+        FeatureVector features = FeatureVector.of(new LoanApplicationRequest(0.766, 45, 2, 0.803, 9120.0, 13, 0, 6, 0, 2));
+
+        String json = objectMapper.writeValueAsString(features);
+
+        assertThat(json).isEqualTo("{\"RevolvingUtilizationOfUnsecuredLines\":0.766,\"age\":45,"
+                + "\"NumberOfTime30_59DaysPastDueNotWorse\":2,\"DebtRatio\":0.803,\"MonthlyIncome\":9120.0,"
+                + "\"NumberOfOpenCreditLinesAndLoans\":13,\"NumberOfTimes90DaysLate\":0,"
+                + "\"NumberRealEstateLoansOrLines\":6,\"NumberOfTime60_89DaysPastDueNotWorse\":0,"
+                + "\"NumberOfDependents\":2}");
+        assertThat(objectMapper.readValue(json, FeatureVector.class)).isEqualTo(features);
+    }
+
+    @Test
+    void absentAndUnreadableValuesAreMissing() throws Exception {
+        FeatureVector features = objectMapper.readValue(
+                "{\"age\":\"51\",\"MonthlyIncome\":null,\"DebtRatio\":\"n/a\",\"comment\":{\"x\":1}}", FeatureVector.class);
+
+        assertThat(features.get(FeatureSchema.indexOf("age"))).isEqualTo(51.0);
+        assertThat(features.isMissing(FeatureSchema.indexOf("MonthlyIncome"))).isTrue();
+        assertThat(features.isMissing(FeatureSchema.indexOf("DebtRatio"))).isTrue();
+        assertThat(objectMapper.writeValueAsString(features)).contains("\"MonthlyIncome\":null");
+    }
+
+    @Test
+    void riskFactorsKeepTheMlServiceShape() throws Exception {
+        String json = "[[\"NumberOfTime30-59DaysPastDueNotWorse\",0.4121],[\"age\",-0.1873]]";
+
+        RiskFactors factors = objectMapper.readValue(json, RiskFactors.class);
+
+        assertThat(factors.size()).isEqualTo(2);
+        assertThat(factors.feature(0)).isEqualTo(FeatureSchema.indexOf("NumberOfTime30_59DaysPastDueNotWorse"));
+        assertThat(factors.impact(1)).isEqualTo(-0.1873);
+        assertThat(objectMapper.writeValueAsString(factors)).isEqualTo(json);
+        assertThatThrownBy(() -> objectMapper.readValue("[[\"shoeSize\",0.1]]", RiskFactors.class))
+                .hasMessageContaining("shoeSize");
+    }
+
+    @Test
+    void fingerprintIsTheOneMlServiceDerivesFromFeaturesJson() throws Exception {
+        List<String> trainingColumns = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/scoring/features.json")) {
+            objectMapper.readTree(in).forEach(name -> trainingColumns.add(name.asText()));
+        }
+
+        // hashlib.sha256(",".join(FEATURES).encode()).hexdigest()[:8]
+        assertThat(FeatureSchema.FINGERPRINT).isEqualTo("126c5f6a").isEqualTo(FeatureSchema.fingerprint(trainingColumns));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.loan;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoanHistoryQueryTest {
+
+    @Test
+    void cursorRoundTrips() {
+        LoanHistoryQuery.Cursor cursor = new LoanHistoryQuery.Cursor(
+                Instant.parse("2025-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        assertThat(LoanHistoryQuery.Cursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> LoanHistoryQuery.Cursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void whereClauseAddsFiltersAndKeysetPosition() {
+        Instant from = Instant.parse("2025-01-01T00:00:00Z");
+        LoanHistoryQuery query = new LoanHistoryQuery("DENY", 0.5, null, from, null);
+        LoanHistoryQuery.Cursor after = new LoanHistoryQuery.Cursor(Instant.parse("2025-02-01T00:00:00Z"), UUID.randomUUID());
+        List<Object> params = new ArrayList<>();
+
+        String where = query.where(after, params);
+
+        assertThat(where).isEqualTo("WHERE created_at IS NOT NULL AND decision = ? AND risk_score >= ?"
+                + " AND created_at >= ? AND (created_at, id) < (?, ?)");
+        assertThat(params).containsExactly("DENY", 0.5, Timestamp.from(from),
+                Timestamp.from(after.createdAt()), after.id());
+    }
+
+    @Test
+    void inconsistentRangesAreRejected() {
+        assertThatThrownBy(() -> new LoanHistoryQuery(null, 0.9, 0.1, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        Instant now = Instant.now();
+        assertThatThrownBy(() -> new LoanHistoryQuery(null, null, null, now, now.minusSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(new LoanHistoryQuery(" ", null, null, null, null).decision()).isNull();
+    }
+}
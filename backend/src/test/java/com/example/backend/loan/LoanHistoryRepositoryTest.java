@@ -0,0 +1,63 @@
+package com.example.backend.loan;
+
+import com.example.backend.config.ReplicaLagMonitor;
+import com.example.backend.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoanHistoryRepositoryTest {
+
+    @Test
+    void historyPageIsReadFromTheReplica() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JdbcTemplate lagQuery = mock(JdbcTemplate.class);
+        when(lagQuery.queryForObject(anyString(), eq(Double.class))).thenReturn(0.0);
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(lagQuery, meterRegistry, 1000);
+        lagMonitor.check();
+
+        Connection primary = mock(Connection.class);
+        Connection replica = connectionWithNoRows();
+        // wired as DataSourceConfig does when a replica is configured
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(dataSource(primary), dataSource(replica), lagMonitor, meterRegistry));
+        LoanHistoryRepository repository = new LoanHistoryRepository(new JdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), 1000);
+
+        LoanHistoryRepository.Page page = repository.page(new LoanHistoryQuery(null, null, null, null, null), null, 50);
+
+        assertThat(page.items()).isEmpty();
+        verify(replica).prepareStatement(anyString());
+        verify(primary, never()).prepareStatement(anyString());
+        assertThat(meterRegistry.counter("db.reads.routed", "target", "replica").count()).isEqualTo(1.0);
+    }
+
+    private static Connection connectionWithNoRows() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+        return connection;
+    }
+
+    private static DataSource dataSource(Connection connection) throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.loan;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanPartitionManagerTest {
+
+    private static final YearMonth NOW = YearMonth.of(2026, 10);
+
+    @Test
+    void createsMissingMonthsAheadAndArchivesPastRetention() {
+        List<LoanPartitionManager.Partition> partitions = List.of(
+                attached(2024, 8), attached(2024, 9), attached(2024, 10),
+                new LoanPartitionManager.Partition("loan_applications_p202407", YearMonth.of(2024, 7), false, false),
+                attached(2026, 10), attached(2026, 11));
+
+        LoanPartitionManager.Plan plan = LoanPartitionManager.plan(NOW, partitions, 3, 24);
+
+        assertThat(plan.create()).containsExactly(YearMonth.of(2026, 12), YearMonth.of(2027, 1));
+        // 2024-10 is exactly 24 months back and kept; a detached leftover is archived too
+        assertThat(plan.archive()).extracting(LoanPartitionManager.Partition::name)
+                .containsExactlyInAnyOrder("loan_applications_p202408", "loan_applications_p202409",
+                        "loan_applications_p202407");
+        assertThat(LoanPartitionManager.plan(NOW, partitions, 3, 0).archive()).isEmpty();
+        assertThat(LoanPartitionManager.partitionName(YearMonth.of(2027, 1))).isEqualTo("loan_applications_p202701");
+    }
+
+    @Test
+    void monthsCoveredCountsConsecutiveAttachedMonths() {
+        assertThat(LoanPartitionManager.monthsCovered(NOW, List.of())).isEqualTo(-1);
+        assertThat(LoanPartitionManager.monthsCovered(NOW, List.of(attached(2026, 10), attached(2026, 11),
+                attached(2027, 1)))).isEqualTo(1);
+    }
+
+    @Test
+    void timeOrderedIdsAreVersion7AndIncreaseWithinAMillisecond() {
+        long millis = Instant.parse("2026-10-18T09:00:00Z").toEpochMilli();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(TimeOrderedUuid.next(millis));
+        }
+        Set<UUID> unique = new HashSet<>(ids);
+        assertThat(unique).hasSize(ids.size());
+        assertThat(ids).allSatisfy(id -> {
+            assertThat(id.version()).isEqualTo(7);
+            assertThat(id.variant()).isEqualTo(2);
+        });
+        // Bytewise (Postgres) order is the order of the most significant bits as unsigned
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(),
+                    ids.get(i).getMostSignificantBits())).isNegative();
+        }
+        // 4096 per millisecond, then the counter carries into the next one
+        assertThat(TimeOrderedUuid.timestamp(ids.get(0))).isEqualTo(Instant.ofEpochMilli(millis));
+        assertThat(TimeOrderedUuid.timestamp(ids.get(4999))).isEqualTo(Instant.ofEpochMilli(millis + 1));
+    }
+
+    private static LoanPartitionManager.Partition attached(int year, int month) {
+        YearMonth m = YearMonth.of(year, month);
+        return new LoanPartitionManager.Partition(LoanPartitionManager.partitionName(m), m, true, false);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.backend.loan;
+
+import com.example.backend.config.GlobalExceptionHandler;
+import com.example.backend.prescreen.PrescreenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LoansControllerTest {
+
+    private static final LoanApplicationRequest REQUEST =
+            new LoanApplicationRequest(0.3, 45, 0, 0.25, 5000.0, 6, 0, 1, 0, 2);
+
+    private final LoanService loanService = mock(LoanService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        LoansController controller = new LoansController(loanService, mock(LoanApplicationRepository.class),
+                mock(LoanHistoryRepository.class), mock(PredictionCache.class), mock(PrescreenService.class),
+                mock(ExplanationService.class), mock(DecisionStream.class), 100, 500, 2);
+        mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void unavailableMlServiceIsA503WithRetryAfter() throws Exception {
+        when(loanService.apply(any(), any())).thenThrow(new MlUnavailableException("ML service answered 503"));
+        when(loanService.applyBatch(anyList())).thenThrow(new MlUnavailableException("ML service unreachable"));
+
+        mvc.perform(post("/loans/apply").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(REQUEST)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+        mvc.perform(post("/loans/apply/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(REQUEST, REQUEST))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    void otherScoringFailuresStayA500() throws Exception {
+        when(loanService.apply(any(), any())).thenThrow(new RuntimeException("ML service error: 500"));
+
+        mvc.perform(post("/loans/apply").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(REQUEST)))
+                .andExpect(status().isInternalServerError());
+    }
+}
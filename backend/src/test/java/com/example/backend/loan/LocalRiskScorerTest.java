@@ -0,0 +1,43 @@
+package com.example.backend.loan;
+
+import com.example.backend.scoring.XgbModelLoader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LocalRiskScorerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchesTheMlServiceResponseContract() throws Exception {
+        Path dir = Path.of(getClass().getResource("/scoring").toURI());
+        LocalRiskScorer scorer = new LocalRiskScorer(XgbModelLoader.load(dir), 0.35);
+        List<String> features = new ObjectMapper().readValue(dir.resolve("features.json").toFile(), List.class);
+        JsonNode cases = new ObjectMapper().readTree(dir.resolve("parity-cases.json").toFile()).path("cases");
+
+        for (JsonNode c : cases) {
+            FeatureVector payload = new ObjectMapper().convertValue(c.path("input"), FeatureVector.class);
+            double expectedScore = c.path("risk_score").asDouble();
+
+            MlPredictResponse response = scorer.score(payload);
+
+            assertThat(response.risk_score).isCloseTo(expectedScore, within(1e-6));
+            assertThat(response.decision).isEqualTo(expectedScore > 0.35 ? "DENY" : "APPROVE");
+
+            List<Integer> byImpact = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+            byImpact.sort(Comparator.comparingDouble(i -> -Math.abs(c.path("contributions").get(i).asDouble())));
+            assertThat(response.top_factors.size()).isEqualTo(3);
+            assertThat(response.top_factors.name(0)).isEqualTo(features.get(byImpact.get(0)));
+            assertThat(response.top_factors.impact(0))
+                    .isCloseTo(c.path("contributions").get(byImpact.get(0)).asDouble(), within(1e-4));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.backend.loan;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs MlClient against a local stub ml-service whose per-request delay and status
+// are chosen by request number
+class MlClientTest {
+
+    private static final String PREDICTION =
+            "{\"risk_score\":0.1,\"decision\":\"APPROVE\",\"top_factors\":[],\"model_version\":\"v1\"}";
+
+    private static final FeatureVector FEATURES =
+            FeatureVector.of(new LoanApplicationRequest(0.3, 45, 0, 0.25, 5000.0, 6, 0, 1, 0, 2));
+
+    private HttpServer stub;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile IntUnaryOperator delayMs = n -> 0;
+    private volatile IntUnaryOperator status = n -> 200;
+    private volatile String featureSchema;
+    private volatile boolean acceptsCompact = true;
+    private volatile String lastContentType;
+    private volatile int lastRequestBytes;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.createContext("/health", exchange -> {
+            byte[] bytes = ("{\"status\":\"ok\",\"model_version\":\"v1\",\"feature_schema\":\"" + featureSchema + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        stub.createContext("/predict", exchange -> {
+            int n = requests.getAndIncrement();
+            lastContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            lastRequestBytes = exchange.getRequestBody().readAllBytes().length;
+            try {
+                Thread.sleep(delayMs.applyAsInt(n));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean compact = lastContentType.startsWith("application/x-loan-features");
+            byte[] bytes = compact ? compactPrediction() : PREDICTION.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", compact ? "application/x-loan-scores" : "application/json");
+            exchange.getResponseHeaders().add("X-Model-Version", "v2");
+            exchange.sendResponseHeaders(compact && !acceptsCompact ? 415 : status.applyAsInt(n), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            } catch (Exception ignored) {
+                // client gave up on this request (deadline or losing hedge)
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+    }
+
+    @Test
+    void callExceedingTheDeadlineFailsAsUnavailable() {
+        delayMs = n -> 1_000;
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 200, false);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.predict(FEATURES).block())
+                .isInstanceOf(MlUnavailableException.class)
+                .hasMessageContaining("200 ms");
+        assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(900);
+        assertThat(meterRegistry.counter("ml.client.deadline.exceeded").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndTheFasterAnswerWins() {
+        // 20 fast calls establish the latency percentile, then one call stalls
+        delayMs = n -> n == 20 ? 1_500 : 5;
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 3_000, true);
+        for (int i = 0; i < 20; i++) {
+            client.predict(FEATURES).block();
+        }
+
+        long started = System.nanoTime();
+        MlPredictResponse response = client.predict(FEATURES).block();
+
+        assertThat(response.decision).isEqualTo("APPROVE");
+        assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(1_000);
+        assertThat(meterRegistry.counter("ml.client.hedges").count()).isEqualTo(1.0);
+        assertThat(requests.get()).isEqualTo(22);
+    }
+
+    @Test
+    void circuitOpensOnFailuresFailsFastAndClosesAfterSuccessfulTrial() throws Exception {
+        status = n -> n < 4 ? 500 : 200;
+        MlCircuitBreaker breaker = new MlCircuitBreaker(10, 4, 50, 200);
+        MlClient client = client(breaker, 1_000, false);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.predict(FEATURES).block())
+                    .isNotInstanceOf(MlUnavailableException.class);
+        }
+        assertThat(breaker.state()).isEqualTo(MlCircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.predict(FEATURES).block())
+                .isInstanceOf(MlUnavailableException.class)
+                .hasMessageContaining("circuit breaker is open");
+        assertThat(requests.get()).isEqualTo(4);
+
+        Thread.sleep(250);
+        assertThat(client.predict(FEATURES).block().decision).isEqualTo("APPROVE");
+        assertThat(breaker.state()).isEqualTo(MlCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void overloadAndConnectFailuresAreUnavailableButA500IsNot() {
+        status = n -> n == 0 ? 503 : n == 1 ? 429 : 500;
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 1_000, false);
+
+        assertThatThrownBy(() -> client.predict(FEATURES).block()).isInstanceOf(MlUnavailableException.class);
+        assertThatThrownBy(() -> client.predict(FEATURES).block()).isInstanceOf(MlUnavailableException.class);
+        assertThatThrownBy(() -> client.predict(FEATURES).block()).isNotInstanceOf(MlUnavailableException.class);
+
+        stub.stop(0);
+        assertThatThrownBy(() -> client.predict(FEATURES).block())
+                .isInstanceOf(MlUnavailableException.class)
+                .hasMessageContaining("unreachable");
+    }
+
+    @Test
+    void fallbackDecisionIsRecordedWhileUnavailable() {
+        delayMs = n -> 1_000;
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 100, false);
+        MlMicroBatcher batcher = new MlMicroBatcher(client, false, 32, 5);
+
+        MlPredictResponse response = new RemoteRiskScorer(client, batcher, "DENY").score(FEATURES);
+        assertThat(response.decision).isEqualTo("DENY");
+        assertThat(response.isFallback()).isTrue();
+
+        assertThatThrownBy(() -> new RemoteRiskScorer(client, batcher, "").score(FEATURES))
+                .isInstanceOf(MlUnavailableException.class);
+    }
+
+    @Test
+    void switchesToTheCompactEncodingWhenHealthReportsTheSameSchema() {
+        featureSchema = FeatureSchema.FINGERPRINT;
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 1_000, false);
+
+        client.modelVersion().block();
+        MlPredictResponse response = client.predict(FEATURES).block();
+
+        assertThat(lastContentType).isEqualTo("application/x-loan-features;schema=" + FeatureSchema.FINGERPRINT);
+        assertThat(lastRequestBytes).isEqualTo(FeatureSchema.SIZE * Float.BYTES);
+        assertThat(response.risk_score).isEqualTo(0.62);
+        assertThat(response.decision).isEqualTo("DENY");
+        assertThat(response.top_factors.name(0)).isEqualTo("NumberOfTime30-59DaysPastDueNotWorse");
+        assertThat(response.top_factors.impact(1)).isEqualTo(-0.1873);
+        assertThat(response.model_version).isEqualTo("v2");
+    }
+
+    @Test
+    void staysOnJsonForAnotherSchemaAndFallsBackWhenCompactIsRejected() {
+        featureSchema = "0badc0de";
+        MlClient client = client(new MlCircuitBreaker(50, 20, 50, 10_000), 1_000, false);
+        client.modelVersion().block();
+        client.predict(FEATURES).block();
+        assertThat(lastContentType).isEqualTo("application/json");
+
+        featureSchema = FeatureSchema.FINGERPRINT;
+        acceptsCompact = false;
+        client.modelVersion().block();
+        assertThat(client.isCompact()).isTrue();
+
+        assertThat(client.predict(FEATURES).block().decision).isEqualTo("APPROVE");
+        assertThat(lastContentType).isEqualTo("application/json");
+        assertThat(client.isCompact()).isFalse();
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    // One DENY row with two of three factor slots used, as ml-service encodes it
+    private static byte[] compactPrediction() {
+        ByteBuffer out = ByteBuffer.allocate(1 + 8 + 2 + 3 * 9).order(ByteOrder.LITTLE_ENDIAN);
+        out.put((byte) 3).putDouble(0.62).put((byte) 1).put((byte) 2);
+        out.put((byte) FeatureSchema.indexOf("NumberOfTime30-59DaysPastDueNotWorse")).put((byte) FeatureSchema.indexOf("age")).put((byte) 0);
+        out.putDouble(0.4121).putDouble(-0.1873).putDouble(0);
+        return out.array();
+    }
+
+    private MlClient client(MlCircuitBreaker breaker, long deadlineMs, boolean hedge) {
+        WebClient webClient = WebClient.builder().baseUrl("http://127.0.0.1:" + stub.getAddress().getPort()).build();
+        return new MlClient(webClient, breaker, meterRegistry, deadlineMs, 10_000, 32, hedge, 0.95, 20, 100, "eager", true, "auto");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backend.loan;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MlMicroBatcherTest {
+
+    private final MlClient mlClient = mock(MlClient.class);
+    private MlMicroBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    void concurrentSubmissionsAreCoalescedAndAnsweredInOrder() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(mlClient.predictBatch(anyList())).thenAnswer(inv -> {
+            List<FeatureVector> vectors = inv.getArgument(0);
+            batchSizes.add(vectors.size());
+            return Mono.just(vectors.stream().map(v -> response((int) v.get(1))).toList());
+        });
+        batcher = new MlMicroBatcher(mlClient, true, 4, 50);
+        batcher.start();
+
+        List<CompletableFuture<MlPredictResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(batcher.submit(features(20 + i)));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(futures.get(i).join().risk_score).isEqualTo(20 + i);
+        }
+        assertThat(batchSizes).allMatch(size -> size <= 4);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10);
+        assertThat(batchSizes.size()).isLessThan(10);
+    }
+
+    @Test
+    void batchFailureFailsEveryWaiter() {
+        when(mlClient.predictBatch(anyList())).thenReturn(Mono.error(new RuntimeException("ML service error: 503")));
+        batcher = new MlMicroBatcher(mlClient, true, 8, 5);
+        batcher.start();
+
+        CompletableFuture<MlPredictResponse> a = batcher.submit(features(30));
+        CompletableFuture<MlPredictResponse> b = batcher.submit(features(31));
+
+        assertThatThrownBy(a::join).hasMessageContaining("503");
+        assertThatThrownBy(b::join).hasMessageContaining("503");
+    }
+
+    @Test
+    void submissionsAfterStopFailAsUnavailable() {
+        batcher = new MlMicroBatcher(mlClient, true, 8, 5);
+        batcher.start();
+        batcher.stop();
+
+        assertThatThrownBy(() -> batcher.submit(features(30)).join())
+                .hasCauseInstanceOf(MlUnavailableException.class);
+        assertThatThrownBy(() -> new RemoteRiskScorer(mlClient, batcher, "").score(features(30)))
+                .isInstanceOf(MlUnavailableException.class);
+        assertThat(new RemoteRiskScorer(mlClient, batcher, "DENY").score(features(30)).isFallback()).isTrue();
+    }
+
+    private static MlPredictResponse response(int score) {
+        MlPredictResponse r = new MlPredictResponse();
+        r.risk_score = score;
+        r.decision = "APPROVE";
+        r.top_factors = RiskFactors.NONE;
+        return r;
+    }
+
+    private static FeatureVector features(int age) {
+        return FeatureVector.of(new LoanApplicationRequest(0.3, age, 0, 0.25, 5000.0, 6, 0, 1, 0, 2));
+    }
+}
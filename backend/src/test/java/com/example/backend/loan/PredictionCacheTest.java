@@ -0,0 +1,63 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PredictionCacheTest {
+
+    private final RiskScorer scorer = mock(RiskScorer.class);
+    private final PredictionCache cache = new PredictionCache(scorer, true, 100, 60);
+
+    @Test
+    void identicalFeatureVectorsHitRegardlessOfNumericTypeAndKeyOrder() throws Exception {
+        cache.put(payload(45, 5000.0), response("v1"));
+
+        FeatureVector reordered = new ObjectMapper().readValue("""
+                {"MonthlyIncome":5000,"age":45.0,"RevolvingUtilizationOfUnsecuredLines":0.3,
+                 "NumberOfTime30-59DaysPastDueNotWorse":0,"DebtRatio":0.25,"NumberOfOpenCreditLinesAndLoans":6,
+                 "NumberOfTimes90DaysLate":-0.0,"NumberRealEstateLoansOrLines":1,
+                 "NumberOfTime60_89DaysPastDueNotWorse":0,"NumberOfDependents":2}
+                """, FeatureVector.class);
+
+        assertThat(cache.get(reordered)).isNotNull();
+        assertThat(cache.get(payload(46, 5000.0))).isNull();
+        assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void newModelVersionFromAResponseDropsOlderEntries() {
+        cache.put(payload(30, 1000.0), response("v1"));
+        cache.put(payload(31, 1000.0), response("v2"));
+
+        assertThat(cache.get(payload(30, 1000.0))).isNull();
+        assertThat(cache.get(payload(31, 1000.0))).isNotNull();
+    }
+
+    @Test
+    void versionPollInvalidatesWithoutAnyMiss() {
+        cache.put(payload(30, 1000.0), response("v1"));
+        when(scorer.modelVersion()).thenReturn("v2");
+
+        cache.checkModelVersion();
+
+        assertThat(cache.get(payload(30, 1000.0))).isNull();
+        assertThat(cache.stats()).containsEntry("model_version", "v2");
+    }
+
+    private static FeatureVector payload(int age, double income) {
+        return FeatureVector.of(new LoanApplicationRequest(0.3, age, 0, 0.25, income, 6, 0, 1, 0, 2));
+    }
+
+    private static MlPredictResponse response(String version) {
+        MlPredictResponse r = new MlPredictResponse();
+        r.risk_score = 0.1;
+        r.decision = "APPROVE";
+        r.top_factors = RiskFactors.NONE;
+        r.model_version = version;
+        return r;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backend.loan;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RiskAggregatesTest {
+
+    private final RiskAggregates aggregates =
+            new RiskAggregates(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), false, 1000);
+
+    @Test
+    void bucketsAndSummaryMatchTheSnowflakeViews() {
+        Instant now = Instant.now();
+        aggregates.add(0.05, "APPROVE", factors("age", -0.2), now);
+        aggregates.add(0.3, "APPROVE", factors("age", 0.4), now);
+        aggregates.add(0.35, "APPROVE", factors("DebtRatio", 0.1), now);
+        aggregates.add(0.92, "DENY", factors("age", 0.6), now.minus(10, ChronoUnit.DAYS));
+
+        List<Map<String, Object>> distribution = aggregates.riskDistribution();
+        assertThat(distribution).extracting(row -> row.get("RISK_SCORE_BUCKET"))
+                .containsExactly("0.0-0.1", "0.3-0.4", "0.9-1.0");
+        assertThat(distribution.get(1))
+                .containsEntry("APPLICATION_COUNT", 2L)
+                .containsEntry("APPROVAL_RATE_PERCENT", 100.0);
+        assertThat(distribution.get(2)).containsEntry("DENIED_COUNT", 1L);
+
+        assertThat(aggregates.summary())
+                .containsEntry("total_applications", 4L)
+                .containsEntry("overall_approval_rate_percent", 75.0)
+                .containsEntry("average_risk_score", 0.405)
+                .containsEntry("applications_last_7_days", 3L);
+    }
+
+    @Test
+    void dailyRatesAreNewestFirstAndFactorsRankedByMeanAbsoluteImpact() {
+        Instant now = Instant.now();
+        aggregates.add(0.1, "APPROVE", factors("age", -0.3), now.minus(1, ChronoUnit.DAYS));
+        aggregates.add(0.5, "DENY", factors("age", 0.1), now);
+        aggregates.add(0.2, "APPROVE", factors("DebtRatio", 0.15), now);
+
+        List<Map<String, Object>> days = aggregates.approvalRates(30);
+        assertThat(days).hasSize(2);
+        assertThat(days.get(0))
+                .containsEntry("APPLICATION_DATE", LocalDate.ofInstant(now, ZoneOffset.UTC))
+                .containsEntry("TOTAL_APPLICATIONS", 2L)
+                .containsEntry("APPROVAL_RATE_PERCENT", 50.0)
+                .containsEntry("AVG_RISK_SCORE", 0.35);
+
+        List<Map<String, Object>> top = aggregates.topFactors(10);
+        assertThat(top).extracting(row -> row.get("FACTOR_NAME")).containsExactly("age", "DebtRatio");
+        assertThat(top.get(0)).containsEntry("AVG_IMPACT", 0.2).containsEntry("APPLICATION_COUNT", 2L);
+    }
+
+    @Test
+    void ruleDecidedRowsCountWithoutEnteringBucketsOrAverages() {
+        Instant now = Instant.now();
+        aggregates.add(0.2, "APPROVE", factors("age", 0.1), now);
+        aggregates.add(0.4, "APPROVE", factors("age", 0.1), now);
+        aggregates.add(null, "DENY", null, now);
+
+        assertThat(aggregates.summary())
+                .containsEntry("total_applications", 3L)
+                .containsEntry("average_risk_score", 0.3)
+                .containsEntry("applications_last_7_days", 3L);
+        assertThat(aggregates.approvalRates(30).get(0))
+                .containsEntry("TOTAL_APPLICATIONS", 3L)
+                .containsEntry("DENIED_APPLICATIONS", 1L)
+                .containsEntry("AVG_RISK_SCORE", 0.3);
+        assertThat(aggregates.riskDistribution()).extracting(row -> row.get("APPLICATION_COUNT"))
+                .containsExactly(1L, 1L);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() {
+        Instant now = Instant.now();
+        IntStream.range(0, 10_000).parallel()
+                .forEach(i -> aggregates.add((i % 10) / 10.0 + 0.05, i % 2 == 0 ? "APPROVE" : "DENY",
+                        factors("age", 0.1), now));
+
+        assertThat(aggregates.summary()).containsEntry("total_applications", 10_000L)
+                .containsEntry("overall_approval_rate_percent", 50.0);
+        assertThat(aggregates.riskDistribution()).allSatisfy(row ->
+                assertThat(row).containsEntry("APPLICATION_COUNT", 1_000L));
+    }
+
+    private static RiskFactors factors(String name, double impact) {
+        return new RiskFactors(new int[] {FeatureSchema.indexOf(name)}, new double[] {impact});
+    }
+}
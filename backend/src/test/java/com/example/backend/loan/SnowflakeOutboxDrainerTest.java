@@ -0,0 +1,86 @@
+package com.example.backend.loan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class SnowflakeOutboxDrainerTest {
+
+    private SnowflakeOutboxRepository outboxRepo;
+    private LoanApplicationRepository loanRepo;
+    private WarehouseSink writer;
+    private SnowflakeOutboxDrainer drainer;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        outboxRepo = mock(SnowflakeOutboxRepository.class);
+        loanRepo = mock(LoanApplicationRepository.class);
+        writer = mock(WarehouseSink.class);
+        drainer = new SnowflakeOutboxDrainer(outboxRepo, loanRepo, writer, mock(TransactionTemplate.class),
+                meterRegistry, true, 10, 3, 1000, 5000);
+    }
+
+    @Test
+    void shippedBatchIsRemovedFromOutbox() throws Exception {
+        List<SnowflakeOutboxEntity> batch = List.of(entry(0), entry(0));
+        when(outboxRepo.claimBatch(10)).thenReturn(batch);
+        when(loanRepo.findAllById(anyList())).thenReturn(List.of(new LoanApplicationEntity(), new LoanApplicationEntity()));
+
+        assertThat(drainer.drainBatch()).isEqualTo(2);
+
+        verify(writer).writeLoanApplications(anyList());
+        verify(outboxRepo).deleteAllInBatch(batch);
+        assertThat(meterRegistry.timer("snowflake.write").count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatchIsRescheduledWithBackoffAndEventuallyDeadLettered() throws Exception {
+        SnowflakeOutboxEntity fresh = entry(0);
+        SnowflakeOutboxEntity lastTry = entry(2);
+        when(outboxRepo.claimBatch(10)).thenReturn(List.of(fresh, lastTry));
+        doThrow(new DataAccessResourceFailureException("warehouse suspended"))
+                .when(writer).writeLoanApplications(anyList());
+
+        Instant before = Instant.now();
+        assertThat(drainer.drainBatch()).isZero();
+
+        assertThat(fresh.getStatus()).isEqualTo(SnowflakeOutboxEntity.Status.PENDING);
+        assertThat(fresh.getAttempts()).isEqualTo(1);
+        assertThat(fresh.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(1));
+        assertThat(fresh.getLastError()).isEqualTo("warehouse suspended");
+
+        assertThat(lastTry.getStatus()).isEqualTo(SnowflakeOutboxEntity.Status.DEAD);
+        assertThat(lastTry.getAttempts()).isEqualTo(3);
+
+        verify(outboxRepo, never()).deleteAllInBatch(anyList());
+        assertThat(meterRegistry.counter("snowflake.write.failures").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("snowflake.outbox.dead").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertThat(drainer.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(drainer.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(drainer.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(drainer.backoff(4)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(drainer.backoff(100)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    private static SnowflakeOutboxEntity entry(int attempts) {
+        SnowflakeOutboxEntity e = SnowflakeOutboxEntity.pending(UUID.randomUUID());
+        e.setAttempts(attempts);
+        return e;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend.loan;
+
+import com.example.backend.scoring.XgbModelLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StartupWarmUpTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void runsSyntheticApplicationsThroughTheLocalScorer() throws Exception {
+        Path dir = Path.of(getClass().getResource("/scoring").toURI());
+        LocalRiskScorer scorer = new LocalRiskScorer(XgbModelLoader.load(dir), 0.35);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StartupWarmUp warmUp = new StartupWarmUp(new ObjectMapper(), validator, scorer, meterRegistry, 300, 100, 60_000);
+
+        warmUp.run(new DefaultApplicationArguments());
+
+        assertThat(meterRegistry.get("loans.warmup").timer().count()).isEqualTo(1);
+        assertThat(warmUp.warmUp()).isEqualTo(300);
+    }
+
+    @Test
+    void stopsScoringAtTheFirstFailureOrFallback() {
+        MlPredictResponse ok = new MlPredictResponse();
+        ok.risk_score = 0.2;
+        ok.decision = "APPROVE";
+        ok.top_factors = RiskFactors.NONE;
+
+        // ml-service still starting: a third failing call would count against the breaker
+        RiskScorer failing = mock(RiskScorer.class);
+        when(failing.score(any())).thenReturn(ok, ok).thenThrow(new MlUnavailableException("connection refused"));
+        assertThat(warmUp(failing).warmUp()).isEqualTo(200);
+        verify(failing, times(3)).score(any());
+
+        RiskScorer fallback = mock(RiskScorer.class);
+        when(fallback.score(any())).thenReturn(MlPredictResponse.fallback("DENY"));
+        assertThat(warmUp(fallback).warmUp()).isEqualTo(200);
+        verify(fallback, times(1)).score(any());
+    }
+
+    private StartupWarmUp warmUp(RiskScorer scorer) {
+        return new StartupWarmUp(new ObjectMapper(), validator, scorer, new SimpleMeterRegistry(), 200, 50, 60_000);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.backend.prescreen;
+
+import com.example.backend.loan.FeatureSchema;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanApplicationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrescreenServiceTest {
+
+    private static final FeatureVector CLEAN =
+            FeatureVector.of(new LoanApplicationRequest(0.05, 50, 0, 0.2, 8000.0, 6, 0, 1, 0, 2));
+    private static final FeatureVector DELINQUENT =
+            FeatureVector.of(new LoanApplicationRequest(0.9, 40, 3, 0.5, 4000.0, 8, 5, 1, 2, 1));
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void expressionsCompileWithPrecedenceMissingValuesAndBothSpellings() {
+        double[] values = new double[FeatureSchema.SIZE];
+        values[FeatureSchema.indexOf("DebtRatio")] = 12;
+        values[FeatureSchema.indexOf("MonthlyIncome")] = Double.NaN;
+        values[FeatureSchema.indexOf("NumberOfTime30-59DaysPastDueNotWorse")] = 2;
+        FeatureVector v = FeatureVector.of(values);
+
+        assertThat(RuleCompiler.compile("DebtRatio > 10 and MonthlyIncome is missing").test(v)).isTrue();
+        assertThat(RuleCompiler.compile("MonthlyIncome < 1000 or MonthlyIncome >= 1000 or MonthlyIncome != 0").test(v))
+                .isFalse();
+        // and binds tighter than or
+        assertThat(RuleCompiler.compile("age > 1 and DebtRatio > 1 or DebtRatio > 11").test(v)).isTrue();
+        assertThat(RuleCompiler.compile("age > 1 and (DebtRatio > 1 or DebtRatio > 11)").test(v)).isFalse();
+        assertThat(RuleCompiler.compile("NumberOfTime30_59DaysPastDueNotWorse == 2 and not NumberOfTime30-59DaysPastDueNotWorse < 2")
+                .test(v)).isTrue();
+        assertThat(RuleCompiler.compile("DebtRatio >= 1.2e1 and age > -1").test(v)).isTrue();
+
+        assertThatThrownBy(() -> RuleCompiler.compile("Salary > 3")).hasMessageContaining("unknown feature 'Salary'");
+        assertThatThrownBy(() -> RuleCompiler.compile("DebtRatio > ")).hasMessageContaining("expected a number");
+        assertThatThrownBy(() -> RuleCompiler.compile("(age > 3")).hasMessageContaining("expected ')'");
+    }
+
+    @Test
+    void firstMatchingRuleDecidesAndHitsAreCounted() throws Exception {
+        PrescreenService service = service(rules("v1", """
+                  - id: sentinel
+                    when: NumberOfTimes90DaysLate >= 90
+                    then: model
+                  - id: delinquent
+                    when: NumberOfTimes90DaysLate >= 4
+                    then: deny
+                  - id: clean
+                    when: NumberOfTimes90DaysLate == 0 and DebtRatio < 0.3
+                    then: approve
+                """));
+
+        assertThat(service.evaluate(DELINQUENT).id()).isEqualTo("delinquent");
+        assertThat(service.evaluate(DELINQUENT).action().decision()).isEqualTo("DENY");
+        assertThat(service.evaluate(CLEAN).id()).isEqualTo("clean");
+        double[] sentinel = values(DELINQUENT);
+        sentinel[FeatureSchema.indexOf("NumberOfTimes90DaysLate")] = 98;
+        PrescreenRuleSet.Rule deferred = service.evaluate(FeatureVector.of(sentinel));
+        assertThat(deferred.id()).isEqualTo("sentinel");
+        assertThat(deferred.decides()).isFalse();
+        double[] neither = values(CLEAN);
+        neither[FeatureSchema.indexOf("DebtRatio")] = 0.8;
+        assertThat(service.evaluate(FeatureVector.of(neither))).isNull();
+
+        Map<String, Object> stats = service.stats();
+        assertThat(stats).containsEntry("version", "v1").containsEntry("evaluated", 5L)
+                .containsEntry("decided_by_rules", 3L).containsEntry("ml_calls_avoided_percent", 60.0);
+        assertThat(meterRegistry.counter("loans.prescreen.hits", "rule", "delinquent", "action", "deny").count())
+                .isEqualTo(2.0);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> perRule = (List<Map<String, Object>>) stats.get("rules");
+        assertThat(perRule).extracting(r -> r.get("hits")).containsExactly(1L, 2L, 1L);
+    }
+
+    @Test
+    void shippedRulesCompile() {
+        PrescreenService shipped = new PrescreenService(new DefaultResourceLoader(), meterRegistry, true,
+                "classpath:prescreen-rules.yml");
+        assertThat(shipped.evaluate(DELINQUENT).action()).isEqualTo(PrescreenRuleSet.Action.DENY);
+        assertThat(shipped.evaluate(CLEAN).action()).isEqualTo(PrescreenRuleSet.Action.APPROVE);
+        assertThat(shipped.stats()).containsEntry("version", "2026-10-18");
+    }
+
+    @Test
+    void unquotedDateVersionIsRejected() throws Exception {
+        Path file = rules("2026-10-18", """
+                  - id: delinquent
+                    when: "NumberOfTimes90DaysLate >= 3"
+                    then: deny
+                """);
+        assertThatThrownBy(() -> service(file)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void changedFileIsRecompiledAndABrokenOneIsRejected() throws Exception {
+        Path file = rules("v1", """
+                  - id: delinquent
+                    when: NumberOfTimes90DaysLate >= 4
+                    then: deny
+                """);
+        PrescreenService service = service(file);
+        assertThat(service.evaluate(CLEAN)).isNull();
+
+        rewrite(file, "v2", """
+                  - id: clean
+                    when: DebtRatio < 0.3
+                    then: approve
+                """);
+        service.reloadIfChanged();
+        assertThat(service.stats()).containsEntry("version", "v2");
+        assertThat(service.evaluate(CLEAN).id()).isEqualTo("clean");
+
+        rewrite(file, "v3", """
+                  - id: broken
+                    when: DebtRatio <
+                    then: approve
+                """);
+        service.reloadIfChanged();
+        assertThat(service.stats()).containsEntry("version", "v2");
+        assertThat(meterRegistry.counter("loans.prescreen.reload.failures").count()).isEqualTo(1.0);
+        assertThatThrownBy(service::reload).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private PrescreenService service(Path file) {
+        return new PrescreenService(new DefaultResourceLoader(), meterRegistry, true, "file:" + file);
+    }
+
+    private Path rules(String version, String body) throws Exception {
+        Path file = dir.resolve("rules.yml");
+        Files.writeString(file, "version: " + version + "\nrules:\n" + body);
+        return file;
+    }
+
+    // Bumps the mtime explicitly; two writes within the filesystem's timestamp
+    // resolution would otherwise look unchanged
+    private void rewrite(Path file, String version, String body) throws Exception {
+        FileTime before = Files.getLastModifiedTime(file);
+        rules(version, body);
+        Files.setLastModifiedTime(file, FileTime.from(before.toInstant().plusSeconds(1)));
+    }
+
+    private static double[] values(FeatureVector v) {
+        double[] values = new double[v.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = v.get(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.scoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// Fixtures under src/test/resources/scoring are produced by XGBoost itself
+// (predict_proba and pred_contribs); regenerate them from the real artifacts with
+// ml-service/training/export_parity.py.
+class XgbScoringModelParityTest {
+
+    private static XgbScoringModel model;
+    private static JsonNode cases;
+
+    @BeforeAll
+    static void load() throws Exception {
+        Path dir = Path.of(XgbScoringModelParityTest.class.getResource("/scoring").toURI());
+        model = XgbModelLoader.load(dir);
+        cases = new ObjectMapper().readTree(dir.resolve("parity-cases.json").toFile()).path("cases");
+    }
+
+    @Test
+    void probabilitiesMatchXgboost() {
+        assertThat(cases.size()).isGreaterThan(100);
+        for (JsonNode c : cases) {
+            assertThat(model.predictProba(raw(c))).isCloseTo(c.path("risk_score").asDouble(), within(1e-6));
+        }
+    }
+
+    @Test
+    void treeShapContributionsMatchXgboost() {
+        double[] phi = new double[model.numFeatures() + 1];
+        for (JsonNode c : cases) {
+            model.explain(raw(c), phi);
+            JsonNode expected = c.path("contributions");
+            for (int i = 0; i < phi.length; i++) {
+                assertThat(phi[i]).as("feature %d", i).isCloseTo(expected.get(i).asDouble(), within(1e-4));
+            }
+        }
+    }
+
+    @Test
+    void contributionsSumToTheMargin() {
+        double[] phi = new double[model.numFeatures() + 1];
+        for (JsonNode c : cases) {
+            double proba = model.explain(raw(c), phi);
+            double sum = 0;
+            for (double v : phi) {
+                sum += v;
+            }
+            assertThat(1.0 / (1.0 + Math.exp(-sum))).isCloseTo(proba, within(1e-9));
+        }
+    }
+
+    static double[] raw(JsonNode c) {
+        List<String> features = model.features();
+        double[] raw = new double[features.size()];
+        for (int i = 0; i < raw.length; i++) {
+            JsonNode v = c.path("input").path(features.get(i).replace('-', '_'));
+            raw[i] = v.isNull() || v.isMissingNode() ? Double.NaN : v.asDouble();
+        }
+        return raw;
+    }
+}
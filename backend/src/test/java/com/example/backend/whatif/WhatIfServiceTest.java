@@ -0,0 +1,281 @@
+package com.example.backend.whatif;
+
+import com.example.backend.loan.AdmissionLimiter;
+import com.example.backend.loan.AdmissionRejectedException;
+import com.example.backend.loan.FeatureVector;
+import com.example.backend.loan.LoanHistoryQuery;
+import com.example.backend.loan.MlPredictResponse;
+import com.example.backend.loan.PredictionCache;
+import com.example.backend.loan.RiskFactors;
+import com.example.backend.loan.RiskScorer;
+import com.example.backend.prescreen.PrescreenRuleSet;
+import com.example.backend.prescreen.PrescreenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WhatIfServiceTest {
+
+    private static final Instant TO = Instant.parse("2026-07-01T00:00:00Z");
+    private static final Instant FROM = TO.minus(Duration.ofDays(90));
+
+    private final WhatIfScanner scanner = mock(WhatIfScanner.class);
+    private final RiskScorer scorer = mock(RiskScorer.class);
+    private final AdmissionLimiter admission = mock(AdmissionLimiter.class);
+    private final PrescreenService prescreen = mock(PrescreenService.class);
+    private final PredictionCache predictionCache = mock(PredictionCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // "loan_applications", newest first
+    private final List<WhatIfScanner.Row> table = new ArrayList<>();
+    private WhatIfService service;
+
+    @BeforeEach
+    void setUp() {
+        // 500 model decisions spread over the quarter: income 1000..50900, scores 0.6005..0.1015
+        for (int i = 0; i < 500; i++) {
+            double income = 1000 + i * 100;
+            double score = score(income);
+            table.add(row(FROM.plusSeconds(15_000L * i + 1), income, Math.round(score * 10000) / 10000.0,
+                    score > 0.35 ? "DENY" : "APPROVE", null));
+        }
+        // pre-screening denials and approvals, and one fallback decision
+        for (int i = 0; i < 10; i++) {
+            table.add(row(FROM.plusSeconds(7_000L * i + 3), vector(3000, 0.25, 3), null, "DENY",
+                    "too-many-late-payments"));
+        }
+        for (int i = 0; i < 5; i++) {
+            table.add(row(FROM.plusSeconds(9_000L * i + 5), vector(3500, 0.05, 0), null, "APPROVE",
+                    "clean-history-low-leverage"));
+        }
+        table.add(row(FROM.plusSeconds(11), 3000, null, "APPROVE", null));
+        table.sort(Comparator.comparing((WhatIfScanner.Row r) -> r.position().createdAt())
+                .thenComparing(r -> r.position().id()).reversed());
+
+        when(scanner.page(any(), any(), any(), anyInt())).thenAnswer(inv -> {
+            Instant from = inv.getArgument(0);
+            Instant to = inv.getArgument(1);
+            LoanHistoryQuery.Cursor after = inv.getArgument(2);
+            int limit = inv.getArgument(3);
+            return table.stream()
+                    .filter(r -> !r.position().createdAt().isBefore(from) && r.position().createdAt().isBefore(to))
+                    .filter(r -> after == null || before(r.position(), after))
+                    .limit(limit)
+                    .toList();
+        });
+        when(scorer.scoreBatch(anyList())).thenAnswer(inv -> inv.<List<FeatureVector>>getArgument(0).stream()
+                .map(v -> response(score(v.get(4))))
+                .toList());
+        // the two shipped rules the table uses, on DebtRatio, MonthlyIncome and 90-days-late
+        when(prescreen.simulate(any())).thenAnswer(inv -> {
+            FeatureVector v = inv.getArgument(0);
+            if (v.get(6) >= 3) {
+                return rule("too-many-late-payments", PrescreenRuleSet.Action.DENY);
+            }
+            if (v.get(3) <= 0.1 && v.get(4) >= 3000 && v.get(6) == 0) {
+                return rule("clean-history-low-leverage", PrescreenRuleSet.Action.APPROVE);
+            }
+            return null;
+        });
+
+        when(admission.executeBatch(anyInt(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+
+        service = new WhatIfService(scanner, scorer, admission, prescreen, predictionCache, meterRegistry,
+                0.35, 16, 3, 8, 2, 1, 20);
+    }
+
+    @Test
+    void evaluatesOtherThresholdsOnStoredScores() throws Exception {
+        UUID id = id(service.start(FROM, TO, List.of(0.30), null, null));
+        Map<String, Object> job = awaitFinished(id);
+
+        assertThat(job).containsEntry("status", WhatIfJob.Status.COMPLETED)
+                .containsEntry("rows_scanned", 516L)
+                .containsEntry("progress_percent", 100.0);
+        Map<String, Object> result = result(job);
+        assertThat(result).containsEntry("applications", 516L)
+                .containsEntry("decided", 515L)
+                .containsEntry("rule_decided", 15L)
+                .containsEntry("unscored", 1L)
+                .containsEntry("model_scored", 0L);
+        List<Map<String, Object>> thresholds = thresholds(result);
+        // scores at or below 0.30 belong to incomes from 31100 up (199 rows); at 0.35, from 26100 up
+        // (249), and the 5 rule approvals stand at either
+        assertThat(result).extractingByKey("recorded").asInstanceOf(MAP).containsEntry("approved", 254L);
+        assertThat(thresholds.get(0)).containsEntry("threshold", 0.30)
+                .containsEntry("approved", 204L)
+                .containsEntry("newly_denied", 50L)
+                .containsEntry("newly_approved", 0L);
+        assertThat(thresholds.get(1)).containsEntry("threshold", 0.35)
+                .containsEntry("approved", 254L)
+                .containsEntry("newly_denied", 0L);
+        assertThat(meterRegistry.counter("whatif.rows", "score", "stored").count()).isEqualTo(500.0);
+    }
+
+    @Test
+    void rescoresTransformedIncomeThroughTheCacheAndTheModel() throws Exception {
+        FeatureVector cachedInput = vector(50900 * 0.8);
+        when(predictionCache.get(any())).thenAnswer(inv -> cachedInput.equals(inv.getArgument(0))
+                ? response(0.01) : null);
+
+        UUID id = id(service.start(FROM, TO, null,
+                List.of(new WhatIfScenario.Transform("MonthlyIncome", "multiply", 0.8)), "auto"));
+        Map<String, Object> result = result(awaitFinished(id));
+
+        // the fallback row is rescored too; the late-payment denials still match their rule,
+        // but at 2800 the rule approvals fall out of theirs and go to the model
+        assertThat(result).containsEntry("applications", 516L)
+                .containsEntry("rule_decided", 10L)
+                .containsEntry("unscored", 0L)
+                .containsEntry("cache_hits", 1L)
+                .containsEntry("model_scored", 505L);
+        // at 80% of their income only applicants from 32600 up stay at or below 0.35; 65 of
+        // the 249 recorded model approvals, the fallback approval and the 5 former rule
+        // approvals are denied now
+        assertThat(thresholds(result).get(0)).containsEntry("threshold", 0.35)
+                .containsEntry("approved", 184L)
+                .containsEntry("newly_denied", 71L)
+                .containsEntry("newly_approved", 0L);
+        assertThat(meterRegistry.counter("whatif.rows", "score", "model").count()).isEqualTo(505.0);
+        assertThat(meterRegistry.counter("whatif.rows", "score", "rule").count()).isEqualTo(10.0);
+    }
+
+    @Test
+    void pagesThatAreNotAdmittedWaitWithoutFailingTheJob() throws Exception {
+        // more rejections than max-attempts allows failures
+        AtomicInteger rejections = new AtomicInteger(5);
+        doAnswer(inv -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS, "queue full", 0);
+            }
+            return inv.<Supplier<?>>getArgument(1).get();
+        }).when(admission).executeBatch(anyInt(), any());
+
+        Map<String, Object> job = awaitFinished(id(service.start(FROM, TO, null, null, "rescore")));
+
+        assertThat(job).containsEntry("status", WhatIfJob.Status.COMPLETED);
+        assertThat(result(job)).containsEntry("applications", 516L)
+                .containsEntry("rule_decided", 15L)
+                .containsEntry("model_scored", 501L);
+    }
+
+    @Test
+    void cancelledJobStopsWithPartialResults() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(scorer.scoreBatch(anyList())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return inv.<List<FeatureVector>>getArgument(0).stream().map(v -> response(0.2)).toList();
+        });
+
+        UUID id = id(service.start(FROM, TO, null, null, "rescore"));
+        assertThatThrownBy(() -> service.start(FROM, TO, null, null, null))
+                .isInstanceOf(IllegalStateException.class);
+        service.cancel(id);
+        release.countDown();
+        Map<String, Object> job = awaitFinished(id);
+
+        assertThat(job).containsEntry("status", WhatIfJob.Status.CANCELLED);
+        assertThat((long) job.get("rows_scanned")).isLessThan(516L);
+        assertThat((double) job.get("progress_percent")).isLessThan(100.0);
+    }
+
+    @Test
+    void transformsNeedRescoring() {
+        assertThatThrownBy(() -> service.start(FROM, TO, null,
+                List.of(new WhatIfScenario.Transform("MonthlyIncome", "multiply", 0.8)), "stored"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.start(FROM, TO, null,
+                List.of(new WhatIfScenario.Transform("Salary", "add", 1.0)), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown feature");
+    }
+
+    private Map<String, Object> awaitFinished(UUID id) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> status = service.status(id).orElseThrow();
+            if (status.get("status") != WhatIfJob.Status.RUNNING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job did not finish");
+    }
+
+    private static UUID id(Map<String, Object> job) {
+        return (UUID) job.get("id");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> result(Map<String, Object> job) {
+        return (Map<String, Object>) job.get("result");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> thresholds(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("thresholds");
+    }
+
+    private static boolean before(LoanHistoryQuery.Cursor a, LoanHistoryQuery.Cursor b) {
+        int c = a.createdAt().compareTo(b.createdAt());
+        return c < 0 || (c == 0 && a.id().compareTo(b.id()) < 0);
+    }
+
+    // 0.1005 at an income of 51000, rising by 0.01 per 1000 less; never exactly on a threshold
+    private static double score(double income) {
+        return 0.1005 + (51000 - income) / 100000;
+    }
+
+    private static FeatureVector vector(double income) {
+        return vector(income, 0.25, 0);
+    }
+
+    private static FeatureVector vector(double income, double debtRatio, int late90) {
+        return FeatureVector.of(new double[] {0.3, 45, 0, debtRatio, income, 6, late90, 1, 0, 0});
+    }
+
+    private static WhatIfScanner.Row row(Instant createdAt, double income, Double riskScore, String decision,
+                                         String rule) {
+        return row(createdAt, vector(income), riskScore, decision, rule);
+    }
+
+    private static WhatIfScanner.Row row(Instant createdAt, FeatureVector payload, Double riskScore, String decision,
+                                         String rule) {
+        return new WhatIfScanner.Row(new LoanHistoryQuery.Cursor(createdAt, UUID.randomUUID()), payload,
+                riskScore, decision, rule);
+    }
+
+    private static PrescreenRuleSet.Rule rule(String id, PrescreenRuleSet.Action action) {
+        return new PrescreenRuleSet.Rule(id, action, "", null, null, null);
+    }
+
+    private static MlPredictResponse response(double score) {
+        MlPredictResponse r = new MlPredictResponse();
+        r.risk_score = score;
+        r.decision = score > 0.35 ? "DENY" : "APPROVE";
+        r.top_factors = RiskFactors.NONE;
+        r.model_version = "v1";
+        return r;
+    }
+}
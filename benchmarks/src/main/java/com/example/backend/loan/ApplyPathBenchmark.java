@@ -0,0 +1,168 @@
+package com.example.backend.loan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vladmihalcea.hibernate.type.json.internal.JsonJavaTypeDescriptor;
+import com.vladmihalcea.hibernate.type.util.ObjectMapperWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Per-request CPU work on the /loans/apply path, excluding network and database I/O.
+// Lives in com.example.backend.loan to reach the package-private helpers.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseG1GC")
+@State(Scope.Benchmark)
+public class ApplyPathBenchmark {
+
+    private static final String ML_RESPONSE_JSON = """
+            {"risk_score":0.2731,"decision":"APPROVE","model_version":"3f9a1c2b7d4e",
+             "top_factors":[["RevolvingUtilizationOfUnsecuredLines",0.4121],["age",-0.1873],["DebtRatio",0.0912]]}
+            """;
+
+    private LoanApplicationRequest request;
+    private FeatureVector payload;
+    private String payloadJson;
+    private MlPredictResponse mlResponse;
+    private LoanApplicationEntity entity;
+
+    // Same builder defaults as Boot's auto-configured ObjectMapper used by WebClient
+    private ObjectMapper objectMapper;
+    private JsonJavaTypeDescriptor payloadJsonType;
+    private JsonJavaTypeDescriptor shapJsonType;
+    private String shapJson;
+    private byte[] mlResponseCompact;
+
+    @Setup
+    public void setup() throws Exception {
+        request = new LoanApplicationRequest(0.766, 45, 2, 0.803, 9120.0, 13, 0, 6, 0, 2);
+        payload = FeatureVector.of(request);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        payloadJson = objectMapper.writeValueAsString(payload);
+        mlResponse = objectMapper.readValue(ML_RESPONSE_JSON, MlPredictResponse.class);
+
+        entity = LoanService.toEntity(payload, mlResponse);
+        entity.setId(UUID.randomUUID());
+
+        // What @Type(JsonType.class) resolves to for the payload and shapValues columns
+        payloadJsonType = new JsonJavaTypeDescriptor(FeatureVector.class, ObjectMapperWrapper.INSTANCE);
+        shapJsonType = new JsonJavaTypeDescriptor(RiskFactors.class, ObjectMapperWrapper.INSTANCE);
+        shapJson = shapJsonType.toString(mlResponse.top_factors);
+
+        // ML_RESPONSE_JSON as ml-service encodes it for MlWireFormat
+        ByteBuffer compact = ByteBuffer.allocate(1 + 8 + 2 + 3 * 9).order(ByteOrder.LITTLE_ENDIAN);
+        compact.put((byte) 3).putDouble(0.2731).put((byte) 0).put((byte) 3);
+        for (int i = 0; i < 3; i++) {
+            compact.put((byte) mlResponse.top_factors.feature(i));
+        }
+        for (int i = 0; i < 3; i++) {
+            compact.putDouble(mlResponse.top_factors.impact(i));
+        }
+        mlResponseCompact = compact.array();
+    }
+
+    @Benchmark
+    public FeatureVector toPayload() {
+        return FeatureVector.of(request);
+    }
+
+    @Benchmark
+    public String serializePayload() throws Exception {
+        return objectMapper.writeValueAsString(payload);
+    }
+
+    @Benchmark
+    public MlPredictResponse parseMlResponse() throws Exception {
+        return objectMapper.readValue(ML_RESPONSE_JSON, MlPredictResponse.class);
+    }
+
+    @Benchmark
+    public byte[] encodeCompactPayload() {
+        return MlWireFormat.encode(List.of(payload));
+    }
+
+    @Benchmark
+    public MlPredictResponse decodeCompactMlResponse() {
+        return MlWireFormat.decodeScores(mlResponseCompact, "3f9a1c2b7d4e").get(0);
+    }
+
+    @Benchmark
+    public String bindPayloadJsonb() {
+        return payloadJsonType.toString(payload);
+    }
+
+    @Benchmark
+    public String bindShapValuesJsonb() {
+        return shapJsonType.toString(entity.getShapValues());
+    }
+
+    @Benchmark
+    public Object readPayloadJsonb() {
+        return payloadJsonType.fromString(payloadJson);
+    }
+
+    @Benchmark
+    public Object readShapValuesJsonb() {
+        return shapJsonType.fromString(shapJson);
+    }
+
+    // Hibernate compares JSON columns on every flush to detect dirty entities
+    @Benchmark
+    public boolean dirtyCheckPayloadJsonb() {
+        return payloadJsonType.areEqual(payload, FeatureVector.of(request));
+    }
+
+    @Benchmark
+    public void extractSnowflakeColumns(Blackhole bh) {
+        FeatureVector features = entity.getPayload();
+        for (FeatureSchema.Feature f : FeatureSchema.features()) {
+            if (f.type() == FeatureSchema.Type.INT) {
+                bh.consume((int) features.get(f.index()));
+            } else {
+                bh.consume(features.get(f.index()));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> buildResponseMap() {
+        return LoansController.toResponse(entity);
+    }
+
+    @Benchmark
+    public String serializeResponse() throws Exception {
+        return objectMapper.writeValueAsString(LoansController.toResponse(entity));
+    }
+
+    // toPayload -> request JSON -> parse ML reply -> entity -> JSONB bind -> response JSON
+    @Benchmark
+    public String endToEndCpu() throws Exception {
+        FeatureVector p = FeatureVector.of(request);
+        String body = objectMapper.writeValueAsString(p);
+        MlPredictResponse ml = objectMapper.readValue(ML_RESPONSE_JSON, MlPredictResponse.class);
+        LoanApplicationEntity e = LoanService.toEntity(p, ml);
+        e.setId(entity.getId());
+        String payloadColumn = payloadJsonType.toString(e.getPayload());
+        String shapColumn = shapJsonType.toString(e.getShapValues());
+        return body.length() + payloadColumn.length() + shapColumn.length()
+                + objectMapper.writeValueAsString(LoansController.toResponse(e));
+    }
+}
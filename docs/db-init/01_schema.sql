@@ -23,12 +23,69 @@ CREATE TABLE IF NOT EXISTS transactions(
   created_at TIMESTAMPTZ DEFAULT now()
 );
 
+-- Range-partitioned by month on created_at, so the key has to include it. The backend
+-- generates time-ordered (UUIDv7) ids; the default only covers hand-written inserts.
 CREATE TABLE IF NOT EXISTS loan_applications(
-  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  id UUID NOT NULL DEFAULT gen_random_uuid(),
   user_id UUID REFERENCES users(id) ON DELETE SET NULL,
   payload JSONB NOT NULL,         -- raw input features
   risk_score NUMERIC(6,4),        -- 0..1
   decision TEXT,                  -- APPROVE/DENY
   shap_values JSONB,              -- explanation vector
-  created_at TIMESTAMPTZ DEFAULT now()
+  decision_rule TEXT,             -- pre-screening rule that decided it; NULL = model
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Partitions loan_applications_pYYYYMM for this month and the next three, so inserts work
+-- before the backend first runs LoanPartitionManager, which keeps creating them ahead and
+-- archives expired ones. There is deliberately no DEFAULT partition: it would prevent
+-- DETACH PARTITION ... CONCURRENTLY.
+DO $$
+DECLARE
+  m TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC');
+BEGIN
+  FOR i IN 0..3 LOOP
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF loan_applications FOR VALUES FROM (%L) TO (%L)',
+                   'loan_applications_p' || to_char(m + make_interval(months => i), 'YYYYMM'),
+                   (m + make_interval(months => i)) AT TIME ZONE 'UTC',
+                   (m + make_interval(months => i + 1)) AT TIME ZONE 'UTC');
+  END LOOP;
+END $$;
+
+-- Keyset pagination (GET /loans) and exports read newest first on (created_at, id);
+-- indexes on the parent are created on every partition
+CREATE INDEX IF NOT EXISTS idx_loan_applications_created_at
+  ON loan_applications (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_loan_applications_decision_created_at
+  ON loan_applications (decision, created_at DESC, id DESC);
+
+-- Write-behind queue for the Snowflake sync; rows are deleted once shipped,
+-- DEAD rows are kept for inspection and manual replay
+CREATE TABLE IF NOT EXISTS snowflake_outbox(
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  application_id UUID NOT NULL,
+  status TEXT NOT NULL DEFAULT 'PENDING', -- PENDING/DEAD
+  attempts INT NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  last_error TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_snowflake_outbox_pending
+  ON snowflake_outbox (created_at) WHERE status = 'PENDING';
+
+-- Bulk CSV backfill runs (POST /ingest/jobs); checkpoint_line is the last CSV line
+-- (header = 1) fully stored or rejected, and a resumed job continues after it
+CREATE TABLE IF NOT EXISTS ingest_jobs(
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  source TEXT NOT NULL,
+  status TEXT NOT NULL, -- RUNNING/COMPLETED/FAILED/CANCELLED
+  checkpoint_line BIGINT NOT NULL DEFAULT 1,
+  rows_accepted BIGINT NOT NULL DEFAULT 0,
+  rows_rejected BIGINT NOT NULL DEFAULT 0,
+  last_error TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  finished_at TIMESTAMPTZ
 );
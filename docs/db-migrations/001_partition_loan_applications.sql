@@ -0,0 +1,51 @@
+-- One-off conversion of an existing, unpartitioned loan_applications (created by an older
+-- 01_schema.sql or by Hibernate's ddl-auto) into the monthly partitions LoanPartitionManager
+-- maintains. Fresh databases get the partitioned table from docs/db-init/01_schema.sql.
+-- Run once with the backend stopped:
+--   docker compose exec -T db psql -U bank -d bankdb -v ON_ERROR_STOP=1 < docs/db-migrations/001_partition_loan_applications.sql
+-- Rows are copied in one transaction. The old table is kept as
+-- loan_applications_unpartitioned; drop it once the row counts match.
+
+BEGIN;
+
+ALTER TABLE loan_applications RENAME TO loan_applications_unpartitioned;
+ALTER TABLE loan_applications_unpartitioned RENAME CONSTRAINT loan_applications_pkey TO loan_applications_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_loan_applications_created_at RENAME TO idx_loan_applications_unpartitioned_created_at;
+ALTER INDEX IF EXISTS idx_loan_applications_decision_created_at RENAME TO idx_loan_applications_unpartitioned_decision;
+
+CREATE TABLE loan_applications(
+  id UUID NOT NULL DEFAULT gen_random_uuid(),
+  user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+  payload JSONB NOT NULL,
+  risk_score NUMERIC(6,4),
+  decision TEXT,
+  shap_values JSONB,
+  decision_rule TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- A partition for every month that has rows, through three months ahead
+DO $$
+DECLARE
+  m TIMESTAMP;
+  last TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+  SELECT date_trunc('month', COALESCE(min(created_at), now()) AT TIME ZONE 'UTC') INTO m
+  FROM loan_applications_unpartitioned;
+  WHILE m <= last LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF loan_applications FOR VALUES FROM (%L) TO (%L)',
+                   'loan_applications_p' || to_char(m, 'YYYYMM'),
+                   m AT TIME ZONE 'UTC', (m + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    m := m + INTERVAL '1 month';
+  END LOOP;
+END $$;
+
+INSERT INTO loan_applications (id, user_id, payload, risk_score, decision, shap_values, decision_rule, created_at)
+SELECT id, user_id, payload, risk_score, decision, shap_values, decision_rule, COALESCE(created_at, now())
+FROM loan_applications_unpartitioned;
+
+CREATE INDEX idx_loan_applications_created_at ON loan_applications (created_at DESC, id DESC);
+CREATE INDEX idx_loan_applications_decision_created_at ON loan_applications (decision, created_at DESC, id DESC);
+
+COMMIT;
@@ -127,6 +127,8 @@ SELECT
     SUM(IS_DENIED) AS DENIED_COUNT,
     ROUND(SUM(IS_APPROVED) * 100.0 / COUNT(*), 2) AS APPROVAL_RATE_PERCENT
 FROM V_LOAN_APPLICATIONS
+-- rule-decided and fallback rows have no score to bucket
+WHERE RISK_SCORE IS NOT NULL
 GROUP BY RISK_SCORE_BUCKET
 ORDER BY RISK_SCORE_BUCKET;
 
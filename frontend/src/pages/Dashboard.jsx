@@ -5,6 +5,7 @@ export default function Dashboard() {
   const [rows, setRows] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
+  const [summary, setSummary] = useState(null);
 
   const fetchRecentLoans = async () => {
     try {
@@ -22,20 +23,61 @@ export default function Dashboard() {
     }
   };
 
-  useEffect(() => {
+  // Portfolio totals with their freshness: Snowflake answers come from a cached snapshot
+  // (cache_age_seconds old), in-memory ones are current
+  const fetchSummary = async () => {
+    try {
+      const r = await fetch("/api/analytics/summary");
+      if (!r.ok) throw new Error(`HTTP ${r.status}`);
+      setSummary(await r.json());
+    } catch (e) {
+      console.error("Failed to fetch analytics summary:", e);
+      setSummary(null);
+    }
+  };
+
+  const refresh = () => {
     fetchRecentLoans();
+    fetchSummary();
+  };
+
+  useEffect(() => {
+    refresh();
   }, []);
 
-  // Listen for storage events to refresh when a new loan is submitted
+  const formatFreshness = (s) => {
+    if (s.source !== "snowflake") return s.aggregates_ready === false ? "Live, still loading history" : "Live";
+    const age = Number(s.cache_age_seconds);
+    if (age < 60) return `Snowflake snapshot, ${age}s old`;
+    if (age < 3600) return `Snowflake snapshot, ${Math.round(age / 60)} min old`;
+    return `Snowflake snapshot from ${new Date(s.refreshed_at).toLocaleString()}`;
+  };
+
+  // Live updates: the backend pushes each decision, and the factors of deferred
+  // explanations once computed. EventSource reconnects on its own and resumes from
+  // the last event it saw.
   useEffect(() => {
-    const handleStorageChange = (e) => {
-      if (e.key === 'loanSubmitted') {
-        fetchRecentLoans();
-      }
-    };
+    const source = new EventSource("/api/loans/stream");
+
+    source.addEventListener("decision", (e) => {
+      const row = JSON.parse(e.data);
+      setRows((current) =>
+        [row, ...current.filter((r) => r.applicationId !== row.applicationId)].slice(0, 10)
+      );
+      setLoading(false);
+    });
 
-    window.addEventListener('storage', handleStorageChange);
-    return () => window.removeEventListener('storage', handleStorageChange);
+    source.addEventListener("explanation", (e) => {
+      const { applicationId, top_factors } = JSON.parse(e.data);
+      setRows((current) =>
+        current.map((r) => (r.applicationId === applicationId ? { ...r, top_factors } : r))
+      );
+    });
+
+    source.onopen = () => setError("");
+    source.onerror = () => setError("Live updates disconnected, reconnecting...");
+
+    return () => source.close();
   }, []);
 
   const formatTopFactors = (topFactors) => {
@@ -82,6 +124,34 @@ export default function Dashboard() {
         </a>
       </div>
 
+      {summary && summary.status === "success" && (
+        <div className="mb-6 rounded-xl border bg-white shadow-sm px-5 py-4 flex flex-wrap items-center gap-x-8 gap-y-2 text-sm">
+          <div>
+            <span className="text-slate-500">Applications </span>
+            <span className="font-medium">{summary.total_applications}</span>
+          </div>
+          <div>
+            <span className="text-slate-500">Approval rate </span>
+            <span className="font-medium">
+              {summary.overall_approval_rate_percent == null ? "-" : `${summary.overall_approval_rate_percent}%`}
+            </span>
+          </div>
+          <div>
+            <span className="text-slate-500">Avg. risk score </span>
+            <span className="font-mono">
+              {summary.average_risk_score == null ? "-" : Number(summary.average_risk_score).toFixed(4)}
+            </span>
+          </div>
+          <div>
+            <span className="text-slate-500">Last 7 days </span>
+            <span className="font-medium">{summary.applications_last_7_days}</span>
+          </div>
+          <div className="ml-auto text-xs text-slate-500" title={summary.refreshed_at || ""}>
+            {formatFreshness(summary)}
+          </div>
+        </div>
+      )}
+
       {error && (
         <div className="mb-6 p-4 border border-red-300 bg-red-50 rounded text-red-800">
           {error}
@@ -92,7 +162,7 @@ export default function Dashboard() {
         <div className="border-b px-5 py-3 font-medium flex items-center justify-between">
           <span>Recent Loan Decisions</span>
           <button 
-            onClick={fetchRecentLoans}
+            onClick={refresh}
             disabled={loading}
             className="text-sm text-indigo-600 hover:text-indigo-800 disabled:opacity-50"
           >
@@ -38,16 +38,6 @@ export default function Loan() {
       if (!res.ok) throw new Error(`HTTP ${res.status}: ${await res.text()}`);
       const result = await res.json();
       setResult(result);
-      
-      // Trigger dashboard refresh by setting a storage event
-      localStorage.setItem('loanSubmitted', Date.now().toString());
-      
-      // Also trigger the event for the current window
-      window.dispatchEvent(new StorageEvent('storage', {
-        key: 'loanSubmitted',
-        newValue: Date.now().toString()
-      }));
-      
     } catch (e) {
       setError(String(e));
     } finally {
@@ -55,6 +45,19 @@ export default function Loan() {
     }
   };
 
+  // Top factors are computed after the fact when the backend defers explanations
+  const explain = async () => {
+    setError("");
+    try {
+      const res = await fetch(`/api/loans/${result.applicationId}/explanation`);
+      if (!res.ok) throw new Error(`HTTP ${res.status}: ${await res.text()}`);
+      const explained = await res.json();
+      setResult((r) => ({ ...r, top_factors: explained.top_factors }));
+    } catch (e) {
+      setError(String(e));
+    }
+  };
+
   const checkBackend = async () => {
     try {
       const r = await fetch("/api/health");
@@ -165,6 +168,12 @@ export default function Loan() {
             Risk Score: <strong>{Number(result.risk_score).toFixed(4)}</strong>
           </div>
 
+          {result.top_factors == null && result.risk_score != null && (
+            <button onClick={explain} className="mt-3 px-3 py-1 rounded-lg border text-sm">
+              Show top factors
+            </button>
+          )}
+
           {Array.isArray(result.top_factors) && result.top_factors.length > 0 && (
             <div className="mt-3">
               <div className="font-medium mb-2">Top Factors</div>
@@ -0,0 +1,47 @@
+package com.example.loadtest;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// LoanApplicationRequest bodies with roughly the training data's ranges. With a pool of
+// distinct applicants repeats hit the backend's prediction cache; 0 makes every body unique.
+public class ApplicationGenerator {
+
+    private final String[] pool;
+
+    public ApplicationGenerator(int applicants, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.pool = new String[Math.max(applicants, 0)];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = application(random);
+        }
+    }
+
+    public String next(SplittableRandom random) {
+        return pool.length > 0 ? pool[random.nextInt(pool.length)] : application(random);
+    }
+
+    static String application(SplittableRandom random) {
+        return String.format(Locale.ROOT, """
+                {"RevolvingUtilizationOfUnsecuredLines":%.4f,"age":%d,\
+                "NumberOfTime30_59DaysPastDueNotWorse":%d,"DebtRatio":%.4f,"MonthlyIncome":%.0f,\
+                "NumberOfOpenCreditLinesAndLoans":%d,"NumberOfTimes90DaysLate":%d,\
+                "NumberRealEstateLoansOrLines":%d,"NumberOfTime60_89DaysPastDueNotWorse":%d,\
+                "NumberOfDependents":%d}""",
+                random.nextDouble() * 1.2,
+                random.nextInt(21, 90),
+                late(random, 0.16),
+                random.nextDouble() * 2,
+                Math.exp(7 + random.nextDouble() * 3),
+                random.nextInt(0, 25),
+                late(random, 0.06),
+                random.nextInt(0, 4),
+                late(random, 0.05),
+                random.nextInt(0, 5));
+    }
+
+    // Most applicants have never been late
+    private static int late(SplittableRandom random, double share) {
+        return random.nextDouble() < share ? random.nextInt(1, 6) : 0;
+    }
+}
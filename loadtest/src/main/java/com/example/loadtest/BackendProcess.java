@@ -0,0 +1,102 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The backend exec jar in its own JVM, started in the run directory so its relative paths
+// (staging, archive) stay there. Snowflake is replaced by the in-memory sink and analytics
+// are served from in-process aggregates; scenario properties are applied last.
+public class BackendProcess implements AutoCloseable {
+
+    private final Process process;
+    private final int port;
+
+    private BackendProcess(Process process, int port) {
+        this.process = process;
+        this.port = port;
+    }
+
+    public static BackendProcess start(Path jar, Path runDir, Database database, int mlPort,
+                                       Map<String, String> overrides, List<String> jvmOptions) throws IOException {
+        int port = freePort();
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", String.valueOf(port));
+        properties.put("spring.datasource.url", database.jdbcUrl());
+        properties.put("spring.datasource.username", database.username());
+        properties.put("spring.datasource.password", database.password());
+        properties.put("ml.base-url", "http://127.0.0.1:" + mlPort);
+        properties.put("ml.scorer", "remote");
+        properties.put("snowflake.sink", "memory");
+        properties.put("analytics.source", "memory");
+        properties.put("ingest.base-dir", runDir.resolve("ingest").toString());
+        properties.putAll(overrides);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        properties.forEach((name, value) -> command.add("--" + name + "=" + value));
+        Process process = new ProcessBuilder(command)
+                .directory(runDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(runDir.resolve("backend.log").toFile())
+                .start();
+        return new BackendProcess(process, port);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    public void awaitReady(Duration timeout) throws InterruptedException {
+        awaitReady(baseUrl(), timeout, process);
+    }
+
+    // Polls the readiness probe, which only reports UP once startup (and the warm-up) is done
+    public static void awaitReady(String baseUrl, Duration timeout, Process process) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (process != null && !process.isAlive()) {
+                throw new IllegalStateException("Backend exited with " + process.exitValue() + "; see backend.log");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Backend at " + baseUrl + " not ready after " + timeout);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
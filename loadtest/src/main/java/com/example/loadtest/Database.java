@@ -0,0 +1,82 @@
+package com.example.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Postgres for one run: an embedded server (real Postgres binaries, unpacked from the jar)
+// in the run directory, or an existing one given with --jdbc-url. Either way the schema
+// is created from docs/db-init, as the db service in docker-compose.yml does.
+public class Database implements AutoCloseable {
+
+    private final EmbeddedPostgres embedded;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    private Database(EmbeddedPostgres embedded, String jdbcUrl, String username, String password) {
+        this.embedded = embedded;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static Database embedded(Path dataDir) throws IOException {
+        if ("root".equals(System.getProperty("user.name"))) {
+            throw new IllegalStateException("Postgres refuses to run as root; run as another user or pass --jdbc-url");
+        }
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setDataDirectory(dataDir)
+                .setCleanDataDirectory(true)
+                // headroom for scenarios that raise the backend's pool sizes
+                .setServerConfig("max_connections", "300")
+                .start();
+        return new Database(postgres, postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+    }
+
+    public static Database external(String jdbcUrl, String username, String password) {
+        return new Database(null, jdbcUrl, username, password);
+    }
+
+    public void createSchema(Path initDir) throws IOException, SQLException {
+        List<Path> scripts;
+        try (Stream<Path> files = Files.list(initDir)) {
+            scripts = files.filter(f -> f.toString().endsWith(".sql")).sorted().toList();
+        }
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password);
+             Statement statement = connection.createStatement()) {
+            for (Path script : scripts) {
+                String sql = Files.readString(script, StandardCharsets.UTF_8);
+                statement.execute(sql.startsWith("\uFEFF") ? sql.substring(1) : sql);
+            }
+        }
+    }
+
+    public String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public String password() {
+        return password;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.loadtest;
+
+import java.util.SplittableRandom;
+
+// Stub ml-service latency: "fixed:5", "uniform:2,20" or "lognormal:12,60" (median and
+// p99 in milliseconds; model latency has a long right tail, which lognormal captures).
+public interface LatencyDistribution {
+
+    double sampleMs(SplittableRandom random);
+
+    static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return random -> 0;
+        }
+        String[] kind = spec.trim().split(":", 2);
+        String[] args = kind.length > 1 ? kind[1].split(",") : new String[0];
+        switch (kind[0]) {
+            case "fixed" -> {
+                double ms = arg(spec, args, 0);
+                return random -> ms;
+            }
+            case "uniform" -> {
+                double min = arg(spec, args, 0);
+                double max = arg(spec, args, 1);
+                return random -> min + random.nextDouble() * (max - min);
+            }
+            case "lognormal" -> {
+                double median = arg(spec, args, 0);
+                double p99 = arg(spec, args, 1);
+                if (p99 < median) {
+                    throw new IllegalArgumentException("p99 below median in " + spec);
+                }
+                // p99 = median * exp(2.326 sigma)
+                double sigma = Math.log(p99 / median) / 2.3263;
+                double mu = Math.log(median);
+                return random -> Math.exp(mu + sigma * random.nextGaussian());
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution " + spec);
+        }
+    }
+
+    private static double arg(String spec, String[] args, int i) {
+        if (args.length <= i) {
+            throw new IllegalArgumentException("Missing argument " + (i + 1) + " in " + spec);
+        }
+        return Double.parseDouble(args[i].trim());
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs one scenario end to end on this machine:
+//
+//   java -jar target/loadtest.jar scenarios/baseline.json
+//
+// starts the stub ml-service, an embedded Postgres and the backend jar, applies the load
+// and writes results/<scenario>-<time>/ (summary.json, summary.txt, one .hgrm per endpoint
+// and backend.log). Options:
+//   --backend-jar <path>     default ../backend/target/backend-0.0.1-SNAPSHOT-exec.jar
+//   --backend-url <url>      load an already running backend instead (no Postgres or backend
+//                            process is started; point its ml.base-url at --stub-port)
+//   --stub-port <port>       default: any free port
+//   --jdbc-url <url>         use an existing Postgres (with --db-user, --db-password)
+//   --jvm-opt <option>       backend JVM option, repeatable (e.g. -Xmx1g)
+//   --results <dir>          default results
+public class LoadTest {
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.computeIfAbsent(args[i].substring(2), k -> new ArrayList<>()).add(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 1) {
+            System.err.println("usage: java -jar loadtest.jar <scenario.json> [options]; see LoadTest.java");
+            System.exit(2);
+        }
+        Scenario scenario = Scenario.read(Path.of(positional.get(0)));
+        Instant started = Instant.now();
+        Path runDir = Path.of(option(options, "results", "results")).resolve(scenario.name() + "-" + RUN_ID.format(started));
+        Files.createDirectories(runDir);
+        System.out.println("Scenario " + scenario.name() + ", results in " + runDir);
+
+        try (StubMlServer stub = new StubMlServer(scenario.stub(), Integer.parseInt(option(options, "stub-port", "0")))) {
+            System.out.println("Stub ml-service on port " + stub.port());
+            String backendUrl = option(options, "backend-url", null);
+            if (backendUrl != null) {
+                BackendProcess.awaitReady(backendUrl, Duration.ofSeconds(10), null);
+                run(scenario, backendUrl, stub, runDir, started);
+                return;
+            }
+            String jdbcUrl = option(options, "jdbc-url", null);
+            try (Database database = jdbcUrl != null
+                    ? Database.external(jdbcUrl, option(options, "db-user", "bank"), option(options, "db-password", "bankpass"))
+                    : Database.embedded(runDir.resolve("postgres"))) {
+                database.createSchema(Path.of(option(options, "db-init", "../docs/db-init")));
+                System.out.println("Postgres at " + database.jdbcUrl());
+                Path jar = Path.of(option(options, "backend-jar", "../backend/target/backend-0.0.1-SNAPSHOT-exec.jar"));
+                try (BackendProcess backend = BackendProcess.start(jar, runDir, database, stub.port(),
+                        scenario.backendProperties(), options.getOrDefault("jvm-opt", List.of()))) {
+                    long t0 = System.nanoTime();
+                    backend.awaitReady(Duration.ofMinutes(3));
+                    System.out.printf("Backend ready at %s after %.1f s%n", backend.baseUrl(), (System.nanoTime() - t0) / 1e9);
+                    run(scenario, backend.baseUrl(), stub, runDir, started);
+                }
+            }
+        }
+    }
+
+    private static void run(Scenario scenario, String baseUrl, StubMlServer stub, Path runDir, Instant started)
+            throws InterruptedException, IOException {
+        System.out.printf("Warm-up %d s, measuring %d s%n", scenario.warmupSeconds(), scenario.durationSeconds());
+        List<OpenLoadGenerator.EndpointResult> results = new OpenLoadGenerator(scenario, baseUrl).run();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", scenario.name());
+        summary.put("description", scenario.description());
+        summary.put("started", started.toString());
+        summary.put("commit", gitCommit());
+        summary.put("warmupSeconds", scenario.warmupSeconds());
+        summary.put("durationSeconds", scenario.durationSeconds());
+        summary.put("backend", scenario.backendProperties());
+        summary.put("stub", scenario.stub());
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (OpenLoadGenerator.EndpointResult result : results) {
+            endpoints.add(endpointSummary(result));
+            try (PrintStream out = new PrintStream(runDir.resolve(result.name() + ".hgrm").toFile(), StandardCharsets.UTF_8)) {
+                result.latency().outputPercentileDistribution(out, 1e6);
+            }
+        }
+        summary.put("endpoints", endpoints);
+        summary.put("stubCalls", stub.stats());
+        summary.put("warehouseRows", metric(baseUrl, "snowflake.memory.rows"));
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(runDir.resolve("summary.json").toFile(), summary);
+        String text = table(results);
+        Files.writeString(runDir.resolve("summary.txt"), text);
+        System.out.print(text);
+    }
+
+    private static Map<String, Object> endpointSummary(OpenLoadGenerator.EndpointResult result) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("name", result.name());
+        out.put("targetRate", result.targetRate());
+        out.put("throughput", Math.round(result.throughput() * 10) / 10.0);
+        out.put("completed", result.completed());
+        out.put("errors", result.errors());
+        out.put("dropped", result.dropped());
+        out.put("statuses", result.statuses());
+        Map<String, Object> latency = new LinkedHashMap<>();
+        Histogram h = result.latency();
+        latency.put("p50", ms(h.getValueAtPercentile(50)));
+        latency.put("p90", ms(h.getValueAtPercentile(90)));
+        latency.put("p99", ms(h.getValueAtPercentile(99)));
+        latency.put("p999", ms(h.getValueAtPercentile(99.9)));
+        latency.put("max", ms(h.getMaxValue()));
+        latency.put("mean", ms(h.getMean()));
+        out.put("latencyMs", latency);
+        return out;
+    }
+
+    private static String table(List<OpenLoadGenerator.EndpointResult> results) {
+        StringBuilder out = new StringBuilder(String.format("%-16s %8s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "target/s", "ok/s", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (OpenLoadGenerator.EndpointResult r : results) {
+            Histogram h = r.latency();
+            out.append(String.format("%-16s %8.1f %8.1f %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    r.name(), r.targetRate(), r.throughput(), r.errors(), r.dropped(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue())));
+        }
+        return out.toString();
+    }
+
+    private static double ms(double nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    private static Object metric(String baseUrl, String name) {
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + name)).timeout(Duration.ofSeconds(5)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonNode measurements = new ObjectMapper().readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? null : measurements.get(0).path("value").asLong();
+        } catch (IOException | InterruptedException e) {
+            return null;
+        }
+    }
+
+    private static String gitCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String out = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 ? out : null;
+        } catch (IOException | InterruptedException e) {
+            return null;
+        }
+    }
+
+    private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values != null ? values.get(values.size() - 1) : defaultValue;
+    }
+}
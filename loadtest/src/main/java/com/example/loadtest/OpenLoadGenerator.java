@@ -0,0 +1,204 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: each endpoint gets its own arrival schedule (constant or Poisson) that
+// does not wait for responses. Latency runs from the scheduled send time rather than the
+// actual one, so a stalled backend shows up as queueing delay instead of being hidden by
+// fewer requests (coordinated omission). Only requests scheduled after the warm-up count.
+public class OpenLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Scenario scenario;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<EndpointRun> runs = new ArrayList<>();
+
+    public OpenLoadGenerator(Scenario scenario, String baseUrl) {
+        this.scenario = scenario;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(requests)
+                .build();
+        long seed = 1;
+        for (Scenario.Endpoint endpoint : scenario.endpoints()) {
+            runs.add(new EndpointRun(endpoint, seed++));
+        }
+    }
+
+    public List<EndpointResult> run() throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(scenario.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(scenario.durationSeconds());
+        List<Thread> schedulers = new ArrayList<>();
+        for (EndpointRun run : runs) {
+            schedulers.add(Thread.ofPlatform().name("arrivals-" + run.endpoint.name())
+                    .start(() -> run.schedule(start, measureFrom, end)));
+        }
+        long nextReport = start + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < end) {
+            LockSupport.parkNanos(Math.min(end, nextReport) - System.nanoTime());
+            if (System.nanoTime() >= nextReport) {
+                report(nextReport <= measureFrom ? "warm-up" : "measure");
+                nextReport += TimeUnit.SECONDS.toNanos(5);
+            }
+        }
+        for (Thread scheduler : schedulers) {
+            scheduler.join();
+        }
+        // let requests scheduled before the end finish; their latency still counts
+        long drainUntil = System.nanoTime() + REQUEST_TIMEOUT.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(50);
+        }
+        requests.shutdownNow();
+        List<EndpointResult> results = new ArrayList<>();
+        for (EndpointRun run : runs) {
+            results.add(run.result(scenario.durationSeconds()));
+        }
+        return results;
+    }
+
+    private void report(String phase) {
+        StringBuilder line = new StringBuilder(phase).append(": in-flight ").append(inFlight.get());
+        if (!"measure".equals(phase)) {
+            System.out.println(line);
+            return;
+        }
+        for (EndpointRun run : runs) {
+            long errors = run.errors.get();
+            Histogram interval = run.interval();
+            line.append(String.format(" | %s %d ok, p50 %.1f ms, p99 %.1f ms, %d errors",
+                    run.endpoint.name(), interval.getTotalCount(), interval.getValueAtPercentile(50) / 1e6,
+                    interval.getValueAtPercentile(99) / 1e6, errors - run.reportedErrors));
+            run.reportedErrors = errors;
+        }
+        System.out.println(line);
+    }
+
+    // Per-endpoint outcome over the measured window. Latencies are nanoseconds.
+    public record EndpointResult(String name, double targetRate, long completed, long errors, long dropped,
+                                 Map<String, Long> statuses, double throughput, Histogram latency) {
+    }
+
+    private final class EndpointRun {
+
+        private final Scenario.Endpoint endpoint;
+        private final SplittableRandom random;
+        private final ApplicationGenerator applications;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        private Histogram recycled;
+        private long reportedErrors;
+
+        EndpointRun(Scenario.Endpoint endpoint, long seed) {
+            this.endpoint = endpoint;
+            this.random = new SplittableRandom(seed);
+            this.applications = "application".equals(endpoint.body())
+                    ? new ApplicationGenerator(endpoint.applicants(), seed) : null;
+        }
+
+        void schedule(long start, long measureFrom, long end) {
+            double meanGapNanos = 1e9 / endpoint.rate();
+            double t = start;
+            int next = 0;
+            while (t < end) {
+                long intended = (long) t;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                boolean measured = intended >= measureFrom;
+                if (inFlight.get() >= scenario.maxInFlight()) {
+                    if (measured) {
+                        dropped.incrementAndGet();
+                    }
+                } else {
+                    String path = endpoint.paths().get(next++ % endpoint.paths().size());
+                    HttpRequest request = request(path);
+                    inFlight.incrementAndGet();
+                    requests.execute(() -> send(request, intended, measured));
+                }
+                t += endpoint.poisson() ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+            }
+        }
+
+        private HttpRequest request(String path) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+            if (applications != null) {
+                builder.header("Content-Type", "application/json");
+                String body;
+                synchronized (random) {
+                    body = applications.next(random);
+                }
+                return builder.method(endpoint.method(), HttpRequest.BodyPublishers.ofString(body)).build();
+            }
+            return builder.method(endpoint.method(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+
+        private void send(HttpRequest request, long intended, boolean measured) {
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (!measured) {
+                return;
+            }
+            long latency = Math.min(System.nanoTime() - intended, HIGHEST_TRACKABLE_NANOS);
+            statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+            completed.incrementAndGet();
+            if (status >= 200 && status < 300) {
+                recorder.recordValue(latency);
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized Histogram interval() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            total.add(recycled);
+            return recycled;
+        }
+
+        EndpointResult result(int durationSeconds) {
+            interval();
+            Map<String, Long> byStatus = new TreeMap<>();
+            statuses.forEach((status, count) -> byStatus.put(status < 0 ? "io-error" : status.toString(), count.get()));
+            return new EndpointResult(endpoint.name(), endpoint.rate(), completed.get(), errors.get(), dropped.get(),
+                    byStatus, (completed.get() - errors.get()) / (double) durationSeconds, total);
+        }
+    }
+}
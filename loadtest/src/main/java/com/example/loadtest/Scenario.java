@@ -0,0 +1,56 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One load test, read from scenarios/*.json. Arrival rates are per second and independent
+// of response times (open model); maxInFlight only protects the load generator, requests
+// beyond it are counted as dropped rather than queued.
+public record Scenario(String name,
+                       String description,
+                       int warmupSeconds,
+                       int durationSeconds,
+                       int maxInFlight,
+                       Stub stub,
+                       Map<String, String> backend,
+                       List<Endpoint> endpoints) {
+
+    // latency applies to every ml-service call; batch calls add batchItemMs per item.
+    // errorRate is the share of calls answered with 503.
+    public record Stub(String latency, double batchItemMs, double errorRate) {
+    }
+
+    // paths are used round-robin. body: "application" (a LoanApplicationRequest drawn from
+    // a pool of `applicants` distinct ones; 0 = every request unique) or null for none.
+    public record Endpoint(String name, String method, List<String> paths, double rate, String arrival,
+                           String body, int applicants) {
+
+        boolean poisson() {
+            return "poisson".equalsIgnoreCase(arrival);
+        }
+    }
+
+    public static Scenario read(Path file) throws IOException {
+        Scenario s = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(file.toFile(), Scenario.class);
+        if (s.endpoints() == null || s.endpoints().isEmpty()) {
+            throw new IllegalArgumentException(file + " has no endpoints");
+        }
+        for (Endpoint e : s.endpoints()) {
+            if (e.rate() <= 0 || e.paths() == null || e.paths().isEmpty()) {
+                throw new IllegalArgumentException("Endpoint " + e.name() + " needs a positive rate and at least one path");
+            }
+        }
+        return s;
+    }
+
+    public Map<String, String> backendProperties() {
+        return backend != null ? backend : new LinkedHashMap<>();
+    }
+}
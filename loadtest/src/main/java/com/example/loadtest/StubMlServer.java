@@ -0,0 +1,170 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stand-in for ml-service with its JSON contract (/predict, /predict/batch,
+// /explain/batch, /health) and configurable latency and error rate. Scores are a hash of
+// each application, so the same application always gets the same score and decision and
+// the backend's prediction cache behaves as it would against the real model.
+public class StubMlServer implements AutoCloseable {
+
+    static final String MODEL_VERSION = "stub-1";
+    private static final double DENY_THRESHOLD = 0.35;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final LatencyDistribution latency;
+    private final double batchItemMs;
+    private final double errorRate;
+    private final SplittableRandom seed = new SplittableRandom(42);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StubMlServer(Scenario.Stub stub, int port) throws IOException {
+        this.latency = LatencyDistribution.parse(stub != null ? stub.latency() : null);
+        this.batchItemMs = stub != null ? stub.batchItemMs() : 0;
+        this.errorRate = stub != null ? stub.errorRate() : 0;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/health", exchange -> respond(exchange, 200, Map.of("status", "ok", "model_version", MODEL_VERSION)));
+        server.createContext("/predict", this::predict);
+        server.createContext("/explain/batch", this::explain);
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("requests", requests.get());
+        out.put("applications", items.get());
+        out.put("errors", errors.get());
+        return out;
+    }
+
+    // /predict and /predict/batch (the context matches both)
+    private void predict(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        String explain = query(exchange, "explain", "all");
+        boolean batch = exchange.getRequestURI().getPath().endsWith("/batch");
+        if (!simulate(exchange, batch ? body.size() : 1)) {
+            return;
+        }
+        if (!batch) {
+            respond(exchange, 200, prediction(body, explain));
+            return;
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode results = response.putArray("results");
+        body.forEach(application -> results.add(prediction(application, explain)));
+        respond(exchange, 200, response);
+    }
+
+    private void explain(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        if (!simulate(exchange, body.size())) {
+            return;
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode results = response.putArray("results");
+        body.forEach(application -> results.add(factors(score(application))));
+        response.put("model_version", MODEL_VERSION);
+        respond(exchange, 200, response);
+    }
+
+    // Sleeps for the sampled latency; false (after answering 503) for a simulated failure
+    private boolean simulate(HttpExchange exchange, int n) throws IOException {
+        requests.incrementAndGet();
+        items.addAndGet(n);
+        SplittableRandom random;
+        synchronized (seed) {
+            random = seed.split();
+        }
+        double ms = latency.sampleMs(random) + (n > 1 ? batchItemMs * n : 0);
+        try {
+            Thread.sleep(Duration.ofNanos((long) (ms * 1_000_000)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            respond(exchange, 503, Map.of("detail", "stub error"));
+            return false;
+        }
+        return true;
+    }
+
+    private ObjectNode prediction(JsonNode application, String explain) {
+        double score = score(application);
+        String decision = score > DENY_THRESHOLD ? "DENY" : "APPROVE";
+        ObjectNode out = objectMapper.createObjectNode();
+        out.put("risk_score", score);
+        out.put("decision", decision);
+        if ("all".equals(explain) || ("deny".equals(explain) && "DENY".equals(decision))) {
+            out.set("top_factors", factors(score));
+        } else {
+            out.putNull("top_factors");
+        }
+        out.put("model_version", MODEL_VERSION);
+        return out;
+    }
+
+    // Skewed towards low risk, so most applications are approved as with the real model
+    private static double score(JsonNode application) {
+        long h = application.toString().hashCode() * 0x9E3779B97F4A7C15L;
+        double u = (h >>> 11) * 0x1.0p-53;
+        return u * u;
+    }
+
+    private ArrayNode factors(double score) {
+        ArrayNode factors = objectMapper.createArrayNode();
+        factors.addArray().add("RevolvingUtilizationOfUnsecuredLines").add(score * 0.6);
+        factors.addArray().add("age").add(-score * 0.3);
+        factors.addArray().add("DebtRatio").add(score * 0.1);
+        return factors;
+    }
+
+    private static String query(HttpExchange exchange, String name, String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -1,6 +1,10 @@
-﻿from fastapi import FastAPI
+﻿from fastapi import FastAPI, Request, Response
+from fastapi.concurrency import run_in_threadpool
+from fastapi.responses import JSONResponse
+from fastapi.routing import APIRoute
 from pydantic import BaseModel, Field
-import os, json
+from typing import Literal, get_args
+import os, json, hashlib
 import numpy as np
 import pandas as pd
 import joblib
@@ -10,15 +14,33 @@ BASE = os.path.dirname(__file__)
 ART  = os.path.join(BASE, '..', 'artifacts')
 
 model   = joblib.load(os.path.join(ART, 'model.joblib'))
+# Content hash of the model artifact; clients use it to invalidate cached predictions
+with open(os.path.join(ART, 'model.joblib'), 'rb') as f:
+    MODEL_VERSION = hashlib.sha256(f.read()).hexdigest()[:12]
 imputer = joblib.load(os.path.join(ART, 'imputer.joblib'))
 with open(os.path.join(ART, 'features.json'), 'r') as f:
     FEATURES = json.load(f)
 
+# Compact encoding (MlWireFormat in the backend). Requests are little-endian float32 rows
+# in FEATURES order with NaN for missing values; the backend only sends them while
+# /health reports the same feature_schema as its own, i.e. the same columns in the same
+# order. Responses start with the number of factor slots, then one record per row.
+FEATURE_SCHEMA = hashlib.sha256(",".join(FEATURES).encode()).hexdigest()[:8]
+FEATURES_TYPE = "application/x-loan-features"
+SCORES_TYPE = "application/x-loan-scores"
+TOP_FACTORS = 3
+NOT_EXPLAINED = 255
+FACTOR_FIELDS = [("count", "u1"), ("feature", "u1", (TOP_FACTORS,)), ("impact", "<f8", (TOP_FACTORS,))]
+SCORE_DTYPE = np.dtype([("risk_score", "<f8"), ("deny", "u1")] + FACTOR_FIELDS)
+EXPLAIN_DTYPE = np.dtype(FACTOR_FIELDS)
+
 # SHAP explainer for XGBoost
 explainer = shap.TreeExplainer(model)
 
 app = FastAPI(title="Credit Risk API")
 
+Explain = Literal["all", "deny", "none"]
+
 class LoanInput(BaseModel):
     RevolvingUtilizationOfUnsecuredLines: float = Field(..., ge=0)
     age: int = Field(..., ge=18)
@@ -31,8 +53,8 @@ class LoanInput(BaseModel):
     NumberOfTime60_89DaysPastDueNotWorse: int = Field(..., ge=0)
     NumberOfDependents: int | None = None
 
-    def to_dataframe(self) -> pd.DataFrame:
-        row = {
+    def to_row(self) -> dict:
+        return {
             'RevolvingUtilizationOfUnsecuredLines': self.RevolvingUtilizationOfUnsecuredLines,
             'age': self.age,
             'NumberOfTime30-59DaysPastDueNotWorse': self.NumberOfTime30_59DaysPastDueNotWorse,
@@ -44,32 +66,176 @@ class LoanInput(BaseModel):
             'NumberOfTime60-89DaysPastDueNotWorse': self.NumberOfTime60_89DaysPastDueNotWorse,
             'NumberOfDependents': self.NumberOfDependents,
         }
-        df = pd.DataFrame([row])
-        for c in FEATURES:
-            if c not in df.columns:
-                df[c] = 0
-        return df[FEATURES]
+
+    def to_dataframe(self) -> pd.DataFrame:
+        return to_dataframe([self])
+
+
+def to_dataframe(inputs: list[LoanInput]) -> pd.DataFrame:
+    df = pd.DataFrame([i.to_row() for i in inputs])
+    for c in FEATURES:
+        if c not in df.columns:
+            df[c] = 0
+    return df[FEATURES]
+
+
+# LoanInput's constraints per FEATURES column, for compact requests that bypass pydantic
+def column_rules():
+    fields = [LoanInput.model_fields[f.replace('-', '_')] for f in FEATURES]
+    required = np.array([f.is_required() for f in fields])
+    integer = np.array([f.annotation is int or int in get_args(f.annotation) for f in fields])
+    minimum = np.array([next((m.ge for m in f.metadata if hasattr(m, 'ge')), -np.inf) for f in fields],
+                       dtype=np.float32)
+    return required, integer, minimum
+
+REQUIRED, INTEGER, MINIMUM = column_rules()
+
+
+def invalid_rows(X: np.ndarray) -> np.ndarray:
+    missing = np.isnan(X)
+    with np.errstate(invalid='ignore'):
+        bad = (missing & REQUIRED) | (X < MINIMUM) | (INTEGER & ~missing & (X != np.floor(X)))
+    return np.flatnonzero(bad.any(axis=1))
+
+
+# Largest |impact| first, per row
+def top_indexes(vals: np.ndarray) -> np.ndarray:
+    return np.argsort(np.abs(vals), axis=-1)[..., ::-1][..., :TOP_FACTORS]
+
+
+def top_factors(vals) -> list:
+    return [(FEATURES[i], float(vals[i])) for i in top_indexes(vals)]
+
+
+def shap_rows(X_imp: np.ndarray):
+    vals = explainer.shap_values(pd.DataFrame(X_imp, columns=FEATURES))
+    if isinstance(vals, list):
+        vals = vals[0]
+    return vals
+
+
+# Scores every row of X with a single vectorized predict_proba. SHAP is by far the most
+# expensive part, so it only runs for the rows the caller asks to have explained:
+# explain=all (default), deny (denied rows only) or none. Unexplained rows carry
+# top_factors=null and can be explained later through /explain/batch.
+def predict_rows(X: pd.DataFrame, explain: str = "all"):
+    X_imp = imputer.transform(X)
+
+    # Probability of default (class 1)
+    probas = model.predict_proba(X_imp)[:, 1]
+    deny = probas > 0.35
+
+    if explain == "all":
+        rows = np.arange(len(probas))
+    elif explain == "deny":
+        rows = np.flatnonzero(deny)
+    else:
+        rows = np.arange(0)
+    return probas, deny, rows, (shap_rows(X_imp[rows]) if len(rows) else None)
+
+
+def score(X: pd.DataFrame, explain: str = "all") -> list[dict]:
+    probas, deny, rows, shap_vals = predict_rows(X, explain)
+    factors = {} if shap_vals is None else {int(i): top_factors(vals) for i, vals in zip(rows, shap_vals)}
+    return [{"risk_score": float(proba), "decision": "DENY" if denied else "APPROVE",
+             "top_factors": factors.get(i), "model_version": MODEL_VERSION}
+            for i, (proba, denied) in enumerate(zip(probas, deny))]
+
+
+def encode_factors(out: np.ndarray, rows: np.ndarray, shap_vals) -> None:
+    out["count"] = NOT_EXPLAINED
+    if shap_vals is not None:
+        shap_vals = np.asarray(shap_vals)
+        idx = top_indexes(shap_vals)
+        out["count"][rows] = idx.shape[1]
+        out["feature"][rows] = idx
+        out["impact"][rows] = np.take_along_axis(shap_vals, idx, axis=1)
+
+
+def compact_scores(X: pd.DataFrame, explain: str) -> bytes:
+    out = np.zeros(len(X), dtype=SCORE_DTYPE)
+    if len(X):
+        probas, deny, rows, shap_vals = predict_rows(X, explain)
+        out["risk_score"] = probas
+        out["deny"] = deny
+        encode_factors(out, rows, shap_vals)
+    return bytes([TOP_FACTORS]) + out.tobytes()
+
+
+def compact_explanations(X: pd.DataFrame, explain: str) -> bytes:
+    out = np.zeros(len(X), dtype=EXPLAIN_DTYPE)
+    if len(X):
+        encode_factors(out, np.arange(len(X)), shap_rows(imputer.transform(X)))
+    return bytes([TOP_FACTORS]) + out.tobytes()
+
+
+def compact_handler(encode):
+    async def handle(request: Request) -> Response:
+        params = dict(p.strip().split('=', 1) for p in request.headers['content-type'].split(';')[1:] if '=' in p)
+        if params.get('schema') != FEATURE_SCHEMA:
+            return JSONResponse({"detail": f"feature schema {params.get('schema')} is not {FEATURE_SCHEMA}; send JSON"},
+                                status_code=415)
+        explain = request.query_params.get('explain', 'all')
+        if explain not in get_args(Explain):
+            return JSONResponse({"detail": f"explain must be one of {get_args(Explain)}"}, status_code=422)
+        body = await request.body()
+        row_bytes = 4 * len(FEATURES)
+        if len(body) % row_bytes:
+            return JSONResponse({"detail": f"{len(body)} bytes is not a whole number of {row_bytes}-byte rows"},
+                                status_code=422)
+        X = np.frombuffer(body, dtype='<f4').reshape(-1, len(FEATURES))
+        bad = invalid_rows(X)
+        if len(bad):
+            return JSONResponse({"detail": f"rows {bad[:10].tolist()} violate the LoanInput constraints"},
+                                status_code=422)
+        content = await run_in_threadpool(encode, pd.DataFrame(X, columns=FEATURES), explain)
+        return Response(content, media_type=SCORES_TYPE, headers={"X-Model-Version": MODEL_VERSION})
+    return handle
+
+
+COMPACT_HANDLERS = {
+    "/predict": compact_handler(compact_scores),
+    "/predict/batch": compact_handler(compact_scores),
+    "/explain/batch": compact_handler(compact_explanations),
+}
+
+
+# Compact requests to the scoring routes are answered by COMPACT_HANDLERS; everything else
+# goes through FastAPI's usual pydantic parsing
+class CompactRoute(APIRoute):
+    def get_route_handler(self):
+        json_handler = super().get_route_handler()
+        compact = COMPACT_HANDLERS.get(self.path)
+        if compact is None:
+            return json_handler
+
+        async def handle(request: Request) -> Response:
+            if request.headers.get('content-type', '').split(';')[0].strip().lower() == FEATURES_TYPE:
+                return await compact(request)
+            return await json_handler(request)
+        return handle
+
+
+app.router.route_class = CompactRoute
 
 @app.get("/health")
 def health():
-    return {"status": "ok"}
+    return {"status": "ok", "model_version": MODEL_VERSION, "feature_schema": FEATURE_SCHEMA}
 
 @app.post("/predict")
-def predict(payload: LoanInput):
-    X = payload.to_dataframe()
-    X_imp = imputer.transform(X)
+def predict(payload: LoanInput, explain: Explain = "all"):
+    return score(payload.to_dataframe(), explain)[0]
 
-    # Probability of default (class 1)
-    proba = float(model.predict_proba(X_imp)[:, 1][0])
-
-    # SHAP values (handle list/array shapes)
-    X_imp_df = pd.DataFrame(X_imp, columns=FEATURES)
-    shap_vals = explainer.shap_values(X_imp_df)
-    if isinstance(shap_vals, list):
-        shap_vals = shap_vals[0]
-    vals = shap_vals[0]
-    top_idx = np.argsort(np.abs(vals))[::-1][:3]
-    top_factors = [(FEATURES[i], float(vals[i])) for i in top_idx]
-
-    decision = "DENY" if proba > 0.35 else "APPROVE"
-    return {"risk_score": proba, "decision": decision, "top_factors": top_factors}
+@app.post("/predict/batch")
+def predict_batch(payload: list[LoanInput], explain: Explain = "all"):
+    if not payload:
+        return {"results": []}
+    return {"results": score(to_dataframe(payload), explain)}
+
+# Top SHAP factors only, for predictions that were returned without them
+@app.post("/explain/batch")
+def explain_batch(payload: list[LoanInput]):
+    if not payload:
+        return {"results": [], "model_version": MODEL_VERSION}
+    X_imp = imputer.transform(to_dataframe(payload))
+    return {"results": [top_factors(vals) for vals in shap_rows(X_imp)], "model_version": MODEL_VERSION}
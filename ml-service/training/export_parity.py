@@ -0,0 +1,39 @@
+import os, json
+import numpy as np
+import pandas as pd
+import joblib
+import xgboost as xgb
+
+# Writes parity fixtures for the backend's in-JVM scorer from the trained artifacts:
+# probabilities from predict_proba and exact TreeSHAP contributions (pred_contribs,
+# the same values shap.TreeExplainer returns). Copy the output, together with
+# model.json, imputer.json and features.json, to backend/src/test/resources/scoring/.
+BASE = os.path.dirname(__file__)
+DATA = os.path.join(BASE, '..', 'data', 'cs-training.csv')
+ART  = os.path.join(BASE, '..', 'artifacts')
+N_CASES = 200
+
+model   = joblib.load(os.path.join(ART, 'model.joblib'))
+imputer = joblib.load(os.path.join(ART, 'imputer.joblib'))
+with open(os.path.join(ART, 'features.json'), 'r') as f:
+    FEATURES = json.load(f)
+
+df = pd.read_csv(DATA)
+if df.columns[0].lower().startswith('unnamed'):
+    df = df.drop(columns=[df.columns[0]])
+X = df[FEATURES].sample(n=N_CASES, random_state=7)
+
+X_imp = imputer.transform(X)
+proba = model.predict_proba(X_imp)[:, 1]
+contribs = model.get_booster().predict(xgb.DMatrix(X_imp), pred_contribs=True)
+
+cases = []
+for (_, row), p, c in zip(X.iterrows(), proba, contribs):
+    # backend payload keys use '_' where the CSV columns use '-'
+    inp = {k.replace('-', '_'): (None if pd.isna(v) else v.item()) for k, v in row.items()}
+    cases.append({'input': inp, 'risk_score': float(p), 'contributions': [float(v) for v in c]})
+
+with open(os.path.join(ART, 'parity-cases.json'), 'w') as f:
+    json.dump({'generator': f'xgboost {xgb.__version__} predict_proba / pred_contribs', 'cases': cases}, f)
+
+print(f"Wrote {len(cases)} parity cases.")
@@ -1,4 +1,5 @@
 ﻿import os, json
+import numpy as np
 import pandas as pd
 import joblib
 from sklearn.impute import SimpleImputer
@@ -40,4 +41,28 @@ joblib.dump(imp,   os.path.join(ART, 'imputer.joblib'))
 with open(os.path.join(ART, 'features.json'), 'w') as f:
     json.dump(list(X.columns), f)
 
-print("Saved model + imputer + features.")
+# Portable copies for the backend's in-JVM scorer (ml.scorer=local)
+model.get_booster().save_model(os.path.join(ART, 'model.json'))
+with open(os.path.join(ART, 'imputer.json'), 'w') as f:
+    json.dump({'strategy': 'median', 'statistics': imp.statistics_.tolist()}, f)
+
+# Drift baseline for the backend's DriftMonitor (ml.drift.baseline): per input, the
+# share of missing values, 101 percentiles (for KS) and decile bin edges with the share
+# of present values in each bin (for PSI). A value falls in bin i when exactly i edges
+# are below it, which is np.searchsorted(edges, v, side='left').
+def baseline(values):
+    values = np.asarray(values, dtype=float)
+    present = values[~np.isnan(values)]
+    edges = np.unique(np.quantile(present, np.linspace(0.1, 0.9, 9)))
+    counts = np.bincount(np.searchsorted(edges, present, side='left'), minlength=len(edges) + 1)
+    return {'count': int(len(values)), 'missing': float(1 - len(present) / len(values)),
+            'quantiles': np.quantile(present, np.linspace(0, 1, 101)).tolist(),
+            'edges': edges.tolist(), 'proportions': (counts / len(present)).tolist()}
+
+series = {c: baseline(X[c]) for c in X.columns}
+# In-sample scores; close enough to serving scores for drift, and needs no holdout
+series['risk_score'] = baseline(model.predict_proba(X_imp)[:, 1])
+with open(os.path.join(ART, 'drift-baseline.json'), 'w') as f:
+    json.dump({'source': os.path.basename(DATA), 'series': series}, f)
+
+print("Saved model + imputer + features + drift baseline.")